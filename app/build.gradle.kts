@@ -1,6 +1,7 @@
 plugins {
     alias(libs.plugins.android.application)
     alias(libs.plugins.google.services) // Google Services plugin for Firebase
+    alias(libs.plugins.androidx.baselineprofile)
 }
 
 android {
@@ -21,12 +22,22 @@ android {
 
     buildTypes {
         release {
-            isMinifyEnabled = false
+            // R8 full mode (gradle.properties); -Pminify=false builds the unshrunk "before" APK
+            val minify = providers.gradleProperty("minify").map(String::toBoolean).getOrElse(true)
+            isMinifyEnabled = minify
+            isShrinkResources = minify
             proguardFiles(
                 getDefaultProguardFile("proguard-android-optimize.txt"),
                 "proguard-rules.pro"
             )
         }
+        // Release-like build installed by the :benchmark module (debug-signed, profileable)
+        create("benchmark") {
+            initWith(getByName("release"))
+            signingConfig = signingConfigs.getByName("debug")
+            matchingFallbacks += listOf("release")
+            isDebuggable = false
+        }
     }
     compileOptions {
         // Java for source/target; required for Firebase latest SDKs
@@ -36,6 +47,17 @@ android {
     buildFeatures {
         viewBinding = true
     }
+    // Microbenchmarks in androidTest need a non-debuggable target:
+    // ./gradlew :app:connectedBenchmarkAndroidTest -PtestBuildType=benchmark
+    testBuildType = providers.gradleProperty("testBuildType").getOrElse("debug")
+}
+
+baselineProfile {
+    // One profile for every variant, including the "benchmark" build type
+    mergeIntoMain = true
+    // Regenerate with: ./gradlew :app:generateBaselineProfile
+    automaticGenerationDuringBuild = false
+    dexLayoutOptimization = true
 }
 
 dependencies {
@@ -43,8 +65,15 @@ dependencies {
     implementation(libs.appcompat)
     implementation(libs.material)
     implementation(libs.constraintlayout)
+    implementation(libs.recyclerview)
+    implementation(libs.lifecycle.livedata)
+    implementation(libs.work.runtime)
+    implementation(libs.core.splashscreen)
+    implementation(libs.startup.runtime)
     implementation(libs.navigation.fragment)
     implementation(libs.navigation.ui)
+    // Installs the baseline profile on sideloaded builds (no Play Store cloud profiles)
+    implementation(libs.profileinstaller)
 
     // Firebase (managed by BoM: versions aligned automatically)
     implementation(platform(libs.firebase.bom))
@@ -59,4 +88,6 @@ dependencies {
     testImplementation(libs.junit)
     androidTestImplementation(libs.ext.junit)
     androidTestImplementation(libs.espresso.core)
+    androidTestImplementation(libs.benchmark.junit4)
+    baselineProfile(project(":baselineprofile"))
 }
@@ -18,4 +18,22 @@
 
 # If you keep the line number information, uncomment this to
 # hide the original source file name.
-#-renamesourcefileattribute SourceFile
\ No newline at end of file
+#-renamesourcefileattribute SourceFile
+
+# Firestore maps these by reflection (toObject / set(pojo)): keep the no-arg constructors that
+# full mode would otherwise drop, and the getter, setter and field names it matches against.
+# The app's own reads and writes go through data.Codecs; CodecBenchmark still uses toObject.
+-keepattributes Signature,*Annotation*
+-keep class tn.esprit.myapplication.data.User {
+    public <init>();
+    public <methods>;
+    <fields>;
+}
+-keep class tn.esprit.myapplication.seed.SeedModels$* {
+    public <init>();
+    public <fields>;
+}
+# Enums are matched by constant name, read through the constant's field
+-keepclassmembers enum tn.esprit.myapplication.data.Role {
+    public static final tn.esprit.myapplication.data.Role *;
+}
@@ -0,0 +1,136 @@
+package tn.esprit.myapplication.analytics;
+
+import androidx.benchmark.BenchmarkState;
+import androidx.benchmark.junit4.BenchmarkRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import tn.esprit.myapplication.data.IndicatorItem;
+import tn.esprit.myapplication.data.VitalType;
+
+/**
+ * Cost of the trend engine at 100k readings per user. {@code appendOne} and {@code statsOf100k}
+ * should stay flat as the series grows; {@code build100k} is the one-time history load.
+ *
+ * Run with: ./gradlew :app:connectedBenchmarkAndroidTest -PtestBuildType=benchmark
+ */
+@RunWith(AndroidJUnit4.class)
+public class TrendSeriesBenchmark {
+
+    private static final int POINTS = 100_000;
+    private static final long STEP_MS = 15 * 60_000L;
+
+    @Rule
+    public BenchmarkRule rule = new BenchmarkRule();
+
+    private final long[] times = new long[POINTS];
+    private final double[] values = new double[POINTS];
+
+    @Before
+    public void setUp() {
+        Random r = new Random(42);
+        for (int i = 0; i < POINTS; i++) {
+            times[i] = i * STEP_MS;
+            values[i] = 100 + 20 * Math.sin(i / 96.0) + r.nextGaussian() * 5;
+        }
+    }
+
+    @Test
+    public void build100k() {
+        BenchmarkState state = rule.getState();
+        while (state.keepRunning()) {
+            TrendSeries s = newSeries();
+            for (int i = 0; i < POINTS; i++) s.add(times[i], values[i]);
+        }
+    }
+
+    @Test
+    public void appendOne() {
+        TrendSeries s = filled();
+        long t = times[POINTS - 1];
+        BenchmarkState state = rule.getState();
+        while (state.keepRunning()) {
+            t += STEP_MS;
+            s.add(t, 110);
+        }
+    }
+
+    @Test
+    public void insertOutOfOrderNearEnd() {
+        TrendSeries s = filled();
+        long t = times[POINTS - 1] - STEP_MS / 2;
+        BenchmarkState state = rule.getState();
+        while (state.keepRunning()) {
+            s.add(t, 110);
+        }
+    }
+
+    @Test
+    public void statsOf100k() {
+        TrendSeries s = filled();
+        BenchmarkState state = rule.getState();
+        while (state.keepRunning()) {
+            s.stats();
+        }
+    }
+
+    /** LTTB of the whole 100k series to a ~1080 px wide chart. */
+    @Test
+    public void chartAllTo1080px() {
+        TrendSeries s = filled();
+        BenchmarkState state = rule.getState();
+        while (state.keepRunning()) {
+            s.chart(ChartZoom.ALL, 1080);
+        }
+    }
+
+    /** A live-list publish of one page with a single new reading on top of 100k history points. */
+    @Test
+    public void acceptPageWithOneNewReading() {
+        IndicatorTrends trends = new IndicatorTrends();
+        for (int i = 0; i < POINTS; i++) {
+            trends.visit(VitalType.BLOOD_GLUCOSE, times[i], values[i], Double.NaN, times[i]);
+        }
+        List<IndicatorItem> page = new ArrayList<>();
+        for (int i = POINTS - 30; i < POINTS; i++) page.add(item("old" + i, times[i]));
+        long[] next = {times[POINTS - 1]};
+        BenchmarkState state = rule.getState();
+        while (state.keepRunning()) {
+            state.pauseTiming();
+            next[0] += STEP_MS;
+            page.add(0, item("new" + next[0], next[0]));
+            page.remove(page.size() - 1);
+            state.resumeTiming();
+            trends.accept(page);
+        }
+    }
+
+    private TrendSeries filled() {
+        TrendSeries s = newSeries();
+        for (int i = 0; i < POINTS; i++) s.add(times[i], values[i]);
+        return s;
+    }
+
+    private static TrendSeries newSeries() {
+        return new TrendSeries(IndicatorTrends.ROLLING_WINDOW, ReferenceRange.of(VitalType.BLOOD_GLUCOSE, false));
+    }
+
+    private static IndicatorItem item(String id, long t) {
+        IndicatorItem it = new IndicatorItem();
+        it.id = id;
+        it.type = VitalType.BLOOD_GLUCOSE;
+        it.value = 110;
+        it.value2 = Double.NaN;
+        it.measuredAt = t;
+        it.createdAt = t;
+        return it;
+    }
+}
@@ -0,0 +1,109 @@
+package tn.esprit.myapplication.data;
+
+import androidx.benchmark.BenchmarkState;
+import androidx.benchmark.junit4.BenchmarkRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.WriteBatch;
+
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import tn.esprit.myapplication.seed.SeedCodecs;
+import tn.esprit.myapplication.seed.SeedModels.DoctorSeed;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Time and allocations per document of {@code toObject} (reflection) against the hand-written
+ * {@link Codecs}, on snapshots read back from the Firestore emulator. Start it with
+ * {@code firebase emulators:start --only firestore}; the benchmarks are skipped when it isn't
+ * reachable. Each iteration maps {@link #DOCS} documents.
+ *
+ * Run with: ./gradlew :app:connectedBenchmarkAndroidTest -PtestBuildType=benchmark
+ */
+@RunWith(AndroidJUnit4.class)
+public class CodecBenchmark {
+
+    private static final int DOCS = 100;
+
+    @Rule
+    public BenchmarkRule rule = new BenchmarkRule();
+
+    private static List<DocumentSnapshot> users;
+    private static List<DocumentSnapshot> doctors;
+
+    @BeforeClass
+    public static void load() throws Exception {
+        assumeTrue("Firestore emulator not running", EmulatorFirestore.reachable());
+        FirebaseFirestore db = EmulatorFirestore.get();
+
+        String run = "bench_" + UUID.randomUUID();
+        WriteBatch batch = db.batch();
+        for (int i = 0; i < DOCS; i++) {
+            User u = new User("First" + i, "Last" + i, i % 2 == 0 ? "Female" : "Male",
+                    i % 10 == 0 ? Role.DOCTOR : Role.PATIENT, i % 3 == 0, "https://example.com/a" + i + ".jpg",
+                    "user" + i + "@example.com");
+            batch.set(db.collection(run + "_users").document("u" + i), Codecs.USER.toMap(u));
+
+            DoctorSeed d = new DoctorSeed();
+            d.fullName = "Dr. Doctor " + i;
+            d.specialty = "Cardiology";
+            d.hospital = "Hospital " + (i % 7);
+            d.avatarUrl = "https://example.com/d" + i + ".jpg";
+            batch.set(db.collection(run + "_doctors").document("d" + i), SeedCodecs.DOCTOR.toMap(d));
+        }
+        await(batch.commit());
+        users = await(db.collection(run + "_users").get()).getDocuments();
+        doctors = await(db.collection(run + "_doctors").get()).getDocuments();
+        assertEquals(DOCS, users.size());
+        assertEquals(DOCS, doctors.size());
+    }
+
+    @Test
+    public void userReflection() {
+        BenchmarkState state = rule.getState();
+        while (state.keepRunning()) {
+            for (DocumentSnapshot d : users) d.toObject(User.class);
+        }
+    }
+
+    @Test
+    public void userCodec() {
+        BenchmarkState state = rule.getState();
+        while (state.keepRunning()) {
+            for (DocumentSnapshot d : users) Codecs.USER.fromSnapshot(d);
+        }
+    }
+
+    @Test
+    public void doctorReflection() {
+        BenchmarkState state = rule.getState();
+        while (state.keepRunning()) {
+            for (DocumentSnapshot d : doctors) d.toObject(DoctorSeed.class);
+        }
+    }
+
+    @Test
+    public void doctorCodec() {
+        BenchmarkState state = rule.getState();
+        while (state.keepRunning()) {
+            for (DocumentSnapshot d : doctors) SeedCodecs.DOCTOR.fromSnapshot(d);
+        }
+    }
+
+    private static <T> T await(Task<T> task) throws Exception {
+        return Tasks.await(task, 20, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,48 @@
+package tn.esprit.myapplication.data;
+
+import android.content.Context;
+
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.google.firebase.FirebaseApp;
+import com.google.firebase.firestore.FirebaseFirestore;
+
+import java.net.InetSocketAddress;
+import java.net.Socket;
+
+/**
+ * Firestore client of the local emulator ({@code firebase emulators:start --only firestore}) for
+ * instrumented tests. It belongs to a FirebaseApp of its own: the default app's client may already
+ * be running, started by FirebaseInitializer's warm-up when the device is signed in, and
+ * {@code useEmulator} can't be applied to a running client.
+ */
+final class EmulatorFirestore {
+
+    // The host machine as seen from the Android emulator
+    static final String HOST = "10.0.2.2";
+    static final int PORT = 8080;
+    private static final String APP_NAME = "emulator";
+
+    private static FirebaseFirestore db;
+
+    private EmulatorFirestore() {}
+
+    static synchronized FirebaseFirestore get() {
+        if (db == null) {
+            Context ctx = InstrumentationRegistry.getInstrumentation().getTargetContext();
+            FirebaseApp app = FirebaseApp.initializeApp(ctx, FirebaseApp.getInstance().getOptions(), APP_NAME);
+            db = FirebaseFirestore.getInstance(app);
+            db.useEmulator(HOST, PORT);
+        }
+        return db;
+    }
+
+    static boolean reachable() {
+        try (Socket s = new Socket()) {
+            s.connect(new InetSocketAddress(HOST, PORT), 500);
+            return true;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+}
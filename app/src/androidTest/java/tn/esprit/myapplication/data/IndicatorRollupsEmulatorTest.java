@@ -0,0 +1,127 @@
+package tn.esprit.myapplication.data;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Runs {@link IndicatorRollups#add} against the Firestore emulator. Start it with
+ * {@code firebase emulators:start --only firestore}; the tests are skipped when it isn't reachable.
+ */
+@RunWith(AndroidJUnit4.class)
+public class IndicatorRollupsEmulatorTest {
+
+    private static final TimeZone TZ = TimeZone.getTimeZone("UTC");
+    private static final long DAY_MS = TimeUnit.DAYS.toMillis(1);
+    // Wednesday 2025-01-15 12:00 UTC
+    private static final long NOON = 1_736_942_400_000L;
+
+    private static FirebaseFirestore db;
+
+    @BeforeClass
+    public static void connect() {
+        assumeTrue("Firestore emulator not running", EmulatorFirestore.reachable());
+        db = EmulatorFirestore.get();
+    }
+
+    @Test
+    public void foldsReadingsIntoDayAndWeek() throws Exception {
+        String uid = "test_" + UUID.randomUUID();
+        await(IndicatorRollups.add(db, uid, glucose(NOON, 110), TZ));
+        await(IndicatorRollups.add(db, uid, glucose(NOON + 60_000, 150), TZ));
+        // Earlier reading written last: must not replace "last"
+        await(IndicatorRollups.add(db, uid, glucose(NOON - 60_000, 90), TZ));
+        // Monday of the same week
+        await(IndicatorRollups.add(db, uid, glucose(NOON - 2 * DAY_MS, 100), TZ));
+
+        IndicatorRollup day = rollup(uid, IndicatorRollups.Period.DAY, NOON);
+        assertEquals(3, day.count);
+        assertEquals(350, day.sum, 1e-9);
+        assertEquals(90, day.min, 1e-9);
+        assertEquals(150, day.max, 1e-9);
+        assertEquals(150, day.last, 1e-9);
+        assertEquals(NOON + 60_000, day.lastAt);
+
+        IndicatorRollup week = rollup(uid, IndicatorRollups.Period.WEEK, NOON);
+        assertEquals(4, week.count);
+        assertEquals(450, week.sum, 1e-9);
+    }
+
+    @Test
+    public void concurrentAddsAreNotLost() throws Exception {
+        String uid = "test_" + UUID.randomUUID();
+        List<Task<?>> adds = new ArrayList<>();
+        for (int i = 0; i < 10; i++) adds.add(IndicatorRollups.add(db, uid, glucose(NOON + i, 100 + i), TZ));
+        await(Tasks.whenAll(adds));
+
+        IndicatorRollup day = rollup(uid, IndicatorRollups.Period.DAY, NOON);
+        assertEquals(10, day.count);
+        assertEquals(1045, day.sum, 1e-9);
+        assertEquals(109, day.last, 1e-9);
+    }
+
+    @Test
+    public void otherReadingsAreNotFolded() throws Exception {
+        String uid = "test_" + UUID.randomUUID();
+        IndicatorItem other = glucose(NOON, 5);
+        other.type = VitalType.OTHER;
+        await(IndicatorRollups.add(db, uid, other, TZ));
+        await(IndicatorRollups.add(db, uid, glucose(NOON, 110), TZ));
+        await(IndicatorRollups.rebuild(db, uid, TZ));
+
+        String otherDay = IndicatorRollups.docId(uid, VitalType.OTHER, IndicatorRollups.Period.DAY, NOON, TZ);
+        assertFalse(await(db.collection(IndicatorRollups.COLLECTION).document(otherDay).get()).exists());
+        assertEquals(1, rollup(uid, IndicatorRollups.Period.DAY, NOON).count);
+    }
+
+    @Test
+    public void rebuildKeepsConcurrentAdds() throws Exception {
+        String uid = "test_" + UUID.randomUUID();
+        for (int i = 0; i < 5; i++) await(IndicatorRollups.add(db, uid, glucose(NOON + i, 100), TZ));
+        List<Task<?>> all = new ArrayList<>();
+        all.add(IndicatorRollups.rebuild(db, uid, TZ));
+        for (int i = 5; i < 10; i++) all.add(IndicatorRollups.add(db, uid, glucose(NOON + i, 100), TZ));
+        await(Tasks.whenAll(all));
+
+        IndicatorRollup day = rollup(uid, IndicatorRollups.Period.DAY, NOON);
+        assertEquals(10, day.count);
+        assertEquals(1000, day.sum, 1e-9);
+    }
+
+    private static IndicatorRollup rollup(String uid, IndicatorRollups.Period period, long at) throws Exception {
+        String id = IndicatorRollups.docId(uid, VitalType.BLOOD_GLUCOSE, period, at, TZ);
+        DocumentSnapshot d = await(db.collection(IndicatorRollups.COLLECTION).document(id).get());
+        return IndicatorRollups.fromSnapshot(d);
+    }
+
+    private static IndicatorItem glucose(long at, double value) {
+        IndicatorItem it = new IndicatorItem();
+        it.type = VitalType.BLOOD_GLUCOSE;
+        it.value = value;
+        it.value2 = Double.NaN;
+        it.unit = VitalType.BLOOD_GLUCOSE.unit;
+        it.measuredAt = at;
+        return it;
+    }
+
+    private static <T> T await(Task<T> task) throws Exception {
+        return Tasks.await(task, 20, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,82 @@
+package tn.esprit.myapplication.data;
+
+import androidx.benchmark.BenchmarkState;
+import androidx.benchmark.junit4.BenchmarkRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Booking checks against 50k appointments (a busy doctor's years of history). {@code conflict}
+ * is what rejects a double-booking before any round trip and should stay in the microseconds;
+ * {@code freeSlotsOfDay} is the free-time list of the booking dialog.
+ *
+ * Run with: ./gradlew :app:connectedBenchmarkAndroidTest -PtestBuildType=benchmark
+ */
+@RunWith(AndroidJUnit4.class)
+public class IntervalTreeBenchmark {
+
+    private static final int APPOINTMENTS = 50_000;
+    private static final long SLOT_MS = AppointmentRepository.SLOT_MS;
+    private static final long DAY_MS = 24 * 60 * 60_000L;
+    private static final long T0 = 1_700_000_000_000L / DAY_MS * DAY_MS;
+
+    @Rule
+    public BenchmarkRule rule = new BenchmarkRule();
+
+    private final IntervalTree<AppointmentItem> tree = new IntervalTree<>();
+    private final Random r = new Random(11);
+
+    @Before
+    public void setUp() {
+        for (int i = 0; i < APPOINTMENTS; i++) {
+            AppointmentItem a = new AppointmentItem();
+            a.id = "a" + i;
+            // Ten 15-60 min appointments per day, on the booking grid
+            a.startAt = T0 + (i / 10) * DAY_MS + (8 * 4 + (i % 10) * 4) * SLOT_MS;
+            a.endAt = a.startAt + (1 + r.nextInt(4)) * SLOT_MS;
+            tree.put(a.id, a.startAt, a.endAt, a);
+        }
+    }
+
+    @Test
+    public void conflict() {
+        long days = APPOINTMENTS / 10;
+        assertTrue(tree.overlaps(T0 + 8 * 4 * SLOT_MS, T0 + 9 * 4 * SLOT_MS));
+        BenchmarkState state = rule.getState();
+        while (state.keepRunning()) {
+            long start = T0 + r.nextInt((int) days) * DAY_MS + r.nextInt(96) * SLOT_MS;
+            tree.overlaps(start, start + 2 * SLOT_MS);
+        }
+    }
+
+    @Test
+    public void freeSlotsOfDay() {
+        long days = APPOINTMENTS / 10;
+        BenchmarkState state = rule.getState();
+        while (state.keepRunning()) {
+            long day = T0 + r.nextInt((int) days) * DAY_MS;
+            tree.freeSlots(day + 8 * 4 * SLOT_MS, day + 18 * 4 * SLOT_MS, 2 * SLOT_MS);
+        }
+    }
+
+    @Test
+    public void bookAndRelease() {
+        AppointmentItem a = new AppointmentItem();
+        a.id = "new";
+        BenchmarkState state = rule.getState();
+        while (state.keepRunning()) {
+            a.startAt = T0 + r.nextInt(APPOINTMENTS / 10) * DAY_MS + 19 * 4 * SLOT_MS;
+            a.endAt = a.startAt + 2 * SLOT_MS;
+            tree.put(a.id, a.startAt, a.endAt, a);
+            tree.remove(a.id);
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package tn.esprit.myapplication.data.local;
+
+import android.content.Context;
+
+import androidx.benchmark.BenchmarkState;
+import androidx.benchmark.junit4.BenchmarkRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import tn.esprit.myapplication.data.IndicatorItem;
+import tn.esprit.myapplication.data.VisitItem;
+import tn.esprit.myapplication.data.VitalType;
+
+import static org.junit.Assert.assertFalse;
+
+/**
+ * Search-as-you-type latency with 5k visits and 5k readings cached for one user. Each keystroke
+ * is one {@link SearchIndex#search}; the target is well under 10 ms. {@code upsertOne} is the
+ * cost the FTS triggers add to a cache write.
+ *
+ * Run with: ./gradlew :app:connectedBenchmarkAndroidTest -PtestBuildType=benchmark
+ */
+@RunWith(AndroidJUnit4.class)
+public class SearchIndexBenchmark {
+
+    private static final String UID = "bench_search";
+    private static final int ROWS = 5_000;
+    private static final String[] DOCTORS = {"Lina Ben Salah", "Amine Trabelsi", "Sara Gharbi",
+            "Youssef Haddad", "Mariem Jaziri", "Karim Bouazizi"};
+    private static final String[] SPECIALTIES = {"Cardiology", "Endocrinology", "General Medicine",
+            "Dermatology", "Pediatrics", "Neurology"};
+    private static final String[] WORDS = {"stable", "tension", "élevée", "contrôle", "traitement",
+            "bilan", "hôpital", "suivi", "glycémie", "normal", "repos", "analyse"};
+
+    @Rule
+    public BenchmarkRule rule = new BenchmarkRule();
+
+    private Context ctx;
+    private SearchIndex index;
+    private VisitStore visits;
+
+    @Before
+    public void setUp() {
+        ctx = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        visits = new VisitStore(ctx, UID);
+        IndicatorStore readings = new IndicatorStore(ctx, UID);
+        index = new SearchIndex(ctx, UID);
+
+        Random r = new Random(7);
+        List<VisitItem> vs = new ArrayList<>(ROWS);
+        List<IndicatorItem> is = new ArrayList<>(ROWS);
+        VitalType[] types = VitalType.values();
+        for (int i = 0; i < ROWS; i++) {
+            VisitItem v = new VisitItem();
+            v.id = "v" + i;
+            v.title = "Visit " + i;
+            v.doctorName = "Dr. " + DOCTORS[r.nextInt(DOCTORS.length)];
+            v.specialty = SPECIALTIES[r.nextInt(SPECIALTIES.length)];
+            v.conclusion = WORDS[r.nextInt(WORDS.length)] + " " + WORDS[r.nextInt(WORDS.length)];
+            v.createdAt = 1_700_000_000_000L + i * 60_000L;
+            vs.add(v);
+
+            IndicatorItem it = new IndicatorItem();
+            it.id = "i" + i;
+            it.type = types[r.nextInt(types.length - 1)];
+            it.value = 50 + r.nextInt(100);
+            it.value2 = it.type.hasSecondaryValue() ? 60 + r.nextInt(30) : Double.NaN;
+            it.unit = it.type.unit;
+            it.measuredAt = 1_700_000_000_000L + i * 60_000L;
+            it.createdAt = it.measuredAt;
+            is.add(it);
+        }
+        visits.upsert(vs);
+        readings.upsert(is);
+    }
+
+    @After
+    public void tearDown() {
+        LocalDb db = LocalDb.get(ctx);
+        db.getWritableDatabase().delete(LocalDb.T_VISITS, "uid = ?", new String[]{UID});
+        db.getWritableDatabase().delete(LocalDb.T_INDICATORS, "uid = ?", new String[]{UID});
+    }
+
+    @Test
+    public void oneLetterPrefix() {
+        BenchmarkState state = rule.getState();
+        while (state.keepRunning()) index.search("c", 50);
+    }
+
+    @Test
+    public void twoWordPrefix() {
+        assertFalse(index.search("card lin", 50).isEmpty());
+        BenchmarkState state = rule.getState();
+        while (state.keepRunning()) index.search("card lin", 50);
+    }
+
+    @Test
+    public void accentInsensitive() {
+        assertFalse(index.search("hopit", 50).isEmpty());
+        BenchmarkState state = rule.getState();
+        while (state.keepRunning()) index.search("hopit", 50);
+    }
+
+    @Test
+    public void readingType() {
+        BenchmarkState state = rule.getState();
+        while (state.keepRunning()) index.search("blood", 50);
+    }
+
+    @Test
+    public void upsertOne() {
+        VisitItem v = new VisitItem();
+        v.id = "v0";
+        v.title = "Visit 0";
+        v.doctorName = "Dr. Lina Ben Salah";
+        v.specialty = "Cardiology";
+        v.createdAt = 1_700_000_000_000L;
+        List<VisitItem> one = Collections.singletonList(v);
+        BenchmarkState state = rule.getState();
+        int i = 0;
+        while (state.keepRunning()) {
+            v.conclusion = WORDS[i++ % WORDS.length];
+            visits.upsert(one);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package tn.esprit.myapplication.analytics;
+
+/** Immutable, downsampled points ready to draw; safe to share between threads. */
+public final class ChartSeries {
+
+    public static final ChartSeries EMPTY = new ChartSeries(new long[0], new double[0], 0, 0);
+
+    public final long[] times;
+    public final double[] values;
+    public final long from;   // window start, epoch millis
+    public final long to;     // window end (newest reading), epoch millis
+    public final double min;
+    public final double max;
+
+    ChartSeries(long[] times, double[] values, long from, long to) {
+        this.times = times;
+        this.values = values;
+        this.from = from;
+        this.to = to;
+        double lo = Double.POSITIVE_INFINITY, hi = Double.NEGATIVE_INFINITY;
+        for (double v : values) {
+            if (v < lo) lo = v;
+            if (v > hi) hi = v;
+        }
+        this.min = values.length == 0 ? Double.NaN : lo;
+        this.max = values.length == 0 ? Double.NaN : hi;
+    }
+
+    public int size() {
+        return times.length;
+    }
+}
@@ -0,0 +1,23 @@
+package tn.esprit.myapplication.analytics;
+
+import java.util.concurrent.TimeUnit;
+
+/** Time window a chart shows, ending at the newest reading. */
+public enum ChartZoom {
+    WEEK("7 days", TimeUnit.DAYS.toMillis(7)),
+    MONTH("30 days", TimeUnit.DAYS.toMillis(30)),
+    YEAR("1 year", TimeUnit.DAYS.toMillis(365)),
+    ALL("All", Long.MAX_VALUE);
+
+    public final String label;
+    public final long spanMs;
+
+    ChartZoom(String label, long spanMs) {
+        this.label = label;
+        this.spanMs = spanMs;
+    }
+
+    public ChartZoom next() {
+        return values()[(ordinal() + 1) % values().length];
+    }
+}
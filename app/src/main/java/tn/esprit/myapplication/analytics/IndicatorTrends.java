@@ -0,0 +1,176 @@
+package tn.esprit.myapplication.analytics;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import tn.esprit.myapplication.data.IndicatorItem;
+import tn.esprit.myapplication.data.VitalType;
+import tn.esprit.myapplication.data.local.IndicatorStore;
+
+/**
+ * Per-type {@link TrendSeries} of one user. History is streamed from the local cache into the
+ * primitive arrays without creating row objects; afterwards only readings outside the loaded
+ * {@code createdAt} range (new ones from the live query, older pages fetched on scroll) are added.
+ * Series can't subtract a point, so a type whose reading was edited or deleted is rebuilt from the
+ * store, which the pager has already updated. Blood pressure keeps a second series for the
+ * diastolic value.
+ *
+ * Confine to one thread ({@code AppExecutors.diskIO()}, which also owns the store), except for
+ * {@link #cachedChart}.
+ */
+public final class IndicatorTrends implements IndicatorStore.ReadingVisitor {
+
+    /** Readings covered by {@link TrendStats#rollingMean}. */
+    public static final int ROLLING_WINDOW = 30;
+
+    private final IndicatorStore store;
+    private final Map<VitalType, TrendSeries> primary = new EnumMap<>(VitalType.class);
+    private final Map<VitalType, TrendSeries> secondary = new EnumMap<>(VitalType.class);
+    // Readings newer than the history, by id: an estimated createdAt changes once resolved
+    private final Set<String> liveIds = new HashSet<>();
+    // Last list passed to accept(), by id, to spot edited and deleted readings
+    private Map<String, IndicatorItem> accepted = new HashMap<>();
+    private final Map<String, CachedChart> charts = new ConcurrentHashMap<>();
+    private long oldestCreatedAt = Long.MAX_VALUE;
+    private long newestCreatedAt = Long.MIN_VALUE;
+
+    public IndicatorTrends(@NonNull IndicatorStore store) {
+        this.store = store;
+    }
+
+    @WorkerThread
+    public void loadHistory() {
+        store.forEachReading(this);
+    }
+
+    @Override
+    public void visit(@NonNull VitalType type, long measuredAt, double value, double value2, long createdAt) {
+        add(type, measuredAt, value, value2);
+        if (createdAt < oldestCreatedAt) oldestCreatedAt = createdAt;
+        if (createdAt > newestCreatedAt) newestCreatedAt = createdAt;
+    }
+
+    /**
+     * Adds the readings of {@code items} not seen yet and rebuilds the types of readings that were
+     * edited or dropped since the previous call; the list is the pager's full, newest-first view.
+     */
+    @WorkerThread
+    public void accept(@NonNull List<IndicatorItem> items) {
+        long lo = oldestCreatedAt, hi = newestCreatedAt;
+        Map<String, IndicatorItem> previous = accepted;
+        Map<String, IndicatorItem> current = new HashMap<>(items.size() * 2);
+        Set<VitalType> stale = EnumSet.noneOf(VitalType.class);
+        for (IndicatorItem it : items) {
+            current.put(it.id, it);
+            IndicatorItem was = previous.remove(it.id);
+            if (was != null && !sameReading(was, it)) {
+                stale.add(was.type);
+                stale.add(it.type);
+            }
+            boolean fresh = it.createdAt > hi ? liveIds.add(it.id) : it.createdAt < lo && it.createdAt > 0;
+            if (!fresh) continue;
+            add(it.type, it.measuredAt, it.value, it.value2);
+            // The upper bound stays at the history's: liveIds dedupes above it
+            if (it.createdAt < hi && it.createdAt < oldestCreatedAt) oldestCreatedAt = it.createdAt;
+        }
+        // Left over: deleted, or dropped by a pager restart; either way the store has the truth
+        for (IndicatorItem gone : previous.values()) stale.add(gone.type);
+        accepted = current;
+        for (VitalType type : stale) rebuild(type);
+    }
+
+    private static boolean sameReading(IndicatorItem a, IndicatorItem b) {
+        return a.type == b.type && a.measuredAt == b.measuredAt
+                && Double.compare(a.value, b.value) == 0 && Double.compare(a.value2, b.value2) == 0;
+    }
+
+    /** Replaces the series of {@code type} with the store's readings of that type. */
+    private void rebuild(VitalType type) {
+        if (type == VitalType.OTHER) return;
+        primary.remove(type);
+        secondary.remove(type);
+        // A new series restarts its version, which would match charts cached for the old one
+        String prefix = type.name() + '/';
+        charts.keySet().removeIf(k -> k.startsWith(prefix));
+        store.forEachReading(type, (t, measuredAt, value, value2, createdAt) -> add(t, measuredAt, value, value2));
+    }
+
+    @NonNull
+    public Map<VitalType, TrendStats> snapshot() {
+        Map<VitalType, TrendStats> out = new EnumMap<>(VitalType.class);
+        for (Map.Entry<VitalType, TrendSeries> e : primary.entrySet()) out.put(e.getKey(), e.getValue().stats());
+        return out;
+    }
+
+    /**
+     * Chart points for {@code type}; results are cached per zoom level and width until the series
+     * changes, so rebinding a row or toggling back to a zoom level costs a map lookup.
+     */
+    @NonNull
+    public ChartSeries chart(@NonNull VitalType type, @NonNull ChartZoom zoom, int widthPx) {
+        TrendSeries s = primary.get(type);
+        if (s == null) return ChartSeries.EMPTY;
+        String key = chartKey(type, zoom, widthPx);
+        CachedChart cached = charts.get(key);
+        if (cached != null && cached.version == s.version()) return cached.series;
+        ChartSeries series = s.chart(zoom, widthPx);
+        charts.put(key, new CachedChart(s.version(), series));
+        return series;
+    }
+
+    /**
+     * Last chart computed for these arguments, possibly older than the series. Safe from any
+     * thread, so a row can draw it immediately while {@link #chart} refreshes it.
+     */
+    @Nullable
+    public ChartSeries cachedChart(@NonNull VitalType type, @NonNull ChartZoom zoom, int widthPx) {
+        CachedChart cached = charts.get(chartKey(type, zoom, widthPx));
+        return cached == null ? null : cached.series;
+    }
+
+    private static String chartKey(VitalType type, ChartZoom zoom, int widthPx) {
+        return type.name() + '/' + zoom.name() + '/' + widthPx;
+    }
+
+    private static final class CachedChart {
+        final int version;
+        final ChartSeries series;
+
+        CachedChart(int version, ChartSeries series) {
+            this.version = version;
+            this.series = series;
+        }
+    }
+
+    /** Diastolic statistics, or null before the first blood pressure reading. */
+    @Nullable
+    public TrendStats diastolic() {
+        TrendSeries s = secondary.get(VitalType.BLOOD_PRESSURE);
+        return s == null ? null : s.stats();
+    }
+
+    private void add(VitalType type, long t, double value, double value2) {
+        if (type == VitalType.OTHER) return; // free-text legacy readings mix unrelated units
+        series(primary, type, false).add(t, value);
+        if (type.hasSecondaryValue()) series(secondary, type, true).add(t, value2);
+    }
+
+    private static TrendSeries series(Map<VitalType, TrendSeries> map, VitalType type, boolean secondary) {
+        TrendSeries s = map.get(type);
+        if (s == null) {
+            s = new TrendSeries(ROLLING_WINDOW, ReferenceRange.of(type, secondary));
+            map.put(type, s);
+        }
+        return s;
+    }
+}
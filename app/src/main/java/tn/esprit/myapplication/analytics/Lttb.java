@@ -0,0 +1,66 @@
+package tn.esprit.myapplication.analytics;
+
+/**
+ * Largest-Triangle-Three-Buckets downsampling: keeps the first and last points and, per bucket,
+ * the point forming the largest triangle with the previously kept point and the next bucket's
+ * average. Peaks and dips survive, which plain averaging or striding would flatten.
+ */
+final class Lttb {
+
+    private Lttb() { }
+
+    /** Downsamples {@code [from, to)} of the sorted arrays to at most {@code threshold} points. */
+    static ChartSeries downsample(long[] t, double[] v, int from, int to, int threshold,
+                                  long windowFrom, long windowTo) {
+        int count = to - from;
+        if (count <= 0) return new ChartSeries(new long[0], new double[0], windowFrom, windowTo);
+        if (threshold < 3 || count <= threshold) {
+            long[] ot = new long[count];
+            double[] ov = new double[count];
+            System.arraycopy(t, from, ot, 0, count);
+            System.arraycopy(v, from, ov, 0, count);
+            return new ChartSeries(ot, ov, windowFrom, windowTo);
+        }
+
+        long[] ot = new long[threshold];
+        double[] ov = new double[threshold];
+        long origin = t[from];          // x relative to the window keeps the areas precise
+        double every = (double) (count - 2) / (threshold - 2);
+        int a = from;
+        int n = 0;
+        ot[n] = t[a];
+        ov[n++] = v[a];
+
+        for (int i = 0; i < threshold - 2; i++) {
+            int avgStart = from + (int) Math.floor((i + 1) * every) + 1;
+            int avgEnd = Math.min(from + (int) Math.floor((i + 2) * every) + 1, to);
+            double avgX = 0, avgY = 0;
+            for (int j = avgStart; j < avgEnd; j++) {
+                avgX += t[j] - origin;
+                avgY += v[j];
+            }
+            int avgLen = avgEnd - avgStart;
+            avgX /= avgLen;
+            avgY /= avgLen;
+
+            int rangeStart = from + (int) Math.floor(i * every) + 1;
+            int rangeEnd = from + (int) Math.floor((i + 1) * every) + 1;
+            double ax = t[a] - origin, ay = v[a];
+            double maxArea = -1;
+            int picked = rangeStart;
+            for (int j = rangeStart; j < rangeEnd; j++) {
+                double area = Math.abs((ax - avgX) * (v[j] - ay) - (ax - (t[j] - origin)) * (avgY - ay));
+                if (area > maxArea) {
+                    maxArea = area;
+                    picked = j;
+                }
+            }
+            ot[n] = t[picked];
+            ov[n++] = v[picked];
+            a = picked;
+        }
+        ot[n] = t[to - 1];
+        ov[n] = v[to - 1];
+        return new ChartSeries(ot, ov, windowFrom, windowTo);
+    }
+}
@@ -0,0 +1,38 @@
+package tn.esprit.myapplication.analytics;
+
+import androidx.annotation.Nullable;
+
+import tn.esprit.myapplication.data.VitalType;
+
+/**
+ * Inclusive normal range in a type's canonical unit. These are general adult screening bounds,
+ * used only to flag readings worth a look; they are not a diagnosis.
+ */
+public final class ReferenceRange {
+
+    public final double low;
+    public final double high;
+
+    public ReferenceRange(double low, double high) {
+        this.low = low;
+        this.high = high;
+    }
+
+    public boolean contains(double v) {
+        return v >= low && v <= high;
+    }
+
+    /** Range for {@code type}; {@code secondary} selects the diastolic value of blood pressure. */
+    @Nullable
+    public static ReferenceRange of(VitalType type, boolean secondary) {
+        switch (type) {
+            case BLOOD_PRESSURE:    return secondary ? new ReferenceRange(60, 90) : new ReferenceRange(90, 140);
+            case HEART_RATE:        return new ReferenceRange(60, 100);
+            case BLOOD_GLUCOSE:     return new ReferenceRange(70, 140);
+            case BODY_TEMPERATURE:  return new ReferenceRange(36.1, 37.8);
+            case OXYGEN_SATURATION: return new ReferenceRange(95, 100);
+            case RESPIRATORY_RATE:  return new ReferenceRange(12, 20);
+            default:                return null;
+        }
+    }
+}
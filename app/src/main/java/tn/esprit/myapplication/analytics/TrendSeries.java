@@ -0,0 +1,128 @@
+package tn.esprit.myapplication.analytics;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.Arrays;
+
+/**
+ * Incremental statistics over one numeric series, stored in parallel primitive arrays kept sorted
+ * by time. Count, mean, variance (Welford), min/max, least-squares slope and out-of-range counts
+ * don't depend on order and cost O(1) per point. The rolling mean covers the newest {@code window}
+ * points: O(1) for chronological appends, O(window) when an older point lands inside the window.
+ * Out-of-order points also pay for an array shift.
+ *
+ * Not thread-safe; confine each instance to one thread.
+ */
+public final class TrendSeries {
+
+    private static final double DAY_MS = 86_400_000d;
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final int window;
+    @Nullable private final ReferenceRange range;
+
+    private long[] times = new long[INITIAL_CAPACITY];
+    private double[] values = new double[INITIAL_CAPACITY];
+    private int size;
+    private int version;   // bumped on every add, keys derived caches such as charts
+
+    private double windowSum;
+    private double mean;
+    private double m2;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+    private int outOfRange;
+
+    // Regression sums; x is in days since the first point, which keeps them small
+    private long origin;
+    private double sumX, sumY, sumXX, sumXY;
+
+    public TrendSeries(int window, @Nullable ReferenceRange range) {
+        if (window <= 0) throw new IllegalArgumentException("window must be positive");
+        this.window = window;
+        this.range = range;
+    }
+
+    /** Adds one reading; NaN values are ignored. */
+    public void add(long time, double value) {
+        if (Double.isNaN(value)) return;
+        version++;
+        if (size == times.length) {
+            int cap = size + (size >> 1);
+            times = Arrays.copyOf(times, cap);
+            values = Arrays.copyOf(values, cap);
+        }
+        if (size == 0) origin = time;
+
+        if (size == 0 || time >= times[size - 1]) {
+            times[size] = time;
+            values[size] = value;
+            size++;
+            windowSum += value;
+            if (size > window) windowSum -= values[size - 1 - window];
+        } else {
+            int i = Arrays.binarySearch(times, 0, size, time);
+            if (i < 0) i = -i - 1;
+            System.arraycopy(times, i, times, i + 1, size - i);
+            System.arraycopy(values, i, values, i + 1, size - i);
+            times[i] = time;
+            values[i] = value;
+            size++;
+            if (i >= size - window) windowSum = sumRange(Math.max(0, size - window), size);
+        }
+
+        double delta = value - mean;
+        mean += delta / size;
+        m2 += delta * (value - mean);
+        if (value < min) min = value;
+        if (value > max) max = value;
+        if (range != null && !range.contains(value)) outOfRange++;
+
+        double x = (time - origin) / DAY_MS;
+        sumX += x;
+        sumY += value;
+        sumXX += x * x;
+        sumXY += x * value;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int version() {
+        return version;
+    }
+
+    /** The {@code zoom} window, downsampled with LTTB to about one point per horizontal pixel. */
+    @NonNull
+    public ChartSeries chart(@NonNull ChartZoom zoom, int widthPx) {
+        if (size == 0) return ChartSeries.EMPTY;
+        long to = times[size - 1];
+        long from = zoom.spanMs >= to - times[0] ? times[0] : to - zoom.spanMs;
+        int start = Arrays.binarySearch(times, 0, size, from);
+        if (start < 0) start = -start - 1;
+        // Equal timestamps: step back to the first of them
+        while (start > 0 && times[start - 1] == from) start--;
+        return Lttb.downsample(times, values, start, size, widthPx, from, to);
+    }
+
+    /** Immutable view of the current statistics. */
+    @NonNull
+    public TrendStats stats() {
+        if (size == 0) return TrendStats.EMPTY;
+        double variance = size > 1 ? m2 / (size - 1) : 0d;
+        double denom = size * sumXX - sumX * sumX;
+        double slope = size > 1 && denom != 0 ? (size * sumXY - sumX * sumY) / denom : 0d;
+        double latest = values[size - 1];
+        return new TrendStats(size, mean, variance, min, max,
+                windowSum / Math.min(size, window), slope, outOfRange,
+                latest, times[size - 1], range != null && !range.contains(latest));
+    }
+
+    private double sumRange(int from, int to) {
+        double s = 0;
+        for (int i = from; i < to; i++) s += values[i];
+        return s;
+    }
+}
@@ -0,0 +1,39 @@
+package tn.esprit.myapplication.analytics;
+
+/** Snapshot of a {@link TrendSeries}. Values are in the series' unit; slope is per day. */
+public final class TrendStats {
+
+    static final TrendStats EMPTY = new TrendStats(0, Double.NaN, Double.NaN, Double.NaN, Double.NaN,
+            Double.NaN, Double.NaN, 0, Double.NaN, 0L, false);
+
+    public final int count;
+    public final double mean;
+    public final double variance;   // sample variance
+    public final double min;
+    public final double max;
+    public final double rollingMean; // mean of the newest readings, see TrendSeries' window
+    public final double slopePerDay; // least-squares trend
+    public final int outOfRange;
+    public final double latest;
+    public final long latestAt;      // epoch millis
+    public final boolean latestOutOfRange;
+
+    TrendStats(int count, double mean, double variance, double min, double max, double rollingMean,
+               double slopePerDay, int outOfRange, double latest, long latestAt, boolean latestOutOfRange) {
+        this.count = count;
+        this.mean = mean;
+        this.variance = variance;
+        this.min = min;
+        this.max = max;
+        this.rollingMean = rollingMean;
+        this.slopePerDay = slopePerDay;
+        this.outOfRange = outOfRange;
+        this.latest = latest;
+        this.latestAt = latestAt;
+        this.latestOutOfRange = latestOutOfRange;
+    }
+
+    public double stdDev() {
+        return Math.sqrt(variance);
+    }
+}
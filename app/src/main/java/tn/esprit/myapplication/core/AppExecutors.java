@@ -0,0 +1,99 @@
+package tn.esprit.myapplication.core;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * App-wide executors. Every pool has a fixed thread count, so load never turns into unbounded
+ * threads. {@link #io()}, {@link #cpu()} and {@link #diskRead()} also have a bounded queue (a full
+ * queue rejects instead of growing without limit): a rejection throws
+ * {@link java.util.concurrent.RejectedExecutionException} on the submitting thread, and callers
+ * that track work in flight must catch it and fail that work. The {@link #diskIO()} queue is
+ * unbounded, since dropping a cache write or delete would leave the database out of step with the
+ * server; the scheduler's is too, as it only holds timers.
+ *
+ * - {@link #io()}: network and blocking Firebase work ({@code Tasks.await}, downloads).
+ * - {@link #cpu()}: decoding, compression, parsing.
+ * - {@link #diskIO()}: single thread for the local database, keeps reads and writes ordered.
+ * - {@link #diskRead()}: interactive reads of the local database (search), off the writer's queue.
+ * - {@link #main()}: UI work.
+ * - {@link #direct()}: cheap bookkeeping run on whichever thread completes the task.
+ *
+ * Firebase delivers listeners on the main looper unless told otherwise; listeners that don't touch
+ * views should pass one of these, e.g. {@code task.addOnCompleteListener(AppExecutors.io(), ...)}.
+ * {@link TaskUtil} builds timeouts, retries and fan-in on top of them.
+ */
+public final class AppExecutors {
+
+    private static final int IO_THREADS = 4;
+    private static final int IO_QUEUE = 256;
+    private static final int CPU_THREADS = Math.max(2, Runtime.getRuntime().availableProcessors() - 1);
+    private static final int CPU_QUEUE = 128;
+    private static final int DISK_READ_THREADS = 2;
+    private static final int DISK_READ_QUEUE = 16;
+
+    private static final ThreadPoolExecutor IO =
+            bounded("app-io", IO_THREADS, IO_QUEUE, Process.THREAD_PRIORITY_BACKGROUND);
+    private static final ThreadPoolExecutor CPU =
+            bounded("app-cpu", CPU_THREADS, CPU_QUEUE, Process.THREAD_PRIORITY_BACKGROUND);
+    private static final ThreadPoolExecutor DISK_READ =
+            bounded("app-disk-read", DISK_READ_THREADS, DISK_READ_QUEUE, Process.THREAD_PRIORITY_DEFAULT);
+    private static final ExecutorService DISK =
+            Executors.newSingleThreadExecutor(factory("app-disk", Process.THREAD_PRIORITY_BACKGROUND));
+    private static final ScheduledExecutorService SCHEDULER =
+            Executors.newSingleThreadScheduledExecutor(factory("app-scheduler", Process.THREAD_PRIORITY_DEFAULT));
+
+    private static final Handler MAIN_HANDLER = new Handler(Looper.getMainLooper());
+    private static final Executor MAIN = MAIN_HANDLER::post;
+    private static final Executor DIRECT = Runnable::run;
+
+    private AppExecutors() {}
+
+    public static Executor io() { return IO; }
+
+    public static Executor cpu() { return CPU; }
+
+    public static Executor diskIO() { return DISK; }
+
+    /** Reads only: WAL lets them run beside {@link #diskIO()} writes, but they see no ordering. */
+    public static Executor diskRead() { return DISK_READ; }
+
+    public static Executor main() { return MAIN; }
+
+    public static Executor direct() { return DIRECT; }
+
+    /** Delays and timeouts only; never run real work here. */
+    static ScheduledExecutorService scheduler() { return SCHEDULER; }
+
+    /** Runs {@code r} on {@code target} after {@code delayMs}. */
+    public static ScheduledFuture<?> schedule(Executor target, Runnable r, long delayMs) {
+        return SCHEDULER.schedule(() -> target.execute(r), delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    private static ThreadPoolExecutor bounded(String name, int threads, int queue, int priority) {
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(queue), factory(name, priority), new ThreadPoolExecutor.AbortPolicy());
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    private static ThreadFactory factory(String name, int priority) {
+        AtomicInteger n = new AtomicInteger();
+        return r -> new Thread(() -> {
+            Process.setThreadPriority(priority);
+            r.run();
+        }, name + "-" + n.incrementAndGet());
+    }
+}
@@ -0,0 +1,143 @@
+package tn.esprit.myapplication.core;
+
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.net.NetworkCapabilities;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Tracks the default network through {@code registerDefaultNetworkCallback} instead of polling
+ * {@code getActiveNetwork()} before each action. The latest {@link State} is readable from any
+ * thread with {@link #current()}; changes are published on the main thread through {@link #state()}
+ * and {@link Listener}s, for layers without a lifecycle (sync, uploads, paging).
+ */
+public final class ConnectivityMonitor {
+
+    /** Immutable snapshot of the default network. */
+    public static final class State {
+        public static final State OFFLINE = new State(false, false, false, 0);
+
+        public final boolean online;     // has a network with internet capability
+        public final boolean validated;  // the system reached the internet through it
+        public final boolean metered;
+        public final int downKbps;       // link estimate, 0 when unknown
+
+        State(boolean online, boolean validated, boolean metered, int downKbps) {
+            this.online = online;
+            this.validated = validated;
+            this.metered = metered;
+            this.downKbps = downKbps;
+        }
+
+        public boolean isUnmetered() {
+            return online && !metered;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof State)) return false;
+            State s = (State) o;
+            return online == s.online && validated == s.validated && metered == s.metered
+                    && downKbps == s.downKbps;
+        }
+
+        @Override
+        public int hashCode() {
+            return ((online ? 1 : 0) * 31 + (validated ? 1 : 0)) * 31 + (metered ? 1 : 0) + downKbps * 8;
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            if (!online) return "offline";
+            return (metered ? "metered" : "unmetered") + (validated ? ", validated" : "")
+                    + (downKbps > 0 ? ", " + downKbps + " kbps" : "");
+        }
+    }
+
+    public interface Listener {
+        /** Main thread, only when the state actually changed. */
+        void onChanged(@NonNull State state);
+    }
+
+    private static volatile ConnectivityMonitor instance;
+
+    private final MutableLiveData<State> live;
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private volatile State current;
+
+    private ConnectivityMonitor(Context app) {
+        ConnectivityManager cm = (ConnectivityManager) app.getSystemService(Context.CONNECTIVITY_SERVICE);
+        current = cm == null ? State.OFFLINE : stateOf(cm.getNetworkCapabilities(cm.getActiveNetwork()));
+        live = new MutableLiveData<>(current);
+        if (cm == null) return;
+        // Callbacks arrive on the system's connectivity thread; state is published on main
+        cm.registerDefaultNetworkCallback(new ConnectivityManager.NetworkCallback() {
+            @Override
+            public void onCapabilitiesChanged(@NonNull Network network, @NonNull NetworkCapabilities caps) {
+                update(stateOf(caps));
+            }
+
+            @Override
+            public void onLost(@NonNull Network network) {
+                update(State.OFFLINE);
+            }
+        });
+    }
+
+    public static ConnectivityMonitor get(@NonNull Context ctx) {
+        if (instance == null) {
+            synchronized (ConnectivityMonitor.class) {
+                if (instance == null) instance = new ConnectivityMonitor(ctx.getApplicationContext());
+            }
+        }
+        return instance;
+    }
+
+    /** Latest known state; cheap, any thread. */
+    @NonNull
+    public State current() {
+        return current;
+    }
+
+    @NonNull
+    public LiveData<State> state() {
+        return live;
+    }
+
+    /** Any thread; callbacks still arrive on main. */
+    public void addListener(@NonNull Listener l) {
+        listeners.add(l);
+    }
+
+    public void removeListener(@NonNull Listener l) {
+        listeners.remove(l);
+    }
+
+    private void update(State next) {
+        AppExecutors.main().execute(() -> {
+            if (next.equals(current)) return;
+            current = next;
+            live.setValue(next);
+            for (Listener l : listeners) l.onChanged(next);
+        });
+    }
+
+    private static State stateOf(@Nullable NetworkCapabilities caps) {
+        if (caps == null || !caps.hasCapability(NetworkCapabilities.NET_CAPABILITY_INTERNET)) {
+            return State.OFFLINE;
+        }
+        return new State(true,
+                caps.hasCapability(NetworkCapabilities.NET_CAPABILITY_VALIDATED),
+                !caps.hasCapability(NetworkCapabilities.NET_CAPABILITY_NOT_METERED),
+                Math.max(0, caps.getLinkDownstreamBandwidthKbps()));
+    }
+}
@@ -0,0 +1,109 @@
+package tn.esprit.myapplication.core;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.TaskCompletionSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * Bounded-parallel fan-out of one query per chunk of keys, e.g. {@code whereIn} over a list of ids
+ * longer than Firestore allows in one filter. At most {@code parallelism} chunks are in flight; each
+ * result is handed to {@link OnChunk} on the main thread as soon as it arrives, so callers can
+ * render progressively instead of waiting for the slowest chunk.
+ *
+ * A failed chunk doesn't stop the others. The returned task resolves with the number of failed
+ * chunks, and fails only when every chunk failed.
+ */
+public final class FanOut<K, R> {
+
+    /** Firestore's limit on the values of one {@code in} / {@code array-contains-any} filter. */
+    public static final int MAX_IN_VALUES = 30;
+
+    public interface ChunkQuery<K, R> {
+        @NonNull Task<R> run(@NonNull List<K> chunk);
+    }
+
+    public interface OnChunk<K, R> {
+        @MainThread
+        void onChunk(@NonNull List<K> chunk, @NonNull R result);
+    }
+
+    private final List<List<K>> chunks;
+    private final ChunkQuery<K, R> query;
+    private final OnChunk<K, R> onChunk;
+    private final Executor callbacks;
+    private final TaskCompletionSource<Integer> done = new TaskCompletionSource<>();
+    private int next;
+    private int settled;
+    private int failed;
+    @Nullable private Exception firstFailure;
+
+    private FanOut(List<List<K>> chunks, ChunkQuery<K, R> query, OnChunk<K, R> onChunk, Executor callbacks) {
+        this.chunks = chunks;
+        this.query = query;
+        this.onChunk = onChunk;
+        this.callbacks = callbacks;
+    }
+
+    @MainThread
+    @NonNull
+    public static <K, R> Task<Integer> run(@NonNull List<K> keys, int chunkSize, int parallelism,
+                                           @NonNull ChunkQuery<K, R> query, @NonNull OnChunk<K, R> onChunk) {
+        return run(keys, chunkSize, parallelism, query, onChunk, AppExecutors.main());
+    }
+
+    /** Same, with chunk results and bookkeeping on {@code callbacks}, which must be serial. */
+    @NonNull
+    static <K, R> Task<Integer> run(@NonNull List<K> keys, int chunkSize, int parallelism,
+                                    @NonNull ChunkQuery<K, R> query, @NonNull OnChunk<K, R> onChunk,
+                                    @NonNull Executor callbacks) {
+        if (chunkSize <= 0 || parallelism <= 0) throw new IllegalArgumentException("chunkSize and parallelism must be > 0");
+        List<List<K>> chunks = new ArrayList<>();
+        for (int i = 0; i < keys.size(); i += chunkSize) {
+            chunks.add(new ArrayList<>(keys.subList(i, Math.min(i + chunkSize, keys.size()))));
+        }
+        FanOut<K, R> f = new FanOut<>(chunks, query, onChunk, callbacks);
+        if (chunks.isEmpty()) f.done.setResult(0);
+        for (int i = 0; i < Math.min(parallelism, chunks.size()); i++) f.launch();
+        return f.done.getTask();
+    }
+
+    private void launch() {
+        // A chunk that settles synchronously launches its successor before run()'s loop does
+        if (next >= chunks.size()) return;
+        List<K> chunk = chunks.get(next++);
+        Task<R> t;
+        try {
+            t = query.run(chunk);
+        } catch (RuntimeException e) {
+            settle(null, e);
+            return;
+        }
+        t.addOnCompleteListener(callbacks, r -> {
+            if (r.isSuccessful()) onChunk.onChunk(chunk, r.getResult());
+            settle(r.isSuccessful() ? null : r.getException(), null);
+        });
+    }
+
+    private void settle(@Nullable Exception failure, @Nullable RuntimeException thrown) {
+        Exception e = failure != null ? failure : thrown;
+        settled++;
+        if (e != null) {
+            failed++;
+            if (firstFailure == null) firstFailure = e;
+        }
+        // Keep the pipe full: a finished chunk makes room for the next one
+        if (next < chunks.size()) {
+            launch();
+        } else if (settled == chunks.size()) {
+            if (failed == chunks.size() && firstFailure != null) done.setException(firstFailure);
+            else done.setResult(failed);
+        }
+    }
+}
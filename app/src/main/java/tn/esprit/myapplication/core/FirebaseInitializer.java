@@ -0,0 +1,32 @@
+package tn.esprit.myapplication.core;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+import androidx.startup.Initializer;
+
+import com.google.android.gms.tasks.Task;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * App Startup entry (see the manifest's {@code InitializationProvider}): queues
+ * {@link FirebaseManager#warmUp()} before any activity exists. It only submits work to
+ * {@link AppExecutors#io()}, so it adds nothing measurable to the main thread.
+ */
+public final class FirebaseInitializer implements Initializer<Task<Void>> {
+
+    @NonNull
+    @Override
+    public Task<Void> create(@NonNull Context context) {
+        return FirebaseManager.warmUp();
+    }
+
+    @NonNull
+    @Override
+    public List<Class<? extends Initializer<?>>> dependencies() {
+        // FirebaseApp is initialized by Firebase's own provider, which runs before this one
+        return Collections.emptyList();
+    }
+}
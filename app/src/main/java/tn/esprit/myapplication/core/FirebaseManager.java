@@ -1,49 +1,71 @@
 package tn.esprit.myapplication.core;
 
-import android.content.Context;
-
 import androidx.annotation.NonNull;
 
 import com.google.android.gms.tasks.Task;
-import com.google.firebase.FirebaseApp;
+import com.google.android.gms.tasks.Tasks;
 import com.google.firebase.auth.AuthResult;
 import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.auth.FirebaseUser;
 import com.google.firebase.firestore.CollectionReference;
 import com.google.firebase.firestore.DocumentReference;
 import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Source;
 import com.google.firebase.storage.FirebaseStorage;
 
-/** Centralized, minimal Firebase access. */
+/**
+ * Centralized, minimal Firebase access. {@code FirebaseApp} itself is set up by Firebase's own
+ * init provider; each component here is built on first use, from any thread, so a screen that
+ * never uploads never pays for Storage. {@link #warmUp()} builds Auth and Firestore off the main
+ * thread at process start.
+ */
 public final class FirebaseManager {
 
     public static final String COLLECTION_USERS = "users";
 
-    private static FirebaseAuth auth;
-    private static FirebaseFirestore firestore;
-    private static FirebaseStorage storage;
+    // getInstance() returns a per-app singleton, so racing first calls store the same object
+    private static volatile FirebaseAuth auth;
+    private static volatile FirebaseFirestore firestore;
+    private static volatile FirebaseStorage storage;
+    private static Task<Void> warmUp;
 
     private FirebaseManager() {}
 
-    public static void init(@NonNull Context context) {
-        FirebaseApp.initializeApp(context.getApplicationContext());
-        if (auth == null) auth = FirebaseAuth.getInstance();
-        if (firestore == null) firestore = FirebaseFirestore.getInstance();
-        if (storage == null) storage = FirebaseStorage.getInstance();
+    /**
+     * Builds Auth (which loads the persisted session) and Firestore (which opens its local cache) on
+     * {@link AppExecutors#io()}, and reads the signed-in user's profile from the cache so the first
+     * real query doesn't pay for it. Started once, by {@link FirebaseInitializer}.
+     */
+    @NonNull
+    public static synchronized Task<Void> warmUp() {
+        if (warmUp == null) {
+            warmUp = Tasks.call(AppExecutors.io(), () -> {
+                FirebaseUser user = auth().getCurrentUser();
+                db();
+                // Only opens the cache; a miss is fine
+                if (user != null) userDoc(user.getUid()).get(Source.CACHE);
+                return null;
+            });
+        }
+        return warmUp;
     }
 
     public static FirebaseAuth auth() {
-        if (auth == null) auth = FirebaseAuth.getInstance();
-        return auth;
+        FirebaseAuth a = auth;
+        if (a == null) auth = a = FirebaseAuth.getInstance();
+        return a;
     }
 
     public static FirebaseFirestore db() {
-        if (firestore == null) firestore = FirebaseFirestore.getInstance();
-        return firestore;
+        FirebaseFirestore f = firestore;
+        if (f == null) firestore = f = FirebaseFirestore.getInstance();
+        return f;
     }
 
     public static FirebaseStorage storage() {
-        if (storage == null) storage = FirebaseStorage.getInstance();
-        return storage;
+        FirebaseStorage s = storage;
+        if (s == null) storage = s = FirebaseStorage.getInstance();
+        return s;
     }
 
     public static CollectionReference users() {
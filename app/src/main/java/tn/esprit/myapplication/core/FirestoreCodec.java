@@ -0,0 +1,31 @@
+package tn.esprit.myapplication.core;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.DocumentSnapshot;
+
+import java.util.Map;
+
+/**
+ * Maps one model to and from Firestore field by field, instead of {@code toObject} / {@code set(pojo)},
+ * which look up getters, setters and fields by reflection for every document.
+ */
+public interface FirestoreCodec<T> {
+
+    @NonNull T fromSnapshot(@NonNull DocumentSnapshot d);
+
+    /** Fields to write; server-managed ones (ids, owner uid, server timestamps) are the caller's. */
+    @NonNull Map<String, Object> toMap(@NonNull T value);
+
+    /** Epoch millis of {@code ts} without the {@code Date} that {@code toDate()} allocates; 0 for null. */
+    static long millis(@Nullable Timestamp ts) {
+        return ts == null ? 0L : ts.getSeconds() * 1000L + ts.getNanoseconds() / 1_000_000;
+    }
+
+    @NonNull
+    static Timestamp timestamp(long millis) {
+        return new Timestamp(Math.floorDiv(millis, 1000L), (int) Math.floorMod(millis, 1000L) * 1_000_000);
+    }
+}
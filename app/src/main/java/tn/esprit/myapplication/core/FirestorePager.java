@@ -0,0 +1,371 @@
+package tn.esprit.myapplication.core;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.DocumentChange;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.ListenerRegistration;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.Source;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Cursor-based paging over an ordered Firestore query.
+ *
+ * The first page ({@code limit(pageSize)}) only fixes an anchor: the newest page is then kept live
+ * by a snapshot listener on {@code endAt(anchor)}, so new, edited and deleted documents at the top
+ * arrive as deltas. Older pages are fetched on demand with {@code startAfter(lastSnapshot)} and
+ * appended. Memory and first-page latency depend on what was scrolled, not on the history size.
+ *
+ * With a {@link Store}, the pager is stale-while-revalidate: the first page is rendered from disk,
+ * then only documents newer than the store's {@code createdAt} watermark are listened to, and
+ * older pages come from disk before falling back to Firestore. Each page served from disk is
+ * re-read from the server when online, so rows edited or deleted since they were cached are
+ * replaced or dropped. Everything received from Firestore is written through to the store. The
+ * query must be ordered by {@code createdAt} descending.
+ */
+public final class FirestorePager<T> {
+
+    public interface Mapper<T> {
+        @NonNull T map(@NonNull DocumentSnapshot d);
+    }
+
+    public interface Listener<T> {
+        void onItems(@NonNull List<T> items, boolean endReached);
+        void onError(@NonNull Exception e);
+    }
+
+    /** Local mirror of the query's results. Methods block and run on the pager's executor. */
+    public interface Store<T> {
+        /** Newest-first rows strictly older than {@code createdAtExclusive}. */
+        @NonNull List<T> pageBefore(long createdAtExclusive, int limit);
+        /** Largest cached {@code createdAt} in epoch millis, 0 when empty. */
+        long newestCreatedAt();
+        void upsert(@NonNull List<T> items);
+        void delete(@NonNull String id);
+        long createdAtOf(@NonNull T item);
+        @NonNull String idOf(@NonNull T item);
+    }
+
+    private final Query query;
+    private final int pageSize;
+    private final Mapper<T> mapper;
+    private final Listener<T> listener;
+    @Nullable private final Store<T> store;
+    @Nullable private final Executor storeExecutor;
+    @Nullable private BooleanSupplier online;
+
+    private final List<T> live = new ArrayList<>();   // newest items, kept current by the listener
+    private final List<T> older = new ArrayList<>();  // pages appended from disk or by loadMore()
+    private ListenerRegistration registration;
+    private DocumentSnapshot lastLoaded;              // remote cursor
+    private long oldestCreatedAt = Long.MAX_VALUE;    // disk cursor
+    private boolean diskExhausted;
+    private boolean loading;
+    private boolean endReached;
+    private boolean started;
+    private boolean deferred;   // loadMore() skipped a Firestore page while offline
+
+    public FirestorePager(@NonNull Query query, int pageSize,
+                          @NonNull Mapper<T> mapper, @NonNull Listener<T> listener) {
+        this(query, pageSize, mapper, listener, null, null);
+    }
+
+    public FirestorePager(@NonNull Query query, int pageSize,
+                          @NonNull Mapper<T> mapper, @NonNull Listener<T> listener,
+                          @Nullable Store<T> store, @Nullable Executor storeExecutor) {
+        this.query = query;
+        this.pageSize = pageSize;
+        this.mapper = mapper;
+        this.listener = listener;
+        this.store = store;
+        this.storeExecutor = storeExecutor;
+        this.diskExhausted = store == null;
+    }
+
+    /**
+     * Older pages are only requested from Firestore while {@code online} holds. Offline, the SDK
+     * would answer from its partial cache and a short page would be taken for the end of the list.
+     */
+    public void setOnline(@Nullable BooleanSupplier online) {
+        this.online = online;
+    }
+
+    /** Starts (or, after {@link #stop()}, restarts) from the first page. */
+    public void start() {
+        if (started) return;
+        started = true;
+        live.clear();
+        older.clear();
+        lastLoaded = null;
+        oldestCreatedAt = Long.MAX_VALUE;
+        diskExhausted = store == null;
+        endReached = false;
+        if (store == null || storeExecutor == null) {
+            startRemote();
+            return;
+        }
+        loading = true;
+        storeExecutor.execute(() -> {
+            List<T> cached = store.pageBefore(Long.MAX_VALUE, pageSize);
+            long watermark = store.newestCreatedAt();
+            AppExecutors.main().execute(() -> {
+                if (!started) return;
+                loading = false;
+                if (watermark <= 0) {
+                    // Nothing cached yet: behave like the plain pager and fill the store as we go
+                    diskExhausted = true;
+                    startRemote();
+                    return;
+                }
+                appendOlder(cached);
+                if (cached.size() < pageSize) diskExhausted = true;
+                publish();
+                listen(query.endBefore(new Timestamp(new Date(watermark))));
+                revalidate(cached);
+            });
+        });
+    }
+
+    private void startRemote() {
+        loading = true;
+        query.limit(pageSize).get()
+                .addOnSuccessListener(snaps -> {
+                    if (!started) return;
+                    loading = false;
+                    List<DocumentSnapshot> docs = snaps.getDocuments();
+                    endReached = docs.size() < pageSize;
+                    DocumentSnapshot anchor = docs.isEmpty() ? null : docs.get(docs.size() - 1);
+                    lastLoaded = anchor;
+                    // The get() filled the local cache, so the listener's first event is immediate
+                    listen(anchor == null ? query : query.endAt(anchor));
+                })
+                .addOnFailureListener(e -> {
+                    loading = false;
+                    listener.onError(e);
+                });
+    }
+
+    private void listen(Query window) {
+        registration = window.addSnapshotListener((s, e) -> {
+            if (e != null) {
+                listener.onError(e);
+                return;
+            }
+            if (s != null) applyChanges(s);
+        });
+    }
+
+    /** Fetches the next page (disk first, then Firestore) unless one is in flight or the end was reached. */
+    public void loadMore() {
+        if (!started || loading || endReached) return;
+        if (!diskExhausted && store != null && storeExecutor != null) {
+            loading = true;
+            long before = oldestCreatedAt;
+            storeExecutor.execute(() -> {
+                List<T> page = store.pageBefore(before, pageSize);
+                AppExecutors.main().execute(() -> {
+                    if (!started) return;
+                    loading = false;
+                    appendOlder(page);
+                    if (page.size() < pageSize) diskExhausted = true;
+                    publish();
+                    revalidate(page);
+                    if (page.isEmpty()) loadMore();
+                });
+            });
+            return;
+        }
+
+        Query next;
+        if (lastLoaded != null) {
+            next = query.startAfter(lastLoaded);
+        } else if (oldestCreatedAt != Long.MAX_VALUE) {
+            next = query.startAfter(new Timestamp(new Date(oldestCreatedAt)));
+        } else {
+            return;
+        }
+        if (online != null && !online.getAsBoolean()) {
+            deferred = true;
+            return;
+        }
+        deferred = false;
+        loading = true;
+        next.limit(pageSize).get()
+                .addOnSuccessListener(snaps -> {
+                    if (!started) return;
+                    loading = false;
+                    List<DocumentSnapshot> docs = snaps.getDocuments();
+                    List<T> page = new ArrayList<>(docs.size());
+                    for (DocumentSnapshot d : docs) page.add(mapper.map(d));
+                    appendOlder(page);
+                    writeThrough(page);
+                    if (!docs.isEmpty()) lastLoaded = docs.get(docs.size() - 1);
+                    endReached = docs.size() < pageSize;
+                    publish();
+                })
+                .addOnFailureListener(e -> {
+                    loading = false;
+                    listener.onError(e);
+                });
+    }
+
+    /** Issues the Firestore page {@link #loadMore} skipped while offline, if any. Main thread. */
+    public void resumeDeferred() {
+        if (!started || !deferred) return;
+        deferred = false;
+        loadMore();
+    }
+
+    public void stop() {
+        started = false;
+        deferred = false;
+        if (registration != null) {
+            registration.remove();
+            registration = null;
+        }
+    }
+
+    /**
+     * Scroll trigger for a LinearLayoutManager list: prefetches the next page once the last
+     * visible row is within {@code distance} rows of the end.
+     */
+    @NonNull
+    public RecyclerView.OnScrollListener prefetchOnScroll(int distance) {
+        return new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView rv, int dx, int dy) {
+                if (dy <= 0 || !(rv.getLayoutManager() instanceof LinearLayoutManager)) return;
+                LinearLayoutManager lm = (LinearLayoutManager) rv.getLayoutManager();
+                int count = lm.getItemCount();
+                if (count > 0 && lm.findLastVisibleItemPosition() >= count - 1 - distance) loadMore();
+            }
+        };
+    }
+
+    private void applyChanges(@NonNull QuerySnapshot snaps) {
+        List<T> changed = new ArrayList<>();
+        for (DocumentChange c : snaps.getDocumentChanges()) {
+            switch (c.getType()) {
+                case ADDED: {
+                    T item = mapper.map(c.getDocument());
+                    live.add(c.getNewIndex(), item);
+                    changed.add(item);
+                    break;
+                }
+                case MODIFIED: {
+                    T item = mapper.map(c.getDocument());
+                    if (c.getOldIndex() == c.getNewIndex()) {
+                        live.set(c.getNewIndex(), item);
+                    } else {
+                        live.remove(c.getOldIndex());
+                        live.add(c.getNewIndex(), item);
+                    }
+                    changed.add(item);
+                    break;
+                }
+                case REMOVED:
+                    live.remove(c.getOldIndex());
+                    if (store != null && storeExecutor != null) {
+                        String id = c.getDocument().getId();
+                        storeExecutor.execute(() -> store.delete(id));
+                    }
+                    break;
+            }
+        }
+        writeThrough(changed);
+        publish();
+    }
+
+    /**
+     * Re-reads from the server the {@code createdAt} span a disk page covers and replaces that span
+     * in {@link #older} and the store. The live listener only covers documents newer than the
+     * watermark, so this is how edits and deletes of older cached rows arrive. Offline, or if the
+     * read fails, the cached rows stay until the page is served again.
+     */
+    private void revalidate(List<T> page) {
+        if (store == null || storeExecutor == null || page.isEmpty()) return;
+        if (online != null && !online.getAsBoolean()) return;
+        long hi = store.createdAtOf(page.get(0));
+        long lo = store.createdAtOf(page.get(page.size() - 1));
+        // Whole millis at both ends, as the store truncates them: [lo, hi + 1ms) in server time
+        query.startAfter(new Timestamp(new Date(hi + 1)))
+                .endAt(new Timestamp(new Date(lo)))
+                .get(Source.SERVER)
+                .addOnSuccessListener(snaps -> {
+                    if (!started) return;
+                    List<T> fresh = new ArrayList<>(snaps.size());
+                    Set<String> ids = new HashSet<>();
+                    for (DocumentSnapshot d : snaps.getDocuments()) {
+                        T item = mapper.map(d);
+                        fresh.add(item);
+                        ids.add(store.idOf(item));
+                    }
+                    // older is newest first: rows above the span, the span, rows below it
+                    List<T> merged = new ArrayList<>(older.size() + fresh.size());
+                    List<String> gone = new ArrayList<>();
+                    boolean placed = false;
+                    for (T t : older) {
+                        long at = store.createdAtOf(t);
+                        if (at > hi) {
+                            merged.add(t);
+                            continue;
+                        }
+                        if (!placed) {
+                            merged.addAll(fresh);
+                            placed = true;
+                        }
+                        if (at < lo) merged.add(t);
+                        else if (!ids.contains(store.idOf(t))) gone.add(store.idOf(t));
+                    }
+                    if (!placed) merged.addAll(fresh);
+                    older.clear();
+                    older.addAll(merged);
+                    writeThrough(fresh);
+                    if (!gone.isEmpty()) {
+                        storeExecutor.execute(() -> {
+                            for (String id : gone) store.delete(id);
+                        });
+                    }
+                    publish();
+                });
+    }
+
+    private void appendOlder(List<T> page) {
+        older.addAll(page);
+        if (store != null && !page.isEmpty()) {
+            oldestCreatedAt = Math.min(oldestCreatedAt, store.createdAtOf(page.get(page.size() - 1)));
+        }
+    }
+
+    private void writeThrough(List<T> items) {
+        if (store == null || storeExecutor == null || items.isEmpty()) return;
+        storeExecutor.execute(() -> store.upsert(items));
+    }
+
+    private void publish() {
+        List<T> all = new ArrayList<>(live.size() + older.size());
+        all.addAll(live);
+        if (store == null) {
+            all.addAll(older);
+        } else {
+            // The watermark is in millis, so the newest cached row may also be in the live window
+            Set<String> seen = new HashSet<>();
+            for (T t : live) seen.add(store.idOf(t));
+            for (T t : older) if (!seen.contains(store.idOf(t))) all.add(t);
+        }
+        listener.onItems(all, endReached);
+    }
+}
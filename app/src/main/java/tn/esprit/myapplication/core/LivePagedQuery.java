@@ -0,0 +1,99 @@
+package tn.esprit.myapplication.core;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.lifecycle.LiveData;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.google.firebase.firestore.Query;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link FirestorePager} shared as LiveData. All observers share one pager, so identical queries
+ * are never issued twice. When the last observer leaves, the pager (and its snapshot listener) is
+ * kept for {@code keepAliveMs}; an observer returning within that window gets the cached list
+ * immediately, with no Firestore read. With a {@link ConnectivityMonitor}, scrolling only
+ * prefetches from Firestore while online; disk pages are still served, and a page skipped offline
+ * is fetched when the device reconnects.
+ */
+public final class LivePagedQuery<T> extends LiveData<List<T>> {
+
+    private final FirestorePager<T> pager;
+    private final long keepAliveMs;
+    @Nullable private final ConnectivityMonitor network;
+    // Registered while the pager runs, including the keep-alive window
+    private final ConnectivityMonitor.Listener onNetwork = state -> {
+        if (state.online) this.pager.resumeDeferred();
+    };
+    private ScheduledFuture<?> pendingStop;
+    private boolean listening;
+
+    public LivePagedQuery(@NonNull Query query, int pageSize, @NonNull FirestorePager.Mapper<T> mapper,
+                          @Nullable FirestorePager.Store<T> store, @Nullable Executor storeExecutor,
+                          long keepAliveMs, @Nullable ConnectivityMonitor network) {
+        this.keepAliveMs = keepAliveMs;
+        this.network = network;
+        this.pager = new FirestorePager<>(query, pageSize, mapper, new FirestorePager.Listener<T>() {
+            @Override public void onItems(@NonNull List<T> items, boolean endReached) {
+                setValue(items);
+            }
+            @Override public void onError(@NonNull Exception e) {
+                // Resolve the "loading" state so the UI can show its empty view
+                if (getValue() == null) setValue(new ArrayList<>());
+            }
+        }, store, storeExecutor);
+        if (network != null) pager.setOnline(() -> network.current().online);
+    }
+
+    public void loadMore() {
+        pager.loadMore();
+    }
+
+    @NonNull
+    public RecyclerView.OnScrollListener prefetchOnScroll(int distance) {
+        return pager.prefetchOnScroll(distance);
+    }
+
+    /** Stops the pager and its listeners now, without waiting out the keep-alive; for a dropped query. */
+    public void close() {
+        if (pendingStop != null) {
+            pendingStop.cancel(false);
+            pendingStop = null;
+        }
+        pager.stop();
+        if (network != null) network.removeListener(onNetwork);
+        listening = false;
+    }
+
+    @Override
+    protected void onActive() {
+        if (pendingStop != null) {
+            pendingStop.cancel(false);
+            pendingStop = null;
+        }
+        pager.start();
+        if (network != null && !listening) {
+            network.addListener(onNetwork);
+            listening = true;
+        }
+    }
+
+    @Override
+    protected void onInactive() {
+        pendingStop = AppExecutors.scheduler().schedule(
+                () -> AppExecutors.main().execute(() -> {
+                    if (hasActiveObservers()) return;
+                    pager.stop();
+                    if (network != null) network.removeListener(onNetwork);
+                    listening = false;
+                    // A later start() re-reads from disk/Firestore; don't serve an outdated list
+                    setValue(null);
+                }),
+                keepAliveMs, TimeUnit.MILLISECONDS);
+    }
+}
@@ -2,10 +2,17 @@ package tn.esprit.myapplication.core;
 
 import android.content.Context;
 import android.content.res.AssetManager;
+import android.os.Looper;
 import android.util.Log;
 
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
+import com.google.android.gms.tasks.Task;
 import com.google.android.gms.tasks.Tasks;
 import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.FieldValue;
 import com.google.firebase.firestore.FirebaseFirestore;
 
 import org.json.JSONArray;
@@ -16,41 +23,91 @@ import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import tn.esprit.myapplication.seed.SeedWriter;
 
 /**
  * One-shot seeding for demo data. Safe to call multiple times; it won't duplicate
  * if collections already contain documents.
  *
- * Usage (e.g. from HomeActivity on first app open):
- *   SeedData.run(getApplicationContext());
+ * Seeding runs on the {@link AppExecutors#io()} pool and never blocks the caller. Each collection
+ * is written through {@link SeedWriter}, i.e. one batched round trip per 500 documents.
+ * Usage (e.g. from HomeActivity once its first frame is drawn):
+ *   SeedData.runAsync(getApplicationContext(), listener);
  */
 public final class SeedData {
 
     private static final String TAG = "SeedData";
     private static final String DOCTORS_COL = "doctors";
     private static final String PATIENTS_COL = "patients";
+    // Deterministic ids keep a retried or concurrent seed from duplicating documents
+    private static final String SEED_ID_PREFIX = "seed_asset_";
+    // Bounds how long a seeding job can hold an IO thread
+    private static final long AWAIT_SECONDS = 30;
+
+    public static final String STAGE_DOCTORS = "doctors";
+    public static final String STAGE_PATIENTS = "patients";
+
+    /** Progress callback, always delivered on the main thread. */
+    public interface ProgressListener {
+        void onProgress(@NonNull String stage, int done, int total);
+    }
+
+    private static Task<Void> inFlight;
 
     private SeedData() {}
 
-    public static void run(Context ctx) {
+    /**
+     * Starts seeding in the background. Concurrent callers share the running job and a job
+     * that already succeeded is not repeated for the lifetime of the process.
+     */
+    @NonNull
+    public static synchronized Task<Void> runAsync(@NonNull Context ctx,
+                                                   @Nullable ProgressListener listener) {
+        if (inFlight != null && (!inFlight.isComplete() || inFlight.isSuccessful())) {
+            return inFlight;
+        }
+        Context app = ctx.getApplicationContext();
+        ProgressListener onMain = listener == null ? null
+                : (stage, done, total) -> AppExecutors.main().execute(() -> listener.onProgress(stage, done, total));
+        inFlight = Tasks.call(AppExecutors.io(), () -> {
+            run(app, onMain);
+            return null;
+        });
+        return inFlight;
+    }
+
+    @WorkerThread
+    private static void run(Context ctx, @Nullable ProgressListener listener) {
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            throw new IllegalStateException("SeedData must not run on the main thread");
+        }
         FirebaseFirestore db = FirebaseManager.db();
 
         // Seed doctors if empty
         try {
             CollectionReference doctorsRef = db.collection(DOCTORS_COL);
-            int existingDoctors = Tasks.await(doctorsRef.limit(1).get()).size();
+            int existingDoctors = Tasks.await(doctorsRef.limit(1).get(), AWAIT_SECONDS, TimeUnit.SECONDS).size();
             if (existingDoctors == 0) {
                 JSONArray arr = new JSONArray(readAsset(ctx, "fake_doctors.json"));
+                SeedWriter writer = new SeedWriter(db);
+                report(listener, STAGE_DOCTORS, 0, arr.length());
                 for (int i = 0; i < arr.length(); i++) {
                     JSONObject o = arr.getJSONObject(i);
                     Map<String, Object> doc = new HashMap<>();
                     doc.put("fullName", o.optString("fullName", ""));
                     doc.put("specialty", o.optString("specialty", ""));
+                    doc.put("hospital", o.optString("hospital", ""));
                     doc.put("bio", o.optString("bio", ""));
                     doc.put("services", jsonArrayToList(o.optJSONArray("services")));
                     doc.put("prescriptions", jsonArrayToList(o.optJSONArray("prescriptions")));
-                    doctorsRef.add(doc);
+                    // Delta sync watermark of DoctorDirectory
+                    doc.put("updatedAt", FieldValue.serverTimestamp());
+                    writer.set(doctorsRef.document(SEED_ID_PREFIX + "doctor_" + i), doc);
                 }
+                Tasks.await(writer.commit(null, null), AWAIT_SECONDS, TimeUnit.SECONDS);
+                report(listener, STAGE_DOCTORS, arr.length(), arr.length());
                 Log.i(TAG, "Seeded doctors collection.");
             } else {
                 Log.i(TAG, "Doctors collection already populated. Skipping.");
@@ -62,9 +119,11 @@ public final class SeedData {
         // Seed sample patients if empty (NOTE: not linked to Auth users)
         try {
             CollectionReference patientsRef = db.collection(PATIENTS_COL);
-            int existingPatients = Tasks.await(patientsRef.limit(1).get()).size();
+            int existingPatients = Tasks.await(patientsRef.limit(1).get(), AWAIT_SECONDS, TimeUnit.SECONDS).size();
             if (existingPatients == 0) {
                 JSONArray arr = new JSONArray(readAsset(ctx, "fake_patients.json"));
+                SeedWriter writer = new SeedWriter(db);
+                report(listener, STAGE_PATIENTS, 0, arr.length());
                 for (int i = 0; i < arr.length(); i++) {
                     JSONObject o = arr.getJSONObject(i);
                     Map<String, Object> doc = new HashMap<>();
@@ -75,8 +134,10 @@ public final class SeedData {
                     doc.put("isFirstLogin", o.optBoolean("isFirstLogin", false));
                     doc.put("imageUrl", o.optString("imageUrl", ""));
                     doc.put("email", o.optString("email", ""));
-                    patientsRef.add(doc);
+                    writer.set(patientsRef.document(SEED_ID_PREFIX + "patient_" + i), doc);
                 }
+                Tasks.await(writer.commit(null, null), AWAIT_SECONDS, TimeUnit.SECONDS);
+                report(listener, STAGE_PATIENTS, arr.length(), arr.length());
                 Log.i(TAG, "Seeded patients collection.");
             } else {
                 Log.i(TAG, "Patients collection already populated. Skipping.");
@@ -88,6 +149,10 @@ public final class SeedData {
 
     // ---- helpers ----
 
+    private static void report(@Nullable ProgressListener listener, String stage, int done, int total) {
+        if (listener != null) listener.onProgress(stage, done, total);
+    }
+
     private static String readAsset(Context ctx, String name) throws Exception {
         AssetManager am = ctx.getAssets();
         try (BufferedReader br = new BufferedReader(
@@ -0,0 +1,200 @@
+package tn.esprit.myapplication.core;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.auth.FirebaseUser;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.ListenerRegistration;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.Objects;
+
+import tn.esprit.myapplication.data.Codecs;
+import tn.esprit.myapplication.data.Role;
+import tn.esprit.myapplication.data.User;
+
+/**
+ * The signed-in account's {@code users/{uid}} profile, read once per session instead of per screen.
+ * The last known profile is kept in private preferences, so a cold start has the role and name
+ * before any network round trip; one snapshot listener, attached while someone is signed in,
+ * keeps it current. Signing out clears both.
+ *
+ * {@link #current()} is readable from any thread; changes are published on the main thread
+ * through {@link #user()}.
+ */
+public final class SessionManager {
+
+    private static final String TAG = "SessionManager";
+    private static final String PREFS = "session";
+    private static final String KEY_UID = "uid";
+    private static final String KEY_USER = "user";
+
+    private static SessionManager instance;
+
+    private final SharedPreferences prefs;
+    private final MutableLiveData<User> live = new MutableLiveData<>();
+    @Nullable private volatile String uid;
+    @Nullable private volatile User user;
+    @Nullable private ListenerRegistration registration;
+
+    private SessionManager(Context app) {
+        prefs = app.getSharedPreferences(PREFS, Context.MODE_PRIVATE);
+        // Fires at once with the current account, then on every sign-in and sign-out
+        FirebaseManager.auth().addAuthStateListener(this::onAuthStateChanged);
+    }
+
+    @MainThread
+    public static SessionManager get(@NonNull Context ctx) {
+        if (instance == null) instance = new SessionManager(ctx.getApplicationContext());
+        return instance;
+    }
+
+    /** The signed-in account's profile, or null when signed out or not known yet. */
+    @Nullable
+    public User current() {
+        return user;
+    }
+
+    /** Uid of the profile {@link #current()} describes, or null. */
+    @Nullable
+    public String uid() {
+        return uid;
+    }
+
+    /** {@link Role#PATIENT} until the profile is known, like {@link Role#fromString}. */
+    @NonNull
+    public Role role() {
+        User u = user;
+        return u == null || u.getRole() == null ? Role.PATIENT : u.getRole();
+    }
+
+    /** Same as {@link #current()}, published on every change; null when signed out. */
+    @NonNull
+    public LiveData<User> user() {
+        return live;
+    }
+
+    /**
+     * Shows {@code u} for {@code forUid} before its document exists, e.g. right after sign-up
+     * while the profile still waits in the outbox. The listener overrides it once the server has it.
+     */
+    @MainThread
+    public void prime(@NonNull String forUid, @NonNull User u) {
+        // The auth listener may not have heard of the new account yet
+        onAuthStateChanged(FirebaseManager.auth());
+        if (!forUid.equals(uid)) return;
+        publish(u);
+    }
+
+    /**
+     * Reads the profile now (from the cache when offline), e.g. for a refresh button or a screen
+     * that can't wait for the listener. Resolves with null when the account has no profile.
+     */
+    @MainThread
+    @NonNull
+    public Task<User> refresh() {
+        String forUid = uid;
+        if (forUid == null) {
+            return Tasks.forException(new IllegalStateException("Not signed in"));
+        }
+        return FirebaseManager.userDoc(forUid).get().continueWith(AppExecutors.main(), t -> {
+            DocumentSnapshot snap = t.getResult();
+            if (!snap.exists()) return null;
+            User u = Codecs.USER.fromSnapshot(snap);
+            if (forUid.equals(uid)) publish(u);
+            return u;
+        });
+    }
+
+    private void onAuthStateChanged(@NonNull FirebaseAuth auth) {
+        FirebaseUser fu = auth.getCurrentUser();
+        String next = fu == null ? null : fu.getUid();
+        if (Objects.equals(next, uid) && (next == null || registration != null)) return;
+
+        if (registration != null) {
+            registration.remove();
+            registration = null;
+        }
+        uid = next;
+        if (next == null) {
+            user = null;
+            live.setValue(null);
+            prefs.edit().clear().apply();
+            return;
+        }
+        User cached = next.equals(prefs.getString(KEY_UID, null)) ? fromJson(prefs.getString(KEY_USER, null)) : null;
+        user = cached;
+        live.setValue(cached);
+        registration = FirebaseManager.userDoc(next).addSnapshotListener((snap, e) -> {
+            if (e != null) {
+                // Keeps the cached profile; a later sign-in attaches a new listener
+                Log.w(TAG, "Profile listener failed", e);
+                return;
+            }
+            if (snap == null || !snap.exists() || !next.equals(uid)) return;
+            publish(Codecs.USER.fromSnapshot(snap));
+        });
+    }
+
+    private void publish(@NonNull User u) {
+        user = u;
+        live.setValue(u);
+        // apply() writes in the background; a later sign-out's clear() is ordered after it
+        prefs.edit().putString(KEY_UID, uid).putString(KEY_USER, toJson(u)).apply();
+    }
+
+    @NonNull
+    private static String toJson(@NonNull User u) {
+        JSONObject o = new JSONObject();
+        try {
+            o.put("firstName", u.getFirstName());
+            o.put("lastName", u.getLastName());
+            o.put("sex", u.getSex());
+            o.put("role", u.getRole() == null ? null : u.getRole().name());
+            o.put("isFirstLogin", u.getIsFirstLogin());
+            o.put("imageUrl", u.getImageUrl());
+            o.put("email", u.getEmail());
+            o.put("seedPatientId", u.getSeedPatientId());
+            o.put("doctorId", u.getDoctorId());
+        } catch (JSONException e) {
+            throw new IllegalArgumentException("Profile can't be cached: " + e.getMessage(), e);
+        }
+        return o.toString();
+    }
+
+    @Nullable
+    private static User fromJson(@Nullable String json) {
+        if (json == null) return null;
+        try {
+            JSONObject o = new JSONObject(json);
+            User u = new User();
+            u.setFirstName(o.optString("firstName", null));
+            u.setLastName(o.optString("lastName", null));
+            u.setSex(o.optString("sex", null));
+            String role = o.optString("role", null);
+            u.setRole(role == null ? null : Role.fromString(role));
+            u.setIsFirstLogin(o.has("isFirstLogin") ? o.getBoolean("isFirstLogin") : null);
+            u.setImageUrl(o.optString("imageUrl", null));
+            u.setEmail(o.optString("email", null));
+            u.setSeedPatientId(o.optString("seedPatientId", null));
+            u.setDoctorId(o.optString("doctorId", null));
+            return u;
+        } catch (JSONException e) {
+            Log.w(TAG, "Dropping unreadable cached profile", e);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package tn.esprit.myapplication.core;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.android.gms.tasks.CancellationToken;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.TaskCompletionSource;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.FirebaseNetworkException;
+import com.google.firebase.firestore.FirebaseFirestoreException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/** Composition helpers for Firebase {@link Task}s, scheduled on {@link AppExecutors}. */
+public final class TaskUtil {
+
+    public interface TaskFactory<T> {
+        @NonNull Task<T> create();
+    }
+
+    private static final long MAX_BACKOFF_MS = 60_000;
+
+    private TaskUtil() {}
+
+    /** Completes with all results in input order, or fails as soon as one task fails. */
+    @NonNull
+    public static <T> Task<List<T>> allOf(@NonNull List<? extends Task<T>> tasks) {
+        if (tasks.isEmpty()) return Tasks.forResult(new ArrayList<>());
+        TaskCompletionSource<List<T>> tcs = new TaskCompletionSource<>();
+        AtomicInteger remaining = new AtomicInteger(tasks.size());
+        for (Task<T> t : tasks) {
+            t.addOnCompleteListener(AppExecutors.direct(), done -> {
+                if (!done.isSuccessful()) {
+                    tcs.trySetException(failureOf(done));
+                    return;
+                }
+                if (remaining.decrementAndGet() == 0) {
+                    List<T> results = new ArrayList<>(tasks.size());
+                    for (Task<T> each : tasks) results.add(each.getResult());
+                    tcs.trySetResult(results);
+                }
+            });
+        }
+        return tcs.getTask();
+    }
+
+    /** Fails with {@link TimeoutException} if {@code task} hasn't completed in time. */
+    @NonNull
+    public static <T> Task<T> withTimeout(@NonNull Task<T> task, long timeout, @NonNull TimeUnit unit) {
+        TaskCompletionSource<T> tcs = new TaskCompletionSource<>();
+        ScheduledFuture<?> timer = AppExecutors.scheduler().schedule(() ->
+                tcs.trySetException(new TimeoutException("Timed out after " + unit.toMillis(timeout) + " ms")),
+                timeout, unit);
+        task.addOnCompleteListener(AppExecutors.direct(), done -> {
+            timer.cancel(false);
+            if (done.isSuccessful()) tcs.trySetResult(done.getResult());
+            else tcs.trySetException(failureOf(done));
+        });
+        return tcs.getTask();
+    }
+
+    /**
+     * Runs {@code factory} until it succeeds, a non-retryable error occurs, {@code maxAttempts} is
+     * reached or {@code token} is cancelled. Waits between attempts grow exponentially with jitter.
+     */
+    @NonNull
+    public static <T> Task<T> retry(@NonNull TaskFactory<T> factory, int maxAttempts,
+                                    long initialDelayMs, @Nullable CancellationToken token) {
+        TaskCompletionSource<T> tcs = new TaskCompletionSource<>();
+        attempt(factory, 1, maxAttempts, initialDelayMs, token, tcs);
+        return tcs.getTask();
+    }
+
+    /** Transient failures worth retrying: network loss, timeouts and Firestore's retryable codes. */
+    public static boolean isRetryable(@Nullable Exception e) {
+        if (e instanceof FirebaseNetworkException || e instanceof TimeoutException) return true;
+        if (e instanceof FirebaseFirestoreException) {
+            switch (((FirebaseFirestoreException) e).getCode()) {
+                case UNAVAILABLE:
+                case DEADLINE_EXCEEDED:
+                case RESOURCE_EXHAUSTED:
+                case ABORTED:
+                case INTERNAL:
+                    return true;
+                default:
+                    return false;
+            }
+        }
+        return false;
+    }
+
+    /** Exponential backoff with "equal jitter": half fixed, half random, capped at one minute. */
+    public static long backoffMillis(long initialDelayMs, int attempt) {
+        long exp = Math.min(MAX_BACKOFF_MS, initialDelayMs << Math.min(attempt - 1, 16));
+        long half = exp / 2;
+        return half + ThreadLocalRandom.current().nextLong(half + 1);
+    }
+
+    private static <T> void attempt(TaskFactory<T> factory, int attempt, int maxAttempts, long initialDelayMs,
+                                    @Nullable CancellationToken token, TaskCompletionSource<T> tcs) {
+        if (token != null && token.isCancellationRequested()) {
+            tcs.trySetException(new CancellationException("Retry cancelled"));
+            return;
+        }
+        Task<T> task;
+        try {
+            task = factory.create();
+        } catch (Exception e) {
+            task = Tasks.forException(e);
+        }
+        task.addOnCompleteListener(AppExecutors.direct(), done -> {
+            if (done.isSuccessful()) {
+                tcs.trySetResult(done.getResult());
+                return;
+            }
+            Exception e = failureOf(done);
+            if (attempt >= maxAttempts || !isRetryable(e)) {
+                tcs.trySetException(e);
+                return;
+            }
+            AppExecutors.scheduler().schedule(
+                    () -> attempt(factory, attempt + 1, maxAttempts, initialDelayMs, token, tcs),
+                    backoffMillis(initialDelayMs, attempt), TimeUnit.MILLISECONDS);
+        });
+    }
+
+    private static Exception failureOf(Task<?> t) {
+        if (t.isCanceled()) return new CancellationException("Task cancelled");
+        Exception e = t.getException();
+        return e != null ? e : new IllegalStateException("Task failed without an exception");
+    }
+}
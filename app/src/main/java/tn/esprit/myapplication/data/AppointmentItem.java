@@ -0,0 +1,12 @@
+package tn.esprit.myapplication.data;
+
+/** One appointment; times are epoch millis, as stored in Firestore. */
+public class AppointmentItem {
+    public String id;          // Firestore document id
+    public String doctorId;    // doctors/{id}
+    public String patientId;   // patients/{id}
+    public long   startAt;
+    public long   endAt;       // exclusive
+    public String title;
+    public String notes;
+}
@@ -0,0 +1,313 @@
+package tn.esprit.myapplication.data;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.lifecycle.LiveData;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.DocumentChange;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.ListenerRegistration;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.SetOptions;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import tn.esprit.myapplication.core.AppExecutors;
+import tn.esprit.myapplication.core.FirebaseManager;
+
+/**
+ * Appointments of one doctor or one patient, loaded for a visible date window with a range query
+ * on {@code startAt} and kept in an {@link IntervalTree} for conflict and free-slot queries.
+ *
+ * Booking is checked twice. The client rejects a slot that overlaps the loaded schedules of the
+ * doctor or the patient at once, without a round trip. A transaction then reads the
+ * {@code appointmentSlots} documents of every {@link #SLOT_MS} of the doctor's time the booking
+ * touches, fails if one of them records an overlapping booking, and adds this one to each, so two
+ * devices can't book the same doctor. A slot document lists exact times, so bookings that only
+ * share a slot (10:10-10:20 and 10:20-10:30) don't conflict. Main thread only.
+ */
+public final class AppointmentRepository {
+
+    public static final String COLLECTION = "appointments";
+    public static final String SLOTS = "appointmentSlots";
+    /** Server-side bucket size: one slot document per doctor and {@code SLOT_MS} of time. */
+    public static final long SLOT_MS = TimeUnit.MINUTES.toMillis(15);
+    /**
+     * Longest bookable appointment. The window query starts this much earlier, so an appointment
+     * that began before the window and runs into it still counts as a conflict.
+     */
+    public static final long MAX_DURATION_MS = TimeUnit.HOURS.toMillis(4);
+
+    public enum Side {
+        DOCTOR("doctorId"), PATIENT("patientId");
+
+        final String field;
+
+        Side(String field) {
+            this.field = field;
+        }
+    }
+
+    /** The requested time overlaps an existing appointment. */
+    public static final class SlotTakenException extends IllegalStateException {
+        public SlotTakenException() {
+            super("Slot already booked");
+        }
+    }
+
+    /**
+     * One owner's appointments in a window, published by start time. Listens only while observed;
+     * moving the window replaces the listener and the tree.
+     */
+    public static final class Schedule extends LiveData<List<AppointmentItem>> {
+
+        private final Query base;
+        private final IntervalTree<AppointmentItem> tree = new IntervalTree<>();
+        private long from;
+        private long to;
+        private boolean synced;  // the current window's first snapshot arrived
+        @Nullable private ListenerRegistration registration;
+
+        Schedule(@NonNull Query base) {
+            this.base = base;
+        }
+
+        /** Shows {@code [from, to)}, e.g. the visible week. */
+        @MainThread
+        public void setWindow(long from, long to) {
+            if (from == this.from && to == this.to) return;
+            this.from = from;
+            this.to = to;
+            tree.clear();
+            synced = false;
+            if (hasActiveObservers()) listen();
+        }
+
+        /** Whether {@code [start, end)} is inside the window and its snapshot arrived. */
+        public boolean covers(long start, long end) {
+            return synced && start >= from && end <= to;
+        }
+
+        public boolean conflicts(long start, long end) {
+            return tree.overlaps(start, end);
+        }
+
+        /** Gaps of at least {@code minLength} in {@code [start, end)}, earliest first. */
+        @NonNull
+        public List<IntervalTree.Span> freeSlots(long start, long end, long minLength) {
+            return tree.freeSlots(start, end, minLength);
+        }
+
+        @Override
+        protected void onActive() {
+            listen();
+        }
+
+        @Override
+        protected void onInactive() {
+            stop();
+        }
+
+        private void listen() {
+            stop();
+            if (to <= from) return;
+            registration = base
+                    .whereGreaterThanOrEqualTo("startAt", from - MAX_DURATION_MS)
+                    .whereLessThan("startAt", to)
+                    .orderBy("startAt")
+                    .addSnapshotListener((s, e) -> {
+                        if (e != null) {
+                            // Resolve the "loading" state so the UI can show its empty view
+                            if (getValue() == null) setValue(new ArrayList<>());
+                            return;
+                        }
+                        if (s != null) apply(s);
+                    });
+        }
+
+        private void stop() {
+            if (registration != null) {
+                registration.remove();
+                registration = null;
+            }
+        }
+
+        private void apply(QuerySnapshot s) {
+            for (DocumentChange c : s.getDocumentChanges()) {
+                if (c.getType() == DocumentChange.Type.REMOVED) {
+                    tree.remove(c.getDocument().getId());
+                } else {
+                    hold(fromSnapshot(c.getDocument()));
+                }
+            }
+            synced = true;
+            setValue(tree.overlapping(from, to));
+        }
+
+        void hold(AppointmentItem a) {
+            if (a.endAt > a.startAt) tree.put(a.id, a.startAt, a.endAt, a);
+        }
+
+        void release(String id) {
+            tree.remove(id);
+        }
+    }
+
+    private static AppointmentRepository instance;
+
+    private final Map<String, Schedule> schedules = new HashMap<>();
+
+    private AppointmentRepository() { }
+
+    @MainThread
+    public static AppointmentRepository get() {
+        if (instance == null) instance = new AppointmentRepository();
+        return instance;
+    }
+
+    /** Shared schedule of {@code ownerId}; set its window before observing. */
+    @MainThread
+    @NonNull
+    public Schedule schedule(@NonNull Side side, @NonNull String ownerId) {
+        String key = side.name() + "/" + ownerId;
+        Schedule s = schedules.get(key);
+        if (s == null) {
+            s = new Schedule(FirebaseManager.db().collection(COLLECTION).whereEqualTo(side.field, ownerId));
+            schedules.put(key, s);
+        }
+        return s;
+    }
+
+    /**
+     * Books {@code a} (its id is assigned when null). Fails with {@link SlotTakenException}
+     * at once when a loaded schedule already has the time, or from the server when another
+     * device claimed it first.
+     */
+    @MainThread
+    @NonNull
+    public Task<Void> book(@NonNull AppointmentItem a) {
+        if (a.endAt <= a.startAt || a.endAt - a.startAt > MAX_DURATION_MS) {
+            return Tasks.forException(new IllegalArgumentException("Invalid appointment length"));
+        }
+        Schedule doctor = schedules.get(Side.DOCTOR.name() + "/" + a.doctorId);
+        Schedule patient = schedules.get(Side.PATIENT.name() + "/" + a.patientId);
+        if ((doctor != null && doctor.conflicts(a.startAt, a.endAt))
+                || (patient != null && patient.conflicts(a.startAt, a.endAt))) {
+            return Tasks.forException(new SlotTakenException());
+        }
+
+        FirebaseFirestore db = FirebaseManager.db();
+        DocumentReference ref = a.id == null
+                ? db.collection(COLLECTION).document()
+                : db.collection(COLLECTION).document(a.id);
+        a.id = ref.getId();
+        // Held until the transaction settles, so a second tap conflicts without waiting for it
+        if (doctor != null) doctor.hold(a);
+        if (patient != null) patient.hold(a);
+
+        List<DocumentReference> slots = new ArrayList<>();
+        for (String id : slotIds(a.doctorId, a.startAt, a.endAt)) slots.add(db.collection(SLOTS).document(id));
+        Map<String, Object> doc = toDocument(a);
+        Map<String, Object> claim = slotClaim(a.doctorId, a.id, a.startAt, a.endAt);
+        Task<Void> commit = db.runTransaction(tx -> {
+            for (DocumentReference s : slots) {
+                DocumentSnapshot slot = tx.get(s);
+                if (slot.exists() && clashes(slot.get("bookings"), a.startAt, a.endAt)) {
+                    throw new SlotTakenException();
+                }
+            }
+            // Merge adds this booking next to the ones already in the slot
+            for (DocumentReference s : slots) tx.set(s, claim, SetOptions.merge());
+            tx.set(ref, doc);
+            return null;
+        });
+        return commit.addOnFailureListener(AppExecutors.main(), e -> {
+            if (doctor != null) doctor.release(a.id);
+            if (patient != null) patient.release(a.id);
+        });
+    }
+
+    /** Ids of the slot documents of {@code doctorId} that {@code [start, end)} touches. */
+    @NonNull
+    public static List<String> slotIds(@NonNull String doctorId, long start, long end) {
+        List<String> ids = new ArrayList<>();
+        for (long i = Math.floorDiv(start, SLOT_MS); i * SLOT_MS < end; i++) ids.add(doctorId + "_" + i);
+        return ids;
+    }
+
+    /** Fields to merge into each of {@link #slotIds} to record a booking. */
+    @NonNull
+    public static Map<String, Object> slotClaim(@NonNull String doctorId, @NonNull String appointmentId,
+                                                long start, long end) {
+        Map<String, Object> times = new HashMap<>();
+        times.put("startAt", start);
+        times.put("endAt", end);
+        Map<String, Object> bookings = new HashMap<>();
+        bookings.put(appointmentId, times);
+        Map<String, Object> claim = new HashMap<>();
+        claim.put("doctorId", doctorId);
+        claim.put("bookings", bookings);
+        return claim;
+    }
+
+    /**
+     * Whether the {@code bookings} field of an existing slot document overlaps {@code [start, end)}.
+     * Slot documents from before bookings were listed hold no times and count as taken.
+     */
+    static boolean clashes(@Nullable Object bookings, long start, long end) {
+        if (!(bookings instanceof Map)) return true;
+        for (Object b : ((Map<?, ?>) bookings).values()) {
+            if (!(b instanceof Map)) return true;
+            Object s = ((Map<?, ?>) b).get("startAt");
+            Object e = ((Map<?, ?>) b).get("endAt");
+            if (!(s instanceof Number) || !(e instanceof Number)) return true;
+            if (((Number) s).longValue() < end && ((Number) e).longValue() > start) return true;
+        }
+        return false;
+    }
+
+    /** Whether {@code e}, from {@link #book}, means the time was already taken. */
+    public static boolean isSlotTaken(@Nullable Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof SlotTakenException) return true;
+        }
+        return false;
+    }
+
+    @NonNull
+    public static Map<String, Object> toDocument(@NonNull AppointmentItem a) {
+        Map<String, Object> m = new HashMap<>();
+        m.put("doctorId", a.doctorId);
+        m.put("patientId", a.patientId);
+        m.put("startAt", a.startAt);
+        m.put("endAt", a.endAt);
+        m.put("title", a.title);
+        m.put("notes", a.notes);
+        return m;
+    }
+
+    @NonNull
+    public static AppointmentItem fromSnapshot(@NonNull DocumentSnapshot d) {
+        AppointmentItem a = new AppointmentItem();
+        a.id = d.getId();
+        a.doctorId = d.getString("doctorId");
+        a.patientId = d.getString("patientId");
+        Long start = d.getLong("startAt");
+        Long end = d.getLong("endAt");
+        a.startAt = start == null ? 0L : start;
+        a.endAt = end == null ? 0L : end;
+        a.title = d.getString("title");
+        a.notes = d.getString("notes");
+        return a;
+    }
+}
@@ -0,0 +1,126 @@
+package tn.esprit.myapplication.data;
+
+import androidx.annotation.NonNull;
+
+import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.DocumentSnapshot;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import tn.esprit.myapplication.core.FirestoreCodec;
+
+import static tn.esprit.myapplication.core.FirestoreCodec.millis;
+import static tn.esprit.myapplication.core.FirestoreCodec.timestamp;
+
+/**
+ * Firestore codecs of the app's models. Field names here are the schema; repositories keep their
+ * {@code fromSnapshot} / {@code toDocument} entry points and delegate to these.
+ */
+public final class Codecs {
+
+    private Codecs() {}
+
+    /** {@code users/{uid}}. */
+    public static final FirestoreCodec<User> USER = new FirestoreCodec<User>() {
+        @NonNull @Override public User fromSnapshot(@NonNull DocumentSnapshot d) {
+            User u = new User();
+            u.setFirstName(d.getString("firstName"));
+            u.setLastName(d.getString("lastName"));
+            u.setSex(d.getString("sex"));
+            String role = d.getString("role");
+            u.setRole(role == null ? null : Role.fromString(role));
+            u.setIsFirstLogin(d.getBoolean("isFirstLogin"));
+            u.setImageUrl(d.getString("imageUrl"));
+            u.setEmail(d.getString("email"));
+            u.setSeedPatientId(d.getString("seedPatientId"));
+            u.setDoctorId(d.getString("doctorId"));
+            return u;
+        }
+
+        @NonNull @Override public Map<String, Object> toMap(@NonNull User u) {
+            Map<String, Object> m = new HashMap<>(16);
+            m.put("firstName", u.getFirstName());
+            m.put("lastName", u.getLastName());
+            m.put("sex", u.getSex());
+            m.put("role", u.getRole() == null ? null : u.getRole().name());
+            m.put("isFirstLogin", u.getIsFirstLogin());
+            // Written with a merge (see WriteBehind), so fields left out here keep their stored value:
+            // the photo is set on its own by SET_PROFILE_IMAGE, the seed link by the seeder
+            if (u.getImageUrl() != null && !u.getImageUrl().isEmpty()) m.put("imageUrl", u.getImageUrl());
+            m.put("email", u.getEmail());
+            if (u.getSeedPatientId() != null) m.put("seedPatientId", u.getSeedPatientId());
+            if (u.getDoctorId() != null) m.put("doctorId", u.getDoctorId());
+            return m;
+        }
+    };
+
+    /**
+     * {@code indicators}: typed (schema {@value IndicatorRepository#SCHEMA_VERSION}) readings, and
+     * legacy string ones until {@link IndicatorMigration} has run.
+     */
+    public static final FirestoreCodec<IndicatorItem> INDICATOR = new FirestoreCodec<IndicatorItem>() {
+        @NonNull @Override public IndicatorItem fromSnapshot(@NonNull DocumentSnapshot d) {
+            long createdAt = millis(d.getTimestamp("createdAt", DocumentSnapshot.ServerTimestampBehavior.ESTIMATE));
+
+            IndicatorItem it;
+            if (d.getLong("schema") == null) {
+                Object raw = d.get("value");
+                it = IndicatorRepository.fromLegacy(d.getString("type"),
+                        raw == null ? null : String.valueOf(raw), d.getString("unit"));
+            } else {
+                it = new IndicatorItem();
+                it.type = VitalType.parse(d.getString("type"));
+                it.label = d.getString("label");
+                Double v = d.getDouble("value");
+                it.value = v == null ? Double.NaN : v;
+                Double v2 = d.getDouble("value2");
+                it.value2 = v2 == null ? Double.NaN : v2;
+                it.unit = d.getString("unit");
+            }
+            it.id = d.getId();
+            Timestamp measured = d.getTimestamp("measuredAt");
+            it.measuredAt = measured == null ? createdAt : millis(measured);
+            it.createdAt = createdAt;
+            // createdAt is only the device's estimate until the server has the write
+            if (d.getMetadata().hasPendingWrites()) it.syncState = SyncState.PENDING;
+            return it;
+        }
+
+        @NonNull @Override public Map<String, Object> toMap(@NonNull IndicatorItem it) {
+            Map<String, Object> m = new HashMap<>(16);
+            m.put("schema", IndicatorRepository.SCHEMA_VERSION);
+            m.put("type", it.type.name());
+            if (it.label != null) m.put("label", it.label);
+            m.put("value", Double.isNaN(it.value) ? null : it.value);
+            if (!Double.isNaN(it.value2)) m.put("value2", it.value2);
+            m.put("unit", it.unit);
+            m.put("measuredAt", timestamp(it.measuredAt));
+            return m;
+        }
+    };
+
+    /** {@code visits}. */
+    public static final FirestoreCodec<VisitItem> VISIT = new FirestoreCodec<VisitItem>() {
+        @NonNull @Override public VisitItem fromSnapshot(@NonNull DocumentSnapshot d) {
+            VisitItem it = new VisitItem();
+            it.id = d.getId();
+            it.title = d.getString("title");
+            it.doctorName = d.getString("doctorName");
+            it.specialty = d.getString("specialty");
+            it.conclusion = d.getString("conclusion");
+            it.createdAt = millis(d.getTimestamp("createdAt", DocumentSnapshot.ServerTimestampBehavior.ESTIMATE));
+            if (d.getMetadata().hasPendingWrites()) it.syncState = SyncState.PENDING;
+            return it;
+        }
+
+        @NonNull @Override public Map<String, Object> toMap(@NonNull VisitItem it) {
+            Map<String, Object> m = new HashMap<>(8);
+            m.put("title", it.title);
+            m.put("doctorName", it.doctorName);
+            m.put("specialty", it.specialty);
+            m.put("conclusion", it.conclusion);
+            return m;
+        }
+    };
+}
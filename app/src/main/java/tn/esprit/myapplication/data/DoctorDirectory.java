@@ -0,0 +1,289 @@
+package tn.esprit.myapplication.data;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
+import com.google.firebase.firestore.Query;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import tn.esprit.myapplication.core.AppExecutors;
+import tn.esprit.myapplication.core.ConnectivityMonitor;
+import tn.esprit.myapplication.core.FirebaseManager;
+import tn.esprit.myapplication.data.local.DoctorStore;
+
+/**
+ * The shared {@code doctors} collection, mirrored on the device and indexed in memory.
+ *
+ * The mirror is synced by delta: only documents whose {@code updatedAt} is newer than the newest
+ * cached one are fetched, in pages, so a launch with no directory changes costs one empty query.
+ * The first sync downloads everything, including documents written before {@code updatedAt}
+ * existed. A document with {@code deleted: true} is a tombstone and leaves the mirror. Documents
+ * deleted outright leave no trace in a delta, so once every {@link #FULL_SYNC_INTERVAL_MS} the
+ * sync downloads the whole collection instead and drops cached doctors that are no longer in it.
+ *
+ * Each sync publishes an immutable {@link Index}: doctors grouped by specialty and by hospital,
+ * plus prefix tries over names and specialties for typeahead. Main thread only, except
+ * {@link #current()}, which filters running on a worker thread may read.
+ */
+public final class DoctorDirectory {
+
+    public static final String COLLECTION = "doctors";
+    private static final int PAGE_SIZE = 200;
+    // A directory rarely changes; reopening the visit dialog shouldn't query it every time
+    private static final long SYNC_INTERVAL_MS = TimeUnit.MINUTES.toMillis(15);
+    private static final long FULL_SYNC_INTERVAL_MS = TimeUnit.DAYS.toMillis(1);
+    private static final String PREFS = "doctor_directory";
+    private static final String KEY_FULL_SYNC_AT = "full_sync_at";
+
+    /** Immutable snapshot of the directory; safe to read from any thread. */
+    public static final class Index {
+        static final Index EMPTY = new Index(Collections.emptyList());
+
+        public final List<DoctorItem> doctors;   // by name
+        private final Map<String, DoctorItem> byId = new HashMap<>();
+        private final Map<String, List<DoctorItem>> bySpecialty = new HashMap<>();
+        private final Map<String, List<DoctorItem>> byHospital = new HashMap<>();
+        private final List<String> specialties = new ArrayList<>();
+        private final PrefixTrie<DoctorItem> names =
+                new PrefixTrie<>(Collections.singleton("dr"));
+        private final PrefixTrie<String> specialtyNames = new PrefixTrie<>();
+
+        Index(@NonNull List<DoctorItem> doctors) {
+            this.doctors = Collections.unmodifiableList(doctors);
+            Map<String, String> distinct = new LinkedHashMap<>();
+            for (DoctorItem d : doctors) {
+                byId.put(d.id, d);
+                if (d.fullName != null) names.put(d.fullName, d);
+                if (d.specialty != null && !d.specialty.isEmpty()) {
+                    String key = PrefixTrie.fold(d.specialty);
+                    add(bySpecialty, key, d);
+                    if (!distinct.containsKey(key)) distinct.put(key, d.specialty);
+                }
+                if (d.hospital != null && !d.hospital.isEmpty()) {
+                    add(byHospital, PrefixTrie.fold(d.hospital), d);
+                }
+            }
+            specialties.addAll(distinct.values());
+            Collections.sort(specialties, String.CASE_INSENSITIVE_ORDER);
+            for (String s : specialties) specialtyNames.put(s, s);
+        }
+
+        @Nullable
+        public DoctorItem byId(@NonNull String id) {
+            return byId.get(id);
+        }
+
+        /** Doctors whose specialty is {@code specialty}, ignoring case and accents. */
+        @NonNull
+        public List<DoctorItem> bySpecialty(@NonNull String specialty) {
+            List<DoctorItem> l = bySpecialty.get(PrefixTrie.fold(specialty));
+            return l == null ? Collections.emptyList() : Collections.unmodifiableList(l);
+        }
+
+        /** Doctors working at {@code hospital}, ignoring case and accents. */
+        @NonNull
+        public List<DoctorItem> byHospital(@NonNull String hospital) {
+            List<DoctorItem> l = byHospital.get(PrefixTrie.fold(hospital));
+            return l == null ? Collections.emptyList() : Collections.unmodifiableList(l);
+        }
+
+        /** Distinct specialties, alphabetical. */
+        @NonNull
+        public List<String> specialties() {
+            return Collections.unmodifiableList(specialties);
+        }
+
+        /**
+         * Doctors with a name word starting with each word of {@code query}. A non-empty
+         * {@code specialty} that matches the directory restricts the hits to it.
+         */
+        @NonNull
+        public List<DoctorItem> findDoctors(@NonNull String query, @Nullable String specialty, int limit) {
+            List<DoctorItem> within = specialty == null || specialty.isEmpty()
+                    ? Collections.emptyList() : bySpecialty(specialty);
+            if (within.isEmpty()) return names.find(query, limit, d -> d.fullName);
+            Set<DoctorItem> allowed = new HashSet<>(within);
+            List<DoctorItem> out = new ArrayList<>();
+            for (DoctorItem d : names.find(query, Integer.MAX_VALUE, it -> it.fullName)) {
+                if (allowed.contains(d)) out.add(d);
+                if (out.size() >= limit) break;
+            }
+            return out;
+        }
+
+        @NonNull
+        public List<String> findSpecialties(@NonNull String query, int limit) {
+            return specialtyNames.find(query, limit, s -> s);
+        }
+
+        private static void add(Map<String, List<DoctorItem>> map, String key, DoctorItem d) {
+            List<DoctorItem> l = map.get(key);
+            if (l == null) {
+                l = new ArrayList<>();
+                map.put(key, l);
+            }
+            l.add(d);
+        }
+    }
+
+    private static DoctorDirectory instance;
+
+    private final DoctorStore store;
+    private final SharedPreferences prefs;
+    private final ConnectivityMonitor network;
+    private final MutableLiveData<Index> live = new MutableLiveData<>(Index.EMPTY);
+    private volatile Index current = Index.EMPTY;
+    private boolean loaded;
+    private long lastSyncAt;
+    @Nullable private Task<Index> inFlight;
+
+    private DoctorDirectory(Context app) {
+        this.store = new DoctorStore(app);
+        this.prefs = app.getSharedPreferences(PREFS, Context.MODE_PRIVATE);
+        this.network = ConnectivityMonitor.get(app);
+    }
+
+    @MainThread
+    public static DoctorDirectory get(@NonNull Context ctx) {
+        if (instance == null) instance = new DoctorDirectory(ctx.getApplicationContext());
+        return instance;
+    }
+
+    /** Latest published index; any thread. Empty until the mirror was read once. */
+    @NonNull
+    public Index current() {
+        return current;
+    }
+
+    @NonNull
+    public LiveData<Index> index() {
+        return live;
+    }
+
+    /**
+     * Publishes the cached directory if not done yet, then fetches changes when online and the
+     * last sync is older than {@link #SYNC_INTERVAL_MS}. Concurrent callers share one run.
+     */
+    @MainThread
+    @NonNull
+    public Task<Index> refresh() {
+        if (inFlight != null && !inFlight.isComplete()) return inFlight;
+        Task<Index> local = loaded ? Tasks.forResult(current) : Tasks.call(AppExecutors.diskIO(),
+                () -> new Index(store.all())).onSuccessTask(AppExecutors.main(), i -> {
+                    loaded = true;
+                    publish(i);
+                    return Tasks.forResult(i);
+                });
+        boolean due = System.currentTimeMillis() - lastSyncAt >= SYNC_INTERVAL_MS;
+        if (!due || !network.current().online) {
+            inFlight = local;
+            return local;
+        }
+
+        inFlight = local
+                .onSuccessTask(AppExecutors.diskIO(), i -> {
+                    long watermark = store.newestUpdatedAt();
+                    long fullSyncAt = prefs.getLong(KEY_FULL_SYNC_AT, 0L);
+                    if (watermark <= 0 || System.currentTimeMillis() - fullSyncAt >= FULL_SYNC_INTERVAL_MS) {
+                        return fullSync();
+                    }
+                    Query delta = FirebaseManager.db().collection(COLLECTION)
+                            .whereGreaterThan("updatedAt", new Timestamp(new Date(watermark)))
+                            .orderBy("updatedAt");
+                    return fetch(delta, null, 0, null);
+                })
+                .onSuccessTask(AppExecutors.diskIO(), changed ->
+                        Tasks.forResult(changed > 0 ? new Index(store.all()) : null))
+                .onSuccessTask(AppExecutors.main(), i -> {
+                    lastSyncAt = System.currentTimeMillis();
+                    if (i != null) publish(i);
+                    return Tasks.forResult(current);
+                });
+        return inFlight;
+    }
+
+    /**
+     * Downloads the whole collection, then deletes cached doctors it no longer has; resolves to the
+     * number of documents applied plus the number dropped.
+     */
+    private Task<Integer> fullSync() {
+        Set<String> seen = new HashSet<>();
+        Query all = FirebaseManager.db().collection(COLLECTION).orderBy(FieldPath.documentId());
+        return fetch(all, null, 0, seen).onSuccessTask(AppExecutors.diskIO(), applied -> {
+            Set<String> gone = store.ids();
+            gone.removeAll(seen);
+            store.apply(Collections.emptyList(), gone);
+            prefs.edit().putLong(KEY_FULL_SYNC_AT, System.currentTimeMillis()).apply();
+            return Tasks.forResult(applied + gone.size());
+        });
+    }
+
+    /**
+     * Applies one page per round trip; resolves to the number of documents applied. Ids of live
+     * documents are added to {@code seen} when given.
+     */
+    private Task<Integer> fetch(Query delta, @Nullable DocumentSnapshot after, int applied,
+                                @Nullable Set<String> seen) {
+        // Paged by cursor, not by timestamp: a seed batch gives hundreds of doctors the same updatedAt
+        Query page = (after == null ? delta : delta.startAfter(after)).limit(PAGE_SIZE);
+        return page.get().continueWithTask(AppExecutors.diskIO(), t -> {
+            List<DocumentSnapshot> docs = t.getResult().getDocuments();
+            List<DoctorItem> upserts = new ArrayList<>(docs.size());
+            List<String> deletes = new ArrayList<>();
+            for (DocumentSnapshot d : docs) {
+                if (Boolean.TRUE.equals(d.getBoolean("deleted"))) deletes.add(d.getId());
+                else upserts.add(fromSnapshot(d));
+            }
+            store.apply(upserts, deletes);
+            if (seen != null) for (DoctorItem d : upserts) seen.add(d.id);
+            int total = applied + docs.size();
+            if (docs.size() < PAGE_SIZE) return Tasks.forResult(total);
+            return fetch(delta, docs.get(docs.size() - 1), total, seen);
+        });
+    }
+
+    @MainThread
+    private void publish(Index i) {
+        current = i;
+        live.setValue(i);
+    }
+
+    @NonNull
+    @SuppressWarnings("unchecked")
+    public static DoctorItem fromSnapshot(@NonNull DocumentSnapshot d) {
+        DoctorItem it = new DoctorItem();
+        it.id = d.getId();
+        it.fullName = d.getString("fullName");
+        it.specialty = d.getString("specialty");
+        it.hospital = d.getString("hospital");
+        Object services = d.get("services");
+        if (services instanceof List) it.services = new ArrayList<>((List<String>) services);
+        Object prescriptions = d.get("prescriptions");
+        if (prescriptions instanceof List) it.prescriptions = new ArrayList<>((List<String>) prescriptions);
+        Timestamp ts = d.getTimestamp("updatedAt");
+        // Written before updatedAt existed: kept, and never ahead of a real watermark
+        it.updatedAt = ts == null ? 0L : ts.toDate().getTime();
+        return it;
+    }
+}
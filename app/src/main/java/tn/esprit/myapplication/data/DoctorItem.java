@@ -0,0 +1,15 @@
+package tn.esprit.myapplication.data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/** One entry of the shared {@code doctors} directory, as mirrored in the local cache. */
+public class DoctorItem {
+    public String id;          // Firestore document id
+    public String fullName;
+    public String specialty;
+    public String hospital;
+    public List<String> services = new ArrayList<>();
+    public List<String> prescriptions = new ArrayList<>();
+    public long   updatedAt;   // epoch millis, server timestamp; the delta sync watermark
+}
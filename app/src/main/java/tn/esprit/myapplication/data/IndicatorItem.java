@@ -0,0 +1,33 @@
+package tn.esprit.myapplication.data;
+
+import java.util.Locale;
+
+/** One indicator reading, as listed in the Indicators tab and mirrored in the local cache. */
+public class IndicatorItem {
+    public String    id;          // Firestore document id
+    public VitalType type;
+    public String    label;       // free-text type of legacy OTHER readings, else null
+    public double    value;       // in type.unit; NaN when a legacy value could not be parsed
+    public double    value2;      // diastolic for BLOOD_PRESSURE, else NaN
+    public String    unit;        // type.unit, or the legacy unit text for OTHER
+    public long      measuredAt;  // epoch millis
+    public long      createdAt;   // epoch millis (server timestamp, estimated while pending)
+    public SyncState syncState = SyncState.SYNCED;
+
+    public String displayLabel() {
+        return type == VitalType.OTHER && label != null ? label : type.label;
+    }
+
+    /** "120/80 mmHg", "72 bpm", "36.6 °C"; "-" for a value that could not be read. */
+    public String displayValue() {
+        String s = format(value);
+        if (type.hasSecondaryValue()) s += "/" + format(value2);
+        if (unit != null && !unit.isEmpty()) s += " " + unit;
+        return s;
+    }
+
+    private static String format(double v) {
+        if (Double.isNaN(v)) return "-";
+        return v == Math.rint(v) ? String.valueOf((long) v) : String.format(Locale.getDefault(), "%.1f", v);
+    }
+}
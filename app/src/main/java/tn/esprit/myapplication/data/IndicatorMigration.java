@@ -0,0 +1,76 @@
+package tn.esprit.myapplication.data;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import androidx.annotation.NonNull;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+
+import java.util.Map;
+import java.util.TimeZone;
+
+import tn.esprit.myapplication.core.AppExecutors;
+import tn.esprit.myapplication.core.FirebaseManager;
+import tn.esprit.myapplication.seed.SeedWriter;
+
+/**
+ * Rewrites a user's legacy indicator documents (free-text {@code type}/{@code value}) into the typed
+ * schema: enum type, numeric value in the canonical unit, and {@code measuredAt} taken from
+ * {@code createdAt}. The original text is kept in {@code legacyValue}. Unparseable values are stored
+ * as null so they drop out of range queries.
+ *
+ * Afterwards the user's {@link IndicatorRollups} are rebuilt from every reading, so summaries also
+ * cover readings written before rollups existed.
+ *
+ * Idempotent: typed documents are skipped and rollups are recomputed, not incremented, so an
+ * interrupted run is simply repeated. Completion is remembered per uid on the device, which means
+ * the full scan happens once per device.
+ */
+public final class IndicatorMigration {
+
+    private static final String PREFS = "indicator_migration";
+
+    private IndicatorMigration() { }
+
+    /** Resolves to the number of documents rewritten. */
+    @NonNull
+    public static Task<Integer> runIfNeeded(@NonNull Context ctx, @NonNull String uid) {
+        SharedPreferences prefs = ctx.getApplicationContext().getSharedPreferences(PREFS, Context.MODE_PRIVATE);
+        String schemaKey = "v" + IndicatorRepository.SCHEMA_VERSION + "_" + uid;
+        String rollupsKey = "rollups_v1_" + uid;
+        boolean migrate = !prefs.getBoolean(schemaKey, false);
+        boolean rollups = !prefs.getBoolean(rollupsKey, false);
+        if (!migrate && !rollups) return Tasks.forResult(0);
+
+        FirebaseFirestore db = FirebaseManager.db();
+        Task<Integer> migrated = !migrate ? Tasks.forResult(0)
+                : db.collection(IndicatorRepository.COLLECTION).whereEqualTo("uid", uid).get()
+                .continueWithTask(AppExecutors.cpu(), t -> {
+                    SeedWriter writer = new SeedWriter(db);
+                    for (DocumentSnapshot d : t.getResult().getDocuments()) {
+                        if (d.getTimestamp("createdAt") == null || d.getLong("schema") != null) continue;
+                        Map<String, Object> fields = IndicatorRepository.toDocument(uid, IndicatorRepository.fromSnapshot(d));
+                        Object legacy = d.get("value");
+                        if (legacy != null) fields.put("legacyValue", String.valueOf(legacy));
+                        writer.merge(d.getReference(), fields);
+                    }
+                    int count = writer.size();
+                    return writer.commit(null, null).onSuccessTask(AppExecutors.direct(), r -> {
+                        prefs.edit().putBoolean(schemaKey, true).apply();
+                        return Tasks.forResult(count);
+                    });
+                });
+        if (!rollups) return migrated;
+        // Readings that predate rollups are summarized once, after their rewrite
+        return migrated.onSuccessTask(AppExecutors.direct(), count ->
+                IndicatorRollups.rebuild(db, uid, TimeZone.getDefault())
+                        .onSuccessTask(AppExecutors.direct(), r -> {
+                            prefs.edit().putBoolean(rollupsKey, true).apply();
+                            return Tasks.forResult(count);
+                        }));
+    }
+}
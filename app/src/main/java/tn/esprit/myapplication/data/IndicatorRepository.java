@@ -0,0 +1,239 @@
+package tn.esprit.myapplication.data;
+
+import android.content.Context;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MediatorLiveData;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.Query;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import tn.esprit.myapplication.analytics.ChartSeries;
+import tn.esprit.myapplication.analytics.ChartZoom;
+import tn.esprit.myapplication.analytics.IndicatorTrends;
+import tn.esprit.myapplication.analytics.TrendStats;
+import tn.esprit.myapplication.core.AppExecutors;
+import tn.esprit.myapplication.core.ConnectivityMonitor;
+import tn.esprit.myapplication.core.FirebaseManager;
+import tn.esprit.myapplication.core.LivePagedQuery;
+import tn.esprit.myapplication.data.local.IndicatorStore;
+import tn.esprit.myapplication.sync.Mutation;
+import tn.esprit.myapplication.sync.PendingRows;
+import tn.esprit.myapplication.sync.WriteBehind;
+
+/**
+ * Single entry point for a user's indicator readings. One {@link LivePagedQuery} per uid is shared
+ * by every screen, so switching tabs or recreating a fragment reuses the loaded list and its
+ * snapshot listener instead of querying Firestore again. Main thread only.
+ */
+public final class IndicatorRepository {
+
+    public static final String COLLECTION = "indicators";
+    /** Documents without a {@code schema} field are legacy free-text readings (version 1). */
+    public static final int SCHEMA_VERSION = 2;
+    private static final int PAGE_SIZE = 30;
+    private static final long KEEP_ALIVE_MS = 30_000L;
+    private static final Pattern NUMBER = Pattern.compile("-?\\d+(?:[.,]\\d+)?");
+
+    private static IndicatorRepository instance;
+
+    private final Context app;
+    private final Map<String, LivePagedQuery<IndicatorItem>> byUid = new HashMap<>();
+    private final Map<String, LiveData<List<IndicatorItem>>> listsByUid = new HashMap<>();
+    private final Map<String, LiveData<Map<VitalType, TrendStats>>> trendsByUid = new HashMap<>();
+    private final Map<String, IndicatorTrends> enginesByUid = new HashMap<>();
+
+    private IndicatorRepository(Context app) {
+        this.app = app;
+    }
+
+    @MainThread
+    public static IndicatorRepository get(@NonNull Context ctx) {
+        if (instance == null) instance = new IndicatorRepository(ctx.getApplicationContext());
+        return instance;
+    }
+
+    /** Newest-first readings of {@code uid}; call {@code loadMore()} on the result to page. */
+    @MainThread
+    @NonNull
+    public LivePagedQuery<IndicatorItem> indicators(@NonNull String uid) {
+        LivePagedQuery<IndicatorItem> q = byUid.get(uid);
+        if (q == null) {
+            q = new LivePagedQuery<>(query(uid), PAGE_SIZE, IndicatorRepository::fromSnapshot,
+                    new IndicatorStore(app, uid), AppExecutors.diskIO(), KEEP_ALIVE_MS,
+                    ConnectivityMonitor.get(app));
+            byUid.put(uid, q);
+        }
+        return q;
+    }
+
+    /**
+     * Per-type trend statistics over every cached reading of {@code uid}, updated incrementally as
+     * {@link #indicators} publishes new or older readings. Computed on the disk thread.
+     */
+    @MainThread
+    @NonNull
+    public LiveData<Map<VitalType, TrendStats>> trends(@NonNull String uid) {
+        LiveData<Map<VitalType, TrendStats>> existing = trendsByUid.get(uid);
+        if (existing != null) return existing;
+
+        MediatorLiveData<Map<VitalType, TrendStats>> out = new MediatorLiveData<>();
+        IndicatorTrends trends = new IndicatorTrends(new IndicatorStore(app, uid));
+        // diskIO is serial: the history load always runs before the first accept()
+        AppExecutors.diskIO().execute(() -> {
+            trends.loadHistory();
+            out.postValue(trends.snapshot());
+        });
+        out.addSource(indicators(uid), items -> {
+            if (items == null) return;
+            AppExecutors.diskIO().execute(() -> {
+                trends.accept(items);
+                out.postValue(trends.snapshot());
+            });
+        });
+        trendsByUid.put(uid, out);
+        enginesByUid.put(uid, trends);
+        return out;
+    }
+
+    /** Downsampled chart of one type, computed on the disk thread; see {@link IndicatorTrends#chart}. */
+    @MainThread
+    @NonNull
+    public Task<ChartSeries> chart(@NonNull String uid, @NonNull VitalType type, @NonNull ChartZoom zoom, int widthPx) {
+        trends(uid);
+        IndicatorTrends engine = enginesByUid.get(uid);
+        return Tasks.call(AppExecutors.diskIO(), () -> engine.chart(type, zoom, widthPx));
+    }
+
+    /** Last computed chart for these arguments, for drawing before {@link #chart} completes. */
+    @MainThread
+    @Nullable
+    public ChartSeries cachedChart(@NonNull String uid, @NonNull VitalType type, @NonNull ChartZoom zoom, int widthPx) {
+        IndicatorTrends engine = enginesByUid.get(uid);
+        return engine == null ? null : engine.cachedChart(type, zoom, widthPx);
+    }
+
+    /** Stops and forgets everything loaded for {@code uid}; called at sign-out. */
+    @MainThread
+    public void clear(@NonNull String uid) {
+        LivePagedQuery<IndicatorItem> q = byUid.remove(uid);
+        if (q != null) q.close();
+        listsByUid.remove(uid);
+        trendsByUid.remove(uid);
+        enginesByUid.remove(uid);
+    }
+
+    /**
+     * {@link #indicators} with rows still in the write-behind queue on top, marked PENDING or FAILED.
+     * This is what lists should show; page through the query returned by {@link #indicators}.
+     */
+    @MainThread
+    @NonNull
+    public LiveData<List<IndicatorItem>> withPending(@NonNull String uid) {
+        LiveData<List<IndicatorItem>> list = listsByUid.get(uid);
+        if (list == null) {
+            list = PendingRows.overlay(indicators(uid), WriteBehind.get(app).pending(uid),
+                    Mutation.Kind.ADD_INDICATOR, Mutation::indicator, it -> it.id);
+            listsByUid.put(uid, list);
+        }
+        return list;
+    }
+
+    @NonNull
+    public static Query query(@NonNull String uid) {
+        return FirebaseManager.db().collection(COLLECTION)
+                .whereEqualTo("uid", uid)
+                .orderBy("createdAt", Query.Direction.DESCENDING);
+    }
+
+    /**
+     * Readings of one type with {@code measuredAt} in {@code [fromMillis, toMillis)}, oldest first.
+     * Served by the (uid, type, measuredAt) composite index in firestore.indexes.json.
+     */
+    @NonNull
+    public static Query range(@NonNull String uid, @NonNull VitalType type, long fromMillis, long toMillis) {
+        return FirebaseManager.db().collection(COLLECTION)
+                .whereEqualTo("uid", uid)
+                .whereEqualTo("type", type.name())
+                .whereGreaterThanOrEqualTo("measuredAt", new Timestamp(new Date(fromMillis)))
+                .whereLessThan("measuredAt", new Timestamp(new Date(toMillis)))
+                .orderBy("measuredAt", Query.Direction.ASCENDING);
+    }
+
+    /** Last {@code days} days of {@code type} readings, e.g. a month of glucose for a chart. */
+    @NonNull
+    public Task<List<IndicatorItem>> lastDays(@NonNull String uid, @NonNull VitalType type, int days) {
+        long now = System.currentTimeMillis();
+        return range(uid, type, now - TimeUnit.DAYS.toMillis(days), now + 1).get()
+                .continueWith(AppExecutors.cpu(), t -> {
+                    List<IndicatorItem> out = new ArrayList<>();
+                    for (DocumentSnapshot d : t.getResult().getDocuments()) out.add(fromSnapshot(d));
+                    return out;
+                });
+    }
+
+    /** Day or week summaries of {@code type} from {@code fromMillis} on; a few documents per month. */
+    @NonNull
+    public Task<List<IndicatorRollup>> rollups(@NonNull String uid, @NonNull VitalType type,
+                                               @NonNull IndicatorRollups.Period period, long fromMillis) {
+        return IndicatorRollups.query(uid, type, period, fromMillis).get()
+                .continueWith(AppExecutors.cpu(), t -> {
+                    List<IndicatorRollup> out = new ArrayList<>();
+                    for (DocumentSnapshot d : t.getResult().getDocuments()) out.add(IndicatorRollups.fromSnapshot(d));
+                    return out;
+                });
+    }
+
+    /** Firestore fields of a typed (schema {@value #SCHEMA_VERSION}) reading. */
+    @NonNull
+    public static Map<String, Object> toDocument(@NonNull String uid, @NonNull IndicatorItem it) {
+        Map<String, Object> doc = Codecs.INDICATOR.toMap(it);
+        doc.put("uid", uid);
+        return doc;
+    }
+
+    /** Reads typed documents and, until {@link IndicatorMigration} has run, legacy string ones. */
+    @NonNull
+    public static IndicatorItem fromSnapshot(@NonNull DocumentSnapshot d) {
+        return Codecs.INDICATOR.fromSnapshot(d);
+    }
+
+    /** Best-effort parse of a pre-typed reading ("120/80", "5,6", "72 bpm"). */
+    @NonNull
+    public static IndicatorItem fromLegacy(@Nullable String type, @Nullable String value, @Nullable String unit) {
+        IndicatorItem it = new IndicatorItem();
+        it.type = VitalType.parse(type);
+        it.label = it.type == VitalType.OTHER ? type : null;
+        it.value = Double.NaN;
+        it.value2 = Double.NaN;
+
+        String text = value == null ? "" : value.trim();
+        Matcher m = NUMBER.matcher(text);
+        List<Double> numbers = new ArrayList<>(2);
+        int end = 0;
+        while (m.find() && numbers.size() < 2) {
+            numbers.add(Double.parseDouble(m.group().replace(',', '.')));
+            end = m.end();
+        }
+        String u = unit == null || unit.trim().isEmpty() ? text.substring(end).trim() : unit.trim();
+        if (!numbers.isEmpty()) it.value = it.type.toCanonical(numbers.get(0), u);
+        if (it.type.hasSecondaryValue() && numbers.size() > 1) it.value2 = it.type.toCanonical(numbers.get(1), u);
+        it.unit = it.type == VitalType.OTHER ? u : it.type.unit;
+        return it;
+    }
+}
@@ -0,0 +1,19 @@
+package tn.esprit.myapplication.data;
+
+/** Summary of one type's readings over a day or week, as stored in {@code indicatorRollups}. */
+public class IndicatorRollup {
+    public String    id;        // <uid>_<TYPE>_<PERIOD>_<yyyy-MM-dd of the period start>
+    public VitalType type;
+    public IndicatorRollups.Period period;
+    public long      start;     // epoch millis, local midnight (Monday for weeks)
+    public long      count;
+    public double    sum;
+    public double    min;
+    public double    max;
+    public double    last;      // value of the reading with the latest measuredAt
+    public long      lastAt;    // epoch millis
+
+    public double mean() {
+        return count == 0 ? Double.NaN : sum / count;
+    }
+}
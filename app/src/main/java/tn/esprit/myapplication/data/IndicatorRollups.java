@@ -0,0 +1,277 @@
+package tn.esprit.myapplication.data;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.SetOptions;
+import com.google.firebase.firestore.Source;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TimeZone;
+
+import tn.esprit.myapplication.core.AppExecutors;
+import tn.esprit.myapplication.core.FirebaseManager;
+import tn.esprit.myapplication.seed.SeedWriter;
+
+/**
+ * Per-uid, per-type daily and weekly summaries of indicator readings (count, sum, min, max, last),
+ * so dashboards read a few dozen small documents instead of every reading.
+ *
+ * {@link #add} writes a reading and folds it into its day and week documents in one transaction;
+ * concurrent adds are serialized by Firestore's retries, so the totals never lose an update. Each
+ * fold also bumps a per-uid version document, which {@link #rebuild} checks before overwriting.
+ * Transactions need the server, which means {@code add} fails while offline instead of queueing.
+ * Legacy {@link VitalType#OTHER} readings and unparsed values are never summarized.
+ * Periods use the device's time zone at write time; weeks start on Monday.
+ */
+public final class IndicatorRollups {
+
+    public static final String COLLECTION = "indicatorRollups";
+
+    public enum Period { DAY, WEEK }
+
+    private static final int MAX_REBUILD_ATTEMPTS = 5;
+
+    private IndicatorRollups() { }
+
+    /** Adds {@code it} to {@code indicators} under a new id and updates its rollups atomically. */
+    @NonNull
+    public static Task<DocumentReference> add(@NonNull FirebaseFirestore db, @NonNull String uid,
+                                              @NonNull IndicatorItem it, @NonNull TimeZone tz) {
+        return add(db, uid, db.collection(IndicatorRepository.COLLECTION).document().getId(), it, tz);
+    }
+
+    /**
+     * Same, with a caller-chosen document id. A reading that already exists is left alone and its
+     * rollups are not folded again, so replaying the same id is harmless.
+     */
+    @NonNull
+    public static Task<DocumentReference> add(@NonNull FirebaseFirestore db, @NonNull String uid,
+                                              @NonNull String id, @NonNull IndicatorItem it,
+                                              @NonNull TimeZone tz) {
+        DocumentReference reading = db.collection(IndicatorRepository.COLLECTION).document(id);
+        DocumentReference day = db.collection(COLLECTION).document(docId(uid, it.type, Period.DAY, it.measuredAt, tz));
+        DocumentReference week = db.collection(COLLECTION).document(docId(uid, it.type, Period.WEEK, it.measuredAt, tz));
+        DocumentReference version = versionDoc(db, uid);
+        Map<String, Object> doc = IndicatorRepository.toDocument(uid, it);
+        doc.put("createdAt", FieldValue.serverTimestamp());
+        boolean folds = rollsUp(it);
+
+        return db.runTransaction(tx -> {
+            // All reads must precede the writes
+            if (tx.get(reading).exists()) return reading;
+            if (!folds) {
+                tx.set(reading, doc);
+                return reading;
+            }
+            DocumentSnapshot d = tx.get(day);
+            DocumentSnapshot w = tx.get(week);
+            tx.set(reading, doc);
+            tx.set(day, fold(d, uid, it, Period.DAY, tz));
+            tx.set(week, fold(w, uid, it, Period.WEEK, tz));
+            tx.set(version, versionBump(uid), SetOptions.merge());
+            return reading;
+        });
+    }
+
+    /** Rollups of one type and period starting at or after {@code fromMillis}, oldest first. */
+    @NonNull
+    public static Query query(@NonNull String uid, @NonNull VitalType type, @NonNull Period period, long fromMillis) {
+        return FirebaseManager.db().collection(COLLECTION)
+                .whereEqualTo("uid", uid)
+                .whereEqualTo("type", type.name())
+                .whereEqualTo("period", period.name())
+                .whereGreaterThanOrEqualTo("start", new Timestamp(new Date(fromMillis)))
+                .orderBy("start", Query.Direction.ASCENDING);
+    }
+
+    /**
+     * Recomputes every rollup of {@code uid} from its readings on the server; existing rollup
+     * documents of those periods are overwritten. The writes commit in transactions of at most
+     * {@link SeedWriter#MAX_BATCH_OPS} documents, each checking that the version document hasn't
+     * moved since the readings were scanned. When an {@link #add} folded a reading in meanwhile, the
+     * scan starts over, so a rebuild never overwrites a fold it didn't count.
+     */
+    @NonNull
+    public static Task<Void> rebuild(@NonNull FirebaseFirestore db, @NonNull String uid, @NonNull TimeZone tz) {
+        return rebuild(db, uid, tz, 1);
+    }
+
+    private static Task<Void> rebuild(FirebaseFirestore db, String uid, TimeZone tz, int attempt) {
+        DocumentReference version = versionDoc(db, uid);
+        // The version is read before the scan: a fold the scan misses is guaranteed to bump it
+        return version.get(Source.SERVER).onSuccessTask(AppExecutors.direct(), v -> {
+            long adds = orZero(v.getLong("adds"));
+            return db.collection(IndicatorRepository.COLLECTION).whereEqualTo("uid", uid).get(Source.SERVER)
+                    .onSuccessTask(AppExecutors.cpu(), snaps -> {
+                        Map<String, Map<String, Object>> docs = new HashMap<>();
+                        for (DocumentSnapshot d : snaps.getDocuments()) {
+                            if (d.getTimestamp("createdAt") == null) continue;
+                            IndicatorItem it = IndicatorRepository.fromSnapshot(d);
+                            if (!rollsUp(it)) continue;
+                            for (Period p : Period.values()) {
+                                String id = docId(uid, it.type, p, it.measuredAt, tz);
+                                docs.put(id, fold(docs.get(id), uid, it, p, tz));
+                            }
+                        }
+                        return commitIfUnchanged(db, version, adds, new ArrayList<>(docs.entrySet()), 0);
+                    });
+        }).onSuccessTask(AppExecutors.direct(), committed -> {
+            if (committed) return Tasks.forResult(null);
+            if (attempt >= MAX_REBUILD_ATTEMPTS) {
+                return Tasks.forException(new IllegalStateException("Rollups kept changing during rebuild"));
+            }
+            return rebuild(db, uid, tz, attempt + 1);
+        });
+    }
+
+    /** Writes {@code docs} from {@code from} on, chunk by chunk; false once the version has moved. */
+    private static Task<Boolean> commitIfUnchanged(FirebaseFirestore db, DocumentReference version, long adds,
+                                                   List<Map.Entry<String, Map<String, Object>>> docs, int from) {
+        if (from >= docs.size()) return Tasks.forResult(true);
+        int to = Math.min(from + SeedWriter.MAX_BATCH_OPS, docs.size());
+        return db.runTransaction(tx -> {
+            if (orZero(tx.get(version).getLong("adds")) != adds) return false;
+            for (Map.Entry<String, Map<String, Object>> e : docs.subList(from, to)) {
+                tx.set(db.collection(COLLECTION).document(e.getKey()), e.getValue());
+            }
+            return true;
+        }).onSuccessTask(AppExecutors.direct(), ok ->
+                ok ? commitIfUnchanged(db, version, adds, docs, to) : Tasks.forResult(false));
+    }
+
+    /** Whether {@code it} is folded into rollups; {@link #add} and {@link #rebuild} share this filter. */
+    static boolean rollsUp(@NonNull IndicatorItem it) {
+        // Free-text legacy readings mix unrelated units
+        return it.type != VitalType.OTHER && !Double.isNaN(it.value);
+    }
+
+    /** Per-uid counter of folds, in the rollups collection; it has no {@code type}, so queries skip it. */
+    private static DocumentReference versionDoc(FirebaseFirestore db, String uid) {
+        return db.collection(COLLECTION).document(uid);
+    }
+
+    private static Map<String, Object> versionBump(String uid) {
+        Map<String, Object> m = new HashMap<>();
+        m.put("uid", uid);
+        m.put("adds", FieldValue.increment(1));
+        return m;
+    }
+
+    @NonNull
+    public static IndicatorRollup fromSnapshot(@NonNull DocumentSnapshot d) {
+        IndicatorRollup r = new IndicatorRollup();
+        r.id = d.getId();
+        r.type = VitalType.parse(d.getString("type"));
+        r.period = Period.valueOf(d.getString("period"));
+        r.start = millis(d.getTimestamp("start"));
+        r.count = orZero(d.getLong("count"));
+        r.sum = orNaN(d.getDouble("sum"));
+        r.min = orNaN(d.getDouble("min"));
+        r.max = orNaN(d.getDouble("max"));
+        r.last = orNaN(d.getDouble("last"));
+        r.lastAt = millis(d.getTimestamp("lastAt"));
+        return r;
+    }
+
+    @NonNull
+    static String docId(String uid, VitalType type, Period period, long measuredAt, TimeZone tz) {
+        SimpleDateFormat fmt = new SimpleDateFormat("yyyy-MM-dd", Locale.ROOT);
+        fmt.setTimeZone(tz);
+        return uid + "_" + type.name() + "_" + period.name() + "_" + fmt.format(new Date(periodStart(period, measuredAt, tz)));
+    }
+
+    static long periodStart(Period period, long millis, TimeZone tz) {
+        Calendar c = Calendar.getInstance(tz, Locale.ROOT);
+        c.setTimeInMillis(millis);
+        c.set(Calendar.HOUR_OF_DAY, 0);
+        c.set(Calendar.MINUTE, 0);
+        c.set(Calendar.SECOND, 0);
+        c.set(Calendar.MILLISECOND, 0);
+        if (period == Period.WEEK) {
+            int back = (c.get(Calendar.DAY_OF_WEEK) - Calendar.MONDAY + 7) % 7;
+            c.add(Calendar.DAY_OF_MONTH, -back);
+        }
+        return c.getTimeInMillis();
+    }
+
+    /** {@code existing} (a snapshot, a pending map, or null) with {@code it} folded in. */
+    private static Map<String, Object> fold(@Nullable Object existing, String uid, IndicatorItem it,
+                                            Period period, TimeZone tz) {
+        long count = 0;
+        double sum = 0, min = it.value, max = it.value, last = it.value;
+        long lastAt = it.measuredAt;
+        if (existing instanceof DocumentSnapshot && ((DocumentSnapshot) existing).exists()) {
+            DocumentSnapshot d = (DocumentSnapshot) existing;
+            count = orZero(d.getLong("count"));
+            sum = orZero(d.getDouble("sum"));
+            min = Math.min(min, orElse(d.getDouble("min"), it.value));
+            max = Math.max(max, orElse(d.getDouble("max"), it.value));
+            long prevAt = millis(d.getTimestamp("lastAt"));
+            if (prevAt > lastAt) {
+                lastAt = prevAt;
+                last = orElse(d.getDouble("last"), it.value);
+            }
+        } else if (existing instanceof Map) {
+            Map<?, ?> m = (Map<?, ?>) existing;
+            count = ((Number) m.get("count")).longValue();
+            sum = ((Number) m.get("sum")).doubleValue();
+            min = Math.min(min, ((Number) m.get("min")).doubleValue());
+            max = Math.max(max, ((Number) m.get("max")).doubleValue());
+            long prevAt = ((Timestamp) m.get("lastAt")).toDate().getTime();
+            if (prevAt > lastAt) {
+                lastAt = prevAt;
+                last = ((Number) m.get("last")).doubleValue();
+            }
+        }
+
+        Map<String, Object> out = new HashMap<>();
+        out.put("uid", uid);
+        out.put("type", it.type.name());
+        out.put("period", period.name());
+        out.put("start", new Timestamp(new Date(periodStart(period, it.measuredAt, tz))));
+        out.put("unit", it.type.unit);
+        out.put("count", count + 1);
+        out.put("sum", sum + it.value);
+        out.put("min", min);
+        out.put("max", max);
+        out.put("last", last);
+        out.put("lastAt", new Timestamp(new Date(lastAt)));
+        return out;
+    }
+
+    private static long millis(@Nullable Timestamp ts) {
+        return ts == null ? 0L : ts.toDate().getTime();
+    }
+
+    private static long orZero(@Nullable Long v) {
+        return v == null ? 0L : v;
+    }
+
+    private static double orZero(@Nullable Double v) {
+        return v == null ? 0d : v;
+    }
+
+    private static double orNaN(@Nullable Double v) {
+        return v == null ? Double.NaN : v;
+    }
+
+    private static double orElse(@Nullable Double v, double fallback) {
+        return v == null ? fallback : v;
+    }
+}
@@ -0,0 +1,212 @@
+package tn.esprit.myapplication.data;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Half-open intervals {@code [start, end)} in an AVL tree ordered by start, each node also holding
+ * the largest end in its subtree. "Is anything booked in this range" is answered in O(log n);
+ * listing the k intervals or free gaps in a range costs O(log n + k). Back-to-back intervals do
+ * not overlap. Entries are keyed by id, so a re-put replaces the previous interval. Not
+ * synchronized.
+ */
+public final class IntervalTree<T> {
+
+    /** A free range returned by {@link #freeSlots}. */
+    public static final class Span {
+        public final long start;
+        public final long end;
+
+        Span(long start, long end) {
+            this.start = start;
+            this.end = end;
+        }
+    }
+
+    private static final class Node<T> {
+        final String id;
+        final long start;
+        final long end;
+        final T value;
+        long maxEnd;
+        int height = 1;
+        Node<T> left, right;
+
+        Node(String id, long start, long end, T value) {
+            this.id = id;
+            this.start = start;
+            this.end = end;
+            this.value = value;
+            this.maxEnd = end;
+        }
+    }
+
+    private final Map<String, Node<T>> byId = new HashMap<>();
+    private Node<T> root;
+
+    public int size() {
+        return byId.size();
+    }
+
+    public void clear() {
+        byId.clear();
+        root = null;
+    }
+
+    /** Adds {@code value}, replacing any interval already stored under {@code id}. */
+    public void put(@NonNull String id, long start, long end, @NonNull T value) {
+        if (end <= start) throw new IllegalArgumentException("Empty interval " + start + ".." + end);
+        remove(id);
+        Node<T> n = new Node<>(id, start, end, value);
+        byId.put(id, n);
+        root = insert(root, n);
+    }
+
+    @Nullable
+    public T remove(@NonNull String id) {
+        Node<T> n = byId.remove(id);
+        if (n == null) return null;
+        root = delete(root, n.start, n.id);
+        return n.value;
+    }
+
+    /** Whether any stored interval intersects {@code [start, end)}. */
+    public boolean overlaps(long start, long end) {
+        Node<T> n = root;
+        while (n != null) {
+            if (n.start < end && n.end > start) return true;
+            // If the left subtree reaches past start but holds no overlap, its intervals begin at or
+            // after end, and so does everything to the right: one branch is enough
+            n = n.left != null && n.left.maxEnd > start ? n.left : n.right;
+        }
+        return false;
+    }
+
+    /** Values intersecting {@code [start, end)}, by start. */
+    @NonNull
+    public List<T> overlapping(long start, long end) {
+        List<T> out = new ArrayList<>();
+        collect(root, start, end, out);
+        return out;
+    }
+
+    /**
+     * Gaps of at least {@code minLength} inside {@code [from, to)} that no interval covers,
+     * earliest first.
+     */
+    @NonNull
+    public List<Span> freeSlots(long from, long to, long minLength) {
+        List<Node<T>> busy = new ArrayList<>();
+        collectNodes(root, from, to, busy);
+        List<Span> out = new ArrayList<>();
+        long cursor = from;
+        for (Node<T> n : busy) {
+            if (n.start - cursor >= minLength) out.add(new Span(cursor, n.start));
+            cursor = Math.max(cursor, n.end);
+        }
+        if (to - cursor >= minLength) out.add(new Span(cursor, to));
+        return out;
+    }
+
+    private void collect(Node<T> n, long start, long end, List<T> out) {
+        if (n == null || n.maxEnd <= start) return;
+        collect(n.left, start, end, out);
+        if (n.start < end && n.end > start) out.add(n.value);
+        if (n.start < end) collect(n.right, start, end, out);
+    }
+
+    private void collectNodes(Node<T> n, long start, long end, List<Node<T>> out) {
+        if (n == null || n.maxEnd <= start) return;
+        collectNodes(n.left, start, end, out);
+        if (n.start < end && n.end > start) out.add(n);
+        if (n.start < end) collectNodes(n.right, start, end, out);
+    }
+
+    // ---- AVL ----
+
+    private static <T> int compare(long start, String id, Node<T> n) {
+        int c = Long.compare(start, n.start);
+        return c != 0 ? c : id.compareTo(n.id);
+    }
+
+    private Node<T> insert(Node<T> at, Node<T> n) {
+        if (at == null) return n;
+        if (compare(n.start, n.id, at) < 0) at.left = insert(at.left, n);
+        else at.right = insert(at.right, n);
+        return balance(at);
+    }
+
+    private Node<T> delete(Node<T> at, long start, String id) {
+        if (at == null) return null;
+        int c = compare(start, id, at);
+        if (c < 0) {
+            at.left = delete(at.left, start, id);
+        } else if (c > 0) {
+            at.right = delete(at.right, start, id);
+        } else {
+            if (at.left == null) return at.right;
+            if (at.right == null) return at.left;
+            Node<T> successor = at.right;
+            while (successor.left != null) successor = successor.left;
+            successor.right = removeMin(at.right);
+            successor.left = at.left;
+            at = successor;
+        }
+        return balance(at);
+    }
+
+    private Node<T> removeMin(Node<T> at) {
+        if (at.left == null) return at.right;
+        at.left = removeMin(at.left);
+        return balance(at);
+    }
+
+    private Node<T> balance(Node<T> n) {
+        update(n);
+        int bf = height(n.left) - height(n.right);
+        if (bf > 1) {
+            if (height(n.left.left) < height(n.left.right)) n.left = rotateLeft(n.left);
+            return rotateRight(n);
+        }
+        if (bf < -1) {
+            if (height(n.right.right) < height(n.right.left)) n.right = rotateRight(n.right);
+            return rotateLeft(n);
+        }
+        return n;
+    }
+
+    private Node<T> rotateRight(Node<T> n) {
+        Node<T> l = n.left;
+        n.left = l.right;
+        l.right = n;
+        update(n);
+        update(l);
+        return l;
+    }
+
+    private Node<T> rotateLeft(Node<T> n) {
+        Node<T> r = n.right;
+        n.right = r.left;
+        r.left = n;
+        update(n);
+        update(r);
+        return r;
+    }
+
+    private static <T> void update(Node<T> n) {
+        n.height = 1 + Math.max(height(n.left), height(n.right));
+        long max = n.end;
+        if (n.left != null) max = Math.max(max, n.left.maxEnd);
+        if (n.right != null) max = Math.max(max, n.right.maxEnd);
+        n.maxEnd = max;
+    }
+
+    private static <T> int height(Node<T> n) {
+        return n == null ? 0 : n.height;
+    }
+}
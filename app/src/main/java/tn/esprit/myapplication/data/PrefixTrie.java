@@ -0,0 +1,127 @@
+package tn.esprit.myapplication.data;
+
+import androidx.annotation.NonNull;
+
+import java.text.Normalizer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+/**
+ * Word-prefix index for typeahead. Every word of a key is inserted separately, so "sal" finds
+ * "Dr. Lina Ben Salah". Keys and queries are case- and accent-folded ("hop" finds "Hôpital").
+ * Lookup cost depends on the prefix length and the number of hits, not on the number of keys.
+ * Build it once off the main thread; it is not synchronized, so publish it read-only.
+ */
+public final class PrefixTrie<T> {
+
+    public interface KeyOf<T> {
+        @NonNull String key(@NonNull T value);
+    }
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private static final class Node<T> {
+        // Sorted, so hits come out in alphabetical order of the matching word
+        final TreeMap<Character, Node<T>> children = new TreeMap<>();
+        final List<T> values = new ArrayList<>(1);
+    }
+
+    private final Node<T> root = new Node<>();
+    private final Set<String> ignored;
+
+    public PrefixTrie() {
+        this(Collections.emptySet());
+    }
+
+    /** {@code ignored} words (already folded, e.g. "dr") are not indexed. */
+    public PrefixTrie(@NonNull Set<String> ignored) {
+        this.ignored = ignored;
+    }
+
+    public void put(@NonNull String key, @NonNull T value) {
+        for (String word : words(key)) {
+            if (ignored.contains(word)) continue;
+            Node<T> n = root;
+            for (int i = 0; i < word.length(); i++) {
+                Node<T> next = n.children.get(word.charAt(i));
+                if (next == null) {
+                    next = new Node<>();
+                    n.children.put(word.charAt(i), next);
+                }
+                n = next;
+            }
+            n.values.add(value);
+        }
+    }
+
+    /**
+     * Values with a word starting with every word of {@code query}, at most {@code limit}, each
+     * once. The longest query word walks the trie; the others filter its hits by their key.
+     * Ignored words in the query are dropped, as they were never indexed.
+     */
+    @NonNull
+    public List<T> find(@NonNull String query, int limit, @NonNull KeyOf<T> keyOf) {
+        List<String> q = words(query);
+        q.removeAll(ignored);
+        if (q.isEmpty() || limit <= 0) return Collections.emptyList();
+        String lead = q.get(0);
+        for (String w : q) if (w.length() > lead.length()) lead = w;
+
+        Node<T> n = root;
+        for (int i = 0; i < lead.length() && n != null; i++) n = n.children.get(lead.charAt(i));
+        if (n == null) return Collections.emptyList();
+
+        Set<T> out = new LinkedHashSet<>();
+        Deque<Node<T>> stack = new ArrayDeque<>();
+        stack.push(n);
+        while (!stack.isEmpty() && out.size() < limit) {
+            Node<T> cur = stack.pop();
+            for (T v : cur.values) {
+                if (out.size() >= limit) break;
+                if (q.size() == 1 || matchesAll(q, words(keyOf.key(v)))) out.add(v);
+            }
+            // Reverse push keeps the depth-first walk in ascending order
+            for (Node<T> child : cur.children.descendingMap().values()) stack.push(child);
+        }
+        return new ArrayList<>(out);
+    }
+
+    /** Lower-cased, accent-free words of {@code s}. */
+    @NonNull
+    public static List<String> words(@NonNull String s) {
+        String folded = MARKS.matcher(Normalizer.normalize(s, Normalizer.Form.NFD)).replaceAll("")
+                .toLowerCase(Locale.ROOT);
+        List<String> out = new ArrayList<>();
+        for (String w : SEPARATORS.split(folded)) if (!w.isEmpty()) out.add(w);
+        return out;
+    }
+
+    /** Case- and accent-folded form of {@code s}, for use as a map key. */
+    @NonNull
+    public static String fold(@NonNull String s) {
+        return String.join(" ", words(s));
+    }
+
+    private static boolean matchesAll(List<String> query, List<String> words) {
+        for (String q : query) {
+            boolean found = false;
+            for (String w : words) {
+                if (w.startsWith(q)) {
+                    found = true;
+                    break;
+                }
+            }
+            if (!found) return false;
+        }
+        return true;
+    }
+}
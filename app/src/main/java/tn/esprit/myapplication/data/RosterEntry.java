@@ -0,0 +1,23 @@
+package tn.esprit.myapplication.data;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/** One patient on a doctor's roster, with their latest reading of each type and latest visit. */
+public class RosterEntry {
+    public String patientId;          // as booked in appointments: a users uid or a seeded patients id
+    public String uid;                // account whose readings and visits these are; null if none is linked
+    public String displayName;        // null until the account is resolved
+    public long   lastAppointmentAt;  // epoch millis of the most recent booking with this doctor
+    public final Map<VitalType, IndicatorItem> latest = new EnumMap<>(VitalType.class);
+    public VisitItem lastVisit;
+    public boolean summaryLoaded;     // false while this patient's chunk is still in flight
+
+    /** Newest of the patient's last reading, last visit and last appointment. */
+    public long lastActivityAt() {
+        long at = lastAppointmentAt;
+        for (IndicatorItem it : latest.values()) at = Math.max(at, it.measuredAt);
+        if (lastVisit != null) at = Math.max(at, lastVisit.createdAt);
+        return at;
+    }
+}
@@ -0,0 +1,324 @@
+package tn.esprit.myapplication.data;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QuerySnapshot;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import tn.esprit.myapplication.core.AppExecutors;
+import tn.esprit.myapplication.core.FanOut;
+import tn.esprit.myapplication.core.FirebaseManager;
+import tn.esprit.myapplication.core.TaskUtil;
+
+/**
+ * A doctor's patients, with each one's latest readings and visit. The roster itself is one query:
+ * the distinct patients of the doctor's appointments. Summaries are then fetched per chunk of
+ * {@link FanOut#MAX_IN_VALUES} patients with {@code whereIn} queries, {@link #PARALLEL_CHUNKS} chunks
+ * at a time, so 500 patients cost about 17 chunks of 4 queries rather than 1000 queries. Each
+ * readings and visits query is capped at {@link #READINGS_PER_PATIENT} / {@link #VISITS_PER_PATIENT}
+ * documents per patient of its chunk; when a few busy patients fill the cap, the patients it
+ * crowded out get one capped query each. A chunk of 30 thus reads at most about 2 × 30 × 25
+ * documents, however much history those patients have. The published list is re-sorted as each
+ * chunk lands; patients still waiting show as placeholders.
+ * Rosters are keyed by the doctor's directory id ({@code doctors/{id}}), which is what
+ * appointments name; a doctor account finds its own through {@link User#getDoctorId()}.
+ * Main thread only.
+ */
+public final class RosterRepository {
+
+    public static final int PARALLEL_CHUNKS = 4;
+    /** Readings and visits older than this don't show on the roster. */
+    public static final long SUMMARY_WINDOW_MS = TimeUnit.DAYS.toMillis(30);
+    /** Most recent readings read per patient; enough to cover every type a few times over. */
+    public static final int READINGS_PER_PATIENT = 20;
+    /** Most recent visits read per patient; only the latest is shown. */
+    public static final int VISITS_PER_PATIENT = 5;
+
+    /** The roster as loaded so far. */
+    public static final class Roster {
+        public final List<RosterEntry> entries;  // most recent activity first
+        public final int chunks;
+        public final int chunksDone;
+        public final int chunksFailed;
+        public final boolean loading;
+
+        Roster(List<RosterEntry> entries, int chunks, int chunksDone, int chunksFailed, boolean loading) {
+            this.entries = entries;
+            this.chunks = chunks;
+            this.chunksDone = chunksDone;
+            this.chunksFailed = chunksFailed;
+            this.loading = loading;
+        }
+    }
+
+    private static final Comparator<RosterEntry> ORDER = (a, b) -> {
+        int c = Long.compare(b.lastActivityAt(), a.lastActivityAt());
+        if (c != 0) return c;
+        if (a.displayName != null && b.displayName != null) {
+            c = a.displayName.compareToIgnoreCase(b.displayName);
+            if (c != 0) return c;
+        } else if (a.displayName != null || b.displayName != null) {
+            return a.displayName != null ? -1 : 1;
+        }
+        return a.patientId.compareTo(b.patientId);
+    };
+
+    private static RosterRepository instance;
+
+    private final Map<String, MutableLiveData<Roster>> byDoctor = new HashMap<>();
+    private final Map<String, Integer> generations = new HashMap<>();
+
+    private RosterRepository() { }
+
+    @MainThread
+    public static RosterRepository get() {
+        if (instance == null) instance = new RosterRepository();
+        return instance;
+    }
+
+    /** The roster of {@code doctorId}; loaded on first use, see {@link #refresh}. */
+    @MainThread
+    @NonNull
+    public LiveData<Roster> roster(@NonNull String doctorId) {
+        MutableLiveData<Roster> live = byDoctor.get(doctorId);
+        if (live == null) {
+            live = new MutableLiveData<>();
+            byDoctor.put(doctorId, live);
+            refresh(doctorId);
+        }
+        return live;
+    }
+
+    /**
+     * Reloads the roster. Resolves with the number of chunks that failed; a newer refresh
+     * supersedes this one and its late chunks are dropped.
+     */
+    @MainThread
+    @NonNull
+    public Task<Integer> refresh(@NonNull String doctorId) {
+        MutableLiveData<Roster> live = byDoctor.get(doctorId);
+        if (live == null) {
+            live = new MutableLiveData<>();
+            byDoctor.put(doctorId, live);
+        }
+        MutableLiveData<Roster> out = live;
+        Integer previous = generations.get(doctorId);
+        int generation = previous == null ? 1 : previous + 1;
+        generations.put(doctorId, generation);
+
+        return FirebaseManager.db().collection(AppointmentRepository.COLLECTION)
+                .whereEqualTo("doctorId", doctorId)
+                .get()
+                .continueWith(AppExecutors.cpu(), t -> lastAppointments(t.getResult()))
+                .continueWithTask(AppExecutors.main(), t -> {
+                    if (!isCurrent(doctorId, generation)) return Tasks.forResult(0);
+                    if (!t.isSuccessful()) {
+                        if (out.getValue() == null) out.setValue(new Roster(new ArrayList<>(), 0, 0, 0, false));
+                        Exception e = t.getException();
+                        return Tasks.forException(e != null ? e : new IllegalStateException("Roster query cancelled"));
+                    }
+                    Map<String, Long> last = t.getResult();
+                    Map<String, RosterEntry> entries = new HashMap<>();
+                    for (Map.Entry<String, Long> e : last.entrySet()) {
+                        RosterEntry placeholder = new RosterEntry();
+                        placeholder.patientId = e.getKey();
+                        placeholder.lastAppointmentAt = e.getValue();
+                        entries.put(e.getKey(), placeholder);
+                    }
+                    int chunks = (last.size() + FanOut.MAX_IN_VALUES - 1) / FanOut.MAX_IN_VALUES;
+                    int[] done = {0};
+                    publish(out, entries, chunks, 0, 0, chunks > 0);
+
+                    long since = System.currentTimeMillis() - SUMMARY_WINDOW_MS;
+                    return FanOut.<String, Map<String, RosterEntry>>run(new ArrayList<>(last.keySet()),
+                            FanOut.MAX_IN_VALUES, PARALLEL_CHUNKS,
+                            chunk -> summaries(chunk, since),
+                            (chunk, found) -> {
+                                if (!isCurrent(doctorId, generation)) return;
+                                for (String patientId : chunk) {
+                                    RosterEntry e = found.get(patientId);
+                                    if (e == null) {
+                                        // Booked under an id no account is linked to
+                                        e = new RosterEntry();
+                                        e.patientId = patientId;
+                                        e.summaryLoaded = true;
+                                    }
+                                    Long at = last.get(patientId);
+                                    e.lastAppointmentAt = at == null ? 0L : at;
+                                    entries.put(patientId, e);
+                                }
+                                publish(out, entries, chunks, ++done[0], 0, true);
+                            })
+                            .addOnCompleteListener(AppExecutors.main(), r -> {
+                                if (!isCurrent(doctorId, generation)) return;
+                                publish(out, entries, chunks, done[0], chunks - done[0], false);
+                            });
+                });
+    }
+
+    private boolean isCurrent(String doctorId, int generation) {
+        Integer g = generations.get(doctorId);
+        return g != null && g == generation;
+    }
+
+    private static void publish(MutableLiveData<Roster> out, Map<String, RosterEntry> entries,
+                                int chunks, int done, int failed, boolean loading) {
+        List<RosterEntry> sorted = new ArrayList<>(entries.values());
+        Collections.sort(sorted, ORDER);
+        out.setValue(new Roster(sorted, chunks, done, failed, loading));
+    }
+
+    /** Patient ids of the doctor's appointments, each with its most recent start time. */
+    private static Map<String, Long> lastAppointments(QuerySnapshot s) {
+        Map<String, Long> last = new LinkedHashMap<>();
+        for (DocumentSnapshot d : s.getDocuments()) {
+            String patientId = d.getString("patientId");
+            if (patientId == null || patientId.isEmpty()) continue;
+            Long start = d.getLong("startAt");
+            long at = start == null ? 0L : start;
+            Long seen = last.get(patientId);
+            if (seen == null || at > seen) last.put(patientId, at);
+        }
+        return last;
+    }
+
+    /**
+     * Summaries of one chunk of patient ids, by patient id. Appointments name either the account
+     * itself or the seeded patient record linked to it through {@code seedPatientId}, so both are
+     * resolved; readings and visits are then fetched for all resolved accounts at once.
+     */
+    private static Task<Map<String, RosterEntry>> summaries(List<String> patientIds, long since) {
+        Task<QuerySnapshot> byId = FirebaseManager.users().whereIn(FieldPath.documentId(), patientIds).get();
+        Task<QuerySnapshot> bySeed = FirebaseManager.users().whereIn("seedPatientId", patientIds).get();
+        return TaskUtil.allOf(Arrays.asList(byId, bySeed)).continueWithTask(AppExecutors.cpu(), t -> {
+            Map<String, RosterEntry> byPatient = new HashMap<>();
+            for (QuerySnapshot s : t.getResult()) {
+                for (DocumentSnapshot d : s.getDocuments()) {
+                    String seed = d.getString("seedPatientId");
+                    String patientId = patientIds.contains(d.getId()) ? d.getId() : seed;
+                    if (patientId == null || byPatient.containsKey(patientId)) continue;
+                    RosterEntry e = new RosterEntry();
+                    e.patientId = patientId;
+                    e.uid = d.getId();
+                    e.displayName = displayName(d);
+                    e.summaryLoaded = true;
+                    byPatient.put(patientId, e);
+                }
+            }
+            Map<String, List<RosterEntry>> byUid = new HashMap<>();
+            for (RosterEntry e : byPatient.values()) {
+                List<RosterEntry> list = byUid.get(e.uid);
+                if (list == null) {
+                    list = new ArrayList<>();
+                    byUid.put(e.uid, list);
+                }
+                list.add(e);
+            }
+            if (byUid.isEmpty()) return Tasks.forResult(byPatient);
+
+            FirebaseFirestore db = FirebaseManager.db();
+            Timestamp from = new Timestamp(new Date(since));
+            List<Task<List<DocumentSnapshot>>> readings = new ArrayList<>();
+            List<Task<List<DocumentSnapshot>>> visits = new ArrayList<>();
+            List<String> uids = new ArrayList<>(byUid.keySet());
+            // One account can back two patient ids, so a chunk may resolve to more than the limit
+            for (int i = 0; i < uids.size(); i += FanOut.MAX_IN_VALUES) {
+                List<String> part = uids.subList(i, Math.min(i + FanOut.MAX_IN_VALUES, uids.size()));
+                readings.add(latest(db.collection(IndicatorRepository.COLLECTION), part, from, READINGS_PER_PATIENT));
+                visits.add(latest(db.collection(VisitRepository.COLLECTION), part, from, VISITS_PER_PATIENT));
+            }
+            Task<List<List<DocumentSnapshot>>> r = TaskUtil.allOf(readings);
+            Task<List<List<DocumentSnapshot>>> v = TaskUtil.allOf(visits);
+            return TaskUtil.allOf(Arrays.asList(r, v)).continueWith(AppExecutors.cpu(), all -> {
+                for (List<DocumentSnapshot> docs : all.getResult().get(0)) {
+                    for (DocumentSnapshot d : docs) {
+                        List<RosterEntry> owners = byUid.get(d.getString("uid"));
+                        if (owners == null) continue;
+                        IndicatorItem it = IndicatorRepository.fromSnapshot(d);
+                        for (RosterEntry e : owners) {
+                            IndicatorItem seen = e.latest.get(it.type);
+                            if (seen == null || it.measuredAt > seen.measuredAt) e.latest.put(it.type, it);
+                        }
+                    }
+                }
+                for (List<DocumentSnapshot> docs : all.getResult().get(1)) {
+                    for (DocumentSnapshot d : docs) {
+                        List<RosterEntry> owners = byUid.get(d.getString("uid"));
+                        if (owners == null) continue;
+                        VisitItem it = VisitRepository.fromSnapshot(d);
+                        for (RosterEntry e : owners) {
+                            if (e.lastVisit == null || it.createdAt > e.lastVisit.createdAt) e.lastVisit = it;
+                        }
+                    }
+                }
+                return byPatient;
+            });
+        });
+    }
+
+    /**
+     * The most recent documents of {@code uids} since {@code from}, at most {@code perUid} for each
+     * of them. A full page may be all one patient's, so the uids missing from it are then fetched
+     * one query each, under the same cap.
+     */
+    private static Task<List<DocumentSnapshot>> latest(Query collection, List<String> uids, Timestamp from, int perUid) {
+        int cap = uids.size() * perUid;
+        return recent(collection, uids, from).limit(cap).get().continueWithTask(AppExecutors.cpu(), t -> {
+            List<DocumentSnapshot> docs = new ArrayList<>(t.getResult().getDocuments());
+            if (docs.size() < cap) return Tasks.forResult(docs);
+            Set<String> seen = new HashSet<>();
+            for (DocumentSnapshot d : docs) seen.add(d.getString("uid"));
+            List<Task<QuerySnapshot>> rest = new ArrayList<>();
+            for (String uid : uids) {
+                if (!seen.contains(uid)) {
+                    rest.add(recent(collection, Collections.singletonList(uid), from).limit(perUid).get());
+                }
+            }
+            if (rest.isEmpty()) return Tasks.forResult(docs);
+            return TaskUtil.allOf(rest).continueWith(AppExecutors.cpu(), more -> {
+                for (QuerySnapshot s : more.getResult()) docs.addAll(s.getDocuments());
+                return docs;
+            });
+        });
+    }
+
+    /** Served by the (uid, createdAt desc) indexes the per-user lists already use. */
+    private static Query recent(Query collection, List<String> uids, Timestamp from) {
+        return collection.whereIn("uid", uids)
+                .whereGreaterThan("createdAt", from)
+                .orderBy("createdAt", Query.Direction.DESCENDING);
+    }
+
+    @Nullable
+    private static String displayName(DocumentSnapshot d) {
+        String first = d.getString("firstName");
+        String lastName = d.getString("lastName");
+        String name = ((first == null ? "" : first) + " " + (lastName == null ? "" : lastName)).trim();
+        if (!name.isEmpty()) return name;
+        String email = d.getString("email");
+        return email == null || email.isEmpty() ? null : email;
+    }
+}
@@ -0,0 +1,38 @@
+package tn.esprit.myapplication.data;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/** One search result: a cached visit or indicator reading, with its relevance score. */
+public final class SearchHit {
+
+    @Nullable public final VisitItem visit;
+    @Nullable public final IndicatorItem indicator;
+    public final double score;  // higher is better; only comparable within one search
+
+    private SearchHit(@Nullable VisitItem visit, @Nullable IndicatorItem indicator, double score) {
+        this.visit = visit;
+        this.indicator = indicator;
+        this.score = score;
+    }
+
+    @NonNull
+    public static SearchHit of(@NonNull VisitItem visit, double score) {
+        return new SearchHit(visit, null, score);
+    }
+
+    @NonNull
+    public static SearchHit of(@NonNull IndicatorItem indicator, double score) {
+        return new SearchHit(null, indicator, score);
+    }
+
+    @NonNull
+    public String id() {
+        return visit != null ? visit.id : indicator.id;
+    }
+
+    /** Creation time of visits, measurement time of readings; breaks score ties, newest first. */
+    public long at() {
+        return visit != null ? visit.createdAt : indicator.measuredAt;
+    }
+}
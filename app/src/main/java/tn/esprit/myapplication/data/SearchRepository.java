@@ -0,0 +1,103 @@
+package tn.esprit.myapplication.data;
+
+import android.content.Context;
+import android.os.CancellationSignal;
+import android.os.OperationCanceledException;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.android.gms.tasks.CancellationToken;
+import com.google.android.gms.tasks.CancellationTokenSource;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.TaskCompletionSource;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+
+import tn.esprit.myapplication.core.AppExecutors;
+import tn.esprit.myapplication.data.local.SearchIndex;
+
+/**
+ * Search-as-you-type over the visits and readings cached on the device. Firestore has no
+ * substring queries, so this never hits the network; the index follows every cache write.
+ *
+ * Queries are debounced and only the latest one runs: a new {@link #search} cancels the previous
+ * task, before it starts or, through a {@link CancellationSignal}, while SQLite is running it.
+ * They run on {@code AppExecutors.diskRead()}, so typing never queues behind cache writes.
+ */
+public final class SearchRepository {
+
+    public static final int MAX_RESULTS = 50;
+    private static final long DEBOUNCE_MS = 150L;
+
+    private static SearchRepository instance;
+
+    private final Context app;
+    private final Map<String, SearchIndex> byUid = new HashMap<>();
+    @Nullable private CancellationTokenSource latest;
+
+    private SearchRepository(Context app) {
+        this.app = app;
+    }
+
+    @MainThread
+    public static SearchRepository get(@NonNull Context ctx) {
+        if (instance == null) instance = new SearchRepository(ctx.getApplicationContext());
+        return instance;
+    }
+
+    /**
+     * Ranked hits for {@code text}, best first, after a short debounce. The task is cancelled,
+     * never completed, once a newer search or {@link #cancel} supersedes it.
+     */
+    @MainThread
+    @NonNull
+    public Task<List<SearchHit>> search(@NonNull String uid, @NonNull String text) {
+        SearchIndex index = byUid.get(uid);
+        if (index == null) {
+            index = new SearchIndex(app, uid);
+            byUid.put(uid, index);
+        }
+        SearchIndex target = index;
+        cancel();
+        CancellationTokenSource cts = new CancellationTokenSource();
+        latest = cts;
+        CancellationToken token = cts.getToken();
+        TaskCompletionSource<List<SearchHit>> result = new TaskCompletionSource<>(token);
+        CancellationSignal signal = new CancellationSignal();
+        token.onCanceledRequested(signal::cancel);
+
+        Runnable query = () -> {
+            if (token.isCancellationRequested()) return;
+            try {
+                result.trySetResult(target.search(text, MAX_RESULTS, signal));
+            } catch (OperationCanceledException e) {
+                // Superseded mid-query; the task is already cancelled
+            } catch (RuntimeException e) {
+                result.trySetException(e);
+            }
+        };
+        ScheduledFuture<?> delayed = AppExecutors.schedule(AppExecutors.direct(), () -> {
+            if (token.isCancellationRequested()) return;
+            try {
+                AppExecutors.diskRead().execute(query);
+            } catch (RejectedExecutionException e) {
+                result.trySetException(e);
+            }
+        }, DEBOUNCE_MS);
+        token.onCanceledRequested(() -> delayed.cancel(false));
+        return result.getTask();
+    }
+
+    /** Cancels the search in flight, if any. */
+    @MainThread
+    public void cancel() {
+        if (latest != null) latest.cancel();
+        latest = null;
+    }
+}
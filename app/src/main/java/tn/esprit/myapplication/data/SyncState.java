@@ -0,0 +1,10 @@
+package tn.esprit.myapplication.data;
+
+/** Whether a listed row is confirmed by Firestore or still only in the local outbox. */
+public enum SyncState {
+    SYNCED,
+    /** Queued or being retried. */
+    PENDING,
+    /** Rejected by the server; kept until the user retries. */
+    FAILED
+}
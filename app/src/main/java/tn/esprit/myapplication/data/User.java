@@ -8,6 +8,8 @@ public class User {
     private Boolean isFirstLogin;
     private String imageUrl;
     private String email;         // unique identifier in auth + stored in Firestore
+    private String seedPatientId; // demo patients record linked by the seeder, if any
+    private String doctorId;      // doctors/{id} entry of a DOCTOR account; what appointments name
 
     // Empty constructor required by Firestore
     public User() {}
@@ -42,4 +44,10 @@ public class User {
 
     public String getEmail() { return email; }
     public void setEmail(String email) { this.email = email; }
+
+    public String getSeedPatientId() { return seedPatientId; }
+    public void setSeedPatientId(String seedPatientId) { this.seedPatientId = seedPatientId; }
+
+    public String getDoctorId() { return doctorId; }
+    public void setDoctorId(String doctorId) { this.doctorId = doctorId; }
 }
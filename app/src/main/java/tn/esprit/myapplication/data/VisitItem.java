@@ -0,0 +1,12 @@
+package tn.esprit.myapplication.data;
+
+/** One visit, as listed in the Suivie tab and mirrored in the local cache. */
+public class VisitItem {
+    public String id;          // Firestore document id
+    public String title;
+    public String doctorName;
+    public String specialty;
+    public String conclusion;
+    public long   createdAt;   // epoch millis (server timestamp, estimated while pending)
+    public SyncState syncState = SyncState.SYNCED;
+}
@@ -0,0 +1,101 @@
+package tn.esprit.myapplication.data;
+
+import android.content.Context;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.lifecycle.LiveData;
+
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.Query;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import tn.esprit.myapplication.core.AppExecutors;
+import tn.esprit.myapplication.core.ConnectivityMonitor;
+import tn.esprit.myapplication.core.FirebaseManager;
+import tn.esprit.myapplication.core.LivePagedQuery;
+import tn.esprit.myapplication.data.local.VisitStore;
+import tn.esprit.myapplication.sync.Mutation;
+import tn.esprit.myapplication.sync.PendingRows;
+import tn.esprit.myapplication.sync.WriteBehind;
+
+/**
+ * Single entry point for a user's visits. One {@link LivePagedQuery} per uid is shared
+ * by every screen, so switching tabs or recreating a fragment reuses the loaded list and its
+ * snapshot listener instead of querying Firestore again. Main thread only.
+ */
+public final class VisitRepository {
+
+    public static final String COLLECTION = "visits";
+    private static final int PAGE_SIZE = 20;
+    private static final long KEEP_ALIVE_MS = 30_000L;
+
+    private static VisitRepository instance;
+
+    private final Context app;
+    private final Map<String, LivePagedQuery<VisitItem>> byUid = new HashMap<>();
+    private final Map<String, LiveData<List<VisitItem>>> listsByUid = new HashMap<>();
+
+    private VisitRepository(Context app) {
+        this.app = app;
+    }
+
+    @MainThread
+    public static VisitRepository get(@NonNull Context ctx) {
+        if (instance == null) instance = new VisitRepository(ctx.getApplicationContext());
+        return instance;
+    }
+
+    /** Newest-first visits of {@code uid}; call {@code loadMore()} on the result to page. */
+    @MainThread
+    @NonNull
+    public LivePagedQuery<VisitItem> visits(@NonNull String uid) {
+        LivePagedQuery<VisitItem> q = byUid.get(uid);
+        if (q == null) {
+            q = new LivePagedQuery<>(query(uid), PAGE_SIZE, VisitRepository::fromSnapshot,
+                    new VisitStore(app, uid), AppExecutors.diskIO(), KEEP_ALIVE_MS,
+                    ConnectivityMonitor.get(app));
+            byUid.put(uid, q);
+        }
+        return q;
+    }
+
+    /** Stops and forgets everything loaded for {@code uid}; called at sign-out. */
+    @MainThread
+    public void clear(@NonNull String uid) {
+        LivePagedQuery<VisitItem> q = byUid.remove(uid);
+        if (q != null) q.close();
+        listsByUid.remove(uid);
+    }
+
+    /**
+     * {@link #visits} with rows still in the write-behind queue on top, marked PENDING or FAILED.
+     * This is what lists should show; page through the query returned by {@link #visits}.
+     */
+    @MainThread
+    @NonNull
+    public LiveData<List<VisitItem>> withPending(@NonNull String uid) {
+        LiveData<List<VisitItem>> list = listsByUid.get(uid);
+        if (list == null) {
+            list = PendingRows.overlay(visits(uid), WriteBehind.get(app).pending(uid),
+                    Mutation.Kind.ADD_VISIT, Mutation::visit, it -> it.id);
+            listsByUid.put(uid, list);
+        }
+        return list;
+    }
+
+    @NonNull
+    public static Query query(@NonNull String uid) {
+        return FirebaseManager.db().collection(COLLECTION)
+                .whereEqualTo("uid", uid)
+                .orderBy("createdAt", Query.Direction.DESCENDING);
+    }
+
+    @NonNull
+    public static VisitItem fromSnapshot(@NonNull DocumentSnapshot d) {
+        return Codecs.VISIT.fromSnapshot(d);
+    }
+}
@@ -0,0 +1,84 @@
+package tn.esprit.myapplication.data;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.Locale;
+
+/**
+ * Known indicator types. Firestore stores the constant name in {@code type}, the value as a number
+ * already converted to {@link #unit} and, for blood pressure, the diastolic value in {@code value2}.
+ */
+public enum VitalType {
+    BLOOD_PRESSURE("Blood pressure", "mmHg", "bp", "blood pressure", "tension", "pression arterielle"),
+    HEART_RATE("Heart rate", "bpm", "hr", "pulse", "heart rate", "pouls", "frequence cardiaque"),
+    BLOOD_GLUCOSE("Blood glucose", "mg/dL", "glucose", "blood sugar", "glycemia", "glycemie", "sugar"),
+    BODY_TEMPERATURE("Temperature", "°C", "temp", "temperature", "body temperature"),
+    WEIGHT("Weight", "kg", "weight", "poids", "body weight"),
+    OXYGEN_SATURATION("Oxygen saturation", "%", "spo2", "oxygen", "saturation", "o2 saturation"),
+    RESPIRATORY_RATE("Respiratory rate", "breaths/min", "rr", "respiration", "respiratory rate"),
+    /** Legacy free-text types that match none of the above; {@code label} keeps the original text. */
+    OTHER("Other", "");
+
+    public final String label;
+    /** Canonical unit every stored value is expressed in. */
+    public final String unit;
+    private final String[] aliases;
+
+    VitalType(String label, String unit, String... aliases) {
+        this.label = label;
+        this.unit = unit;
+        this.aliases = aliases;
+    }
+
+    public boolean hasSecondaryValue() {
+        return this == BLOOD_PRESSURE;
+    }
+
+    /** Constant name as stored in Firestore, or a legacy free-text label; never null. */
+    @NonNull
+    public static VitalType parse(@Nullable String s) {
+        if (s == null) return OTHER;
+        String key = s.trim().toLowerCase(Locale.ROOT);
+        for (VitalType t : values()) {
+            if (t.name().equalsIgnoreCase(key) || t.label.equalsIgnoreCase(key)) return t;
+            for (String a : t.aliases) if (a.equals(key)) return t;
+        }
+        return OTHER;
+    }
+
+    /**
+     * {@code value} given in {@code fromUnit} converted to {@link #unit}, or NaN when the unit is
+     * not one this type accepts. An empty unit means the canonical one.
+     */
+    public double toCanonical(double value, @Nullable String fromUnit) {
+        String u = fromUnit == null ? "" : fromUnit.trim().toLowerCase(Locale.ROOT).replace(" ", "");
+        if (u.isEmpty() || u.equalsIgnoreCase(unit.replace(" ", ""))) return value;
+        switch (this) {
+            case BLOOD_GLUCOSE:
+                if (u.equals("mmol/l") || u.equals("mmol")) return value * 18.0;
+                if (u.equals("g/l")) return value * 100.0;
+                break;
+            case BODY_TEMPERATURE:
+                if (u.equals("c") || u.equals("°")) return value;
+                if (u.equals("f") || u.equals("°f")) return (value - 32.0) * 5.0 / 9.0;
+                break;
+            case WEIGHT:
+                if (u.equals("lb") || u.equals("lbs")) return value * 0.45359237;
+                if (u.equals("g")) return value / 1000.0;
+                break;
+            case HEART_RATE:
+            case RESPIRATORY_RATE:
+                if (u.equals("/min") || u.equals("min-1")) return value;
+                break;
+            case BLOOD_PRESSURE:
+                if (u.equals("cmhg")) return value * 10.0;
+                break;
+            case OTHER:
+                return value;
+            default:
+                break;
+        }
+        return Double.NaN;
+    }
+}
@@ -0,0 +1,109 @@
+package tn.esprit.myapplication.data.local;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import androidx.annotation.NonNull;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import tn.esprit.myapplication.data.DoctorItem;
+
+/** Cached doctor directory, shared by every user. Blocking; call from {@code AppExecutors.diskIO()}. */
+public final class DoctorStore {
+
+    private static final String[] COLUMNS = {"id", "full_name", "specialty", "hospital", "services",
+            "prescriptions", "updated_at"};
+
+    private final LocalDb db;
+
+    public DoctorStore(@NonNull Context ctx) {
+        this.db = LocalDb.get(ctx);
+    }
+
+    /** Every cached doctor, by name. */
+    @NonNull
+    public List<DoctorItem> all() {
+        List<DoctorItem> out = new ArrayList<>();
+        try (Cursor c = db.getReadableDatabase().query(LocalDb.T_DOCTORS, COLUMNS,
+                null, null, null, null, "full_name COLLATE NOCASE")) {
+            while (c.moveToNext()) {
+                DoctorItem d = new DoctorItem();
+                d.id = c.getString(0);
+                d.fullName = c.getString(1);
+                d.specialty = c.getString(2);
+                d.hospital = c.getString(3);
+                d.services = fromJson(c.getString(4));
+                d.prescriptions = fromJson(c.getString(5));
+                d.updatedAt = c.getLong(6);
+                out.add(d);
+            }
+        }
+        return out;
+    }
+
+    /** Ids of every cached doctor; a new, mutable set. */
+    @NonNull
+    public Set<String> ids() {
+        Set<String> out = new HashSet<>();
+        try (Cursor c = db.getReadableDatabase().query(LocalDb.T_DOCTORS, new String[]{"id"},
+                null, null, null, null, null)) {
+            while (c.moveToNext()) out.add(c.getString(0));
+        }
+        return out;
+    }
+
+    /** Largest cached {@code updatedAt} in epoch millis, 0 when empty. */
+    public long newestUpdatedAt() {
+        try (Cursor c = db.getReadableDatabase().rawQuery(
+                "SELECT MAX(updated_at) FROM " + LocalDb.T_DOCTORS, null)) {
+            return c.moveToFirst() ? c.getLong(0) : 0L;
+        }
+    }
+
+    /** Applies one sync delta in a single transaction. */
+    public void apply(@NonNull List<DoctorItem> upserts, @NonNull Collection<String> deletes) {
+        SQLiteDatabase w = db.getWritableDatabase();
+        w.beginTransaction();
+        try {
+            for (DoctorItem d : upserts) {
+                ContentValues cv = new ContentValues(7);
+                cv.put("id", d.id);
+                cv.put("full_name", d.fullName);
+                cv.put("specialty", d.specialty);
+                cv.put("hospital", d.hospital);
+                cv.put("services", new JSONArray(d.services).toString());
+                cv.put("prescriptions", new JSONArray(d.prescriptions).toString());
+                cv.put("updated_at", d.updatedAt);
+                w.insertWithOnConflict(LocalDb.T_DOCTORS, null, cv, SQLiteDatabase.CONFLICT_REPLACE);
+            }
+            for (String id : deletes) {
+                w.delete(LocalDb.T_DOCTORS, "id = ?", new String[]{id});
+            }
+            w.setTransactionSuccessful();
+        } finally {
+            w.endTransaction();
+        }
+    }
+
+    private static List<String> fromJson(String json) {
+        List<String> out = new ArrayList<>();
+        if (json == null) return out;
+        try {
+            JSONArray arr = new JSONArray(json);
+            for (int i = 0; i < arr.length(); i++) out.add(arr.optString(i, ""));
+        } catch (JSONException ignored) {
+            // Written by apply(); an unreadable row just loses its lists until the next sync
+        }
+        return out;
+    }
+}
@@ -0,0 +1,140 @@
+package tn.esprit.myapplication.data.local;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import androidx.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import tn.esprit.myapplication.core.FirestorePager;
+import tn.esprit.myapplication.data.IndicatorItem;
+import tn.esprit.myapplication.data.SyncState;
+import tn.esprit.myapplication.data.VitalType;
+
+/** Cached indicator readings of one user. Blocking; call from {@code AppExecutors.diskIO()}. */
+public final class IndicatorStore implements FirestorePager.Store<IndicatorItem> {
+
+    /** Receives cached readings without allocating a row object per reading. */
+    public interface ReadingVisitor {
+        void visit(@NonNull VitalType type, long measuredAt, double value, double value2, long createdAt);
+    }
+
+    private static final String[] COLUMNS =
+            {"id", "type", "label", "value", "value2", "unit", "measured_at", "created_at"};
+
+    private final LocalDb db;
+    private final String uid;
+
+    public IndicatorStore(@NonNull Context ctx, @NonNull String uid) {
+        this.db = LocalDb.get(ctx);
+        this.uid = uid;
+    }
+
+    @NonNull
+    @Override
+    public List<IndicatorItem> pageBefore(long createdAtExclusive, int limit) {
+        List<IndicatorItem> out = new ArrayList<>();
+        try (Cursor c = db.getReadableDatabase().query(LocalDb.T_INDICATORS, COLUMNS,
+                "uid = ? AND created_at < ?", new String[]{uid, String.valueOf(createdAtExclusive)},
+                null, null, "created_at DESC", String.valueOf(limit))) {
+            while (c.moveToNext()) {
+                IndicatorItem it = new IndicatorItem();
+                it.id = c.getString(0);
+                it.type = VitalType.parse(c.getString(1));
+                it.label = c.getString(2);
+                it.value = c.isNull(3) ? Double.NaN : c.getDouble(3);
+                it.value2 = c.isNull(4) ? Double.NaN : c.getDouble(4);
+                it.unit = c.getString(5);
+                it.measuredAt = c.getLong(6);
+                it.createdAt = c.getLong(7);
+                out.add(it);
+            }
+        }
+        return out;
+    }
+
+    /** Streams every cached reading of the user in {@code measuredAt} order. */
+    public void forEachReading(@NonNull ReadingVisitor visitor) {
+        forEachReading("uid = ?", new String[]{uid}, visitor);
+    }
+
+    /** {@link #forEachReading(ReadingVisitor)} restricted to readings of {@code type}. */
+    public void forEachReading(@NonNull VitalType type, @NonNull ReadingVisitor visitor) {
+        forEachReading("uid = ? AND type = ?", new String[]{uid, type.name()}, visitor);
+    }
+
+    private void forEachReading(String selection, String[] args, ReadingVisitor visitor) {
+        try (Cursor c = db.getReadableDatabase().query(LocalDb.T_INDICATORS,
+                new String[]{"type", "measured_at", "value", "value2", "created_at"},
+                selection, args, null, null, "measured_at ASC")) {
+            VitalType[] types = VitalType.values();
+            while (c.moveToNext()) {
+                visitor.visit(typeOf(c.getString(0), types), c.getLong(1),
+                        c.isNull(2) ? Double.NaN : c.getDouble(2),
+                        c.isNull(3) ? Double.NaN : c.getDouble(3),
+                        c.getLong(4));
+            }
+        }
+    }
+
+    private static VitalType typeOf(String name, VitalType[] types) {
+        for (VitalType t : types) if (t.name().equals(name)) return t;
+        return VitalType.OTHER;
+    }
+
+    @Override
+    public long newestCreatedAt() {
+        try (Cursor c = db.getReadableDatabase().rawQuery(
+                "SELECT MAX(created_at) FROM " + LocalDb.T_INDICATORS + " WHERE uid = ?", new String[]{uid})) {
+            return c.moveToFirst() ? c.getLong(0) : 0L;
+        }
+    }
+
+    @Override
+    public void upsert(@NonNull List<IndicatorItem> items) {
+        SQLiteDatabase w = db.getWritableDatabase();
+        w.beginTransaction();
+        try {
+            for (IndicatorItem it : items) {
+                // A pending write's createdAt is the device clock's estimate and would move the
+                // watermark past rows the server has yet to order; the acknowledged snapshot is stored later
+                if (it.syncState != SyncState.SYNCED || it.createdAt <= 0) continue;
+                ContentValues cv = new ContentValues(9);
+                cv.put("id", it.id);
+                cv.put("uid", uid);
+                cv.put("type", it.type.name());
+                cv.put("label", it.label);
+                // SQLite has no NaN; it is stored as NULL and read back as NaN
+                if (Double.isNaN(it.value)) cv.putNull("value"); else cv.put("value", it.value);
+                if (Double.isNaN(it.value2)) cv.putNull("value2"); else cv.put("value2", it.value2);
+                cv.put("unit", it.unit);
+                cv.put("measured_at", it.measuredAt);
+                cv.put("created_at", it.createdAt);
+                w.insertWithOnConflict(LocalDb.T_INDICATORS, null, cv, SQLiteDatabase.CONFLICT_REPLACE);
+            }
+            w.setTransactionSuccessful();
+        } finally {
+            w.endTransaction();
+        }
+    }
+
+    @Override
+    public void delete(@NonNull String id) {
+        db.getWritableDatabase().delete(LocalDb.T_INDICATORS, "id = ?", new String[]{id});
+    }
+
+    @Override
+    public long createdAtOf(@NonNull IndicatorItem item) {
+        return item.createdAt;
+    }
+
+    @NonNull
+    @Override
+    public String idOf(@NonNull IndicatorItem item) {
+        return item.id;
+    }
+}
@@ -0,0 +1,146 @@
+package tn.esprit.myapplication.data.local;
+
+import android.content.Context;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteException;
+import android.database.sqlite.SQLiteOpenHelper;
+
+import androidx.annotation.NonNull;
+
+/**
+ * On-device mirror of the per-user {@code indicators} and {@code visits} collections, plus the
+ * {@code outbox} of writes not yet accepted by Firestore, and FTS4 search tables over the mirror.
+ * The mirror is a cache: Firestore stays the source of truth, so upgrades simply rebuild those
+ * tables. The outbox is the only copy of unsent data and is always migrated, never dropped.
+ * The search tables index the mirror in place ({@code content=}) and are kept current by triggers,
+ * so every cache write updates them in the same transaction. The {@code doctors} directory is shared
+ * by all users and synced by {@code updatedAt} delta.
+ * Access it from {@code AppExecutors.diskIO()}, never from the main thread.
+ */
+public final class LocalDb extends SQLiteOpenHelper {
+
+    private static final String NAME = "readydocs_cache.db";
+    // 2: typed indicator columns, 3: measured_at index, 4: outbox, 5: full-text search,
+    // 6: doctor directory
+    private static final int VERSION = 6;
+
+    static final String T_INDICATORS = "indicators";
+    static final String T_VISITS = "visits";
+    static final String T_OUTBOX = "outbox";
+    static final String T_VISITS_FTS = "visits_fts";
+    static final String T_INDICATORS_FTS = "indicators_fts";
+    static final String T_DOCTORS = "doctors";
+
+    private static volatile LocalDb instance;
+
+    private LocalDb(Context ctx) {
+        super(ctx, NAME, null, VERSION);
+    }
+
+    public static LocalDb get(@NonNull Context ctx) {
+        if (instance == null) {
+            synchronized (LocalDb.class) {
+                if (instance == null) instance = new LocalDb(ctx.getApplicationContext());
+            }
+        }
+        return instance;
+    }
+
+    @Override
+    public void onConfigure(SQLiteDatabase db) {
+        db.enableWriteAheadLogging();
+        // Upserts use REPLACE; its implicit delete must fire the search triggers too
+        db.execSQL("PRAGMA recursive_triggers = ON");
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        createCaches(db);
+        createOutbox(db);
+        createSearch(db);
+        createDirectory(db);
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        if (oldVersion < 3) {
+            db.execSQL("DROP TABLE IF EXISTS " + T_INDICATORS);
+            db.execSQL("DROP TABLE IF EXISTS " + T_VISITS);
+            createCaches(db);
+        }
+        if (oldVersion < 4) createOutbox(db);
+        if (oldVersion < 5) createSearch(db);
+        if (oldVersion < 6) createDirectory(db);
+    }
+
+    private static void createCaches(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + T_INDICATORS + " ("
+                + "id TEXT PRIMARY KEY, uid TEXT NOT NULL, type TEXT NOT NULL, label TEXT, value REAL, "
+                + "value2 REAL, unit TEXT, measured_at INTEGER NOT NULL, created_at INTEGER NOT NULL)");
+        db.execSQL("CREATE INDEX idx_indicators_uid_created ON " + T_INDICATORS + " (uid, created_at DESC)");
+        db.execSQL("CREATE INDEX idx_indicators_uid_measured ON " + T_INDICATORS + " (uid, measured_at)");
+
+        db.execSQL("CREATE TABLE " + T_VISITS + " ("
+                + "id TEXT PRIMARY KEY, uid TEXT NOT NULL, title TEXT, doctor_name TEXT, specialty TEXT, "
+                + "conclusion TEXT, created_at INTEGER NOT NULL)");
+        db.execSQL("CREATE INDEX idx_visits_uid_created ON " + T_VISITS + " (uid, created_at DESC)");
+    }
+
+    private static void createOutbox(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + T_OUTBOX + " ("
+                + "seq INTEGER PRIMARY KEY AUTOINCREMENT, id TEXT NOT NULL UNIQUE, uid TEXT NOT NULL, "
+                + "kind TEXT NOT NULL, payload TEXT NOT NULL, state TEXT NOT NULL, attempts INTEGER NOT NULL, "
+                + "next_attempt_at INTEGER NOT NULL, last_error TEXT, created_at INTEGER NOT NULL)");
+        db.execSQL("CREATE INDEX idx_outbox_uid_seq ON " + T_OUTBOX + " (uid, seq)");
+    }
+
+    /** List columns are JSON arrays; {@code updated_at} is the delta sync watermark. */
+    private static void createDirectory(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + T_DOCTORS + " ("
+                + "id TEXT PRIMARY KEY, full_name TEXT, specialty TEXT, hospital TEXT, services TEXT, "
+                + "prescriptions TEXT, updated_at INTEGER NOT NULL)");
+        db.execSQL("CREATE INDEX idx_doctors_updated ON " + T_DOCTORS + " (updated_at)");
+    }
+
+    /**
+     * External-content FTS4 tables over the caches, with 2- and 3-character prefix indexes for
+     * search-as-you-type. Indicator types are stored as enum names; the tokenizer splits them on
+     * '_', so "blood" finds BLOOD_PRESSURE and BLOOD_GLUCOSE. Existing rows are indexed once here.
+     */
+    private static void createSearch(SQLiteDatabase db) {
+        db.execSQL("DROP TABLE IF EXISTS " + T_VISITS_FTS);
+        db.execSQL("DROP TABLE IF EXISTS " + T_INDICATORS_FTS);
+        createFts(db, T_VISITS_FTS, T_VISITS, "title", "doctor_name", "specialty", "conclusion");
+        createFts(db, T_INDICATORS_FTS, T_INDICATORS, "type", "label", "unit");
+    }
+
+    private static void createFts(SQLiteDatabase db, String fts, String content, String... columns) {
+        String cols = String.join(", ", columns);
+        String options = "content=\"" + content + "\", prefix=\"2,3\"";
+        try {
+            // Case- and accent-insensitive ("hopital" finds "Hôpital")
+            db.execSQL("CREATE VIRTUAL TABLE " + fts + " USING fts4(" + cols + ", " + options
+                    + ", tokenize=unicode61 \"remove_diacritics=1\")");
+        } catch (SQLiteException e) {
+            // SQLite builds without unicode61: ASCII case folding only
+            db.execSQL("CREATE VIRTUAL TABLE " + fts + " USING fts4(" + cols + ", " + options + ")");
+        }
+
+        StringBuilder oldCols = new StringBuilder("old.rowid");
+        StringBuilder newCols = new StringBuilder("new.rowid");
+        for (String c : columns) {
+            oldCols.append(", old.").append(c);
+            newCols.append(", new.").append(c);
+        }
+        String target = fts + "(docid, " + cols + ")";
+        db.execSQL("CREATE TRIGGER " + fts + "_bd BEFORE DELETE ON " + content
+                + " BEGIN DELETE FROM " + fts + " WHERE docid = old.rowid; END");
+        db.execSQL("CREATE TRIGGER " + fts + "_bu BEFORE UPDATE ON " + content
+                + " BEGIN DELETE FROM " + fts + " WHERE docid = old.rowid; END");
+        db.execSQL("CREATE TRIGGER " + fts + "_au AFTER UPDATE ON " + content
+                + " BEGIN INSERT INTO " + target + " VALUES (" + newCols + "); END");
+        db.execSQL("CREATE TRIGGER " + fts + "_ai AFTER INSERT ON " + content
+                + " BEGIN INSERT INTO " + target + " VALUES (" + newCols + "); END");
+        db.execSQL("INSERT INTO " + fts + "(" + fts + ") VALUES ('rebuild')");
+    }
+}
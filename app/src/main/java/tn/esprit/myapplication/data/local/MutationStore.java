@@ -0,0 +1,94 @@
+package tn.esprit.myapplication.data.local;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import tn.esprit.myapplication.data.SyncState;
+import tn.esprit.myapplication.sync.Mutation;
+
+/** Durable FIFO of {@link Mutation}s. Blocking; call from {@code AppExecutors.diskIO()}. */
+public final class MutationStore {
+
+    private static final String[] COLUMNS = {"id", "uid", "kind", "payload", "state", "attempts",
+            "next_attempt_at", "last_error", "created_at"};
+
+    private final LocalDb db;
+
+    public MutationStore(@NonNull Context ctx) {
+        this.db = LocalDb.get(ctx);
+    }
+
+    public void insert(@NonNull Mutation m) {
+        ContentValues cv = new ContentValues(9);
+        cv.put("id", m.id);
+        cv.put("uid", m.uid);
+        cv.put("kind", m.kind.name());
+        cv.put("payload", m.payload);
+        cv.put("state", m.state.name());
+        cv.put("attempts", m.attempts);
+        cv.put("next_attempt_at", m.nextAttemptAt);
+        cv.put("last_error", m.lastError);
+        cv.put("created_at", m.createdAt);
+        db.getWritableDatabase().insertOrThrow(LocalDb.T_OUTBOX, null, cv);
+    }
+
+    /**
+     * Oldest pending mutation of {@code uid} or of {@link Mutation#ANONYMOUS}, whether or not its
+     * backoff has elapsed. Pass {@code ANONYMOUS} when nobody is signed in.
+     */
+    @Nullable
+    public Mutation head(@NonNull String uid) {
+        List<Mutation> l = query("uid IN (?, ?) AND state = ?",
+                new String[]{uid, Mutation.ANONYMOUS, SyncState.PENDING.name()}, "1");
+        return l.isEmpty() ? null : l.get(0);
+    }
+
+    /** Pending and failed mutations of {@code uid}, oldest first. */
+    @NonNull
+    public List<Mutation> all(@NonNull String uid) {
+        return query("uid = ?", new String[]{uid}, null);
+    }
+
+    public void delete(@NonNull String id) {
+        db.getWritableDatabase().delete(LocalDb.T_OUTBOX, "id = ?", new String[]{id});
+    }
+
+    public void backOff(@NonNull String id, int attempts, long nextAttemptAt, @Nullable String error) {
+        ContentValues cv = new ContentValues(3);
+        cv.put("attempts", attempts);
+        cv.put("next_attempt_at", nextAttemptAt);
+        cv.put("last_error", error);
+        db.getWritableDatabase().update(LocalDb.T_OUTBOX, cv, "id = ?", new String[]{id});
+    }
+
+    public void setState(@NonNull String id, @NonNull SyncState state, @Nullable String error) {
+        ContentValues cv = new ContentValues(4);
+        cv.put("state", state.name());
+        cv.put("last_error", error);
+        if (state == SyncState.PENDING) {
+            cv.put("attempts", 0);
+            cv.put("next_attempt_at", 0L);
+        }
+        db.getWritableDatabase().update(LocalDb.T_OUTBOX, cv, "id = ?", new String[]{id});
+    }
+
+    private List<Mutation> query(String selection, String[] args, @Nullable String limit) {
+        List<Mutation> out = new ArrayList<>();
+        try (Cursor c = db.getReadableDatabase().query(LocalDb.T_OUTBOX, COLUMNS, selection, args,
+                null, null, "seq ASC", limit)) {
+            while (c.moveToNext()) {
+                out.add(new Mutation(c.getString(0), c.getString(1), Mutation.Kind.valueOf(c.getString(2)),
+                        c.getString(3), SyncState.valueOf(c.getString(4)), c.getInt(5), c.getLong(6),
+                        c.getString(7), c.getLong(8)));
+            }
+        }
+        return out;
+    }
+}
@@ -0,0 +1,129 @@
+package tn.esprit.myapplication.data.local;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.os.CancellationSignal;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import tn.esprit.myapplication.data.IndicatorItem;
+import tn.esprit.myapplication.data.SearchHit;
+import tn.esprit.myapplication.data.VisitItem;
+import tn.esprit.myapplication.data.VitalType;
+
+/**
+ * Prefix search over one user's cached visits and readings, backed by the FTS4 tables in
+ * {@link LocalDb}. Every query word must match the start of a word in the row ("car lin" finds
+ * "Cardiology, Dr. Lina"). Rows are ranked by a tf-idf score from {@code matchinfo}, weighted per
+ * column, then by recency. Blocking; call from {@code AppExecutors.diskRead()}.
+ */
+public final class SearchIndex {
+
+    // Column weights, in FTS column order
+    private static final double[] VISIT_WEIGHTS = {3, 2, 2, 1};    // title, doctor, specialty, conclusion
+    private static final double[] INDICATOR_WEIGHTS = {2, 2, 1};   // type, label, unit
+
+    private static final String VISITS_SQL = "SELECT v.id, v.title, v.doctor_name, v.specialty, "
+            + "v.conclusion, v.created_at, matchinfo(f, 'pcnx') FROM " + LocalDb.T_VISITS_FTS + " f JOIN "
+            + LocalDb.T_VISITS + " v ON v.rowid = f.docid WHERE f MATCH ? AND v.uid = ?";
+    private static final String INDICATORS_SQL = "SELECT i.id, i.type, i.label, i.value, i.value2, "
+            + "i.unit, i.measured_at, i.created_at, matchinfo(f, 'pcnx') FROM " + LocalDb.T_INDICATORS_FTS
+            + " f JOIN " + LocalDb.T_INDICATORS + " i ON i.rowid = f.docid WHERE f MATCH ? AND i.uid = ?";
+
+    private final LocalDb db;
+    private final String uid;
+
+    public SearchIndex(@NonNull Context ctx, @NonNull String uid) {
+        this.db = LocalDb.get(ctx);
+        this.uid = uid;
+    }
+
+    /**
+     * Best {@code limit} hits for {@code text}, best first; empty for blank text. Cancelling
+     * {@code signal} aborts a running query with {@link android.os.OperationCanceledException}.
+     */
+    @NonNull
+    public List<SearchHit> search(@NonNull String text, int limit, @Nullable CancellationSignal signal) {
+        String match = toMatchQuery(text);
+        if (match.isEmpty()) return Collections.emptyList();
+
+        List<SearchHit> hits = new ArrayList<>();
+        String[] args = {match, uid};
+        try (Cursor c = db.getReadableDatabase().rawQuery(VISITS_SQL, args, signal)) {
+            while (c.moveToNext()) {
+                VisitItem v = new VisitItem();
+                v.id = c.getString(0);
+                v.title = c.getString(1);
+                v.doctorName = c.getString(2);
+                v.specialty = c.getString(3);
+                v.conclusion = c.getString(4);
+                v.createdAt = c.getLong(5);
+                hits.add(SearchHit.of(v, score(c.getBlob(6), VISIT_WEIGHTS)));
+            }
+        }
+        try (Cursor c = db.getReadableDatabase().rawQuery(INDICATORS_SQL, args, signal)) {
+            while (c.moveToNext()) {
+                IndicatorItem it = new IndicatorItem();
+                it.id = c.getString(0);
+                it.type = VitalType.parse(c.getString(1));
+                it.label = c.getString(2);
+                it.value = c.isNull(3) ? Double.NaN : c.getDouble(3);
+                it.value2 = c.isNull(4) ? Double.NaN : c.getDouble(4);
+                it.unit = c.getString(5);
+                it.measuredAt = c.getLong(6);
+                it.createdAt = c.getLong(7);
+                hits.add(SearchHit.of(it, score(c.getBlob(8), INDICATOR_WEIGHTS)));
+            }
+        }
+
+        Collections.sort(hits, (a, b) -> a.score != b.score
+                ? Double.compare(b.score, a.score)
+                : Long.compare(b.at(), a.at()));
+        return hits.size() > limit ? new ArrayList<>(hits.subList(0, limit)) : hits;
+    }
+
+    /**
+     * FTS query for free text: each word becomes a quoted prefix term ({@code "car*"}), implicitly
+     * ANDed. Punctuation is dropped and quoting keeps words like OR or NEAR from acting as operators.
+     */
+    static String toMatchQuery(@NonNull String text) {
+        StringBuilder q = new StringBuilder();
+        for (String word : text.split("[^\\p{L}\\p{N}]+")) {
+            if (word.isEmpty()) continue;
+            if (q.length() > 0) q.append(' ');
+            q.append('"').append(word).append("*\"");
+        }
+        return q.toString();
+    }
+
+    /**
+     * matchinfo 'pcnx': phrase count p, column count c, row count n, then per phrase and column
+     * (hits in this row, hits in all rows, rows with a hit). Each matching column adds its weight
+     * times a saturating term frequency times the phrase's inverse document frequency.
+     */
+    private static double score(byte[] matchinfo, double[] weights) {
+        IntBuffer m = ByteBuffer.wrap(matchinfo).order(ByteOrder.nativeOrder()).asIntBuffer();
+        int phrases = m.get(0);
+        int columns = m.get(1);
+        int rows = m.get(2);
+        double score = 0;
+        for (int p = 0; p < phrases; p++) {
+            for (int col = 0; col < columns && col < weights.length; col++) {
+                int base = 3 + 3 * (p * columns + col);
+                int hits = m.get(base);
+                if (hits == 0) continue;
+                int docs = Math.max(1, m.get(base + 2));
+                score += weights[col] * (hits / (hits + 1.0)) * Math.log(1.0 + (double) rows / docs);
+            }
+        }
+        return score;
+    }
+}
@@ -0,0 +1,99 @@
+package tn.esprit.myapplication.data.local;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import androidx.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import tn.esprit.myapplication.core.FirestorePager;
+import tn.esprit.myapplication.data.SyncState;
+import tn.esprit.myapplication.data.VisitItem;
+
+/** Cached visits of one user. Blocking; call from {@code AppExecutors.diskIO()}. */
+public final class VisitStore implements FirestorePager.Store<VisitItem> {
+
+    private static final String[] COLUMNS = {"id", "title", "doctor_name", "specialty", "conclusion", "created_at"};
+
+    private final LocalDb db;
+    private final String uid;
+
+    public VisitStore(@NonNull Context ctx, @NonNull String uid) {
+        this.db = LocalDb.get(ctx);
+        this.uid = uid;
+    }
+
+    @NonNull
+    @Override
+    public List<VisitItem> pageBefore(long createdAtExclusive, int limit) {
+        List<VisitItem> out = new ArrayList<>();
+        try (Cursor c = db.getReadableDatabase().query(LocalDb.T_VISITS, COLUMNS,
+                "uid = ? AND created_at < ?", new String[]{uid, String.valueOf(createdAtExclusive)},
+                null, null, "created_at DESC", String.valueOf(limit))) {
+            while (c.moveToNext()) {
+                VisitItem it = new VisitItem();
+                it.id = c.getString(0);
+                it.title = c.getString(1);
+                it.doctorName = c.getString(2);
+                it.specialty = c.getString(3);
+                it.conclusion = c.getString(4);
+                it.createdAt = c.getLong(5);
+                out.add(it);
+            }
+        }
+        return out;
+    }
+
+    @Override
+    public long newestCreatedAt() {
+        try (Cursor c = db.getReadableDatabase().rawQuery(
+                "SELECT MAX(created_at) FROM " + LocalDb.T_VISITS + " WHERE uid = ?", new String[]{uid})) {
+            return c.moveToFirst() ? c.getLong(0) : 0L;
+        }
+    }
+
+    @Override
+    public void upsert(@NonNull List<VisitItem> items) {
+        SQLiteDatabase w = db.getWritableDatabase();
+        w.beginTransaction();
+        try {
+            for (VisitItem it : items) {
+                // A pending write's createdAt is the device clock's estimate and would move the
+                // watermark past rows the server has yet to order; the acknowledged snapshot is stored later
+                if (it.syncState != SyncState.SYNCED || it.createdAt <= 0) continue;
+                ContentValues cv = new ContentValues(7);
+                cv.put("id", it.id);
+                cv.put("uid", uid);
+                cv.put("title", it.title);
+                cv.put("doctor_name", it.doctorName);
+                cv.put("specialty", it.specialty);
+                cv.put("conclusion", it.conclusion);
+                cv.put("created_at", it.createdAt);
+                w.insertWithOnConflict(LocalDb.T_VISITS, null, cv, SQLiteDatabase.CONFLICT_REPLACE);
+            }
+            w.setTransactionSuccessful();
+        } finally {
+            w.endTransaction();
+        }
+    }
+
+    @Override
+    public void delete(@NonNull String id) {
+        db.getWritableDatabase().delete(LocalDb.T_VISITS, "id = ?", new String[]{id});
+    }
+
+    @Override
+    public long createdAtOf(@NonNull VisitItem item) {
+        return item.createdAt;
+    }
+
+    @NonNull
+    @Override
+    public String idOf(@NonNull VisitItem item) {
+        return item.id;
+    }
+}
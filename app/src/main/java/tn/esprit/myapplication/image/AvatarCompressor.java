@@ -0,0 +1,118 @@
+package tn.esprit.myapplication.image;
+
+import android.content.ContentResolver;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Matrix;
+import android.media.ExifInterface;
+import android.net.Uri;
+import android.os.Build;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.WorkerThread;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Shrinks a picked photo before upload: bounds-only decode, {@code inSampleSize} close to the
+ * target, exact scale to {@code maxDimension}, EXIF rotation applied to the pixels, then a fresh
+ * JPEG/WebP encode. Re-encoding from a Bitmap writes no EXIF, so GPS and camera tags are dropped.
+ */
+public final class AvatarCompressor {
+
+    public static final int DEFAULT_MAX_DIMENSION = 512;
+    public static final int DEFAULT_QUALITY = 85;
+
+    public enum Format { JPEG, WEBP }
+
+    private final int maxDimension;
+    private final int quality;
+    private final Format format;
+
+    public AvatarCompressor() {
+        this(DEFAULT_MAX_DIMENSION, DEFAULT_QUALITY, Format.JPEG);
+    }
+
+    public AvatarCompressor(int maxDimension, int quality, @NonNull Format format) {
+        this.maxDimension = maxDimension;
+        this.quality = quality;
+        this.format = format;
+    }
+
+    @NonNull
+    public String contentType() {
+        return format == Format.WEBP ? "image/webp" : "image/jpeg";
+    }
+
+    /** Writes the compressed image to {@code out} and returns it. */
+    @WorkerThread
+    @NonNull
+    public File compress(@NonNull ContentResolver resolver, @NonNull Uri source, @NonNull File out)
+            throws IOException {
+        BitmapFactory.Options bounds = new BitmapFactory.Options();
+        bounds.inJustDecodeBounds = true;
+        try (InputStream in = open(resolver, source)) {
+            BitmapFactory.decodeStream(in, null, bounds);
+        }
+        if (bounds.outWidth <= 0 || bounds.outHeight <= 0) throw new IOException("Not an image: " + source);
+
+        BitmapFactory.Options opts = new BitmapFactory.Options();
+        opts.inSampleSize = ImageLoader.sampleSize(bounds.outWidth, bounds.outHeight, maxDimension, maxDimension);
+        Bitmap decoded;
+        try (InputStream in = open(resolver, source)) {
+            decoded = BitmapFactory.decodeStream(in, null, opts);
+        }
+        if (decoded == null) throw new IOException("Could not decode: " + source);
+
+        int rotation;
+        try (InputStream in = open(resolver, source)) {
+            rotation = rotationDegrees(new ExifInterface(in));
+        } catch (IOException e) {
+            rotation = 0;
+        }
+
+        float scale = Math.min(1f, (float) maxDimension / Math.max(decoded.getWidth(), decoded.getHeight()));
+        Matrix m = new Matrix();
+        m.postScale(scale, scale);
+        m.postRotate(rotation);
+        Bitmap result = Bitmap.createBitmap(decoded, 0, 0, decoded.getWidth(), decoded.getHeight(), m, true);
+        if (result != decoded) decoded.recycle();
+
+        File dir = out.getParentFile();
+        if (dir != null && !dir.isDirectory() && !dir.mkdirs()) throw new IOException("Cannot create " + dir);
+        try (OutputStream os = new FileOutputStream(out)) {
+            if (!result.compress(compressFormat(), quality, os)) throw new IOException("Encoding failed");
+        } finally {
+            result.recycle();
+        }
+        return out;
+    }
+
+    @SuppressWarnings("deprecation")
+    private Bitmap.CompressFormat compressFormat() {
+        if (format == Format.JPEG) return Bitmap.CompressFormat.JPEG;
+        return Build.VERSION.SDK_INT >= Build.VERSION_CODES.R
+                ? Bitmap.CompressFormat.WEBP_LOSSY
+                : Bitmap.CompressFormat.WEBP;
+    }
+
+    private static InputStream open(ContentResolver resolver, Uri uri) throws IOException {
+        InputStream in = resolver.openInputStream(uri);
+        if (in == null) throw new FileNotFoundException(uri.toString());
+        return in;
+    }
+
+    private static int rotationDegrees(ExifInterface exif) {
+        switch (exif.getAttributeInt(ExifInterface.TAG_ORIENTATION, ExifInterface.ORIENTATION_NORMAL)) {
+            case ExifInterface.ORIENTATION_ROTATE_90: return 90;
+            case ExifInterface.ORIENTATION_ROTATE_180: return 180;
+            case ExifInterface.ORIENTATION_ROTATE_270: return 270;
+            default: return 0;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package tn.esprit.myapplication.image;
+
+import android.content.Context;
+import android.net.Uri;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.work.BackoffPolicy;
+import androidx.work.Constraints;
+import androidx.work.Data;
+import androidx.work.ExistingWorkPolicy;
+import androidx.work.NetworkType;
+import androidx.work.OneTimeWorkRequest;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.auth.FirebaseUser;
+
+import java.util.concurrent.TimeUnit;
+
+import tn.esprit.myapplication.core.FirebaseManager;
+import tn.esprit.myapplication.sync.Mutation;
+import tn.esprit.myapplication.sync.WriteBehind;
+
+/**
+ * Finishes an {@link AvatarUploader} upload deferred on a metered network once an unmetered one is
+ * available, whether or not the profile screen is open, then saves the photo's URL through the
+ * outbox. One unique job per account; {@link AvatarUploader#discard} cancels it at sign-out.
+ */
+public final class AvatarUploadWorker extends Worker {
+
+    private static final String TAG = "AvatarUploadWorker";
+    private static final String WORK_NAME = "avatar_upload_";
+    private static final String KEY_UID = "uid";
+    // WorkManager stops a worker after ten minutes
+    private static final long UPLOAD_TIMEOUT_MINUTES = 9;
+
+    public AvatarUploadWorker(@NonNull Context ctx, @NonNull WorkerParameters params) {
+        super(ctx, params);
+    }
+
+    /** Idempotent: a job already waiting for an unmetered network is kept as is. */
+    static void schedule(@NonNull Context ctx, @NonNull String uid) {
+        OneTimeWorkRequest request = new OneTimeWorkRequest.Builder(AvatarUploadWorker.class)
+                .setConstraints(new Constraints.Builder()
+                        .setRequiredNetworkType(NetworkType.UNMETERED)
+                        .build())
+                .setBackoffCriteria(BackoffPolicy.EXPONENTIAL, 30, TimeUnit.SECONDS)
+                .setInputData(new Data.Builder().putString(KEY_UID, uid).build())
+                .build();
+        WorkManager.getInstance(ctx).enqueueUniqueWork(WORK_NAME + uid, ExistingWorkPolicy.KEEP, request);
+    }
+
+    static void cancel(@NonNull Context ctx, @NonNull String uid) {
+        WorkManager.getInstance(ctx).cancelUniqueWork(WORK_NAME + uid);
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        String uid = getInputData().getString(KEY_UID);
+        FirebaseUser user = FirebaseManager.auth().getCurrentUser();
+        // Signed out since: discard has dropped the file already
+        if (uid == null || user == null || !uid.equals(user.getUid())) return Result.success();
+        try {
+            Uri url = Tasks.await(new AvatarUploader(getApplicationContext()).resumeInBackground(uid),
+                    UPLOAD_TIMEOUT_MINUTES, TimeUnit.MINUTES);
+            if (url != null) {
+                WriteBehind.get(getApplicationContext()).enqueue(Mutation.setProfileImage(uid, url.toString()));
+                // Same storage path may keep the same URL; drop the stale copy
+                ImageLoader.get(getApplicationContext()).invalidate(url.toString());
+            }
+            return Result.success();
+        } catch (Exception e) {
+            Log.w(TAG, "Avatar upload interrupted", e);
+            return Result.retry();
+        }
+    }
+}
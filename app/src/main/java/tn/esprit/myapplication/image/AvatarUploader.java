@@ -0,0 +1,234 @@
+package tn.esprit.myapplication.image;
+
+import android.app.Activity;
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.net.Uri;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.storage.StorageMetadata;
+import com.google.firebase.storage.StorageReference;
+import com.google.firebase.storage.UploadTask;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+
+import tn.esprit.myapplication.core.AppExecutors;
+import tn.esprit.myapplication.core.ConnectivityMonitor;
+import tn.esprit.myapplication.core.FirebaseManager;
+
+/**
+ * Profile photo upload: compresses the picked image into app storage with {@link AvatarCompressor},
+ * then uploads it through a resumable Storage session.
+ *
+ * The compressed file, storage path and session URI are persisted as soon as they exist, so an
+ * upload interrupted by a dropped connection or process death continues where it stopped via
+ * {@link #resumePending}. On a metered network the compressed file is kept and the upload waits
+ * for an unmetered one ({@link Listener#onDeferred}): an open screen resumes it when
+ * {@link ConnectivityMonitor} reports one, and {@link AvatarUploadWorker} does so otherwise, even
+ * after process death. Bookkeeping listeners are unscoped; UI listeners are
+ * bound to the activity. Pending state is kept per account, and {@link #discard} drops it at
+ * sign-out, so an upload is never resumed, or its URL saved, under another account.
+ */
+public final class AvatarUploader {
+
+    public interface Listener {
+        void onProgress(long sentBytes, long totalBytes);
+        void onSuccess(@NonNull Uri downloadUri);
+        void onFailure(@NonNull Exception e);
+        /** Compressed and saved, waiting for an unmetered network. */
+        void onDeferred();
+    }
+
+    private static final String TAG = "AvatarUploader";
+    private static final String PREFS = "avatar_upload";
+    // Suffixed with the uid
+    private static final String KEY_FILE = "file_";
+    private static final String KEY_PATH = "path_";
+    private static final String KEY_SESSION = "session_";
+
+    private final Context app;
+    private final SharedPreferences prefs;
+    private final AvatarCompressor compressor;
+    private final ConnectivityMonitor network;
+
+    public AvatarUploader(@NonNull Context ctx) {
+        this(ctx, new AvatarCompressor());
+    }
+
+    public AvatarUploader(@NonNull Context ctx, @NonNull AvatarCompressor compressor) {
+        this.app = ctx.getApplicationContext();
+        this.prefs = app.getSharedPreferences(PREFS, Context.MODE_PRIVATE);
+        this.compressor = compressor;
+        this.network = ConnectivityMonitor.get(app);
+        // Unkeyed state from before uploads were kept per account: whose it was is unknown
+        if (prefs.contains("path")) prefs.edit().remove("file").remove("path").remove("session").apply();
+    }
+
+    /** Compresses {@code source} off the main thread and uploads it to {@code profileImages/<uid>}. */
+    public void upload(@NonNull Activity activity, @NonNull Uri source, @NonNull String uid,
+                       @NonNull Listener listener) {
+        String ext = compressor.contentType().equals("image/webp") ? ".webp" : ".jpg";
+        String path = "profileImages/" + uid + ext;
+        File out = new File(new File(app.getFilesDir(), "uploads"), "avatar_" + uid + ext);
+        Runnable compress = () -> {
+            try {
+                compressor.compress(app.getContentResolver(), source, out);
+            } catch (Exception e) {
+                AppExecutors.main().execute(() -> listener.onFailure(e));
+                return;
+            }
+            prefs.edit()
+                    .putString(KEY_FILE + uid, out.getAbsolutePath())
+                    .putString(KEY_PATH + uid, path)
+                    .remove(KEY_SESSION + uid)
+                    .apply();
+            AppExecutors.main().execute(() -> {
+                if (network.current().isUnmetered()) {
+                    start(activity, uid, path, out, null, listener);
+                } else {
+                    AvatarUploadWorker.schedule(app, uid);
+                    listener.onDeferred();
+                }
+            });
+        };
+        try {
+            AppExecutors.cpu().execute(compress);
+        } catch (RejectedExecutionException e) {
+            listener.onFailure(e);
+        }
+    }
+
+    /**
+     * Re-attaches to {@code uid}'s upload still running in this process, or resumes one persisted
+     * by a previous process. A persisted upload stays deferred on a metered network. Returns false
+     * when nothing was started or re-attached.
+     */
+    public boolean resumePending(@NonNull Activity activity, @NonNull String uid, @NonNull Listener listener) {
+        String filePath = prefs.getString(KEY_FILE + uid, null);
+        String path = prefs.getString(KEY_PATH + uid, null);
+        if (filePath == null || path == null) return false;
+        File file = new File(filePath);
+        if (!file.isFile()) {
+            clear(prefs, uid);
+            return false;
+        }
+
+        StorageReference ref = FirebaseManager.storage().getReference().child(path);
+        List<UploadTask> active = ref.getActiveUploadTasks();
+        if (!active.isEmpty()) {
+            observe(activity, uid, ref, active.get(0), listener);
+            return true;
+        }
+        if (!network.current().isUnmetered()) {
+            AvatarUploadWorker.schedule(app, uid);
+            listener.onDeferred();
+            return false;
+        }
+        String session = prefs.getString(KEY_SESSION + uid, null);
+        start(activity, uid, path, file, session == null ? null : Uri.parse(session), listener);
+        return true;
+    }
+
+    /**
+     * Same without a screen, for {@link AvatarUploadWorker}: re-attaches to or resumes {@code uid}'s
+     * persisted upload whatever the network, and resolves with the download URL, or null when
+     * nothing is pending.
+     */
+    @NonNull
+    Task<Uri> resumeInBackground(@NonNull String uid) {
+        String filePath = prefs.getString(KEY_FILE + uid, null);
+        String path = prefs.getString(KEY_PATH + uid, null);
+        if (filePath == null || path == null) return Tasks.forResult(null);
+        File file = new File(filePath);
+        if (!file.isFile()) {
+            clear(prefs, uid);
+            return Tasks.forResult(null);
+        }
+
+        StorageReference ref = FirebaseManager.storage().getReference().child(path);
+        List<UploadTask> active = ref.getActiveUploadTasks();
+        String session = prefs.getString(KEY_SESSION + uid, null);
+        UploadTask task = !active.isEmpty() ? active.get(0)
+                : put(uid, ref, file, session == null ? null : Uri.parse(session));
+        return downloadUrl(uid, ref, task);
+    }
+
+    /** Cancels and forgets {@code uid}'s pending upload; called at sign-out. */
+    public static void discard(@NonNull Context ctx, @NonNull String uid) {
+        AvatarUploadWorker.cancel(ctx, uid);
+        SharedPreferences prefs = ctx.getApplicationContext().getSharedPreferences(PREFS, Context.MODE_PRIVATE);
+        String path = prefs.getString(KEY_PATH + uid, null);
+        if (path != null) {
+            for (UploadTask t : FirebaseManager.storage().getReference().child(path).getActiveUploadTasks()) {
+                t.cancel();
+            }
+        }
+        clear(prefs, uid);
+    }
+
+    private void start(Activity activity, String uid, String path, File file, @Nullable Uri session,
+                       Listener listener) {
+        StorageReference ref = FirebaseManager.storage().getReference().child(path);
+        observe(activity, uid, ref, put(uid, ref, file, session), listener);
+    }
+
+    /** Starts the upload, or resumes {@code session}, with the bookkeeping listeners attached. */
+    private UploadTask put(String uid, StorageReference ref, File file, @Nullable Uri session) {
+        StorageMetadata metadata = new StorageMetadata.Builder()
+                .setContentType(compressor.contentType())
+                .build();
+        Uri fileUri = Uri.fromFile(file);
+        UploadTask task = session == null
+                ? ref.putFile(fileUri, metadata)
+                : ref.putFile(fileUri, metadata, session);
+
+        task.addOnProgressListener(AppExecutors.io(), snap -> {
+            Uri s = snap.getUploadSessionUri();
+            // Not after a discard: the cancelled task may still report progress
+            if (s != null && prefs.contains(KEY_PATH + uid)
+                    && !s.toString().equals(prefs.getString(KEY_SESSION + uid, null))) {
+                prefs.edit().putString(KEY_SESSION + uid, s.toString()).apply();
+            }
+        });
+        task.addOnFailureListener(AppExecutors.io(), e -> {
+            // A stale or expired session can't be resumed; the next attempt starts a new one
+            if (session != null) prefs.edit().remove(KEY_SESSION + uid).apply();
+            Log.w(TAG, "Upload interrupted; will resume later", e);
+        });
+        return task;
+    }
+
+    private void observe(Activity activity, String uid, StorageReference ref, UploadTask task,
+                         Listener listener) {
+        task.addOnProgressListener(activity, snap ->
+                listener.onProgress(snap.getBytesTransferred(), snap.getTotalByteCount()));
+        downloadUrl(uid, ref, task)
+                .addOnSuccessListener(activity, listener::onSuccess)
+                .addOnFailureListener(activity, listener::onFailure);
+    }
+
+    /** Forgets the pending state once {@code task} has uploaded, then fetches the file's URL. */
+    private Task<Uri> downloadUrl(String uid, StorageReference ref, UploadTask task) {
+        return task.continueWithTask(t -> {
+            if (!t.isSuccessful()) throw t.getException();
+            clear(prefs, uid);
+            return ref.getDownloadUrl();
+        });
+    }
+
+    private static void clear(SharedPreferences prefs, String uid) {
+        String filePath = prefs.getString(KEY_FILE + uid, null);
+        if (filePath != null) {
+            //noinspection ResultOfMethodCallIgnored
+            new File(filePath).delete();
+        }
+        prefs.edit().remove(KEY_FILE + uid).remove(KEY_PATH + uid).remove(KEY_SESSION + uid).apply();
+    }
+}
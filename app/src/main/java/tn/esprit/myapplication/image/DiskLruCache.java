@@ -0,0 +1,118 @@
+package tn.esprit.myapplication.image;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+/**
+ * Byte cache on disk, one file per key (SHA-1 of the key). Reads refresh a file's
+ * last-modified time; when the directory exceeds its budget the least recently used
+ * files are deleted. Blocking: call from a background thread.
+ */
+final class DiskLruCache {
+
+    private final File dir;
+    private final long maxBytes;
+
+    DiskLruCache(@NonNull File dir, long maxBytes) {
+        this.dir = dir;
+        this.maxBytes = maxBytes;
+    }
+
+    @Nullable
+    synchronized byte[] get(@NonNull String key) {
+        File f = fileFor(key);
+        if (!f.isFile()) return null;
+        try (InputStream in = new FileInputStream(f)) {
+            byte[] data = readFully(in, (int) f.length());
+            //noinspection ResultOfMethodCallIgnored
+            f.setLastModified(System.currentTimeMillis());
+            return data;
+        } catch (IOException e) {
+            //noinspection ResultOfMethodCallIgnored
+            f.delete();
+            return null;
+        }
+    }
+
+    synchronized void put(@NonNull String key, @NonNull byte[] data) {
+        if (!dir.isDirectory() && !dir.mkdirs()) return;
+        File target = fileFor(key);
+        File tmp = new File(dir, target.getName() + ".tmp");
+        try (OutputStream out = new FileOutputStream(tmp)) {
+            out.write(data);
+        } catch (IOException e) {
+            //noinspection ResultOfMethodCallIgnored
+            tmp.delete();
+            return;
+        }
+        // Rename so a crash never leaves a truncated entry behind
+        if (!tmp.renameTo(target)) {
+            //noinspection ResultOfMethodCallIgnored
+            tmp.delete();
+            return;
+        }
+        trim();
+    }
+
+    synchronized void remove(@NonNull String key) {
+        //noinspection ResultOfMethodCallIgnored
+        fileFor(key).delete();
+    }
+
+    private void trim() {
+        File[] files = dir.listFiles();
+        if (files == null) return;
+        long total = 0;
+        for (File f : files) total += f.length();
+        if (total <= maxBytes) return;
+        Arrays.sort(files, (a, b) -> Long.compare(a.lastModified(), b.lastModified()));
+        for (File f : files) {
+            if (total <= maxBytes) break;
+            long len = f.length();
+            if (f.delete()) total -= len;
+        }
+    }
+
+    private File fileFor(String key) {
+        return new File(dir, sha1(key));
+    }
+
+    private static String sha1(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(key.getBytes(StandardCharsets.UTF_8));
+            StringBuilder sb = new StringBuilder(digest.length * 2);
+            for (byte b : digest) sb.append(String.format("%02x", b));
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            return String.valueOf(key.hashCode());
+        }
+    }
+
+    static byte[] readFully(InputStream in, int sizeHint) throws IOException {
+        return readFully(in, sizeHint, Integer.MAX_VALUE);
+    }
+
+    /** Reads {@code in} to the end; fails once more than {@code maxBytes} arrived. */
+    static byte[] readFully(InputStream in, int sizeHint, int maxBytes) throws IOException {
+        if (sizeHint > maxBytes) throw new IOException("Larger than " + maxBytes + " bytes");
+        java.io.ByteArrayOutputStream out = new java.io.ByteArrayOutputStream(Math.max(sizeHint, 8 * 1024));
+        byte[] buf = new byte[8 * 1024];
+        int n;
+        while ((n = in.read(buf)) != -1) {
+            if (out.size() + n > maxBytes) throw new IOException("Larger than " + maxBytes + " bytes");
+            out.write(buf, 0, n);
+        }
+        return out.toByteArray();
+    }
+}
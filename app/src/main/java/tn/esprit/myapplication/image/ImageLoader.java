@@ -0,0 +1,262 @@
+package tn.esprit.myapplication.image;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.util.LruCache;
+import android.widget.ImageView;
+
+import androidx.annotation.DrawableRes;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
+import com.google.android.gms.tasks.Tasks;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
+
+import tn.esprit.myapplication.R;
+import tn.esprit.myapplication.core.AppExecutors;
+import tn.esprit.myapplication.core.ConnectivityMonitor;
+import tn.esprit.myapplication.core.FirebaseManager;
+
+/**
+ * Loads remote images (Firebase Storage download URLs or gs:// paths) into ImageViews.
+ *
+ * Lookups go memory ({@link LruCache} sized to 1/8 of the heap) then disk (LRU, keyed by URL)
+ * then network. Bytes are fetched on the IO pool and decoded with {@code inSampleSize} for the
+ * target view size on the CPU pool; concurrent requests for the same URL and size share one
+ * download and decode. Offline, a URL missing from both caches fails at once instead of waiting
+ * for the connect timeout. Downloads over {@code MAX_DOWNLOAD_BYTES} fail, from Storage or HTTP.
+ */
+public final class ImageLoader {
+
+    public interface Callback {
+        void onLoaded(@NonNull Bitmap bitmap);
+        void onError(@NonNull Exception e);
+    }
+
+    private static final int MAX_DOWNLOAD_BYTES = 1024 * 1024;
+    private static final long DISK_CACHE_BYTES = 20L * 1024 * 1024;
+
+    private static volatile ImageLoader instance;
+
+    private final LruCache<String, Bitmap> memory;
+    private final DiskLruCache disk;
+    private final ConnectivityMonitor network;
+    // Callbacks waiting on a running load, by cache key; guarded by itself
+    private final Map<String, List<Callback>> inFlight = new HashMap<>();
+    // Invalidated URLs whose disk entry is still there; the first IO task to run drops it
+    private final Set<String> staleOnDisk = new HashSet<>();
+
+    private ImageLoader(Context ctx) {
+        int maxKb = (int) (Runtime.getRuntime().maxMemory() / 1024);
+        memory = new LruCache<String, Bitmap>(maxKb / 8) {
+            @Override
+            protected int sizeOf(String key, Bitmap value) {
+                return value.getByteCount() / 1024;
+            }
+        };
+        disk = new DiskLruCache(new File(ctx.getCacheDir(), "images"), DISK_CACHE_BYTES);
+        network = ConnectivityMonitor.get(ctx);
+    }
+
+    public static ImageLoader get(@NonNull Context ctx) {
+        if (instance == null) {
+            synchronized (ImageLoader.class) {
+                if (instance == null) instance = new ImageLoader(ctx.getApplicationContext());
+            }
+        }
+        return instance;
+    }
+
+    /** Binds {@code url} to {@code target}, showing {@code placeholder} until it is ready. */
+    public void load(@NonNull String url, @NonNull ImageView target,
+                     @DrawableRes int placeholder, @Nullable Callback callback) {
+        int w = target.getWidth() > 0 ? target.getWidth() : target.getLayoutParams() != null
+                ? Math.max(target.getLayoutParams().width, 0) : 0;
+        int h = target.getHeight() > 0 ? target.getHeight() : target.getLayoutParams() != null
+                ? Math.max(target.getLayoutParams().height, 0) : 0;
+        if (w == 0 || h == 0) {
+            // Not measured yet (wrap/match_parent): fall back to the screen size as the upper bound
+            w = target.getResources().getDisplayMetrics().widthPixels;
+            h = target.getResources().getDisplayMetrics().heightPixels;
+        }
+
+        String key = url + "#" + w + "x" + h;
+        target.setTag(R.id.image_loader_key, key);
+
+        Bitmap cached = memory.get(key);
+        if (cached != null) {
+            target.setImageBitmap(cached);
+            if (callback != null) callback.onLoaded(cached);
+            return;
+        }
+        target.setImageResource(placeholder);
+
+        Callback bind = new Callback() {
+            @Override public void onLoaded(@NonNull Bitmap bitmap) {
+                // The view may have been rebound to another URL meanwhile
+                if (key.equals(target.getTag(R.id.image_loader_key))) target.setImageBitmap(bitmap);
+                if (callback != null) callback.onLoaded(bitmap);
+            }
+            @Override public void onError(@NonNull Exception e) {
+                if (callback != null) callback.onError(e);
+            }
+        };
+
+        List<Callback> waiting;
+        synchronized (inFlight) {
+            waiting = inFlight.get(key);
+            if (waiting != null) {
+                waiting.add(bind);
+                return;
+            }
+            waiting = new ArrayList<>();
+            waiting.add(bind);
+            inFlight.put(key, waiting);
+        }
+
+        List<Callback> mine = waiting;
+        int reqW = w, reqH = h;
+        try {
+            AppExecutors.io().execute(() -> {
+                byte[] bytes;
+                try {
+                    bytes = fetch(url);
+                } catch (Exception e) {
+                    deliver(key, mine, null, e);
+                    return;
+                }
+                try {
+                    AppExecutors.cpu().execute(() -> {
+                        try {
+                            Bitmap bmp = decode(bytes, reqW, reqH);
+                            // Not cached when invalidate() detached this load: the bytes may be stale
+                            synchronized (inFlight) {
+                                if (inFlight.get(key) == mine) memory.put(key, bmp);
+                            }
+                            deliver(key, mine, bmp, null);
+                        } catch (Exception e) {
+                            deliver(key, mine, null, e);
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    deliver(key, mine, null, e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Pools full: fail this load and clear its in-flight entry so a later bind retries
+            deliver(key, mine, null, e);
+        }
+    }
+
+    private void deliver(String key, List<Callback> waiting, @Nullable Bitmap result, @Nullable Exception failure) {
+        AppExecutors.main().execute(() -> {
+            synchronized (inFlight) {
+                if (inFlight.get(key) == waiting) inFlight.remove(key);
+            }
+            for (Callback c : waiting) {
+                if (result != null) c.onLoaded(result);
+                else c.onError(failure != null ? failure : new IOException("Image load failed"));
+            }
+        });
+    }
+
+    /**
+     * Drops every cached copy of {@code url}, e.g. after the file behind it was replaced. A load
+     * started afterwards never reads the old disk entry: whichever IO task runs first removes it.
+     * Loads already running still complete, but their result is not cached.
+     */
+    public void invalidate(@NonNull String url) {
+        synchronized (staleOnDisk) {
+            staleOnDisk.add(url);
+        }
+        String prefix = url + "#";
+        synchronized (inFlight) {
+            inFlight.keySet().removeIf(key -> key.startsWith(prefix));
+            for (String key : memory.snapshot().keySet()) {
+                if (key.startsWith(prefix)) memory.remove(key);
+            }
+        }
+        try {
+            AppExecutors.io().execute(() -> dropIfStale(url));
+        } catch (RejectedExecutionException e) {
+            // The next fetch of url drops it
+        }
+    }
+
+    @WorkerThread
+    private void dropIfStale(String url) {
+        boolean stale;
+        synchronized (staleOnDisk) {
+            stale = staleOnDisk.remove(url);
+        }
+        if (stale) disk.remove(url);
+    }
+
+    @WorkerThread
+    private byte[] fetch(String url) throws Exception {
+        dropIfStale(url);
+        byte[] bytes = disk.get(url);
+        if (bytes == null) {
+            if (!network.current().online) throw new IOException("Offline: " + url);
+            bytes = download(url);
+            disk.put(url, bytes);
+        }
+        return bytes;
+    }
+
+    @WorkerThread
+    private static Bitmap decode(byte[] bytes, int reqW, int reqH) throws IOException {
+        BitmapFactory.Options opts = new BitmapFactory.Options();
+        opts.inJustDecodeBounds = true;
+        BitmapFactory.decodeByteArray(bytes, 0, bytes.length, opts);
+        opts.inSampleSize = sampleSize(opts.outWidth, opts.outHeight, reqW, reqH);
+        opts.inJustDecodeBounds = false;
+        Bitmap bmp = BitmapFactory.decodeByteArray(bytes, 0, bytes.length, opts);
+        if (bmp == null) throw new IOException("Could not decode image");
+        return bmp;
+    }
+
+    @WorkerThread
+    private static byte[] download(String url) throws Exception {
+        if (url.startsWith("gs://")) {
+            return Tasks.await(FirebaseManager.storage().getReferenceFromUrl(url).getBytes(MAX_DOWNLOAD_BYTES));
+        }
+        HttpURLConnection conn = (HttpURLConnection) new URL(url).openConnection();
+        try {
+            conn.setConnectTimeout(15_000);
+            conn.setReadTimeout(15_000);
+            if (conn.getResponseCode() / 100 != 2) {
+                throw new IOException("HTTP " + conn.getResponseCode() + " for " + url);
+            }
+            try (InputStream in = conn.getInputStream()) {
+                return DiskLruCache.readFully(in, conn.getContentLength(), MAX_DOWNLOAD_BYTES);
+            }
+        } finally {
+            conn.disconnect();
+        }
+    }
+
+    /** Largest power of two that keeps both dimensions at or above the requested size. */
+    static int sampleSize(int srcW, int srcH, int reqW, int reqH) {
+        int sample = 1;
+        if (srcW <= 0 || srcH <= 0) return sample;
+        while (srcW / (sample * 2) >= reqW && srcH / (sample * 2) >= reqH) {
+            sample *= 2;
+        }
+        return sample;
+    }
+}
@@ -10,23 +10,29 @@ import com.google.firebase.firestore.FirebaseFirestore;
 
 import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.HashMap;
 import java.util.List;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.Map;
 
+import tn.esprit.myapplication.core.AppExecutors;
 import tn.esprit.myapplication.core.FirebaseManager;
+import tn.esprit.myapplication.data.AppointmentRepository;
 import tn.esprit.myapplication.seed.SeedModels.AppointmentSeed;
 import tn.esprit.myapplication.seed.SeedModels.DoctorSeed;
 import tn.esprit.myapplication.seed.SeedModels.PatientSeed;
 
 /**
  * One-shot seeder. Creates fake doctors, a sample patient, and a few appointments.
- * Idempotent: uses a marker doc to avoid duplicating data.
+ * Idempotent: uses a marker doc to avoid duplicating data. Writes are batched through
+ * {@link SeedWriter}, and the marker is committed with the last batch.
  */
 public final class DataSeeder {
 
     private static final String TAG = "DataSeeder";
     private static final String MARKER_COLLECTION = "_internal";
     private static final String MARKER_DOC = "seed_v1_done";
+    // Deterministic ids: a retried run overwrites the same documents instead of duplicating them
+    private static final String SEED_ID_PREFIX = "seed_v1_";
 
     private DataSeeder() {}
 
@@ -34,7 +40,8 @@ public final class DataSeeder {
         FirebaseFirestore db = FirebaseManager.db();
         DocumentReference marker = db.collection(MARKER_COLLECTION).document(MARKER_DOC);
 
-        return marker.get().continueWithTask(task -> {
+        // Seeds are built off the main thread; only the log listeners run on it
+        return marker.get().continueWithTask(AppExecutors.io(), task -> {
                     if (!task.isSuccessful()) {
                         throw task.getException();
                     }
@@ -56,20 +63,24 @@ public final class DataSeeder {
                     demoPatient.email = currentUserEmail;
                     demoPatient.phone = "+216 55 000 111";
 
-                    // Write in a simple chain: doctors -> patient -> appointments -> marker
-                    List<Task<?>> writes = new ArrayList<>();
+                    // All writes go through one SeedWriter; the marker lands in the final batch
+                    SeedWriter writer = new SeedWriter(db);
 
-                    for (DoctorSeed d : doctors) {
-                        DocumentReference ref = db.collection("doctors").document();
+                    for (int i = 0; i < doctors.size(); i++) {
+                        DoctorSeed d = doctors.get(i);
+                        DocumentReference ref = db.collection("doctors").document(SEED_ID_PREFIX + "doctor_" + i);
                         d.id = ref.getId();
-                        writes.add(ref.set(d.toMap()));
+                        writer.set(ref, d.toMap());
                     }
 
-                    DocumentReference patientRef = db.collection("patients").document();
+                    DocumentReference patientRef = db.collection("patients")
+                            .document(SEED_ID_PREFIX + "patient_" + currentUserUid);
                     demoPatient.id = patientRef.getId();
-                    writes.add(patientRef.set(demoPatient.toMap()));
+                    writer.set(patientRef, demoPatient.toMap());
                     // Link this patient to current user UID for convenience
-                    writes.add(db.collection("users").document(currentUserUid).update("seedPatientId", demoPatient.id));
+                    Map<String, Object> link = new HashMap<>();
+                    link.put("seedPatientId", demoPatient.id);
+                    writer.merge(db.collection("users").document(currentUserUid), link);
 
                     // Appointments: next 3 days at 10:00 for 45 minutes
                     Calendar base = Calendar.getInstance();
@@ -97,28 +108,24 @@ public final class DataSeeder {
                         appts.add(a);
                     }
 
-                    for (AppointmentSeed a : appts) {
-                        DocumentReference ref = db.collection("appointments").document();
+                    for (int i = 0; i < appts.size(); i++) {
+                        AppointmentSeed a = appts.get(i);
+                        DocumentReference ref = db.collection("appointments")
+                                .document(SEED_ID_PREFIX + "appt_" + currentUserUid + "_" + i);
                         a.id = ref.getId();
-                        writes.add(ref.set(a.toMap()));
+                        writer.set(ref, a.toMap());
+                        // Claim the doctor's slots like AppointmentRepository.book(), so bookings check against them
+                        Map<String, Object> claim = AppointmentRepository.slotClaim(
+                                a.doctorId, a.id, a.startAtEpochMillis, a.endAtEpochMillis);
+                        for (String slot : AppointmentRepository.slotIds(a.doctorId, a.startAtEpochMillis, a.endAtEpochMillis)) {
+                            writer.merge(db.collection(AppointmentRepository.SLOTS).document(slot), claim);
+                        }
                     }
 
-                    // Wait all, then set the marker
-                    AtomicInteger remaining = new AtomicInteger(writes.size());
-                    com.google.android.gms.tasks.TaskCompletionSource<Void> tcs = new com.google.android.gms.tasks.TaskCompletionSource<>();
-
-                    for (Task<?> w : writes) {
-                        w.addOnCompleteListener(done -> {
-                            if (remaining.decrementAndGet() == 0) {
-                                marker.set(new java.util.HashMap<String, Object>() {{
-                                            put("at", System.currentTimeMillis());
-                                            put("by", currentUserUid);
-                                        }}).addOnSuccessListener(v -> tcs.setResult(null))
-                                        .addOnFailureListener(tcs::setException);
-                            }
-                        });
-                    }
-                    return tcs.getTask();
+                    Map<String, Object> markerData = new HashMap<>();
+                    markerData.put("at", System.currentTimeMillis());
+                    markerData.put("by", currentUserUid);
+                    return writer.commit(marker, markerData);
                 }).addOnSuccessListener(aVoid -> Log.d(TAG, "Seed completed."))
                 .addOnFailureListener(e -> Log.e(TAG, "Seed failed", e));
     }
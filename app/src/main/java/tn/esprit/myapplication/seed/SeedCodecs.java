@@ -0,0 +1,86 @@
+package tn.esprit.myapplication.seed;
+
+import androidx.annotation.NonNull;
+
+import com.google.firebase.firestore.DocumentSnapshot;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import tn.esprit.myapplication.core.FirestoreCodec;
+import tn.esprit.myapplication.seed.SeedModels.AppointmentSeed;
+import tn.esprit.myapplication.seed.SeedModels.DoctorSeed;
+import tn.esprit.myapplication.seed.SeedModels.PatientSeed;
+
+/** Firestore codecs of the demo seed models; {@code id} is the document id, never a field. */
+public final class SeedCodecs {
+
+    private SeedCodecs() {}
+
+    public static final FirestoreCodec<DoctorSeed> DOCTOR = new FirestoreCodec<DoctorSeed>() {
+        @NonNull @Override public DoctorSeed fromSnapshot(@NonNull DocumentSnapshot d) {
+            DoctorSeed s = new DoctorSeed();
+            s.id = d.getId();
+            s.fullName = d.getString("fullName");
+            s.specialty = d.getString("specialty");
+            s.hospital = d.getString("hospital");
+            s.avatarUrl = d.getString("avatarUrl");
+            return s;
+        }
+
+        @NonNull @Override public Map<String, Object> toMap(@NonNull DoctorSeed s) {
+            Map<String, Object> m = new HashMap<>(8);
+            m.put("fullName", s.fullName);
+            m.put("specialty", s.specialty);
+            m.put("hospital", s.hospital);
+            m.put("avatarUrl", s.avatarUrl);
+            return m;
+        }
+    };
+
+    public static final FirestoreCodec<PatientSeed> PATIENT = new FirestoreCodec<PatientSeed>() {
+        @NonNull @Override public PatientSeed fromSnapshot(@NonNull DocumentSnapshot d) {
+            PatientSeed s = new PatientSeed();
+            s.id = d.getId();
+            s.fullName = d.getString("fullName");
+            s.email = d.getString("email");
+            s.phone = d.getString("phone");
+            return s;
+        }
+
+        @NonNull @Override public Map<String, Object> toMap(@NonNull PatientSeed s) {
+            Map<String, Object> m = new HashMap<>(4);
+            m.put("fullName", s.fullName);
+            m.put("email", s.email);
+            m.put("phone", s.phone);
+            return m;
+        }
+    };
+
+    public static final FirestoreCodec<AppointmentSeed> APPOINTMENT = new FirestoreCodec<AppointmentSeed>() {
+        @NonNull @Override public AppointmentSeed fromSnapshot(@NonNull DocumentSnapshot d) {
+            AppointmentSeed s = new AppointmentSeed();
+            s.id = d.getId();
+            s.doctorId = d.getString("doctorId");
+            s.patientId = d.getString("patientId");
+            Long start = d.getLong("startAt");
+            Long end = d.getLong("endAt");
+            s.startAtEpochMillis = start == null ? 0L : start;
+            s.endAtEpochMillis = end == null ? 0L : end;
+            s.title = d.getString("title");
+            s.notes = d.getString("notes");
+            return s;
+        }
+
+        @NonNull @Override public Map<String, Object> toMap(@NonNull AppointmentSeed s) {
+            Map<String, Object> m = new HashMap<>(8);
+            m.put("doctorId", s.doctorId);
+            m.put("patientId", s.patientId);
+            m.put("startAt", s.startAtEpochMillis);
+            m.put("endAt", s.endAtEpochMillis);
+            m.put("title", s.title);
+            m.put("notes", s.notes);
+            return m;
+        }
+    };
+}
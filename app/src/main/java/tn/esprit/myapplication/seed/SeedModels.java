@@ -1,6 +1,7 @@
 package tn.esprit.myapplication.seed;
 
-import java.util.HashMap;
+import com.google.firebase.firestore.FieldValue;
+
 import java.util.Map;
 
 public final class SeedModels {
@@ -15,11 +16,8 @@ public final class SeedModels {
         public String avatarUrl;   // optional
 
         public Map<String, Object> toMap() {
-            Map<String, Object> m = new HashMap<>();
-            m.put("fullName", fullName);
-            m.put("specialty", specialty);
-            m.put("hospital", hospital);
-            m.put("avatarUrl", avatarUrl);
+            Map<String, Object> m = SeedCodecs.DOCTOR.toMap(this);
+            m.put("updatedAt", FieldValue.serverTimestamp());
             return m;
         }
     }
@@ -31,11 +29,7 @@ public final class SeedModels {
         public String phone;
 
         public Map<String, Object> toMap() {
-            Map<String, Object> m = new HashMap<>();
-            m.put("fullName", fullName);
-            m.put("email", email);
-            m.put("phone", phone);
-            return m;
+            return SeedCodecs.PATIENT.toMap(this);
         }
     }
 
@@ -49,14 +43,7 @@ public final class SeedModels {
         public String notes;
 
         public Map<String, Object> toMap() {
-            Map<String, Object> m = new HashMap<>();
-            m.put("doctorId", doctorId);
-            m.put("patientId", patientId);
-            m.put("startAt", startAtEpochMillis);
-            m.put("endAt", endAtEpochMillis);
-            m.put("title", title);
-            m.put("notes", notes);
-            return m;
+            return SeedCodecs.APPOINTMENT.toMap(this);
         }
     }
 }
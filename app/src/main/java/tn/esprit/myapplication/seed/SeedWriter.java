@@ -0,0 +1,98 @@
+package tn.esprit.myapplication.seed;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.SetOptions;
+import com.google.firebase.firestore.WriteBatch;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import tn.esprit.myapplication.core.AppExecutors;
+import tn.esprit.myapplication.core.TaskUtil;
+
+/**
+ * Collects seed writes and commits them as {@link WriteBatch} chunks of at most
+ * {@link #MAX_BATCH_OPS} operations (Firestore's per-batch limit).
+ *
+ * Data chunks are committed in parallel. The last chunk carries the completion marker and is
+ * committed only after every other chunk succeeded, so a marker never sits next to partial data.
+ * When everything fits in one chunk, data and marker are a single atomic commit.
+ *
+ * Callers should use deterministic document ids so a retried run overwrites instead of duplicating.
+ */
+public final class SeedWriter {
+
+    public static final int MAX_BATCH_OPS = 500;
+
+    private interface Op {
+        void apply(WriteBatch batch);
+    }
+
+    private final FirebaseFirestore db;
+    private final List<Op> ops = new ArrayList<>();
+
+    public SeedWriter(@NonNull FirebaseFirestore db) {
+        this.db = db;
+    }
+
+    public SeedWriter set(@NonNull DocumentReference ref, @NonNull Map<String, Object> data) {
+        ops.add(b -> b.set(ref, data));
+        return this;
+    }
+
+    /** Merge-set: unlike update(), does not fail when the document is missing. */
+    public SeedWriter merge(@NonNull DocumentReference ref, @NonNull Map<String, Object> data) {
+        ops.add(b -> b.set(ref, data, SetOptions.merge()));
+        return this;
+    }
+
+    public int size() {
+        return ops.size();
+    }
+
+    /** Commits all queued writes. Pass a null marker to commit every chunk in parallel. */
+    @NonNull
+    public Task<Void> commit(@Nullable DocumentReference marker, @Nullable Map<String, Object> markerData) {
+        List<List<Op>> chunks = new ArrayList<>();
+        for (int i = 0; i < ops.size(); i += MAX_BATCH_OPS) {
+            chunks.add(new ArrayList<>(ops.subList(i, Math.min(i + MAX_BATCH_OPS, ops.size()))));
+        }
+        ops.clear();
+
+        if (marker == null || markerData == null) {
+            List<Task<Void>> all = new ArrayList<>();
+            for (List<Op> chunk : chunks) all.add(toBatch(chunk).commit());
+            return TaskUtil.allOf(all).onSuccessTask(AppExecutors.direct(), results -> Tasks.forResult(null));
+        }
+
+        Op markerOp = b -> b.set(marker, markerData);
+        if (chunks.isEmpty() || chunks.get(chunks.size() - 1).size() == MAX_BATCH_OPS) {
+            chunks.add(new ArrayList<>());
+        }
+        List<Op> last = chunks.remove(chunks.size() - 1);
+        last.add(markerOp);
+        WriteBatch finalBatch = toBatch(last);
+
+        List<Task<Void>> parallel = new ArrayList<>();
+        for (List<Op> chunk : chunks) parallel.add(toBatch(chunk).commit());
+
+        // Fails fast: the marker batch is never sent once any data chunk has failed
+        return TaskUtil.allOf(parallel).continueWithTask(AppExecutors.direct(), t -> {
+            if (!t.isSuccessful()) throw t.getException();
+            return finalBatch.commit();
+        });
+    }
+
+    private WriteBatch toBatch(List<Op> chunk) {
+        WriteBatch batch = db.batch();
+        for (Op op : chunk) op.apply(batch);
+        return batch;
+    }
+}
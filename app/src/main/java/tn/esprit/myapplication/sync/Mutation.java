@@ -0,0 +1,182 @@
+package tn.esprit.myapplication.sync;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.UUID;
+
+import tn.esprit.myapplication.data.Codecs;
+import tn.esprit.myapplication.data.IndicatorItem;
+import tn.esprit.myapplication.data.SyncState;
+import tn.esprit.myapplication.data.User;
+import tn.esprit.myapplication.data.VisitItem;
+import tn.esprit.myapplication.data.VitalType;
+
+/**
+ * One queued write. {@link #id} is generated on the device and doubles as the idempotency key:
+ * for added documents it is the target document id, and profile writes are whole-field sets, so
+ * replaying a mutation that already reached the server changes nothing.
+ */
+public final class Mutation {
+
+    public enum Kind { ADD_INDICATOR, ADD_VISIT, SET_PROFILE, SET_PROFILE_IMAGE, SEND_PASSWORD_RESET }
+
+    /** Owner of mutations sent without a signed-in user, e.g. a password reset from the login screen. */
+    public static final String ANONYMOUS = "";
+
+    public final String id;
+    public final String uid;
+    public final Kind kind;
+    public final String payload;      // JSON, see the factories
+    public final SyncState state;
+    public final int attempts;
+    public final long nextAttemptAt;  // epoch millis
+    @Nullable public final String lastError;
+    public final long createdAt;      // epoch millis, when the user saved
+
+    public Mutation(@NonNull String id, @NonNull String uid, @NonNull Kind kind, @NonNull String payload,
+                    @NonNull SyncState state, int attempts, long nextAttemptAt, @Nullable String lastError,
+                    long createdAt) {
+        this.id = id;
+        this.uid = uid;
+        this.kind = kind;
+        this.payload = payload;
+        this.state = state;
+        this.attempts = attempts;
+        this.nextAttemptAt = nextAttemptAt;
+        this.lastError = lastError;
+        this.createdAt = createdAt;
+    }
+
+    @NonNull
+    public static Mutation addIndicator(@NonNull String uid, @NonNull String id, @NonNull IndicatorItem it) {
+        JSONObject o = new JSONObject();
+        try {
+            o.put("type", it.type.name());
+            if (it.label != null) o.put("label", it.label);
+            o.put("value", it.value);
+            if (!Double.isNaN(it.value2)) o.put("value2", it.value2);
+            o.put("unit", it.unit);
+            o.put("measuredAt", it.measuredAt);
+        } catch (JSONException e) {
+            throw new IllegalArgumentException("Reading can't be queued: " + e.getMessage(), e);
+        }
+        return queued(uid, id, Kind.ADD_INDICATOR, o);
+    }
+
+    @NonNull
+    public static Mutation addVisit(@NonNull String uid, @NonNull String id, @NonNull VisitItem v) {
+        JSONObject o = new JSONObject();
+        try {
+            o.put("title", v.title);
+            o.put("doctorName", v.doctorName);
+            o.put("specialty", v.specialty);
+            o.put("conclusion", v.conclusion);
+        } catch (JSONException e) {
+            throw new IllegalArgumentException("Visit can't be queued: " + e.getMessage(), e);
+        }
+        return queued(uid, id, Kind.ADD_VISIT, o);
+    }
+
+    /**
+     * The account's profile document, written right after sign-up. The payload is the document
+     * itself, as mapped by {@link Codecs#USER}; null fields are left out.
+     */
+    @NonNull
+    public static Mutation setProfile(@NonNull String uid, @NonNull User user) {
+        JSONObject o = new JSONObject();
+        try {
+            for (Map.Entry<String, Object> e : Codecs.USER.toMap(user).entrySet()) o.put(e.getKey(), e.getValue());
+        } catch (JSONException e) {
+            throw new IllegalArgumentException("Profile can't be queued: " + e.getMessage(), e);
+        }
+        return queued(uid, UUID.randomUUID().toString(), Kind.SET_PROFILE, o);
+    }
+
+    @NonNull
+    public static Mutation setProfileImage(@NonNull String uid, @NonNull String imageUrl) {
+        JSONObject o = new JSONObject();
+        try {
+            o.put("imageUrl", imageUrl);
+        } catch (JSONException e) {
+            throw new IllegalArgumentException("Image URL can't be queued: " + e.getMessage(), e);
+        }
+        return queued(uid, UUID.randomUUID().toString(), Kind.SET_PROFILE_IMAGE, o);
+    }
+
+    /** Sent without credentials, so it is queued under {@link #ANONYMOUS}. */
+    @NonNull
+    public static Mutation sendPasswordReset(@NonNull String email) {
+        JSONObject o = new JSONObject();
+        try {
+            o.put("email", email);
+        } catch (JSONException e) {
+            throw new IllegalArgumentException("Reset can't be queued: " + e.getMessage(), e);
+        }
+        return queued(ANONYMOUS, UUID.randomUUID().toString(), Kind.SEND_PASSWORD_RESET, o);
+    }
+
+    /** The queued reading, as listed before Firestore confirms it. */
+    @NonNull
+    public IndicatorItem indicator() throws JSONException {
+        JSONObject o = new JSONObject(payload);
+        IndicatorItem it = new IndicatorItem();
+        it.id = id;
+        it.type = VitalType.parse(o.getString("type"));
+        it.label = o.optString("label", null);
+        it.value = o.getDouble("value");
+        it.value2 = o.has("value2") ? o.getDouble("value2") : Double.NaN;
+        it.unit = o.optString("unit", it.type.unit);
+        it.measuredAt = o.getLong("measuredAt");
+        it.createdAt = createdAt;
+        it.syncState = state;
+        return it;
+    }
+
+    /** The queued visit, as listed before Firestore confirms it. */
+    @NonNull
+    public VisitItem visit() throws JSONException {
+        JSONObject o = new JSONObject(payload);
+        VisitItem v = new VisitItem();
+        v.id = id;
+        v.title = o.optString("title", null);
+        v.doctorName = o.optString("doctorName", null);
+        v.specialty = o.optString("specialty", null);
+        v.conclusion = o.optString("conclusion", null);
+        v.createdAt = createdAt;
+        v.syncState = state;
+        return v;
+    }
+
+    /** Fields of a queued profile write, as {@link #setProfile} stored them. */
+    @NonNull
+    public Map<String, Object> profileFields() throws JSONException {
+        JSONObject o = new JSONObject(payload);
+        Map<String, Object> doc = new HashMap<>(16);
+        for (Iterator<String> keys = o.keys(); keys.hasNext(); ) {
+            String key = keys.next();
+            Object value = o.get(key);
+            // Rows queued by older versions spelled out an empty photo; that would clear a real one
+            if ("imageUrl".equals(key) && "".equals(value)) continue;
+            doc.put(key, value == JSONObject.NULL ? null : value);
+        }
+        return doc;
+    }
+
+    /** Address a queued password reset goes to. */
+    @NonNull
+    public String resetEmail() throws JSONException {
+        return new JSONObject(payload).getString("email");
+    }
+
+    private static Mutation queued(String uid, String id, Kind kind, JSONObject payload) {
+        long now = System.currentTimeMillis();
+        return new Mutation(id, uid, kind, payload.toString(), SyncState.PENDING, 0, now, null, now);
+    }
+}
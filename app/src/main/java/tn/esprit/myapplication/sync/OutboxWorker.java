@@ -0,0 +1,59 @@
+package tn.esprit.myapplication.sync;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.work.BackoffPolicy;
+import androidx.work.Constraints;
+import androidx.work.ExistingWorkPolicy;
+import androidx.work.NetworkType;
+import androidx.work.OneTimeWorkRequest;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import com.google.android.gms.tasks.Tasks;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Replays the {@link WriteBehind} outbox once the device has a network, including after the
+ * process that queued the writes died. Returns {@code retry()} while rows are still backing off,
+ * so WorkManager reschedules it with its own backoff and the same network constraint.
+ */
+public final class OutboxWorker extends Worker {
+
+    private static final String TAG = "OutboxWorker";
+    private static final String WORK_NAME = "outbox";
+    // WorkManager stops a worker after ten minutes
+    private static final long DRAIN_TIMEOUT_MINUTES = 9;
+
+    public OutboxWorker(@NonNull Context ctx, @NonNull WorkerParameters params) {
+        super(ctx, params);
+    }
+
+    /** Idempotent: a replay already waiting for the network is kept as is. */
+    public static void schedule(@NonNull Context ctx) {
+        OneTimeWorkRequest request = new OneTimeWorkRequest.Builder(OutboxWorker.class)
+                .setConstraints(new Constraints.Builder()
+                        .setRequiredNetworkType(NetworkType.CONNECTED)
+                        .build())
+                .setBackoffCriteria(BackoffPolicy.EXPONENTIAL, 30, TimeUnit.SECONDS)
+                .build();
+        WorkManager.getInstance(ctx).enqueueUniqueWork(WORK_NAME, ExistingWorkPolicy.KEEP, request);
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        try {
+            boolean idle = Tasks.await(WriteBehind.get(getApplicationContext()).drain(),
+                    DRAIN_TIMEOUT_MINUTES, TimeUnit.MINUTES);
+            return idle ? Result.success() : Result.retry();
+        } catch (Exception e) {
+            Log.w(TAG, "Outbox replay interrupted", e);
+            return Result.retry();
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package tn.esprit.myapplication.sync;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MediatorLiveData;
+
+import org.json.JSONException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Lists queued mutations on top of a Firestore-backed list so a saved row shows up at once.
+ * A queued row is hidden as soon as the synced list contains its id; Firestore's copy then wins.
+ */
+public final class PendingRows {
+
+    public interface Decoder<T> {
+        @NonNull T decode(@NonNull Mutation m) throws JSONException;
+    }
+
+    public interface IdOf<T> {
+        @NonNull String idOf(@NonNull T item);
+    }
+
+    private PendingRows() { }
+
+    /** Emits once {@code synced} has a value; queued rows of {@code kind} come first, newest first. */
+    @MainThread
+    @NonNull
+    public static <T> LiveData<List<T>> overlay(@NonNull LiveData<List<T>> synced,
+                                                @NonNull LiveData<List<Mutation>> pending,
+                                                @NonNull Mutation.Kind kind,
+                                                @NonNull Decoder<T> decoder, @NonNull IdOf<T> idOf) {
+        MediatorLiveData<List<T>> out = new MediatorLiveData<>();
+        List<List<T>> lastSynced = new ArrayList<>(Collections.singletonList(null));
+        List<List<Mutation>> lastPending = new ArrayList<>(Collections.singletonList(Collections.emptyList()));
+        out.addSource(synced, items -> {
+            lastSynced.set(0, items);
+            if (items != null) out.setValue(merge(items, lastPending.get(0), kind, decoder, idOf));
+        });
+        out.addSource(pending, mutations -> {
+            lastPending.set(0, mutations == null ? Collections.emptyList() : mutations);
+            List<T> items = lastSynced.get(0);
+            if (items != null) out.setValue(merge(items, lastPending.get(0), kind, decoder, idOf));
+        });
+        return out;
+    }
+
+    private static <T> List<T> merge(List<T> synced, List<Mutation> pending, Mutation.Kind kind,
+                                     Decoder<T> decoder, IdOf<T> idOf) {
+        if (pending.isEmpty()) return synced;
+        Set<String> queued = new HashSet<>();
+        for (Mutation m : pending) if (m.kind == kind) queued.add(m.id);
+        if (queued.isEmpty()) return synced;
+        for (T t : synced) queued.remove(idOf.idOf(t));
+
+        List<T> out = new ArrayList<>(synced.size() + queued.size());
+        for (int i = pending.size() - 1; i >= 0; i--) {
+            Mutation m = pending.get(i);
+            if (!queued.contains(m.id)) continue;
+            try {
+                out.add(decoder.decode(m));
+            } catch (JSONException e) {
+                // Unreadable payload: WriteBehind marks it FAILED; nothing sensible to list
+            }
+        }
+        out.addAll(synced);
+        return out;
+    }
+}
@@ -0,0 +1,273 @@
+package tn.esprit.myapplication.sync;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.TaskCompletionSource;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.auth.FirebaseUser;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.SetOptions;
+import com.google.firebase.firestore.WriteBatch;
+
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import tn.esprit.myapplication.core.AppExecutors;
+import tn.esprit.myapplication.core.ConnectivityMonitor;
+import tn.esprit.myapplication.core.FirebaseManager;
+import tn.esprit.myapplication.core.TaskUtil;
+import tn.esprit.myapplication.data.DoctorDirectory;
+import tn.esprit.myapplication.data.IndicatorRollups;
+import tn.esprit.myapplication.data.SyncState;
+import tn.esprit.myapplication.data.VisitRepository;
+import tn.esprit.myapplication.data.local.MutationStore;
+
+/**
+ * Durable outbox for every user-initiated write. {@link #enqueue} persists a {@link Mutation} and
+ * returns; rows are listed at once from {@link #pending} while the queue drains to Firebase in save
+ * order, one mutation at a time.
+ *
+ * Retryable failures (offline, timeouts, UNAVAILABLE...) back off exponentially and keep the row
+ * PENDING; anything else marks it FAILED until {@link #retry}, or {@link #dismiss} for writes the
+ * user can't usefully repeat, such as a password reset the server rejected. While the process lives the queue
+ * drains itself; {@link OutboxWorker} replays whatever is left once a network is available, even
+ * after process death, and the queue is kicked the moment {@link ConnectivityMonitor} sees a
+ * validated network again, skipping whatever backoff was left. All queue state lives on
+ * {@code AppExecutors.diskIO()}.
+ */
+public final class WriteBehind {
+
+    private static final String TAG = "WriteBehind";
+    private static final long INITIAL_BACKOFF_MS = 2_000;
+    private static final long APPLY_TIMEOUT_SECONDS = 30;
+
+    private static volatile WriteBehind instance;
+
+    private final MutationStore store;
+    private final Map<String, MutableLiveData<List<Mutation>>> byUid = new HashMap<>();
+    // Touched on diskIO only
+    private boolean running;
+    private ScheduledFuture<?> wakeUp;
+    private final List<TaskCompletionSource<Boolean>> idleWaiters = new ArrayList<>();
+    private final Context app;
+    private volatile boolean validated;
+
+    private WriteBehind(Context app) {
+        this.app = app;
+        this.store = new MutationStore(app);
+        ConnectivityMonitor network = ConnectivityMonitor.get(app);
+        validated = network.current().validated;
+        network.addListener(state -> {
+            if (state.validated && !validated) kick();
+            validated = state.validated;
+        });
+    }
+
+    public static WriteBehind get(@NonNull Context ctx) {
+        if (instance == null) {
+            synchronized (WriteBehind.class) {
+                if (instance == null) instance = new WriteBehind(ctx.getApplicationContext());
+            }
+        }
+        return instance;
+    }
+
+    public void enqueue(@NonNull Mutation m) {
+        AppExecutors.diskIO().execute(() -> {
+            store.insert(m);
+            publish(m.uid);
+            // Replays the row after process death, as soon as there is a network
+            OutboxWorker.schedule(app);
+            step();
+        });
+    }
+
+    /** Moves a FAILED mutation back to the queue. */
+    public void retry(@NonNull String uid, @NonNull String id) {
+        AppExecutors.diskIO().execute(() -> {
+            store.setState(id, SyncState.PENDING, null);
+            publish(uid);
+            step();
+        });
+    }
+
+    /** Removes a FAILED mutation once the user has been told about it. */
+    public void dismiss(@NonNull String uid, @NonNull String id) {
+        AppExecutors.diskIO().execute(() -> {
+            store.delete(id);
+            publish(uid);
+        });
+    }
+
+    /** Drains now, skipping any backoff wait; e.g. on start-up or when the network returns. */
+    public void kick() {
+        AppExecutors.diskIO().execute(this::kickNow);
+    }
+
+    /**
+     * Like {@link #kick}, and completes with true once nothing the current user can send is left,
+     * or false as soon as the head is backing off again. Used by {@link OutboxWorker}.
+     */
+    @NonNull
+    Task<Boolean> drain() {
+        TaskCompletionSource<Boolean> idle = new TaskCompletionSource<>();
+        AppExecutors.diskIO().execute(() -> {
+            idleWaiters.add(idle);
+            kickNow();
+        });
+        return idle.getTask();
+    }
+
+    private void kickNow() {
+        Mutation head = store.head(currentUid());
+        if (head != null && head.nextAttemptAt > System.currentTimeMillis()) {
+            store.backOff(head.id, head.attempts, 0L, head.lastError);
+        }
+        step();
+    }
+
+    /** Queued and failed mutations of {@code uid}, oldest first. */
+    @MainThread
+    @NonNull
+    public LiveData<List<Mutation>> pending(@NonNull String uid) {
+        MutableLiveData<List<Mutation>> live;
+        synchronized (byUid) {
+            live = byUid.get(uid);
+            if (live != null) return live;
+            live = new MutableLiveData<>();
+            byUid.put(uid, live);
+        }
+        AppExecutors.diskIO().execute(() -> publish(uid));
+        return live;
+    }
+
+    private void step() {
+        if (running) return;
+        // Writes are only sent with their owner's credentials; anonymous ones with none
+        Mutation m = store.head(currentUid());
+        if (m == null) {
+            settleWaiters(true);
+            return;
+        }
+
+        long wait = m.nextAttemptAt - System.currentTimeMillis();
+        if (wait > 0) {
+            if (wakeUp != null) wakeUp.cancel(false);
+            wakeUp = AppExecutors.schedule(AppExecutors.diskIO(), this::step, wait);
+            settleWaiters(false);
+            return;
+        }
+
+        running = true;
+        Task<?> applied;
+        try {
+            applied = TaskUtil.withTimeout(apply(m), APPLY_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            applied = Tasks.forException(e);
+        }
+        applied.addOnCompleteListener(AppExecutors.diskIO(), t -> {
+            running = false;
+            if (t.isSuccessful()) {
+                store.delete(m.id);
+            } else {
+                Exception e = t.getException();
+                if (TaskUtil.isRetryable(e)) {
+                    int attempts = m.attempts + 1;
+                    store.backOff(m.id, attempts,
+                            System.currentTimeMillis() + TaskUtil.backoffMillis(INITIAL_BACKOFF_MS, attempts),
+                            String.valueOf(e));
+                    OutboxWorker.schedule(app);
+                } else {
+                    Log.w(TAG, "Write " + m.id + " rejected", e);
+                    store.setState(m.id, SyncState.FAILED, String.valueOf(e));
+                }
+            }
+            publish(m.uid);
+            step();
+        });
+    }
+
+    private Task<?> apply(Mutation m) throws Exception {
+        FirebaseFirestore db = FirebaseManager.db();
+        switch (m.kind) {
+            case ADD_INDICATOR:
+                return IndicatorRollups.add(db, m.uid, m.id, m.indicator(), TimeZone.getDefault());
+            case ADD_VISIT: {
+                JSONObject o = new JSONObject(m.payload);
+                Map<String, Object> doc = new HashMap<>();
+                doc.put("uid", m.uid);
+                doc.put("title", o.optString("title", null));
+                doc.put("doctorName", o.optString("doctorName", null));
+                doc.put("specialty", o.optString("specialty", null));
+                doc.put("conclusion", o.optString("conclusion", null));
+                doc.put("createdAt", FieldValue.serverTimestamp());
+                // Deterministic id: a replay overwrites instead of adding a second visit
+                return db.collection(VisitRepository.COLLECTION).document(m.id).set(doc);
+            }
+            case SET_PROFILE: {
+                Map<String, Object> doc = m.profileFields();
+                WriteBatch batch = db.batch();
+                // Merged: the seeder's seedPatientId or a newer imageUrl may already be there
+                batch.set(FirebaseManager.userDoc(m.uid), doc, SetOptions.merge());
+                if (m.uid.equals(doc.get("doctorId"))) {
+                    // A doctor signed up here is bookable under a directory entry of its own
+                    batch.set(db.collection(DoctorDirectory.COLLECTION).document(m.uid),
+                            directoryEntry(doc), SetOptions.merge());
+                }
+                return batch.commit();
+            }
+            case SET_PROFILE_IMAGE: {
+                Map<String, Object> doc = new HashMap<>();
+                doc.put("imageUrl", new JSONObject(m.payload).getString("imageUrl"));
+                return FirebaseManager.userDoc(m.uid).set(doc, SetOptions.merge());
+            }
+            case SEND_PASSWORD_RESET:
+                return FirebaseManager.auth().sendPasswordResetEmail(m.resetEmail());
+            default:
+                throw new IllegalArgumentException("Unknown mutation " + m.kind);
+        }
+    }
+
+    private static Map<String, Object> directoryEntry(Map<String, Object> profile) {
+        Object first = profile.get("firstName");
+        Object last = profile.get("lastName");
+        String name = ((first == null ? "" : first) + " " + (last == null ? "" : last)).trim();
+        Map<String, Object> doc = new HashMap<>(4);
+        doc.put("fullName", name.isEmpty() ? null : "Dr. " + name);
+        doc.put("updatedAt", FieldValue.serverTimestamp());
+        return doc;
+    }
+
+    private void settleWaiters(boolean idle) {
+        for (TaskCompletionSource<Boolean> w : idleWaiters) w.trySetResult(idle);
+        idleWaiters.clear();
+    }
+
+    private static String currentUid() {
+        FirebaseUser user = FirebaseManager.auth().getCurrentUser();
+        return user == null ? Mutation.ANONYMOUS : user.getUid();
+    }
+
+    private void publish(String uid) {
+        MutableLiveData<List<Mutation>> live;
+        synchronized (byUid) {
+            live = byUid.get(uid);
+        }
+        if (live != null) live.postValue(store.all(uid));
+    }
+}
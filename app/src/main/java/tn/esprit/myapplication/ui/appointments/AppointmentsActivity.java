@@ -0,0 +1,204 @@
+package tn.esprit.myapplication.ui.appointments;
+
+import android.content.Context;
+import android.os.Bundle;
+import android.text.format.DateUtils;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.Toast;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.appcompat.app.AppCompatActivity;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.ListAdapter;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.google.firebase.auth.FirebaseUser;
+
+import java.util.Calendar;
+import java.util.Objects;
+
+import tn.esprit.myapplication.R;
+import tn.esprit.myapplication.core.FirebaseManager;
+import tn.esprit.myapplication.core.SessionManager;
+import tn.esprit.myapplication.data.AppointmentItem;
+import tn.esprit.myapplication.data.AppointmentRepository;
+import tn.esprit.myapplication.data.DoctorDirectory;
+import tn.esprit.myapplication.data.DoctorItem;
+import tn.esprit.myapplication.data.Role;
+import tn.esprit.myapplication.data.User;
+import tn.esprit.myapplication.databinding.ActivityAppointmentsBinding;
+
+/**
+ * A week of the signed-in user's appointments: as the doctor for doctors, as the patient
+ * otherwise. Only the visible week is queried; paging the week moves the schedule's window.
+ */
+public class AppointmentsActivity extends AppCompatActivity {
+
+    private ActivityAppointmentsBinding binding;
+    private AppointmentsAdapter adapter;
+    private final Calendar week = Calendar.getInstance();
+    @Nullable private AppointmentRepository.Schedule schedule;
+    @Nullable private String patientId;
+
+    @Override
+    protected void onCreate(@Nullable Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        binding = ActivityAppointmentsBinding.inflate(getLayoutInflater());
+        setContentView(binding.getRoot());
+
+        binding.toolbar.setNavigationOnClickListener(v -> finish());
+        DoctorDirectory directory = DoctorDirectory.get(this);
+        adapter = new AppointmentsAdapter(directory);
+        binding.recyclerAppointments.setLayoutManager(new LinearLayoutManager(this));
+        binding.recyclerAppointments.setAdapter(adapter);
+        // Rows show doctor names from the directory; rebind once it is loaded or updated
+        directory.index().observe(this, index -> adapter.notifyDataSetChanged());
+        directory.refresh();
+
+        week.set(Calendar.DAY_OF_WEEK, week.getFirstDayOfWeek());
+        week.set(Calendar.HOUR_OF_DAY, 0);
+        week.set(Calendar.MINUTE, 0);
+        week.set(Calendar.SECOND, 0);
+        week.set(Calendar.MILLISECOND, 0);
+        binding.btnPrevWeek.setOnClickListener(v -> shiftWeek(-1));
+        binding.btnNextWeek.setOnClickListener(v -> shiftWeek(1));
+        binding.fabBook.setVisibility(View.GONE);
+        binding.fabBook.setOnClickListener(v -> {
+            if (patientId == null) return;
+            BookAppointmentDialogFragment.newInstance(patientId, dayToBook())
+                    .show(getSupportFragmentManager(), "book_appointment");
+        });
+
+        resolveOwner();
+    }
+
+    /**
+     * Doctors see the appointments booked with their directory entry; patients see theirs, under
+     * the seeded patient record when the account has one.
+     */
+    private void resolveOwner() {
+        FirebaseUser user = FirebaseManager.auth().getCurrentUser();
+        if (user == null) {
+            Toast.makeText(this, "Not signed in.", Toast.LENGTH_SHORT).show();
+            finish();
+            return;
+        }
+        String uid = user.getUid();
+        SessionManager session = SessionManager.get(this);
+        User cached = session.current();
+        if (cached != null) {
+            showOwner(uid, cached);
+        } else {
+            // First screen of a fresh install; anything but a doctor profile means a patient
+            session.refresh().addOnCompleteListener(this, t -> showOwner(uid, t.isSuccessful() ? t.getResult() : null));
+        }
+    }
+
+    private void showOwner(String uid, @Nullable User profile) {
+        Role role = profile == null || profile.getRole() == null ? Role.PATIENT : profile.getRole();
+        AppointmentRepository repo = AppointmentRepository.get();
+        if (role == Role.DOCTOR) {
+            // Appointments name the doctor's directory entry, not the account
+            String doctorId = profile.getDoctorId();
+            if (doctorId == null) {
+                // Linked on the next Home launch (HomeActivity.resolveRole); nothing is booked with it yet
+                showWeek();
+                binding.emptyView.setVisibility(View.VISIBLE);
+                return;
+            }
+            schedule = repo.schedule(AppointmentRepository.Side.DOCTOR, doctorId);
+        } else {
+            String seeded = profile == null ? null : profile.getSeedPatientId();
+            patientId = seeded != null ? seeded : uid;
+            schedule = repo.schedule(AppointmentRepository.Side.PATIENT, patientId);
+            binding.fabBook.setVisibility(View.VISIBLE);
+        }
+        showWeek();
+        schedule.observe(this, items -> {
+            if (items == null) return;
+            adapter.submitList(items);
+            binding.emptyView.setVisibility(items.isEmpty() ? View.VISIBLE : View.GONE);
+        });
+    }
+
+    private void shiftWeek(int delta) {
+        week.add(Calendar.WEEK_OF_YEAR, delta);
+        showWeek();
+    }
+
+    private void showWeek() {
+        long from = week.getTimeInMillis();
+        Calendar end = (Calendar) week.clone();
+        end.add(Calendar.WEEK_OF_YEAR, 1);
+        long to = end.getTimeInMillis();
+        binding.tvWeek.setText(DateUtils.formatDateRange(this, from, to - 1,
+                DateUtils.FORMAT_SHOW_DATE | DateUtils.FORMAT_ABBREV_MONTH));
+        if (schedule != null) schedule.setWindow(from, to);
+    }
+
+    /** Today when it is in the visible week, else the week's first day. */
+    private long dayToBook() {
+        Calendar today = Calendar.getInstance();
+        today.set(Calendar.HOUR_OF_DAY, 0);
+        today.set(Calendar.MINUTE, 0);
+        today.set(Calendar.SECOND, 0);
+        today.set(Calendar.MILLISECOND, 0);
+        Calendar end = (Calendar) week.clone();
+        end.add(Calendar.WEEK_OF_YEAR, 1);
+        return !today.before(week) && today.before(end) ? today.getTimeInMillis() : week.getTimeInMillis();
+    }
+
+    static class AppointmentsAdapter extends ListAdapter<AppointmentItem, AppointmentVH> {
+        private static final DiffUtil.ItemCallback<AppointmentItem> DIFF = new DiffUtil.ItemCallback<AppointmentItem>() {
+            @Override public boolean areItemsTheSame(@NonNull AppointmentItem a, @NonNull AppointmentItem b) {
+                return Objects.equals(a.id, b.id);
+            }
+            @Override public boolean areContentsTheSame(@NonNull AppointmentItem a, @NonNull AppointmentItem b) {
+                return a.startAt == b.startAt
+                        && a.endAt == b.endAt
+                        && Objects.equals(a.doctorId, b.doctorId)
+                        && Objects.equals(a.title, b.title);
+            }
+        };
+        private final DoctorDirectory directory;
+
+        AppointmentsAdapter(DoctorDirectory directory) {
+            super(DIFF);
+            this.directory = directory;
+        }
+        @NonNull @Override public AppointmentVH onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+            View v = LayoutInflater.from(parent.getContext())
+                    .inflate(R.layout.row_appointment, parent, false);
+            return new AppointmentVH(v);
+        }
+        @Override public void onBindViewHolder(@NonNull AppointmentVH holder, int position) {
+            AppointmentItem a = getItem(position);
+            holder.bind(a, a.doctorId == null ? null : directory.current().byId(a.doctorId));
+        }
+    }
+
+    static class AppointmentVH extends RecyclerView.ViewHolder {
+        private final com.google.android.material.textview.MaterialTextView tvWhen;
+        private final com.google.android.material.textview.MaterialTextView tvSub;
+
+        AppointmentVH(@NonNull View itemView) {
+            super(itemView);
+            tvWhen = itemView.findViewById(R.id.tvAppointmentWhen);
+            tvSub = itemView.findViewById(R.id.tvAppointmentSub);
+        }
+
+        void bind(AppointmentItem a, @Nullable DoctorItem doctor) {
+            Context ctx = itemView.getContext();
+            String day = DateUtils.formatDateTime(ctx, a.startAt, DateUtils.FORMAT_SHOW_WEEKDAY
+                    | DateUtils.FORMAT_ABBREV_WEEKDAY | DateUtils.FORMAT_SHOW_DATE | DateUtils.FORMAT_ABBREV_MONTH);
+            String time = DateUtils.formatDateRange(ctx, a.startAt, a.endAt, DateUtils.FORMAT_SHOW_TIME);
+            tvWhen.setText(day + " · " + time);
+            String title = a.title == null || a.title.isEmpty() ? "Appointment" : a.title;
+            tvSub.setText(doctor == null ? title : title + " · " + doctor.fullName);
+        }
+    }
+}
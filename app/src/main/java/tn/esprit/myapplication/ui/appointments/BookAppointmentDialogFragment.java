@@ -0,0 +1,278 @@
+package tn.esprit.myapplication.ui.appointments;
+
+import android.os.Bundle;
+import android.text.Editable;
+import android.text.TextUtils;
+import android.text.TextWatcher;
+import android.text.format.DateUtils;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.TextView;
+import android.widget.Toast;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.fragment.app.DialogFragment;
+import androidx.lifecycle.Observer;
+
+import com.google.android.material.chip.Chip;
+import com.google.android.material.chip.ChipGroup;
+import com.google.android.material.datepicker.MaterialDatePicker;
+import com.google.android.material.textfield.MaterialAutoCompleteTextView;
+import com.google.android.material.textfield.TextInputEditText;
+import com.google.android.material.textfield.TextInputLayout;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+import tn.esprit.myapplication.R;
+import tn.esprit.myapplication.core.AppExecutors;
+import tn.esprit.myapplication.core.TaskUtil;
+import tn.esprit.myapplication.data.AppointmentItem;
+import tn.esprit.myapplication.data.AppointmentRepository;
+import tn.esprit.myapplication.data.DoctorDirectory;
+import tn.esprit.myapplication.data.DoctorItem;
+import tn.esprit.myapplication.data.IntervalTree;
+import tn.esprit.myapplication.ui.home.SuggestionAdapter;
+
+/**
+ * Books a slot with a doctor picked from the directory. Free times for the chosen day come from the
+ * doctor's schedule tree, minus the patient's own appointments when they are loaded; a time taken
+ * meanwhile is rejected by {@link AppointmentRepository#book} before or by the server.
+ */
+public class BookAppointmentDialogFragment extends DialogFragment {
+
+    private static final String ARG_PATIENT = "patient_id";
+    private static final String ARG_DAY = "day";
+    private static final int OPEN_HOUR = 8;
+    private static final int CLOSE_HOUR = 18;
+    private static final int[] DURATIONS_MIN = {15, 30, 45, 60};
+    private static final int DEFAULT_DURATION_MIN = 30;
+    private static final int MAX_SUGGESTIONS = 8;
+
+    private TextInputLayout tilDoctor;
+    private MaterialAutoCompleteTextView etDoctor;
+    private TextInputEditText etTitle;
+    private TextView btnDay, tvSlots;
+    private ChipGroup chipsDuration, chipsSlots;
+    private View btnBook;
+
+    private String patientId;
+    private long day;
+    private long duration = TimeUnit.MINUTES.toMillis(DEFAULT_DURATION_MIN);
+    @Nullable private DoctorItem doctor;
+    @Nullable private Long pickedStart;
+    @Nullable private AppointmentRepository.Schedule doctorSchedule;
+    private final Observer<Object> rerender = ignored -> renderSlots();
+
+    public static BookAppointmentDialogFragment newInstance(@NonNull String patientId, long day) {
+        BookAppointmentDialogFragment f = new BookAppointmentDialogFragment();
+        Bundle args = new Bundle();
+        args.putString(ARG_PATIENT, patientId);
+        args.putLong(ARG_DAY, day);
+        f.setArguments(args);
+        return f;
+    }
+
+    @Nullable
+    @Override
+    public View onCreateView(@NonNull LayoutInflater inflater,
+                             @Nullable ViewGroup container,
+                             @Nullable Bundle savedInstanceState) {
+        setStyle(DialogFragment.STYLE_NORMAL,
+                com.google.android.material.R.style.ThemeOverlay_Material3_MaterialAlertDialog);
+        return inflater.inflate(R.layout.dialog_book_appointment, container, false);
+    }
+
+    @Override
+    public void onViewCreated(@NonNull View root, @Nullable Bundle savedInstanceState) {
+        super.onViewCreated(root, savedInstanceState);
+        patientId = requireArguments().getString(ARG_PATIENT);
+        day = requireArguments().getLong(ARG_DAY);
+
+        tilDoctor = root.findViewById(R.id.tilDoctor);
+        etDoctor = root.findViewById(R.id.etDoctor);
+        etTitle = root.findViewById(R.id.etTitle);
+        btnDay = root.findViewById(R.id.btnDay);
+        tvSlots = root.findViewById(R.id.tvSlots);
+        chipsDuration = root.findViewById(R.id.chipsDuration);
+        chipsSlots = root.findViewById(R.id.chipsSlots);
+        btnBook = root.findViewById(R.id.btnBook);
+
+        root.findViewById(R.id.btnCancel).setOnClickListener(v -> dismiss());
+        btnBook.setOnClickListener(v -> book());
+        btnDay.setOnClickListener(v -> pickDay());
+
+        DoctorDirectory directory = DoctorDirectory.get(requireContext());
+        directory.refresh();
+        SuggestionAdapter<DoctorItem> doctors =
+                SuggestionAdapter.doctors(directory, () -> null, MAX_SUGGESTIONS);
+        etDoctor.setAdapter(doctors);
+        etDoctor.setOnItemClickListener((parent, view, position, id) ->
+                selectDoctor(doctors.getItem(position)));
+        etDoctor.addTextChangedListener(new TextWatcher() {
+            @Override public void beforeTextChanged(CharSequence s, int start, int count, int after) { }
+            @Override public void onTextChanged(CharSequence s, int start, int before, int count) { }
+            @Override public void afterTextChanged(Editable s) {
+                // Editing the name after a pick drops the pick
+                if (doctor != null && !s.toString().equals(doctor.fullName)) selectDoctor(null);
+            }
+        });
+
+        for (int minutes : DURATIONS_MIN) {
+            Chip chip = new Chip(requireContext());
+            chip.setId(View.generateViewId());
+            chip.setText(minutes + " min");
+            chip.setCheckable(true);
+            chip.setTag(TimeUnit.MINUTES.toMillis(minutes));
+            chipsDuration.addView(chip);
+            if (minutes == DEFAULT_DURATION_MIN) chip.setChecked(true);
+        }
+        chipsDuration.setOnCheckedStateChangeListener((group, ids) -> {
+            if (ids.isEmpty()) return;
+            duration = (Long) group.findViewById(ids.get(0)).getTag();
+            renderSlots();
+        });
+        chipsSlots.setOnCheckedStateChangeListener((group, ids) ->
+                pickedStart = ids.isEmpty() ? null : (Long) group.findViewById(ids.get(0)).getTag());
+
+        // The patient's week, if the calendar behind us loaded it, also rules out times
+        AppointmentRepository.get().schedule(AppointmentRepository.Side.PATIENT, patientId)
+                .observe(getViewLifecycleOwner(), rerender);
+        showDay();
+    }
+
+    private void selectDoctor(@Nullable DoctorItem d) {
+        if (doctorSchedule != null) doctorSchedule.removeObserver(rerender);
+        doctor = d;
+        doctorSchedule = null;
+        tilDoctor.setError(null);
+        if (d != null) {
+            doctorSchedule = AppointmentRepository.get().schedule(AppointmentRepository.Side.DOCTOR, d.id);
+            doctorSchedule.setWindow(day, nextDay(day));
+            doctorSchedule.observe(getViewLifecycleOwner(), rerender);
+        }
+        renderSlots();
+    }
+
+    private void pickDay() {
+        // The picker works in UTC midnights
+        Calendar local = Calendar.getInstance();
+        local.setTimeInMillis(day);
+        Calendar utc = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+        utc.clear();
+        utc.set(local.get(Calendar.YEAR), local.get(Calendar.MONTH), local.get(Calendar.DAY_OF_MONTH));
+        MaterialDatePicker<Long> picker = MaterialDatePicker.Builder.datePicker()
+                .setSelection(utc.getTimeInMillis())
+                .build();
+        picker.addOnPositiveButtonClickListener(selection -> {
+            Calendar picked = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+            picked.setTimeInMillis(selection);
+            Calendar start = Calendar.getInstance();
+            start.clear();
+            start.set(picked.get(Calendar.YEAR), picked.get(Calendar.MONTH), picked.get(Calendar.DAY_OF_MONTH));
+            day = start.getTimeInMillis();
+            showDay();
+        });
+        picker.show(getChildFragmentManager(), "day");
+    }
+
+    private void showDay() {
+        btnDay.setText(DateUtils.formatDateTime(requireContext(), day, DateUtils.FORMAT_SHOW_WEEKDAY
+                | DateUtils.FORMAT_ABBREV_WEEKDAY | DateUtils.FORMAT_SHOW_DATE | DateUtils.FORMAT_ABBREV_MONTH));
+        if (doctorSchedule != null) doctorSchedule.setWindow(day, nextDay(day));
+        renderSlots();
+    }
+
+    /** Bookable start times: free gaps of the doctor's day, on the booking grid, in the future. */
+    private void renderSlots() {
+        if (getView() == null) return;
+        chipsSlots.removeAllViews();
+        pickedStart = null;
+        if (doctorSchedule == null) {
+            tvSlots.setText("Pick a doctor to see free times.");
+            return;
+        }
+        long dayEnd = nextDay(day);
+        if (!doctorSchedule.covers(day, dayEnd)) {
+            tvSlots.setText("Loading free times…");
+            return;
+        }
+        AppointmentRepository.Schedule mine =
+                AppointmentRepository.get().schedule(AppointmentRepository.Side.PATIENT, patientId);
+        boolean checkMine = mine.covers(day, dayEnd);
+        long grid = AppointmentRepository.SLOT_MS;
+        long now = System.currentTimeMillis();
+        List<Long> starts = new ArrayList<>();
+        List<IntervalTree.Span> gaps =
+                doctorSchedule.freeSlots(atHour(day, OPEN_HOUR), atHour(day, CLOSE_HOUR), duration);
+        for (IntervalTree.Span gap : gaps) {
+            for (long t = (gap.start + grid - 1) / grid * grid; t + duration <= gap.end; t += grid) {
+                if (t > now && !(checkMine && mine.conflicts(t, t + duration))) starts.add(t);
+            }
+        }
+        tvSlots.setText(starts.isEmpty() ? "No free time that day." : "Free times");
+        for (long t : starts) {
+            Chip chip = new Chip(requireContext());
+            chip.setId(View.generateViewId());
+            chip.setText(DateUtils.formatDateTime(requireContext(), t, DateUtils.FORMAT_SHOW_TIME));
+            chip.setCheckable(true);
+            chip.setTag(t);
+            chipsSlots.addView(chip);
+        }
+    }
+
+    private void book() {
+        if (doctor == null) {
+            tilDoctor.setError("Pick a doctor from the list");
+            return;
+        }
+        if (pickedStart == null) {
+            Toast.makeText(requireContext(), "Pick a time.", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        String title = String.valueOf(etTitle.getText()).trim();
+        AppointmentItem a = new AppointmentItem();
+        a.doctorId = doctor.id;
+        a.patientId = patientId;
+        a.startAt = pickedStart;
+        a.endAt = pickedStart + duration;
+        a.title = TextUtils.isEmpty(title) ? "Consultation" : title;
+        a.notes = "";
+
+        btnBook.setEnabled(false);
+        AppointmentRepository.get().book(a).addOnCompleteListener(AppExecutors.main(), t -> {
+            if (getView() == null) return;
+            btnBook.setEnabled(true);
+            if (t.isSuccessful()) {
+                getParentFragmentManager().setFragmentResult("appointment_booked", new Bundle());
+                dismiss();
+                return;
+            }
+            Exception e = t.getException();
+            String msg = AppointmentRepository.isSlotTaken(e) ? "That time was just booked. Pick another."
+                    : TaskUtil.isRetryable(e) ? "Booking needs a connection."
+                    : "Could not book the appointment.";
+            Toast.makeText(requireContext(), msg, Toast.LENGTH_SHORT).show();
+            renderSlots();
+        });
+    }
+
+    private static long nextDay(long dayStart) {
+        Calendar c = Calendar.getInstance();
+        c.setTimeInMillis(dayStart);
+        c.add(Calendar.DATE, 1);
+        return c.getTimeInMillis();
+    }
+
+    private static long atHour(long dayStart, int hour) {
+        Calendar c = Calendar.getInstance();
+        c.setTimeInMillis(dayStart);
+        c.set(Calendar.HOUR_OF_DAY, hour);
+        return c.getTimeInMillis();
+    }
+}
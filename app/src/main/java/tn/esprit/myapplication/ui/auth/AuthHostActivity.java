@@ -2,25 +2,56 @@ package tn.esprit.myapplication.ui.auth;
 
 import android.content.Intent;
 import android.os.Bundle;
+import android.widget.Toast;
 
 import androidx.annotation.Nullable;
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.core.splashscreen.SplashScreen;
 
-import com.google.firebase.auth.FirebaseAuth;
+import java.util.HashSet;
+import java.util.Set;
 
 import tn.esprit.myapplication.R;
+import tn.esprit.myapplication.core.FirebaseManager;
+import tn.esprit.myapplication.data.SyncState;
+import tn.esprit.myapplication.sync.Mutation;
+import tn.esprit.myapplication.sync.WriteBehind;
 import tn.esprit.myapplication.ui.home.HomeActivity;
 
+/**
+ * Launcher. The splash screen stays up while {@link FirebaseManager#warmUp()} loads the auth
+ * session off the main thread; then it hands off to Home when someone is signed in, or to the
+ * auth flow.
+ */
 public class AuthHostActivity extends AppCompatActivity {
 
+    private boolean routed;
+    private final Set<String> reported = new HashSet<>();
+
     @Override
     protected void onCreate(@Nullable Bundle savedInstanceState) {
-        setTheme(R.style.Theme_MyApplication);
+        // Switches from the starting theme to Theme.MyApplication (postSplashScreenTheme)
+        SplashScreen splash = SplashScreen.installSplashScreen(this);
         super.onCreate(savedInstanceState);
+        splash.setKeepOnScreenCondition(() -> !routed);
+
+        if (savedInstanceState != null) {
+            // Restored auth fragments need their container before onStart
+            route();
+        } else {
+            // Already done or in flight since process start (FirebaseInitializer)
+            FirebaseManager.warmUp().addOnCompleteListener(this, t -> route());
+        }
+    }
 
+    private void route() {
+        if (routed) return;
+        routed = true;
         // If already signed in, go straight to Home
-        if (FirebaseAuth.getInstance().getCurrentUser() != null) {
+        if (FirebaseManager.auth().getCurrentUser() != null) {
             Intent i = new Intent(this, HomeActivity.class);
+            // Forward launch extras (e.g. HomeActivity.EXTRA_SKIP_SEED from benchmarks)
+            if (getIntent().getExtras() != null) i.putExtras(getIntent().getExtras());
             i.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TASK);
             startActivity(i);
             finish();
@@ -28,12 +59,38 @@ public class AuthHostActivity extends AppCompatActivity {
         }
 
         setContentView(R.layout.activity_auth_host);
+        reportRejectedResets();
+    }
+
+    /**
+     * The reset screen only says the email "will be sent"; a reset the server then rejected
+     * (unknown or malformed address) is reported here, now or on the next visit, and dropped.
+     */
+    private void reportRejectedResets() {
+        WriteBehind outbox = WriteBehind.get(this);
+        outbox.pending(Mutation.ANONYMOUS).observe(this, rows -> {
+            if (rows == null) return;
+            for (Mutation m : rows) {
+                if (m.state != SyncState.FAILED || m.kind != Mutation.Kind.SEND_PASSWORD_RESET) continue;
+                // Listed again until the dismissal lands
+                if (!reported.add(m.id)) continue;
+                String email;
+                try {
+                    email = m.resetEmail();
+                } catch (Exception e) {
+                    email = "";
+                }
+                Toast.makeText(this, getString(R.string.sync_reset_failed, email), Toast.LENGTH_LONG).show();
+                outbox.dismiss(Mutation.ANONYMOUS, m.id);
+            }
+        });
     }
 
     @Override
     protected void onResume() {
         super.onResume();
-        if (FirebaseAuth.getInstance().getCurrentUser() != null) {
+        // Back from a sign-in that left this screen in the stack; before routing, route() decides
+        if (routed && FirebaseManager.auth().getCurrentUser() != null) {
             Intent i = new Intent(this, HomeActivity.class);
             i.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TASK);
             startActivity(i);
@@ -2,17 +2,14 @@ package tn.esprit.myapplication.ui.auth;
 
 import android.os.Bundle;
 import android.text.TextUtils;
-import android.view.View;
 import android.widget.Toast;
 
 import androidx.annotation.Nullable;
 import androidx.appcompat.app.AppCompatActivity;
 
-import com.google.firebase.auth.FirebaseAuth;
-
-import tn.esprit.myapplication.core.FirebaseManager;
 import tn.esprit.myapplication.databinding.ActivityForgotPasswordBinding;
-import tn.esprit.myapplication.util.NetworkUtil;
+import tn.esprit.myapplication.sync.Mutation;
+import tn.esprit.myapplication.sync.WriteBehind;
 
 public class ForgotPasswordActivity extends AppCompatActivity {
 
@@ -24,8 +21,6 @@ public class ForgotPasswordActivity extends AppCompatActivity {
         binding = ActivityForgotPasswordBinding.inflate(getLayoutInflater());
         setContentView(binding.getRoot());
 
-        FirebaseManager.init(this);
-
         binding.btnSend.setOnClickListener(v -> sendReset());
         binding.btnBackToLogin.setOnClickListener(v -> finish());
     }
@@ -40,29 +35,10 @@ public class ForgotPasswordActivity extends AppCompatActivity {
             binding.inputLayoutEmail.setError(null);
         }
 
-        if (!NetworkUtil.isOnline(this)) {
-            Toast.makeText(this, getString(tn.esprit.myapplication.R.string.offline_message), Toast.LENGTH_SHORT).show();
-            return;
-        }
-
-        setLoading(true);
-        FirebaseAuth.getInstance()
-                .sendPasswordResetEmail(email)
-                .addOnSuccessListener(v -> {
-                    setLoading(false);
-                    Toast.makeText(this, getString(tn.esprit.myapplication.R.string.msg_reset_email_sent), Toast.LENGTH_LONG).show();
-                    finish();
-                })
-                .addOnFailureListener(e -> {
-                    setLoading(false);
-                    Toast.makeText(this, getString(tn.esprit.myapplication.R.string.msg_reset_email_failed), Toast.LENGTH_LONG).show();
-                });
+        // Sent now if online, otherwise as soon as a network is available
+        WriteBehind.get(this).enqueue(Mutation.sendPasswordReset(email));
+        Toast.makeText(this, getString(tn.esprit.myapplication.R.string.msg_reset_email_queued), Toast.LENGTH_LONG).show();
+        finish();
     }
 
-    private void setLoading(boolean loading) {
-        binding.progress.setVisibility(loading ? View.VISIBLE : View.GONE);
-        binding.btnSend.setEnabled(!loading);
-        binding.btnBackToLogin.setEnabled(!loading);
-        binding.inputEmail.setEnabled(!loading);
-    }
 }
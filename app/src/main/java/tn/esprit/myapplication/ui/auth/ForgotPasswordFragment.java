@@ -12,11 +12,10 @@ import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
 import androidx.navigation.fragment.NavHostFragment;
 
-import com.google.firebase.auth.FirebaseAuth;
-
 import tn.esprit.myapplication.R;
 import tn.esprit.myapplication.databinding.FragmentForgotPasswordBinding;
-import tn.esprit.myapplication.util.NetworkUtil;
+import tn.esprit.myapplication.sync.Mutation;
+import tn.esprit.myapplication.sync.WriteBehind;
 
 public class ForgotPasswordFragment extends Fragment {
 
@@ -49,29 +48,9 @@ public class ForgotPasswordFragment extends Fragment {
             binding.inputLayoutEmail.setError(null);
         }
 
-        if (!NetworkUtil.isOnline(requireContext())) {
-            Toast.makeText(requireContext(), getString(R.string.offline_message), Toast.LENGTH_SHORT).show();
-            return;
-        }
-
-        setLoading(true);
-        FirebaseAuth.getInstance().sendPasswordResetEmail(email)
-                .addOnSuccessListener(v -> {
-                    setLoading(false);
-                    Toast.makeText(requireContext(), getString(R.string.msg_reset_email_sent), Toast.LENGTH_LONG).show();
-                })
-                .addOnFailureListener(e -> {
-                    setLoading(false);
-                    Toast.makeText(requireContext(), getString(R.string.msg_reset_email_failed), Toast.LENGTH_LONG).show();
-                });
-    }
-
-    private void setLoading(boolean loading) {
-        if (binding == null) return;
-        binding.progress.setVisibility(loading ? View.VISIBLE : View.GONE);
-        binding.btnSend.setEnabled(!loading);
-        binding.btnBackToLogin.setEnabled(!loading);
-        binding.inputEmail.setEnabled(!loading);
+        // Sent now if online, otherwise as soon as a network is available
+        WriteBehind.get(requireContext()).enqueue(Mutation.sendPasswordReset(email));
+        Toast.makeText(requireContext(), getString(R.string.msg_reset_email_queued), Toast.LENGTH_LONG).show();
     }
 
     @Override
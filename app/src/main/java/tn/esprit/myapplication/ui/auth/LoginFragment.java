@@ -27,15 +27,20 @@ import com.google.firebase.auth.AuthCredential;
 import com.google.firebase.auth.FirebaseUser;
 import com.google.firebase.auth.GoogleAuthProvider;
 
+import java.util.concurrent.TimeUnit;
+
 import tn.esprit.myapplication.R;
+import tn.esprit.myapplication.core.AppExecutors;
 import tn.esprit.myapplication.core.FirebaseManager;
+import tn.esprit.myapplication.core.TaskUtil;
 import tn.esprit.myapplication.databinding.FragmentLoginBinding;
 import tn.esprit.myapplication.seed.DataSeeder;
 import tn.esprit.myapplication.ui.home.HomeActivity;
-import tn.esprit.myapplication.util.NetworkUtil;
 
 public class LoginFragment extends Fragment {
 
+    private static final long SEED_TIMEOUT_SECONDS = 10;
+
     private FragmentLoginBinding binding;
     private GoogleSignInClient googleClient;
 
@@ -63,10 +68,7 @@ public class LoginFragment extends Fragment {
                     AuthCredential credential = GoogleAuthProvider.getCredential(idToken, null);
                     FirebaseManager.auth().signInWithCredential(credential)
                             .addOnSuccessListener(authResult -> seedThenEnter())
-                            .addOnFailureListener(e -> {
-                                showLoading(false);
-                                Toast.makeText(requireContext(), e.getMessage(), Toast.LENGTH_LONG).show();
-                            });
+                            .addOnFailureListener(this::showFailure);
                 } catch (ApiException e) {
                     showLoading(false);
                     Toast.makeText(requireContext(), getString(R.string.google_failed, e.getStatusCode()), Toast.LENGTH_LONG).show();
@@ -79,7 +81,6 @@ public class LoginFragment extends Fragment {
                              @Nullable ViewGroup container,
                              @Nullable Bundle savedInstanceState) {
         binding = FragmentLoginBinding.inflate(inflater, container, false);
-        FirebaseManager.init(requireContext());
         return binding.getRoot();
     }
 
@@ -108,10 +109,6 @@ public class LoginFragment extends Fragment {
         googleClient = GoogleSignIn.getClient(requireContext(), gso);
 
         binding.btnGoogle.setOnClickListener(v12 -> {
-            if (!NetworkUtil.isOnline(requireContext())) {
-                Toast.makeText(requireContext(), getString(R.string.offline_message), Toast.LENGTH_SHORT).show();
-                return;
-            }
             try {
                 String check = getString(R.string.default_web_client_id);
                 if (TextUtils.isEmpty(check) || "REPLACE_WITH_WEB_CLIENT_ID".equalsIgnoreCase(check)) {
@@ -143,18 +140,17 @@ public class LoginFragment extends Fragment {
         if (TextUtils.isEmpty(password)) { binding.inputLayoutPassword.setError(getString(R.string.error_required)); return; }
         else binding.inputLayoutPassword.setError(null);
 
-        if (!NetworkUtil.isOnline(requireContext())) {
-            Toast.makeText(requireContext(), getString(R.string.offline_message), Toast.LENGTH_SHORT).show();
-            return;
-        }
-
         showLoading(true);
         FirebaseManager.signInWithEmail(email, password)
                 .addOnSuccessListener(result -> seedThenEnter())
-                .addOnFailureListener(e -> {
-                    showLoading(false);
-                    Toast.makeText(requireContext(), e.getMessage(), Toast.LENGTH_LONG).show();
-                });
+                .addOnFailureListener(this::showFailure);
+    }
+
+    /** Signing in needs the server, so there is nothing to queue; a lost connection is just reported. */
+    private void showFailure(Exception e) {
+        showLoading(false);
+        String msg = TaskUtil.isRetryable(e) ? getString(R.string.offline_message) : e.getMessage();
+        Toast.makeText(requireContext(), msg, Toast.LENGTH_LONG).show();
     }
 
     private void seedThenEnter() {
@@ -164,8 +160,9 @@ public class LoginFragment extends Fragment {
             return;
         }
         String email = fu.getEmail() == null ? "" : fu.getEmail();
-        tn.esprit.myapplication.seed.DataSeeder.runIfNeeded(fu.getUid(), email)
-                .addOnCompleteListener(done -> {
+        // Seeding must never hold the user on the login screen over a bad connection
+        TaskUtil.withTimeout(DataSeeder.runIfNeeded(fu.getUid(), email), SEED_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+                .addOnCompleteListener(AppExecutors.main(), done -> {
                     showLoading(false);
                     Intent i = new Intent(requireContext(), HomeActivity.class);
                     i.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TASK);
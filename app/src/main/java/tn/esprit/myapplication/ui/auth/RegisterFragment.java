@@ -18,11 +18,14 @@ import com.google.firebase.auth.FirebaseUser;
 
 import tn.esprit.myapplication.R;
 import tn.esprit.myapplication.core.FirebaseManager;
+import tn.esprit.myapplication.core.SessionManager;
+import tn.esprit.myapplication.core.TaskUtil;
 import tn.esprit.myapplication.data.Role;
 import tn.esprit.myapplication.data.User;
 import tn.esprit.myapplication.databinding.FragmentRegisterBinding;
 import tn.esprit.myapplication.ui.home.HomeActivity;
-import tn.esprit.myapplication.util.NetworkUtil;
+import tn.esprit.myapplication.sync.Mutation;
+import tn.esprit.myapplication.sync.WriteBehind;
 
 public class RegisterFragment extends Fragment {
 
@@ -34,7 +37,6 @@ public class RegisterFragment extends Fragment {
                              @Nullable ViewGroup container,
                              @Nullable Bundle savedInstanceState) {
         binding = FragmentRegisterBinding.inflate(inflater, container, false);
-        FirebaseManager.init(requireContext());
         return binding.getRoot();
     }
 
@@ -73,11 +75,6 @@ public class RegisterFragment extends Fragment {
         if (TextUtils.isEmpty(roleStr))   { Toast.makeText(requireContext(), getString(R.string.prompt_select_role), Toast.LENGTH_SHORT).show(); invalid = true; }
         if (invalid) return;
 
-        if (!NetworkUtil.isOnline(requireContext())) {
-            Toast.makeText(requireContext(), getString(R.string.offline_message), Toast.LENGTH_SHORT).show();
-            return;
-        }
-
         setLoading(true);
         FirebaseManager.auth()
                 .createUserWithEmailAndPassword(email, password)
@@ -100,26 +97,25 @@ public class RegisterFragment extends Fragment {
                             "",
                             email
                     );
+                    // Appointments name directory entries; a new doctor's is published with the profile
+                    if (role == Role.DOCTOR) user.setDoctorId(uid);
 
-                    FirebaseManager.users()
-                            .document(uid)
-                            .set(user)
-                            .addOnSuccessListener(aVoid -> {
-                                setLoading(false);
-                                Toast.makeText(requireContext(), getString(R.string.msg_account_created), Toast.LENGTH_SHORT).show();
-                                Intent i = new Intent(requireContext(), HomeActivity.class);
-                                i.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TASK);
-                                startActivity(i);
-                                requireActivity().finish();
-                            })
-                            .addOnFailureListener(e -> {
-                                setLoading(false);
-                                Toast.makeText(requireContext(), e.getMessage(), Toast.LENGTH_LONG).show();
-                            });
+                    // The account exists now; its profile goes through the outbox so a dropped
+                    // connection can't leave a user without a profile document
+                    WriteBehind.get(requireContext()).enqueue(Mutation.setProfile(uid, user));
+                    SessionManager.get(requireContext()).prime(uid, user);
+                    setLoading(false);
+                    Toast.makeText(requireContext(), getString(R.string.msg_account_created), Toast.LENGTH_SHORT).show();
+                    Intent i = new Intent(requireContext(), HomeActivity.class);
+                    i.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TASK);
+                    startActivity(i);
+                    requireActivity().finish();
                 })
                 .addOnFailureListener(e -> {
+                    // Creating the account itself needs the server
                     setLoading(false);
-                    Toast.makeText(requireContext(), e.getMessage(), Toast.LENGTH_LONG).show();
+                    String msg = TaskUtil.isRetryable(e) ? getString(R.string.offline_message) : e.getMessage();
+                    Toast.makeText(requireContext(), msg, Toast.LENGTH_LONG).show();
                 });
     }
 
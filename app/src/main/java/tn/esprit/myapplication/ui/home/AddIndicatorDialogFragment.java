@@ -11,23 +11,34 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.fragment.app.DialogFragment;
 
+import com.google.android.material.textfield.MaterialAutoCompleteTextView;
 import com.google.android.material.textfield.TextInputEditText;
 import com.google.android.material.textfield.TextInputLayout;
 import com.google.firebase.auth.FirebaseUser;
-import com.google.firebase.firestore.FieldValue;
-
-import java.util.HashMap;
-import java.util.Map;
 
 import tn.esprit.myapplication.R;
 import tn.esprit.myapplication.core.FirebaseManager;
-
-/** Dialog to add an indicator (type, value, unit). */
+import tn.esprit.myapplication.data.IndicatorItem;
+import tn.esprit.myapplication.data.IndicatorRepository;
+import tn.esprit.myapplication.data.SyncState;
+import tn.esprit.myapplication.data.VitalType;
+import tn.esprit.myapplication.sync.Mutation;
+import tn.esprit.myapplication.sync.WriteBehind;
+
+/** Dialog to add a typed indicator reading; values are converted to the type's canonical unit. */
 public class AddIndicatorDialogFragment extends DialogFragment {
 
-    private TextInputLayout tilType, tilValue, tilUnit;
-    private TextInputEditText etType, etValue, etUnit;
-    private View btnCancel, btnSave, progress;
+    private static final VitalType[] TYPES = {
+            VitalType.BLOOD_PRESSURE, VitalType.HEART_RATE, VitalType.BLOOD_GLUCOSE,
+            VitalType.BODY_TEMPERATURE, VitalType.WEIGHT, VitalType.OXYGEN_SATURATION,
+            VitalType.RESPIRATORY_RATE
+    };
+
+    private TextInputLayout tilType, tilValue, tilValue2, tilUnit;
+    private MaterialAutoCompleteTextView etType;
+    private TextInputEditText etValue, etValue2, etUnit;
+    private VitalType selected;
+    private View btnCancel, btnSave;
 
     public static AddIndicatorDialogFragment newInstance() {
         return new AddIndicatorDialogFragment();
@@ -49,62 +60,92 @@ public class AddIndicatorDialogFragment extends DialogFragment {
         super.onViewCreated(root, savedInstanceState);
         tilType = root.findViewById(R.id.tilType);
         tilValue = root.findViewById(R.id.tilValue);
+        tilValue2 = root.findViewById(R.id.tilValue2);
         tilUnit = root.findViewById(R.id.tilUnit);
         etType = root.findViewById(R.id.etType);
         etValue = root.findViewById(R.id.etValue);
+        etValue2 = root.findViewById(R.id.etValue2);
         etUnit = root.findViewById(R.id.etUnit);
         btnCancel = root.findViewById(R.id.btnCancel);
         btnSave = root.findViewById(R.id.btnSave);
-        progress = root.findViewById(R.id.progress);
+
+        String[] labels = new String[TYPES.length];
+        for (int i = 0; i < TYPES.length; i++) labels[i] = TYPES[i].label;
+        etType.setSimpleItems(labels);
+        etType.setOnItemClickListener((parent, view, position, id) -> select(TYPES[position]));
 
         btnCancel.setOnClickListener(v -> dismiss());
         btnSave.setOnClickListener(v -> save());
     }
 
+    private void select(VitalType type) {
+        selected = type;
+        tilType.setError(null);
+        tilValue.setHint(type.hasSecondaryValue() ? "Systolic" : "Value");
+        tilValue2.setVisibility(type.hasSecondaryValue() ? View.VISIBLE : View.GONE);
+        etUnit.setText(type.unit);
+    }
+
     private void save() {
-        String type = String.valueOf(etType.getText()).trim();
-        String value = String.valueOf(etValue.getText()).trim();
+        VitalType type = selected;
         String unit = String.valueOf(etUnit.getText()).trim();
 
         boolean invalid = false;
-        if (TextUtils.isEmpty(type)) { tilType.setError("Required"); invalid = true; } else tilType.setError(null);
-        if (TextUtils.isEmpty(value)) { tilValue.setError("Required"); invalid = true; } else tilValue.setError(null);
+        if (type == null) { tilType.setError("Required"); invalid = true; } else tilType.setError(null);
+        double value = parse(etValue, tilValue);
+        if (Double.isNaN(value)) invalid = true;
+        double value2 = Double.NaN;
+        if (type != null && type.hasSecondaryValue()) {
+            value2 = parse(etValue2, tilValue2);
+            if (Double.isNaN(value2)) invalid = true;
+        }
         if (invalid) return;
 
+        double canonical = type.toCanonical(value, unit);
+        if (Double.isNaN(canonical)) {
+            tilUnit.setError("Use " + type.unit);
+            return;
+        }
+        tilUnit.setError(null);
+
         FirebaseUser user = FirebaseManager.auth().getCurrentUser();
         if (user == null) {
             Toast.makeText(requireContext(), "Not signed in.", Toast.LENGTH_SHORT).show();
             return;
         }
 
-        toggleLoading(true);
-
-        Map<String, Object> doc = new HashMap<>();
-        doc.put("uid", user.getUid());
-        doc.put("type", type);
-        doc.put("value", value);
-        doc.put("unit", unit);
-        doc.put("createdAt", FieldValue.serverTimestamp());
-
-        FirebaseManager.db().collection("indicators")
-                .add(doc)
-                .addOnSuccessListener(ref -> {
-                    toggleLoading(false);
-                    getParentFragmentManager().setFragmentResult("indicator_added", new Bundle());
-                    dismiss();
-                })
-                .addOnFailureListener(e -> {
-                    toggleLoading(false);
-                    Toast.makeText(requireContext(), e.getMessage(), Toast.LENGTH_LONG).show();
-                });
+        IndicatorItem it = new IndicatorItem();
+        // Generated here so a replayed write lands on the same document
+        it.id = FirebaseManager.db().collection(IndicatorRepository.COLLECTION).document().getId();
+        it.type = type;
+        it.value = canonical;
+        it.value2 = Double.isNaN(value2) ? Double.NaN : type.toCanonical(value2, unit);
+        it.unit = type.unit;
+        it.measuredAt = System.currentTimeMillis();
+        it.createdAt = it.measuredAt;
+        it.syncState = SyncState.PENDING;
+
+        // Listed at once from the queue; the reading and its rollups are sent in the background
+        WriteBehind.get(requireContext()).enqueue(Mutation.addIndicator(user.getUid(), it.id, it));
+        getParentFragmentManager().setFragmentResult("indicator_added", new Bundle());
+        dismiss();
     }
 
-    private void toggleLoading(boolean show) {
-        progress.setVisibility(show ? View.VISIBLE : View.GONE);
-        btnSave.setEnabled(!show);
-        btnCancel.setEnabled(!show);
-        etType.setEnabled(!show);
-        etValue.setEnabled(!show);
-        etUnit.setEnabled(!show);
+    /** Parsed number, or NaN after flagging the field. Accepts a decimal comma. */
+    private static double parse(TextInputEditText field, TextInputLayout layout) {
+        String text = String.valueOf(field.getText()).trim().replace(',', '.');
+        if (TextUtils.isEmpty(text)) {
+            layout.setError("Required");
+            return Double.NaN;
+        }
+        try {
+            double v = Double.parseDouble(text);
+            layout.setError(null);
+            return v;
+        } catch (NumberFormatException e) {
+            layout.setError("Enter a number");
+            return Double.NaN;
+        }
     }
+
 }
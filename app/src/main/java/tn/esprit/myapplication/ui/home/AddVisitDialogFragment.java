@@ -1,7 +1,9 @@
 package tn.esprit.myapplication.ui.home;
 
 import android.os.Bundle;
+import android.text.Editable;
 import android.text.TextUtils;
+import android.text.TextWatcher;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -11,22 +13,35 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.fragment.app.DialogFragment;
 
+import com.google.android.material.textfield.MaterialAutoCompleteTextView;
 import com.google.android.material.textfield.TextInputEditText;
 import com.google.android.material.textfield.TextInputLayout;
 import com.google.firebase.auth.FirebaseUser;
-import com.google.firebase.firestore.FieldValue;
-
-import java.util.HashMap;
-import java.util.Map;
-
 import tn.esprit.myapplication.R;
 import tn.esprit.myapplication.core.FirebaseManager;
-
+import tn.esprit.myapplication.data.DoctorDirectory;
+import tn.esprit.myapplication.data.DoctorItem;
+import tn.esprit.myapplication.data.SyncState;
+import tn.esprit.myapplication.data.VisitItem;
+import tn.esprit.myapplication.data.VisitRepository;
+import tn.esprit.myapplication.sync.Mutation;
+import tn.esprit.myapplication.sync.WriteBehind;
+
+/**
+ * Dialog to add a visit; it is listed at once and written to Firestore through the write-behind queue.
+ * Doctor and specialty suggest entries of the {@link DoctorDirectory} as the user types; picking a
+ * doctor fills in the specialty, and a typed specialty narrows the doctors. Free text is still accepted.
+ */
 public class AddVisitDialogFragment extends DialogFragment {
 
+    private static final int MAX_SUGGESTIONS = 8;
+
     private TextInputLayout tilTitle, tilDoctor, tilSpecialty, tilConclusion;
-    private TextInputEditText etTitle, etDoctor, etSpecialty, etConclusion;
-    private View btnCancel, btnSave, progress;
+    private TextInputEditText etTitle, etConclusion;
+    private MaterialAutoCompleteTextView etDoctor, etSpecialty;
+    private View btnCancel, btnSave;
+    // Read by the doctor filter's worker thread
+    private volatile String specialtyFilter = "";
 
     public static AddVisitDialogFragment newInstance() {
         return new AddVisitDialogFragment();
@@ -57,10 +72,42 @@ public class AddVisitDialogFragment extends DialogFragment {
 
         btnCancel = root.findViewById(R.id.btnCancel);
         btnSave = root.findViewById(R.id.btnSave);
-        progress = root.findViewById(R.id.progress);
 
         btnCancel.setOnClickListener(v -> dismiss());
         btnSave.setOnClickListener(v -> save());
+        setUpTypeahead();
+    }
+
+    private void setUpTypeahead() {
+        DoctorDirectory directory = DoctorDirectory.get(requireContext());
+        // Shows the cached directory at once; a sync, if due, only adds what changed
+        directory.refresh();
+
+        SuggestionAdapter<DoctorItem> doctors =
+                SuggestionAdapter.doctors(directory, () -> specialtyFilter, MAX_SUGGESTIONS);
+        etDoctor.setAdapter(doctors);
+        etDoctor.setOnItemClickListener((parent, view, position, id) -> {
+            DoctorItem d = doctors.getItem(position);
+            if (!TextUtils.isEmpty(d.specialty)) etSpecialty.setText(d.specialty, false);
+        });
+
+        etSpecialty.setAdapter(new SuggestionAdapter<>(
+                q -> directory.current().findSpecialties(q, MAX_SUGGESTIONS),
+                new SuggestionAdapter.Labels<String>() {
+                    @NonNull @Override public String title(@NonNull String s) {
+                        return s;
+                    }
+                    @Nullable @Override public String subtitle(@NonNull String s) {
+                        return null;
+                    }
+                }));
+        etSpecialty.addTextChangedListener(new TextWatcher() {
+            @Override public void beforeTextChanged(CharSequence s, int start, int count, int after) { }
+            @Override public void onTextChanged(CharSequence s, int start, int before, int count) { }
+            @Override public void afterTextChanged(Editable s) {
+                specialtyFilter = s.toString().trim();
+            }
+        });
     }
 
     private void save() {
@@ -81,36 +128,19 @@ public class AddVisitDialogFragment extends DialogFragment {
             return;
         }
 
-        toggleLoading(true);
-
-        Map<String, Object> doc = new HashMap<>();
-        doc.put("uid", user.getUid());
-        doc.put("title", title);
-        doc.put("doctorName", doctor);
-        doc.put("specialty", specialty);
-        doc.put("conclusion", conclusion);
-        doc.put("createdAt", FieldValue.serverTimestamp());
-
-        FirebaseManager.db().collection("visits")
-                .add(doc)
-                .addOnSuccessListener(r -> {
-                    toggleLoading(false);
-                    getParentFragmentManager().setFragmentResult("visit_added", new Bundle());
-                    dismiss();
-                })
-                .addOnFailureListener(e -> {
-                    toggleLoading(false);
-                    Toast.makeText(requireContext(), e.getMessage(), Toast.LENGTH_LONG).show();
-                });
+        VisitItem v = new VisitItem();
+        // Generated here so a replayed write lands on the same document
+        v.id = FirebaseManager.db().collection(VisitRepository.COLLECTION).document().getId();
+        v.title = title;
+        v.doctorName = doctor;
+        v.specialty = specialty;
+        v.conclusion = conclusion;
+        v.createdAt = System.currentTimeMillis();
+        v.syncState = SyncState.PENDING;
+
+        WriteBehind.get(requireContext()).enqueue(Mutation.addVisit(user.getUid(), v.id, v));
+        getParentFragmentManager().setFragmentResult("visit_added", new Bundle());
+        dismiss();
     }
 
-    private void toggleLoading(boolean show) {
-        progress.setVisibility(show ? View.VISIBLE : View.GONE);
-        btnSave.setEnabled(!show);
-        btnCancel.setEnabled(!show);
-        etTitle.setEnabled(!show);
-        etDoctor.setEnabled(!show);
-        etSpecialty.setEnabled(!show);
-        etConclusion.setEnabled(!show);
-    }
 }
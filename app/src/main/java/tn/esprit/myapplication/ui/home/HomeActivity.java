@@ -2,57 +2,220 @@ package tn.esprit.myapplication.ui.home;
 
 import android.content.Intent;
 import android.os.Bundle;
+import android.util.Log;
 import android.view.Menu;
 import android.view.MenuItem;
+import android.view.ViewTreeObserver;
 import android.widget.FrameLayout;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.fragment.app.Fragment;
+import androidx.fragment.app.FragmentManager;
+import androidx.fragment.app.FragmentTransaction;
+import androidx.lifecycle.Lifecycle;
 
 import com.google.android.material.appbar.MaterialToolbar;
 import com.google.android.material.bottomnavigation.BottomNavigationView;
+import com.google.android.material.snackbar.Snackbar;
 import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.auth.FirebaseUser;
 
 import tn.esprit.myapplication.R;
 import tn.esprit.myapplication.core.SeedData;
+import tn.esprit.myapplication.core.SessionManager;
+import tn.esprit.myapplication.data.DoctorDirectory;
+import tn.esprit.myapplication.data.IndicatorMigration;
+import tn.esprit.myapplication.data.IndicatorRepository;
+import tn.esprit.myapplication.data.Role;
+import tn.esprit.myapplication.data.SyncState;
+import tn.esprit.myapplication.data.VisitRepository;
+import tn.esprit.myapplication.image.AvatarUploader;
+import tn.esprit.myapplication.sync.Mutation;
+import tn.esprit.myapplication.sync.WriteBehind;
+import tn.esprit.myapplication.ui.appointments.AppointmentsActivity;
 import tn.esprit.myapplication.ui.auth.AuthHostActivity;
 
 public class HomeActivity extends AppCompatActivity {
 
+    /** Set to true to skip demo seeding (used by the startup benchmark to compare both paths). */
+    public static final String EXTRA_SKIP_SEED = "tn.esprit.myapplication.extra.SKIP_SEED";
+
+    private static final String TAG = "HomeActivity";
+
     private FrameLayout container;
     private BottomNavigationView bottomNav;
     private MaterialToolbar toolbar;
 
-    private final Fragment indicatorsFragment = new IndicatorsFragment();
-    private final Fragment suivieFragment = new SuivieFragment();
-    private final Fragment medicationFragment = new MedicationFragment();
-    private final Fragment profileFragment = new ProfileFragment();
+    private static final String TAG_INDICATORS = "indicators";
+    private static final String TAG_SUIVIE = "suivie";
+    private static final String TAG_MEDICATION = "medication";
+    private static final String TAG_PROFILE = "profile";
+    private static final String TAG_PATIENTS = "patients";
+
+    private Fragment indicatorsFragment;
+    private Fragment suivieFragment;
+    private Fragment medicationFragment;
+    private Fragment profileFragment;
+    private Fragment rosterFragment;  // doctors only; added once the role is known
+    private boolean doctorLinkQueued;
+    @Nullable private String shownFailure;  // id of the rejected write the snackbar is about
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_home);
 
-        // One-shot demo data seed (safe if already present)
-        SeedData.run(getApplicationContext());
-
         toolbar = findViewById(R.id.toolbar);
         setSupportActionBar(toolbar);
 
         container = findViewById(R.id.home_container);
         bottomNav = findViewById(R.id.bottom_nav);
 
-        if (savedInstanceState == null) {
-            getSupportFragmentManager()
-                    .beginTransaction()
+        setUpTabs(savedInstanceState == null);
+
+        bottomNav.setOnItemSelectedListener(this::onBottomItemSelected);
+        if (rosterFragment != null) bottomNav.getMenu().findItem(R.id.menu_patients).setVisible(true);
+        else resolveRole(savedInstanceState == null);
+        observeRejectedWrites();
+
+        boolean seed = !getIntent().getBooleanExtra(EXTRA_SKIP_SEED, false);
+        afterFirstFrame(() -> {
+            if (seed) seed();
+            migrateIndicators();
+            // Sends whatever the previous session left in the write-behind queue
+            WriteBehind.get(this).kick();
+            // Delta only: an unchanged directory costs one empty query
+            DoctorDirectory.get(this).refresh();
+        });
+    }
+
+    /**
+     * All four tabs are added once and then only shown/hidden, so switching keeps each tab's views,
+     * adapter, scroll position and loaded data. Hidden tabs are capped at STARTED (no onResume);
+     * after recreation the FragmentManager restores them with their visibility.
+     */
+    private void setUpTabs(boolean firstLaunch) {
+        FragmentManager fm = getSupportFragmentManager();
+        if (firstLaunch) {
+            indicatorsFragment = new IndicatorsFragment();
+            suivieFragment = new SuivieFragment();
+            medicationFragment = new MedicationFragment();
+            profileFragment = new ProfileFragment();
+            fm.beginTransaction()
                     .setReorderingAllowed(true)
-                    .add(R.id.home_container, indicatorsFragment, "indicators")
+                    .add(R.id.home_container, indicatorsFragment, TAG_INDICATORS)
+                    .add(R.id.home_container, suivieFragment, TAG_SUIVIE)
+                    .add(R.id.home_container, medicationFragment, TAG_MEDICATION)
+                    .add(R.id.home_container, profileFragment, TAG_PROFILE)
+                    .hide(suivieFragment).setMaxLifecycle(suivieFragment, Lifecycle.State.STARTED)
+                    .hide(medicationFragment).setMaxLifecycle(medicationFragment, Lifecycle.State.STARTED)
+                    .hide(profileFragment).setMaxLifecycle(profileFragment, Lifecycle.State.STARTED)
                     .commit();
             setTitle(getString(R.string.menu_indicators_title));
+        } else {
+            indicatorsFragment = fm.findFragmentByTag(TAG_INDICATORS);
+            suivieFragment = fm.findFragmentByTag(TAG_SUIVIE);
+            medicationFragment = fm.findFragmentByTag(TAG_MEDICATION);
+            profileFragment = fm.findFragmentByTag(TAG_PROFILE);
+            rosterFragment = fm.findFragmentByTag(TAG_PATIENTS);
         }
+    }
 
-        bottomNav.setOnItemSelectedListener(this::onBottomItemSelected);
+    /**
+     * Doctors get a Patients tab, added next to the others as soon as the session's profile says
+     * so (at once when it is cached), and opened first on a fresh launch. Everyone else keeps the
+     * four patient tabs. A doctor account created before directory links existed gets its own
+     * entry here.
+     */
+    private void resolveRole(boolean firstLaunch) {
+        SessionManager session = SessionManager.get(this);
+        session.user().observe(this, profile -> {
+            if (profile == null || profile.getRole() != Role.DOCTOR) return;
+            FirebaseUser user = FirebaseAuth.getInstance().getCurrentUser();
+            // Once: the profile listener republishes the unlinked document until the write lands
+            if (profile.getDoctorId() == null && user != null && !doctorLinkQueued) {
+                doctorLinkQueued = true;
+                profile.setDoctorId(user.getUid());
+                WriteBehind.get(this).enqueue(Mutation.setProfile(user.getUid(), profile));
+                session.prime(user.getUid(), profile);
+            }
+            if (rosterFragment != null) return;
+            rosterFragment = new RosterFragment();
+            getSupportFragmentManager().beginTransaction()
+                    .setReorderingAllowed(true)
+                    .add(R.id.home_container, rosterFragment, TAG_PATIENTS)
+                    .hide(rosterFragment).setMaxLifecycle(rosterFragment, Lifecycle.State.STARTED)
+                    .commit();
+            bottomNav.getMenu().findItem(R.id.menu_patients).setVisible(true);
+            if (firstLaunch && bottomNav.getSelectedItemId() == R.id.menu_indicators) {
+                bottomNav.setSelectedItemId(R.id.menu_patients);
+            }
+        });
+    }
+
+    /**
+     * Profile writes have no row of their own to tap, so a rejected one is reported here, with a
+     * retry, until it goes through.
+     */
+    private void observeRejectedWrites() {
+        FirebaseUser user = FirebaseAuth.getInstance().getCurrentUser();
+        if (user == null) return;
+        String uid = user.getUid();
+        WriteBehind outbox = WriteBehind.get(this);
+        outbox.pending(uid).observe(this, rows -> {
+            if (rows == null) return;
+            for (Mutation m : rows) {
+                if (m.state != SyncState.FAILED) continue;
+                int message;
+                if (m.kind == Mutation.Kind.SET_PROFILE) message = R.string.sync_profile_failed;
+                else if (m.kind == Mutation.Kind.SET_PROFILE_IMAGE) message = R.string.sync_profile_image_failed;
+                else continue;
+                if (m.id.equals(shownFailure)) return;
+                shownFailure = m.id;
+                Snackbar.make(container, message, Snackbar.LENGTH_INDEFINITE)
+                        .setAnchorView(bottomNav)
+                        .setAction(R.string.action_retry, v -> {
+                            shownFailure = null;
+                            outbox.retry(uid, m.id);
+                        })
+                        .show();
+                return;
+            }
+        });
+    }
+
+    /**
+     * Runs {@code work} once Home has drawn its first frame, so startup never waits on it.
+     * Everything it starts must hop off the main thread.
+     */
+    private void afterFirstFrame(Runnable work) {
+        container.getViewTreeObserver().addOnPreDrawListener(new ViewTreeObserver.OnPreDrawListener() {
+            @Override
+            public boolean onPreDraw() {
+                container.getViewTreeObserver().removeOnPreDrawListener(this);
+                // Posted work runs after the frame currently being drawn
+                container.post(work);
+                return true;
+            }
+        });
+    }
+
+    /** One-shot demo data seed (safe if already present). */
+    private void seed() {
+        SeedData.runAsync(getApplicationContext(),
+                        (stage, done, total) -> Log.d(TAG, "Seeding " + stage + ": " + done + "/" + total))
+                .addOnFailureListener(e -> Log.e(TAG, "Seeding failed", e));
+    }
+
+    /** Converts this user's free-text indicator documents to the typed schema, once per device. */
+    private void migrateIndicators() {
+        FirebaseUser user = FirebaseAuth.getInstance().getCurrentUser();
+        if (user == null) return;
+        IndicatorMigration.runIfNeeded(getApplicationContext(), user.getUid())
+                .addOnSuccessListener(n -> { if (n > 0) Log.i(TAG, "Migrated " + n + " indicators"); })
+                .addOnFailureListener(e -> Log.w(TAG, "Indicator migration failed; will retry", e));
     }
 
     @Override
@@ -72,7 +235,9 @@ public class HomeActivity extends AppCompatActivity {
         String title = null;
 
         int id = item.getItemId();
-        if (id == R.id.menu_indicators) {
+        if (id == R.id.menu_patients) {
+            target = rosterFragment; title = getString(R.string.menu_patients_title);
+        } else if (id == R.id.menu_indicators) {
             target = indicatorsFragment; title = getString(R.string.menu_indicators_title);
         } else if (id == R.id.menu_suivie) {
             target = suivieFragment; title = getString(R.string.menu_suivie_title);
@@ -84,11 +249,18 @@ public class HomeActivity extends AppCompatActivity {
 
         if (target == null) return false;
 
-        getSupportFragmentManager()
+        FragmentTransaction tx = getSupportFragmentManager()
                 .beginTransaction()
-                .setReorderingAllowed(true)
-                .replace(R.id.home_container, target)
-                .commit();
+                .setReorderingAllowed(true);
+        for (Fragment f : new Fragment[]{rosterFragment, indicatorsFragment, suivieFragment, medicationFragment, profileFragment}) {
+            if (f == null) continue;
+            if (f == target) {
+                tx.show(f).setMaxLifecycle(f, Lifecycle.State.RESUMED);
+            } else if (!f.isHidden()) {
+                tx.hide(f).setMaxLifecycle(f, Lifecycle.State.STARTED);
+            }
+        }
+        tx.commit();
 
         if (getSupportActionBar() != null) getSupportActionBar().setTitle(title);
         return true;
@@ -102,7 +274,18 @@ public class HomeActivity extends AppCompatActivity {
 
     @Override
     public boolean onOptionsItemSelected(@NonNull MenuItem item) {
+        if (item.getItemId() == R.id.action_appointments) {
+            startActivity(new Intent(this, AppointmentsActivity.class));
+            return true;
+        }
         if (item.getItemId() == R.id.action_sign_out) {
+            FirebaseUser user = FirebaseAuth.getInstance().getCurrentUser();
+            if (user != null) {
+                // The next account must not resume this one's photo upload or see its cached lists
+                AvatarUploader.discard(this, user.getUid());
+                IndicatorRepository.get(this).clear(user.getUid());
+                VisitRepository.get(this).clear(user.getUid());
+            }
             FirebaseAuth.getInstance().signOut();
             Intent i = new Intent(this, AuthHostActivity.class);
             i.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TASK);
@@ -5,31 +5,53 @@ import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 
-import androidx.activity.result.ActivityResultCaller;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
+import androidx.recyclerview.widget.ConcatAdapter;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.DividerItemDecoration;
 import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
+import com.google.android.material.textview.MaterialTextView;
 import com.google.firebase.auth.FirebaseUser;
-import com.google.firebase.firestore.CollectionReference;
-import com.google.firebase.firestore.Query;
-import com.google.firebase.firestore.QueryDocumentSnapshot;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
 
 import tn.esprit.myapplication.R;
+import tn.esprit.myapplication.analytics.ChartZoom;
+import tn.esprit.myapplication.analytics.IndicatorTrends;
+import tn.esprit.myapplication.analytics.ReferenceRange;
+import tn.esprit.myapplication.analytics.TrendStats;
+import tn.esprit.myapplication.core.AppExecutors;
 import tn.esprit.myapplication.core.FirebaseManager;
+import tn.esprit.myapplication.core.LivePagedQuery;
+import tn.esprit.myapplication.data.IndicatorItem;
+import tn.esprit.myapplication.data.IndicatorRepository;
+import tn.esprit.myapplication.data.SyncState;
+import tn.esprit.myapplication.data.VitalType;
+import tn.esprit.myapplication.sync.WriteBehind;
 
 public class IndicatorsFragment extends Fragment {
 
+    private static final int PREFETCH_DISTANCE = 10;
+
     private RecyclerView recycler;
     private View emptyView;
     private IndicatorsAdapter adapter;
+    private ChartsAdapter charts;
+    private final Map<VitalType, ChartZoom> zooms = new EnumMap<>(VitalType.class);
+    private Map<VitalType, TrendStats> lastTrends = Collections.emptyMap();
 
     public IndicatorsFragment() { /* required */ }
 
@@ -41,13 +63,6 @@ public class IndicatorsFragment extends Fragment {
         return inflater.inflate(R.layout.fragment_indicators, container, false);
     }
 
-    @Override
-    public void onCreate(@Nullable Bundle savedInstanceState) {
-        super.onCreate(savedInstanceState);
-        // refresh after dialog saves
-        getParentFragmentManager().setFragmentResultListener("indicator_added", this, (reqKey, bundle) -> loadIndicators());
-    }
-
     @Override
     public void onViewCreated(@NonNull View root, @Nullable Bundle savedInstanceState) {
         super.onViewCreated(root, savedInstanceState);
@@ -55,10 +70,9 @@ public class IndicatorsFragment extends Fragment {
         recycler = root.findViewById(R.id.recyclerIndicators);
         emptyView = root.findViewById(R.id.emptyView);
 
-        adapter = new IndicatorsAdapter();
+        adapter = new IndicatorsAdapter(this::retry);
         recycler.setLayoutManager(new LinearLayoutManager(requireContext()));
         recycler.addItemDecoration(new DividerItemDecoration(requireContext(), DividerItemDecoration.VERTICAL));
-        recycler.setAdapter(adapter);
 
         FloatingActionButton fab = root.findViewById(R.id.fabAddIndicator);
         fab.setOnClickListener(v -> AddIndicatorDialogFragment.newInstance()
@@ -67,26 +81,51 @@ public class IndicatorsFragment extends Fragment {
         loadIndicators();
     }
 
+    /**
+     * Paged, live query: cached readings render from disk first, the newest page follows Firestore
+     * deltas, older pages load as the user scrolls. A reading saved from the add dialog is listed
+     * from the write-behind queue right away and swapped for Firestore's copy once it lands.
+     */
     private void loadIndicators() {
         FirebaseUser user = FirebaseManager.auth().getCurrentUser();
         if (user == null) {
             showEmpty(true);
             return;
         }
-        CollectionReference col = FirebaseManager.db().collection("indicators");
-        Query q = col.whereEqualTo("uid", user.getUid()).orderBy("createdAt", Query.Direction.DESCENDING);
-        q.get().addOnSuccessListener(snaps -> {
-            List<IndicatorItem> items = new ArrayList<>();
-            for (QueryDocumentSnapshot d : snaps) {
-                IndicatorItem it = new IndicatorItem();
-                it.type = d.getString("type");
-                it.value = d.getString("value");
-                it.unit = d.getString("unit");
-                items.add(it);
-            }
-            adapter.setData(items);
+        IndicatorRepository repo = IndicatorRepository.get(requireContext());
+        // One chart card per type above the readings
+        charts = new ChartsAdapter(repo, user.getUid(), this::cycleZoom);
+        recycler.setAdapter(new ConcatAdapter(charts, adapter));
+
+        LivePagedQuery<IndicatorItem> indicators = repo.indicators(user.getUid());
+        recycler.addOnScrollListener(indicators.prefetchOnScroll(PREFETCH_DISTANCE));
+        repo.withPending(user.getUid()).observe(getViewLifecycleOwner(), items -> {
+            if (items == null) return;
+            adapter.submitList(items);
             showEmpty(items.isEmpty());
-        }).addOnFailureListener(e -> showEmpty(true));
+        });
+        repo.trends(user.getUid()).observe(getViewLifecycleOwner(), this::showTrends);
+    }
+
+    private void showTrends(Map<VitalType, TrendStats> trends) {
+        lastTrends = trends;
+        List<ChartRow> rows = new ArrayList<>();
+        for (Map.Entry<VitalType, TrendStats> e : trends.entrySet()) {
+            if (e.getValue().count == 0) continue;
+            ChartZoom zoom = zooms.get(e.getKey());
+            rows.add(new ChartRow(e.getKey(), e.getValue(), zoom == null ? ChartZoom.MONTH : zoom));
+        }
+        charts.submitList(rows);
+    }
+
+    private void cycleZoom(ChartRow row) {
+        zooms.put(row.type, row.zoom.next());
+        showTrends(lastTrends);
+    }
+
+    private void retry(IndicatorItem it) {
+        FirebaseUser user = FirebaseManager.auth().getCurrentUser();
+        if (user != null) WriteBehind.get(requireContext()).retry(user.getUid(), it.id);
     }
 
     private void showEmpty(boolean empty) {
@@ -96,45 +135,146 @@ public class IndicatorsFragment extends Fragment {
 
     // -------- Recycler bits --------
 
-    static class IndicatorItem {
-        String type;
-        String value;
-        String unit;
+    static final class ChartRow {
+        final VitalType type;
+        final TrendStats stats;
+        final ChartZoom zoom;
+
+        ChartRow(VitalType type, TrendStats stats, ChartZoom zoom) {
+            this.type = type;
+            this.stats = stats;
+            this.zoom = zoom;
+        }
     }
 
-    static class IndicatorsAdapter extends RecyclerView.Adapter<IndicatorsVH> {
-        private final List<IndicatorItem> data = new ArrayList<>();
-        void setData(List<IndicatorItem> items) {
-            data.clear();
-            if (items != null) data.addAll(items);
-            notifyDataSetChanged();
+    static class ChartsAdapter extends ListAdapter<ChartRow, ChartVH> {
+        private static final DiffUtil.ItemCallback<ChartRow> DIFF = new DiffUtil.ItemCallback<ChartRow>() {
+            @Override public boolean areItemsTheSame(@NonNull ChartRow a, @NonNull ChartRow b) {
+                return a.type == b.type;
+            }
+            @Override public boolean areContentsTheSame(@NonNull ChartRow a, @NonNull ChartRow b) {
+                return a.zoom == b.zoom
+                        && a.stats.count == b.stats.count
+                        && a.stats.latestAt == b.stats.latestAt
+                        && Double.compare(a.stats.mean, b.stats.mean) == 0;
+            }
+        };
+        private final IndicatorRepository repo;
+        private final String uid;
+        private final Consumer<ChartRow> onClick;
+
+        ChartsAdapter(IndicatorRepository repo, String uid, Consumer<ChartRow> onClick) {
+            super(DIFF);
+            this.repo = repo;
+            this.uid = uid;
+            this.onClick = onClick;
+        }
+        @NonNull @Override public ChartVH onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+            View v = LayoutInflater.from(parent.getContext())
+                    .inflate(R.layout.row_indicator_chart, parent, false);
+            return new ChartVH(v, repo, uid, onClick);
+        }
+        @Override public void onBindViewHolder(@NonNull ChartVH holder, int position) {
+            holder.bind(getItem(position));
+        }
+    }
+
+    static class ChartVH extends RecyclerView.ViewHolder {
+        private final MaterialTextView tvTitle, tvZoom, tvStats;
+        private final SparklineView sparkline;
+        private final IndicatorRepository repo;
+        private final String uid;
+        private ChartRow bound;
+
+        ChartVH(@NonNull View itemView, IndicatorRepository repo, String uid, Consumer<ChartRow> onClick) {
+            super(itemView);
+            this.repo = repo;
+            this.uid = uid;
+            tvTitle = itemView.findViewById(R.id.tvChartTitle);
+            tvZoom = itemView.findViewById(R.id.tvChartZoom);
+            tvStats = itemView.findViewById(R.id.tvChartStats);
+            sparkline = itemView.findViewById(R.id.sparkline);
+            itemView.setOnClickListener(v -> { if (bound != null) onClick.accept(bound); });
+        }
+
+        void bind(ChartRow row) {
+            bound = row;
+            VitalType type = row.type;
+            TrendStats st = row.stats;
+            tvTitle.setText(type.label);
+            tvZoom.setText(row.zoom.label);
+            String stats = String.format(Locale.getDefault(), "avg %.1f %s, last %d %.1f, %+.2f/day",
+                    st.mean, type.unit, Math.min(st.count, IndicatorTrends.ROLLING_WINDOW),
+                    st.rollingMean, st.slopePerDay);
+            if (st.outOfRange > 0) stats += ", " + st.outOfRange + " out of range";
+            tvStats.setText(stats);
+
+            if (sparkline.getWidth() > 0) loadChart(row);
+            else sparkline.post(() -> { if (bound == row) loadChart(row); });
+        }
+
+        /** Draws the last cached chart at once, then the one recomputed off the main thread. */
+        private void loadChart(ChartRow row) {
+            int width = sparkline.getWidth() - sparkline.getPaddingLeft() - sparkline.getPaddingRight();
+            ReferenceRange range = ReferenceRange.of(row.type, false);
+            sparkline.setSeries(repo.cachedChart(uid, row.type, row.zoom, width), range);
+            repo.chart(uid, row.type, row.zoom, width).addOnSuccessListener(AppExecutors.main(), series -> {
+                if (bound == row) sparkline.setSeries(series, range);
+            });
+        }
+    }
+
+    static class IndicatorsAdapter extends ListAdapter<IndicatorItem, IndicatorsVH> {
+        private static final DiffUtil.ItemCallback<IndicatorItem> DIFF = new DiffUtil.ItemCallback<IndicatorItem>() {
+            @Override public boolean areItemsTheSame(@NonNull IndicatorItem a, @NonNull IndicatorItem b) {
+                return Objects.equals(a.id, b.id);
+            }
+            @Override public boolean areContentsTheSame(@NonNull IndicatorItem a, @NonNull IndicatorItem b) {
+                return a.type == b.type
+                        && Objects.equals(a.label, b.label)
+                        && Double.compare(a.value, b.value) == 0
+                        && Double.compare(a.value2, b.value2) == 0
+                        && Objects.equals(a.unit, b.unit)
+                        && a.measuredAt == b.measuredAt
+                        && a.syncState == b.syncState;
+            }
+        };
+        private final Consumer<IndicatorItem> onRetry;
+
+        IndicatorsAdapter(Consumer<IndicatorItem> onRetry) {
+            super(DIFF);
+            this.onRetry = onRetry;
         }
         @NonNull @Override public IndicatorsVH onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
             View v = LayoutInflater.from(parent.getContext())
                     .inflate(R.layout.row_indicator, parent, false);
-            return new IndicatorsVH(v);
+            return new IndicatorsVH(v, onRetry);
         }
         @Override public void onBindViewHolder(@NonNull IndicatorsVH holder, int position) {
-            holder.bind(data.get(position));
+            holder.bind(getItem(position));
         }
-        @Override public int getItemCount() { return data.size(); }
     }
 
     static class IndicatorsVH extends RecyclerView.ViewHolder {
         private final com.google.android.material.textview.MaterialTextView tvTitle;
         private final com.google.android.material.textview.MaterialTextView tvSub;
 
-        IndicatorsVH(@NonNull View itemView) {
+        private IndicatorItem bound;
+
+        IndicatorsVH(@NonNull View itemView, Consumer<IndicatorItem> onRetry) {
             super(itemView);
             tvTitle = itemView.findViewById(R.id.tvIndicatorTitle);
             tvSub   = itemView.findViewById(R.id.tvIndicatorSub);
+            itemView.setOnClickListener(v -> {
+                if (bound != null && bound.syncState == SyncState.FAILED) onRetry.accept(bound);
+            });
         }
 
         void bind(IndicatorItem it) {
-            String t = it.type == null ? "Indicator" : it.type;
-            tvTitle.setText(t);
-            String sub = (it.value == null ? "-" : it.value) + (it.unit == null ? "" : " " + it.unit);
-            tvSub.setText(sub);
+            bound = it;
+            tvTitle.setText(it.displayLabel());
+            tvSub.setText(it.displayValue() + SyncLabels.suffix(it.syncState));
+            itemView.setAlpha(it.syncState == SyncState.PENDING ? 0.6f : 1f);
         }
     }
 }
@@ -0,0 +1,167 @@
+package tn.esprit.myapplication.ui.home;
+
+import android.content.Context;
+import android.os.Bundle;
+import android.text.format.DateUtils;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.fragment.app.Fragment;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.ListAdapter;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.google.android.material.progressindicator.LinearProgressIndicator;
+import com.google.android.material.textview.MaterialTextView;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import tn.esprit.myapplication.R;
+import tn.esprit.myapplication.core.SessionManager;
+import tn.esprit.myapplication.data.IndicatorItem;
+import tn.esprit.myapplication.data.RosterEntry;
+import tn.esprit.myapplication.data.RosterRepository;
+import tn.esprit.myapplication.data.VitalType;
+
+/**
+ * Doctor-only tab: the signed-in doctor's patients, most recently active first. Rows fill in as
+ * each chunk of summaries arrives; the progress bar tracks the chunks. The roster is the one of
+ * the account's directory entry, loaded once the session's profile names it.
+ */
+public class RosterFragment extends Fragment {
+
+    private RecyclerView recycler;
+    private MaterialTextView emptyView;
+    private MaterialTextView tvStatus;
+    private LinearProgressIndicator progress;
+    private RosterAdapter adapter;
+    @Nullable private String doctorId;
+
+    public RosterFragment() { /* required */ }
+
+    @Nullable
+    @Override
+    public View onCreateView(@NonNull LayoutInflater inflater,
+                             @Nullable ViewGroup container,
+                             @Nullable Bundle savedInstanceState) {
+        return inflater.inflate(R.layout.fragment_roster, container, false);
+    }
+
+    @Override
+    public void onViewCreated(@NonNull View root, @Nullable Bundle savedInstanceState) {
+        super.onViewCreated(root, savedInstanceState);
+
+        recycler = root.findViewById(R.id.recyclerRoster);
+        emptyView = root.findViewById(R.id.emptyView);
+        tvStatus = root.findViewById(R.id.tvRosterStatus);
+        progress = root.findViewById(R.id.progressRoster);
+
+        adapter = new RosterAdapter();
+        recycler.setLayoutManager(new LinearLayoutManager(requireContext()));
+        recycler.setAdapter(adapter);
+
+        RosterRepository repo = RosterRepository.get();
+        root.findViewById(R.id.fabRefreshRoster).setOnClickListener(v -> {
+            if (doctorId != null) repo.refresh(doctorId);
+        });
+        // HomeActivity links a doctor account without a directory entry; until then there is no roster
+        SessionManager.get(requireContext()).user().observe(getViewLifecycleOwner(), profile -> {
+            String linked = profile == null ? null : profile.getDoctorId();
+            if (linked == null || linked.equals(doctorId)) return;
+            if (doctorId != null) repo.roster(doctorId).removeObservers(getViewLifecycleOwner());
+            doctorId = linked;
+            repo.roster(linked).observe(getViewLifecycleOwner(), this::render);
+        });
+    }
+
+    private void render(@Nullable RosterRepository.Roster roster) {
+        if (roster == null) return;
+        adapter.submitList(roster.entries);
+        showEmpty(!roster.loading && roster.entries.isEmpty());
+
+        // Nothing is published until the roster query answers, so there is always a chunk count
+        if (roster.chunks > 0) {
+            progress.setMax(roster.chunks);
+            progress.setProgressCompat(roster.chunksDone, true);
+        }
+        progress.setVisibility(roster.loading ? View.VISIBLE : View.GONE);
+
+        int n = roster.entries.size();
+        String status = getResources().getQuantityString(R.plurals.roster_count, n, n);
+        if (roster.loading) status = getString(R.string.roster_status_loading, status);
+        else if (roster.chunksFailed > 0) status = getString(R.string.roster_status_partial, status);
+        tvStatus.setText(status);
+    }
+
+    private void showEmpty(boolean empty) {
+        emptyView.setVisibility(empty ? View.VISIBLE : View.GONE);
+        recycler.setVisibility(empty ? View.GONE : View.VISIBLE);
+    }
+
+    // ---- Recycler ----
+    static class RosterAdapter extends ListAdapter<RosterEntry, PatientVH> {
+        private static final DiffUtil.ItemCallback<RosterEntry> DIFF = new DiffUtil.ItemCallback<RosterEntry>() {
+            @Override public boolean areItemsTheSame(@NonNull RosterEntry a, @NonNull RosterEntry b) {
+                return Objects.equals(a.patientId, b.patientId);
+            }
+            @Override public boolean areContentsTheSame(@NonNull RosterEntry a, @NonNull RosterEntry b) {
+                // Each chunk replaces its entries, so an unchanged row is the same object
+                return a == b;
+            }
+        };
+        RosterAdapter() { super(DIFF); }
+        @NonNull @Override public PatientVH onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+            View v = LayoutInflater.from(parent.getContext()).inflate(R.layout.row_roster_patient, parent, false);
+            return new PatientVH(v);
+        }
+        @Override public void onBindViewHolder(@NonNull PatientVH holder, int position) {
+            holder.bind(getItem(position));
+        }
+    }
+
+    static class PatientVH extends RecyclerView.ViewHolder {
+        private final MaterialTextView tvName;
+        private final MaterialTextView tvReadings;
+        private final MaterialTextView tvVisit;
+
+        PatientVH(@NonNull View itemView) {
+            super(itemView);
+            tvName = itemView.findViewById(R.id.tvPatientName);
+            tvReadings = itemView.findViewById(R.id.tvPatientReadings);
+            tvVisit = itemView.findViewById(R.id.tvPatientVisit);
+        }
+
+        void bind(RosterEntry e) {
+            Context ctx = itemView.getContext();
+            tvName.setText(e.displayName != null ? e.displayName
+                    : ctx.getString(R.string.roster_unnamed_patient, e.patientId));
+            if (!e.summaryLoaded) {
+                tvReadings.setText(R.string.roster_summary_loading);
+                tvVisit.setVisibility(View.GONE);
+                return;
+            }
+            List<String> readings = new ArrayList<>();
+            for (VitalType type : VitalType.values()) {
+                IndicatorItem it = e.latest.get(type);
+                if (it != null) readings.add(it.displayLabel() + " " + it.displayValue());
+            }
+            if (readings.isEmpty()) tvReadings.setText(R.string.roster_no_readings);
+            else tvReadings.setText(String.join(" · ", readings));
+            tvVisit.setVisibility(View.VISIBLE);
+            if (e.lastVisit == null) {
+                tvVisit.setText(R.string.roster_no_visit);
+            } else {
+                String title = e.lastVisit.title == null || e.lastVisit.title.isEmpty()
+                        ? ctx.getString(R.string.roster_visit_untitled) : e.lastVisit.title;
+                tvVisit.setText(ctx.getString(R.string.roster_last_visit, title,
+                        DateUtils.getRelativeTimeSpanString(e.lastVisit.createdAt)));
+            }
+        }
+    }
+}
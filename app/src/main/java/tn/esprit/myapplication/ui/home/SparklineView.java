@@ -0,0 +1,93 @@
+package tn.esprit.myapplication.ui.home;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.util.AttributeSet;
+import android.view.View;
+
+import androidx.annotation.Nullable;
+
+import com.google.android.material.color.MaterialColors;
+
+import tn.esprit.myapplication.analytics.ChartSeries;
+import tn.esprit.myapplication.analytics.ReferenceRange;
+
+/**
+ * Line chart of a {@link ChartSeries} with the normal range shaded behind it. The path is built
+ * when the data or size changes, never in {@link #onDraw}, and the series is expected to be
+ * downsampled to the view width already.
+ */
+public class SparklineView extends View {
+
+    private final Paint line = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint band = new Paint();
+    private final Path path = new Path();
+
+    @Nullable private ChartSeries series;
+    @Nullable private ReferenceRange range;
+    private float bandTop, bandBottom;
+
+    public SparklineView(Context context, @Nullable AttributeSet attrs) {
+        super(context, attrs);
+        int color = MaterialColors.getColor(this, androidx.appcompat.R.attr.colorPrimary);
+        line.setStyle(Paint.Style.STROKE);
+        line.setStrokeWidth(2 * getResources().getDisplayMetrics().density);
+        line.setStrokeJoin(Paint.Join.ROUND);
+        line.setColor(color);
+        band.setColor(color);
+        band.setAlpha(28);
+    }
+
+    public void setSeries(@Nullable ChartSeries series, @Nullable ReferenceRange range) {
+        this.series = series;
+        this.range = range;
+        rebuild();
+        invalidate();
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        rebuild();
+    }
+
+    private void rebuild() {
+        path.rewind();
+        bandTop = bandBottom = 0;
+        ChartSeries s = series;
+        int w = getWidth() - getPaddingLeft() - getPaddingRight();
+        int h = getHeight() - getPaddingTop() - getPaddingBottom();
+        if (s == null || s.size() == 0 || w <= 0 || h <= 0) return;
+
+        double lo = s.min, hi = s.max;
+        if (range != null) {
+            lo = Math.min(lo, range.low);
+            hi = Math.max(hi, range.high);
+        }
+        double span = hi - lo == 0 ? 1 : hi - lo;
+        double duration = s.to - s.from == 0 ? 1 : s.to - s.from;
+        float left = getPaddingLeft(), top = getPaddingTop();
+
+        for (int i = 0; i < s.size(); i++) {
+            float x = left + (float) ((s.times[i] - s.from) / duration * w);
+            float y = top + (float) ((hi - s.values[i]) / span * h);
+            if (i == 0) path.moveTo(x, y); else path.lineTo(x, y);
+        }
+        if (s.size() == 1) path.lineTo(left + w, top + (float) ((hi - s.values[0]) / span * h));
+        if (range != null) {
+            bandTop = top + (float) ((hi - range.high) / span * h);
+            bandBottom = top + (float) ((hi - range.low) / span * h);
+        }
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+        if (bandBottom > bandTop) {
+            canvas.drawRect(getPaddingLeft(), bandTop, getWidth() - getPaddingRight(), bandBottom, band);
+        }
+        canvas.drawPath(path, line);
+    }
+}
@@ -0,0 +1,125 @@
+package tn.esprit.myapplication.ui.home;
+
+import android.text.TextUtils;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.BaseAdapter;
+import android.widget.Filter;
+import android.widget.Filterable;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
+
+import tn.esprit.myapplication.data.DoctorDirectory;
+import tn.esprit.myapplication.data.DoctorItem;
+
+/**
+ * Typeahead rows for an AutoCompleteTextView. Lookups run in {@link Filter}'s worker thread, so
+ * {@link Source} may walk an in-memory index; the chosen row's title becomes the field's text.
+ */
+public final class SuggestionAdapter<T> extends BaseAdapter implements Filterable {
+
+    public interface Source<T> {
+        @WorkerThread
+        @NonNull List<T> find(@NonNull String query);
+    }
+
+    public interface Labels<T> {
+        @NonNull String title(@NonNull T item);
+        @Nullable String subtitle(@NonNull T item);
+    }
+
+    private final Source<T> source;
+    private final Labels<T> labels;
+    private List<T> items = Collections.emptyList();
+
+    public SuggestionAdapter(@NonNull Source<T> source, @NonNull Labels<T> labels) {
+        this.source = source;
+        this.labels = labels;
+    }
+
+    /** Doctors of {@code directory} by name, within {@code specialty} when it names one. */
+    @NonNull
+    public static SuggestionAdapter<DoctorItem> doctors(@NonNull DoctorDirectory directory,
+                                                        @NonNull Supplier<String> specialty, int limit) {
+        return new SuggestionAdapter<>(
+                q -> directory.current().findDoctors(q, specialty.get(), limit),
+                new Labels<DoctorItem>() {
+                    @NonNull @Override public String title(@NonNull DoctorItem d) {
+                        return d.fullName;
+                    }
+                    @Nullable @Override public String subtitle(@NonNull DoctorItem d) {
+                        if (TextUtils.isEmpty(d.hospital)) return d.specialty;
+                        return TextUtils.isEmpty(d.specialty) ? d.hospital : d.specialty + " · " + d.hospital;
+                    }
+                });
+    }
+
+    @Override
+    public int getCount() {
+        return items.size();
+    }
+
+    @Override
+    public T getItem(int position) {
+        return items.get(position);
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return position;
+    }
+
+    @Override
+    public View getView(int position, View convertView, ViewGroup parent) {
+        View v = convertView != null ? convertView : LayoutInflater.from(parent.getContext())
+                .inflate(android.R.layout.simple_list_item_2, parent, false);
+        T item = items.get(position);
+        String subtitle = labels.subtitle(item);
+        ((TextView) v.findViewById(android.R.id.text1)).setText(labels.title(item));
+        TextView text2 = v.findViewById(android.R.id.text2);
+        text2.setText(subtitle);
+        text2.setVisibility(subtitle == null || subtitle.isEmpty() ? View.GONE : View.VISIBLE);
+        return v;
+    }
+
+    @NonNull
+    @Override
+    public Filter getFilter() {
+        return filter;
+    }
+
+    private final Filter filter = new Filter() {
+        @Override
+        protected FilterResults performFiltering(CharSequence constraint) {
+            List<T> found = constraint == null ? Collections.emptyList()
+                    : new ArrayList<>(source.find(constraint.toString()));
+            FilterResults r = new FilterResults();
+            r.values = found;
+            r.count = found.size();
+            return r;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        protected void publishResults(CharSequence constraint, FilterResults results) {
+            items = results.values == null ? Collections.emptyList() : (List<T>) results.values;
+            if (items.isEmpty()) notifyDataSetInvalidated();
+            else notifyDataSetChanged();
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public CharSequence convertResultToString(Object result) {
+            return labels.title((T) result);
+        }
+    };
+}
@@ -1,6 +1,9 @@
 package tn.esprit.myapplication.ui.home;
 
 import android.os.Bundle;
+import android.text.Editable;
+import android.text.TextWatcher;
+import android.text.format.DateUtils;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -8,27 +11,44 @@ import android.view.ViewGroup;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.DividerItemDecoration;
 import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
+import com.google.android.material.textfield.TextInputEditText;
+import com.google.android.material.textview.MaterialTextView;
 import com.google.firebase.auth.FirebaseUser;
-import com.google.firebase.firestore.CollectionReference;
-import com.google.firebase.firestore.Query;
-import com.google.firebase.firestore.QueryDocumentSnapshot;
 
-import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
 
 import tn.esprit.myapplication.R;
+import tn.esprit.myapplication.core.AppExecutors;
 import tn.esprit.myapplication.core.FirebaseManager;
+import tn.esprit.myapplication.core.LivePagedQuery;
+import tn.esprit.myapplication.data.IndicatorItem;
+import tn.esprit.myapplication.data.SearchHit;
+import tn.esprit.myapplication.data.SearchRepository;
+import tn.esprit.myapplication.data.SyncState;
+import tn.esprit.myapplication.data.VisitItem;
+import tn.esprit.myapplication.data.VisitRepository;
+import tn.esprit.myapplication.sync.WriteBehind;
 
 public class SuivieFragment extends Fragment {
 
+    private static final int PREFETCH_DISTANCE = 8;
+
     private RecyclerView recycler;
-    private View emptyView;
+    private MaterialTextView emptyView;
     private VisitsAdapter adapter;
+    private SearchHitsAdapter searchAdapter;
+    private List<VisitItem> visits = Collections.emptyList();
+    private int searchGeneration;  // drops results of queries typed over
 
     public SuivieFragment() { /* required */ }
 
@@ -40,12 +60,6 @@ public class SuivieFragment extends Fragment {
         return inflater.inflate(R.layout.fragment_suivie, container, false);
     }
 
-    @Override
-    public void onCreate(@Nullable Bundle savedInstanceState) {
-        super.onCreate(savedInstanceState);
-        getParentFragmentManager().setFragmentResultListener("visit_added", this, (reqKey, bundle) -> loadVisits());
-    }
-
     @Override
     public void onViewCreated(@NonNull View root, @Nullable Bundle savedInstanceState) {
         super.onViewCreated(root, savedInstanceState);
@@ -53,7 +67,8 @@ public class SuivieFragment extends Fragment {
         recycler = root.findViewById(R.id.recyclerVisits);
         emptyView = root.findViewById(R.id.emptyView);
 
-        adapter = new VisitsAdapter();
+        adapter = new VisitsAdapter(this::retry);
+        searchAdapter = new SearchHitsAdapter();
         recycler.setLayoutManager(new LinearLayoutManager(requireContext()));
         recycler.addItemDecoration(new DividerItemDecoration(requireContext(), DividerItemDecoration.VERTICAL));
         recycler.setAdapter(adapter);
@@ -63,29 +78,63 @@ public class SuivieFragment extends Fragment {
                 .show(getParentFragmentManager(), "add_visit"));
 
         loadVisits();
+
+        TextInputEditText etSearch = root.findViewById(R.id.etSearch);
+        etSearch.addTextChangedListener(new TextWatcher() {
+            @Override public void beforeTextChanged(CharSequence s, int start, int count, int after) { }
+            @Override public void onTextChanged(CharSequence s, int start, int before, int count) { }
+            @Override public void afterTextChanged(Editable s) { search(s.toString().trim()); }
+        });
     }
 
+    /**
+     * Paged, live query over the local cache; new visits arrive as deltas, no re-query needed.
+     * Visits still in the write-behind queue are listed on top until Firestore has them.
+     */
     private void loadVisits() {
         FirebaseUser user = FirebaseManager.auth().getCurrentUser();
         if (user == null) {
             showEmpty(true);
             return;
         }
-        CollectionReference col = FirebaseManager.db().collection("visits");
-        Query q = col.whereEqualTo("uid", user.getUid()).orderBy("createdAt", Query.Direction.DESCENDING);
-        q.get().addOnSuccessListener(snaps -> {
-            List<VisitItem> items = new ArrayList<>();
-            for (QueryDocumentSnapshot d : snaps) {
-                VisitItem it = new VisitItem();
-                it.title = d.getString("title");
-                it.doctorName = d.getString("doctorName");
-                it.specialty = d.getString("specialty");
-                it.conclusion = d.getString("conclusion");
-                items.add(it);
-            }
-            adapter.setData(items);
-            showEmpty(items.isEmpty());
-        }).addOnFailureListener(e -> showEmpty(true));
+        VisitRepository repo = VisitRepository.get(requireContext());
+        LivePagedQuery<VisitItem> paged = repo.visits(user.getUid());
+        recycler.addOnScrollListener(paged.prefetchOnScroll(PREFETCH_DISTANCE));
+        repo.withPending(user.getUid()).observe(getViewLifecycleOwner(), items -> {
+            if (items == null) return;
+            visits = items;
+            adapter.submitList(items);
+            if (recycler.getAdapter() == adapter) showEmpty(items.isEmpty());
+        });
+    }
+
+    /**
+     * Search-as-you-type over the visits and readings cached on the device, ranked by the FTS
+     * index; an empty query brings the visit list back.
+     */
+    private void search(String text) {
+        int generation = ++searchGeneration;
+        FirebaseUser user = FirebaseManager.auth().getCurrentUser();
+        if (text.isEmpty() || user == null) {
+            SearchRepository.get(requireContext()).cancel();
+            if (recycler.getAdapter() != adapter) recycler.setAdapter(adapter);
+            emptyView.setText(R.string.visits_empty);
+            showEmpty(visits.isEmpty());
+            return;
+        }
+        SearchRepository.get(requireContext()).search(user.getUid(), text)
+                .addOnSuccessListener(AppExecutors.main(), hits -> {
+                    if (generation != searchGeneration || getView() == null) return;
+                    if (recycler.getAdapter() != searchAdapter) recycler.setAdapter(searchAdapter);
+                    searchAdapter.submitList(hits);
+                    emptyView.setText(R.string.search_no_matches);
+                    showEmpty(hits.isEmpty());
+                });
+    }
+
+    private void retry(VisitItem it) {
+        FirebaseUser user = FirebaseManager.auth().getCurrentUser();
+        if (user != null) WriteBehind.get(requireContext()).retry(user.getUid(), it.id);
     }
 
     private void showEmpty(boolean empty) {
@@ -94,46 +143,89 @@ public class SuivieFragment extends Fragment {
     }
 
     // ---- Recycler ----
-    static class VisitItem {
-        String title;
-        String doctorName;
-        String specialty;
-        String conclusion;
-    }
+    static class VisitsAdapter extends ListAdapter<VisitItem, VisitVH> {
+        private static final DiffUtil.ItemCallback<VisitItem> DIFF = new DiffUtil.ItemCallback<VisitItem>() {
+            @Override public boolean areItemsTheSame(@NonNull VisitItem a, @NonNull VisitItem b) {
+                return Objects.equals(a.id, b.id);
+            }
+            @Override public boolean areContentsTheSame(@NonNull VisitItem a, @NonNull VisitItem b) {
+                return Objects.equals(a.title, b.title)
+                        && Objects.equals(a.doctorName, b.doctorName)
+                        && Objects.equals(a.specialty, b.specialty)
+                        && Objects.equals(a.conclusion, b.conclusion)
+                        && a.syncState == b.syncState;
+            }
+        };
+        private final Consumer<VisitItem> onRetry;
 
-    static class VisitsAdapter extends RecyclerView.Adapter<VisitVH> {
-        private final List<VisitItem> data = new ArrayList<>();
-        void setData(List<VisitItem> items) {
-            data.clear();
-            if (items != null) data.addAll(items);
-            notifyDataSetChanged();
+        VisitsAdapter(Consumer<VisitItem> onRetry) {
+            super(DIFF);
+            this.onRetry = onRetry;
+        }
+        @NonNull @Override public VisitVH onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+            View v = LayoutInflater.from(parent.getContext()).inflate(R.layout.row_visit, parent, false);
+            return new VisitVH(v, onRetry);
+        }
+        @Override public void onBindViewHolder(@NonNull VisitVH holder, int position) {
+            holder.bind(getItem(position));
         }
+    }
+
+    /** Search results: visits and readings, in rank order. Tapping does nothing yet. */
+    static class SearchHitsAdapter extends ListAdapter<SearchHit, VisitVH> {
+        private static final DiffUtil.ItemCallback<SearchHit> DIFF = new DiffUtil.ItemCallback<SearchHit>() {
+            @Override public boolean areItemsTheSame(@NonNull SearchHit a, @NonNull SearchHit b) {
+                return a.id().equals(b.id());
+            }
+            @Override public boolean areContentsTheSame(@NonNull SearchHit a, @NonNull SearchHit b) {
+                // Hits are rebuilt per query; the cache rows behind an id rarely change mid-search
+                return a.at() == b.at();
+            }
+        };
+        SearchHitsAdapter() { super(DIFF); }
         @NonNull @Override public VisitVH onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
             View v = LayoutInflater.from(parent.getContext()).inflate(R.layout.row_visit, parent, false);
-            return new VisitVH(v);
+            return new VisitVH(v, it -> { });
         }
         @Override public void onBindViewHolder(@NonNull VisitVH holder, int position) {
-            holder.bind(data.get(position));
+            SearchHit hit = getItem(position);
+            if (hit.visit != null) holder.bind(hit.visit);
+            else if (hit.indicator != null) holder.bindReading(hit.indicator);
         }
-        @Override public int getItemCount() { return data.size(); }
     }
 
     static class VisitVH extends RecyclerView.ViewHolder {
-        private final com.google.android.material.textview.MaterialTextView tvTitle;
-        private final com.google.android.material.textview.MaterialTextView tvSub;
+        private final MaterialTextView tvTitle;
+        private final MaterialTextView tvSub;
 
-        VisitVH(@NonNull View itemView) {
+        private VisitItem bound;
+
+        VisitVH(@NonNull View itemView, Consumer<VisitItem> onRetry) {
             super(itemView);
             tvTitle = itemView.findViewById(R.id.tvVisitTitle);
             tvSub   = itemView.findViewById(R.id.tvVisitSub);
+            itemView.setOnClickListener(v -> {
+                if (bound != null && bound.syncState == SyncState.FAILED) onRetry.accept(bound);
+            });
         }
 
         void bind(VisitItem it) {
+            bound = it;
             tvTitle.setText(it.title == null ? "Visit" : it.title);
             String sub = (it.doctorName == null ? "-" : it.doctorName)
                     + (it.specialty == null ? "" : " · " + it.specialty)
+                    + SyncLabels.suffix(it.syncState)
                     + (it.conclusion == null ? "" : "\n" + it.conclusion);
             tvSub.setText(sub);
+            itemView.setAlpha(it.syncState == SyncState.PENDING ? 0.6f : 1f);
+        }
+
+        /** Indicator search hits share the visit row: type, value and when it was measured. */
+        void bindReading(IndicatorItem it) {
+            bound = null;
+            tvTitle.setText(it.displayLabel());
+            tvSub.setText(it.displayValue() + " · " + DateUtils.getRelativeTimeSpanString(it.measuredAt));
+            itemView.setAlpha(1f);
         }
     }
 }
@@ -0,0 +1,20 @@
+package tn.esprit.myapplication.ui.home;
+
+import androidx.annotation.NonNull;
+
+import tn.esprit.myapplication.data.SyncState;
+
+/** Row suffixes for items that have not reached Firestore yet. */
+final class SyncLabels {
+
+    private SyncLabels() { }
+
+    @NonNull
+    static String suffix(@NonNull SyncState state) {
+        switch (state) {
+            case PENDING: return " · Sending…";
+            case FAILED: return " · Not sent, tap to retry";
+            default: return "";
+        }
+    }
+}
@@ -2,33 +2,37 @@ package tn.esprit.myapplication.ui.profile;
 
 import android.content.Intent;
 import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
 import android.net.Uri;
 import android.os.Bundle;
 import android.provider.MediaStore;
 import android.view.View;
 import android.widget.Toast;
 
+import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.appcompat.app.AppCompatActivity;
 
-import com.google.android.gms.tasks.Task;
 import com.google.firebase.auth.FirebaseUser;
-import com.google.firebase.storage.StorageReference;
-
-import java.io.InputStream;
 
+import tn.esprit.myapplication.core.ConnectivityMonitor;
 import tn.esprit.myapplication.core.FirebaseManager;
+import tn.esprit.myapplication.core.SessionManager;
 import tn.esprit.myapplication.data.Role;
 import tn.esprit.myapplication.data.User;
 import tn.esprit.myapplication.databinding.ActivityProfileBinding;
+import tn.esprit.myapplication.image.AvatarUploader;
+import tn.esprit.myapplication.image.ImageLoader;
+import tn.esprit.myapplication.sync.Mutation;
+import tn.esprit.myapplication.sync.WriteBehind;
 
 public class ProfileActivity extends AppCompatActivity {
 
     private static final int REQ_PICK_IMAGE = 1001;
 
     private ActivityProfileBinding binding;
+    private AvatarUploader uploader;
     private String imageUrl = "";
+    private boolean unmetered;
 
     @Override
     protected void onCreate(@Nullable Bundle savedInstanceState) {
@@ -36,14 +40,29 @@ public class ProfileActivity extends AppCompatActivity {
         binding = ActivityProfileBinding.inflate(getLayoutInflater());
         setContentView(binding.getRoot());
 
-        FirebaseManager.init(this);
+        uploader = new AvatarUploader(this);
 
         binding.btnChooseImage.setOnClickListener(v -> pickImage());
-        binding.btnRefresh.setOnClickListener(v -> loadProfile());
+        binding.btnRefresh.setOnClickListener(v -> refreshProfile());
 
         loadProfile();
+        FirebaseUser fu = FirebaseManager.auth().getCurrentUser();
+        if (fu == null) return;
+        String uid = fu.getUid();
+
+        // Finish an upload interrupted by a network drop or process death, or deferred on a metered network
+        ConnectivityMonitor network = ConnectivityMonitor.get(this);
+        unmetered = network.current().isUnmetered();
+        if (uploader.resumePending(this, uid, uploadListener)) setLoading(true);
+        network.state().observe(this, state -> {
+            if (state.isUnmetered() && !unmetered && uploader.resumePending(this, uid, uploadListener)) {
+                setLoading(true);
+            }
+            unmetered = state.isUnmetered();
+        });
     }
 
+    /** The session's cached profile, shown at once and again whenever its listener sees a change. */
     private void loadProfile() {
         FirebaseUser fu = FirebaseManager.auth().getCurrentUser();
         if (fu == null) {
@@ -51,56 +70,53 @@ public class ProfileActivity extends AppCompatActivity {
             finish();
             return;
         }
+        SessionManager session = SessionManager.get(this);
+        if (session.current() == null) refreshProfile();
+        session.user().observe(this, u -> {
+            if (u != null) showProfile(u);
+        });
+    }
+
+    private void refreshProfile() {
         setLoading(true);
-        FirebaseManager.users().document(fu.getUid()).get()
-                .addOnSuccessListener(snap -> {
+        SessionManager.get(this).refresh()
+                .addOnSuccessListener(this, u -> {
                     setLoading(false);
-                    User u = snap.toObject(User.class);
-                    if (u == null) {
-                        Toast.makeText(this, "No profile data.", Toast.LENGTH_SHORT).show();
-                        return;
-                    }
-                    binding.tvName.setText(u.getFirstName() + " " + u.getLastName());
-                    binding.tvSex.setText(u.getSex());
-                    Role role = u.getRole();
-                    binding.tvRole.setText(role != null ? role.name() : "");
-                    imageUrl = u.getImageUrl() == null ? "" : u.getImageUrl();
-                    if (imageUrl.isEmpty()) {
-                        binding.avatar.setImageResource(android.R.drawable.sym_def_app_icon);
-                    } else {
-                        fetchAndShowImage(imageUrl);
-                    }
+                    if (u == null) Toast.makeText(this, "No profile data.", Toast.LENGTH_SHORT).show();
                 })
-                .addOnFailureListener(e -> {
+                .addOnFailureListener(this, e -> {
                     setLoading(false);
                     Toast.makeText(this, e.getMessage(), Toast.LENGTH_LONG).show();
                 });
     }
 
-    private void fetchAndShowImage(String downloadUrl) {
-        try {
-            StorageReference ref = FirebaseManager.storage().getReferenceFromUrl(downloadUrl);
-            ref.getBytes(1024 * 1024)
-                    .addOnSuccessListener(bytes -> {
-                        Bitmap bmp = BitmapFactory.decodeByteArray(bytes, 0, bytes.length);
-                        binding.avatar.setImageBitmap(bmp);
-                    })
-                    .addOnFailureListener(e ->
-                            Toast.makeText(this, "Failed to load image.", Toast.LENGTH_SHORT).show()
-                    );
-        } catch (Exception e) {
-            new Thread(() -> {
-                try {
-                    java.net.URL url = new java.net.URL(downloadUrl);
-                    InputStream is = url.openStream();
-                    Bitmap bmp = BitmapFactory.decodeStream(is);
-                    runOnUiThread(() -> binding.avatar.setImageBitmap(bmp));
-                } catch (Exception ignored) {
-                }
-            }).start();
+    private void showProfile(User u) {
+        binding.tvName.setText(u.getFirstName() + " " + u.getLastName());
+        binding.tvSex.setText(u.getSex());
+        Role role = u.getRole();
+        binding.tvRole.setText(role != null ? role.name() : "");
+        String url = u.getImageUrl() == null ? "" : u.getImageUrl();
+        // The listener re-publishes on every change; don't reload an avatar that is already shown
+        if (url.equals(imageUrl) && binding.avatar.getDrawable() != null) return;
+        imageUrl = url;
+        if (imageUrl.isEmpty()) {
+            binding.avatar.setImageResource(android.R.drawable.sym_def_app_icon);
+        } else {
+            fetchAndShowImage(imageUrl);
         }
     }
 
+    private void fetchAndShowImage(String downloadUrl) {
+        // Memory/disk cached and downsampled to the avatar size; repeat opens skip the network
+        ImageLoader.get(this).load(downloadUrl, binding.avatar, android.R.drawable.sym_def_app_icon,
+                new ImageLoader.Callback() {
+                    @Override public void onLoaded(@NonNull Bitmap bitmap) { }
+                    @Override public void onError(@NonNull Exception e) {
+                        Toast.makeText(ProfileActivity.this, "Failed to load image.", Toast.LENGTH_SHORT).show();
+                    }
+                });
+    }
+
     private void pickImage() {
         Intent intent = new Intent(Intent.ACTION_GET_CONTENT);
         intent.setType("image/*");
@@ -125,39 +141,35 @@ public class ProfileActivity extends AppCompatActivity {
             return;
         }
         setLoading(true);
-
-        String path = "profileImages/" + fu.getUid() + ".jpg";
-        StorageReference ref = FirebaseManager.storage().getReference().child(path);
-
-        ref.putFile(uri)
-                .continueWithTask(task -> {
-                    if (!task.isSuccessful()) throw task.getException();
-                    return ref.getDownloadUrl();
-                })
-                .addOnSuccessListener(this::saveImageUrl)
-                .addOnFailureListener(e -> {
-                    setLoading(false);
-                    Toast.makeText(this, e.getMessage(), Toast.LENGTH_LONG).show();
-                });
+        // Resized + re-encoded before upload; the session survives connection loss and process death
+        uploader.upload(this, uri, fu.getUid(), uploadListener);
     }
 
+    private final AvatarUploader.Listener uploadListener = new AvatarUploader.Listener() {
+        @Override public void onProgress(long sentBytes, long totalBytes) { }
+        @Override public void onSuccess(@NonNull Uri downloadUri) { saveImageUrl(downloadUri); }
+        @Override public void onFailure(@NonNull Exception e) {
+            setLoading(false);
+            Toast.makeText(ProfileActivity.this, e.getMessage(), Toast.LENGTH_LONG).show();
+        }
+        @Override public void onDeferred() {
+            setLoading(false);
+            Toast.makeText(ProfileActivity.this, "Photo will upload on Wi-Fi.", Toast.LENGTH_SHORT).show();
+        }
+    };
+
     private void saveImageUrl(Uri downloadUri) {
         FirebaseUser fu = FirebaseManager.auth().getCurrentUser();
         if (fu == null) return;
 
-        Task<Void> t = FirebaseManager.users()
-                .document(fu.getUid())
-                .update("imageUrl", downloadUri.toString());
-
-        t.addOnSuccessListener(aVoid -> {
-            setLoading(false);
-            imageUrl = downloadUri.toString();
-            fetchAndShowImage(imageUrl);
-            Toast.makeText(this, "Profile image updated.", Toast.LENGTH_SHORT).show();
-        }).addOnFailureListener(e -> {
-            setLoading(false);
-            Toast.makeText(this, e.getMessage(), Toast.LENGTH_LONG).show();
-        });
+        // The file is uploaded; the profile field follows through the outbox even if the connection drops
+        WriteBehind.get(this).enqueue(Mutation.setProfileImage(fu.getUid(), downloadUri.toString()));
+        setLoading(false);
+        imageUrl = downloadUri.toString();
+        // Same storage path may keep the same URL; drop the stale copy first
+        ImageLoader.get(this).invalidate(imageUrl);
+        fetchAndShowImage(imageUrl);
+        Toast.makeText(this, "Profile image updated.", Toast.LENGTH_SHORT).show();
     }
 
     private void setLoading(boolean loading) {
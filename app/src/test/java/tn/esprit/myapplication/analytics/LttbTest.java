@@ -0,0 +1,64 @@
+package tn.esprit.myapplication.analytics;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LttbTest {
+
+    private static long[] times(int n) {
+        long[] t = new long[n];
+        for (int i = 0; i < n; i++) t[i] = i * 1_000L;
+        return t;
+    }
+
+    @Test
+    public void shortRangesAreCopiedAsIs() {
+        long[] t = times(5);
+        double[] v = {1, 2, 3, 4, 5};
+        ChartSeries c = Lttb.downsample(t, v, 1, 4, 10, 0, 4_000);
+        assertEquals(3, c.size());
+        assertEquals(1_000, c.times[0]);
+        assertEquals(4, c.values[2], 0);
+        assertEquals(0, Lttb.downsample(t, v, 2, 2, 10, 0, 0).size());
+    }
+
+    @Test
+    public void keepsEndpointsAndThresholdPoints() {
+        int n = 1_000;
+        long[] t = times(n);
+        double[] v = new double[n];
+        for (int i = 0; i < n; i++) v[i] = Math.sin(i / 20.0);
+        ChartSeries c = Lttb.downsample(t, v, 0, n, 50, t[0], t[n - 1]);
+        assertEquals(50, c.size());
+        assertEquals(t[0], c.times[0]);
+        assertEquals(t[n - 1], c.times[49]);
+        for (int i = 1; i < c.size(); i++) assertTrue(c.times[i] > c.times[i - 1]);
+    }
+
+    @Test
+    public void keepsASingleSpike() {
+        int n = 500;
+        long[] t = times(n);
+        double[] v = new double[n];
+        v[237] = 100;   // flat line with one spike: averaging would flatten it
+        ChartSeries c = Lttb.downsample(t, v, 0, n, 20, t[0], t[n - 1]);
+        assertEquals(100, c.max, 0);
+        boolean found = false;
+        for (long time : c.times) found |= time == t[237];
+        assertTrue(found);
+    }
+
+    @Test
+    public void subRangeKeepsItsOwnEndpoints() {
+        int n = 300;
+        long[] t = times(n);
+        double[] v = new double[n];
+        for (int i = 0; i < n; i++) v[i] = i % 7;
+        ChartSeries c = Lttb.downsample(t, v, 100, 250, 10, t[100], t[249]);
+        assertEquals(10, c.size());
+        assertEquals(t[100], c.times[0]);
+        assertEquals(t[249], c.times[9]);
+    }
+}
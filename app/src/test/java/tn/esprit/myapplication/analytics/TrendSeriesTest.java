@@ -0,0 +1,115 @@
+package tn.esprit.myapplication.analytics;
+
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TrendSeriesTest {
+
+    private static final long DAY = 86_400_000L;
+
+    @Test
+    public void statsMatchATwoPassComputation() {
+        TrendSeries s = new TrendSeries(5, new ReferenceRange(0, 50));
+        double[] v = {10, 70, 30, 40, 20, 60, 50};
+        for (int i = 0; i < v.length; i++) s.add(i * DAY, v[i]);
+
+        TrendStats st = s.stats();
+        double mean = 0;
+        for (double x : v) mean += x;
+        mean /= v.length;
+        double ss = 0;
+        for (double x : v) ss += (x - mean) * (x - mean);
+        assertEquals(v.length, st.count);
+        assertEquals(mean, st.mean, 1e-9);
+        assertEquals(ss / (v.length - 1), st.variance, 1e-9);
+        assertEquals(10, st.min, 0);
+        assertEquals(70, st.max, 0);
+        assertEquals(2, st.outOfRange);       // 70 and 60
+        assertEquals((30 + 40 + 20 + 60 + 50) / 5.0, st.rollingMean, 1e-9);
+        assertEquals(50, st.latest, 0);
+        assertEquals(6 * DAY, st.latestAt);
+        assertFalse(st.latestOutOfRange);
+    }
+
+    @Test
+    public void slopeIsPerDay() {
+        TrendSeries s = new TrendSeries(30, null);
+        for (int i = 0; i < 10; i++) s.add(1_000 + i * DAY, 100 + 2.5 * i);
+        assertEquals(2.5, s.stats().slopePerDay, 1e-9);
+    }
+
+    @Test
+    public void olderPointsAreInsertedInTimeOrder() {
+        TrendSeries inOrder = new TrendSeries(3, null);
+        TrendSeries shuffled = new TrendSeries(3, null);
+        long[] t = {1, 2, 3, 4, 5, 6};
+        double[] v = {5, 1, 4, 2, 6, 3};
+        for (int i = 0; i < t.length; i++) inOrder.add(t[i] * DAY, v[i]);
+        int[] order = {5, 0, 3, 1, 4, 2};
+        for (int i : order) shuffled.add(t[i] * DAY, v[i]);
+
+        TrendStats a = inOrder.stats(), b = shuffled.stats();
+        assertEquals(a.rollingMean, b.rollingMean, 1e-9);
+        assertEquals(a.mean, b.mean, 1e-9);
+        assertEquals(a.variance, b.variance, 1e-9);
+        assertEquals(a.slopePerDay, b.slopePerDay, 1e-9);
+        assertEquals(3, b.latest, 0);
+        assertEquals(6 * DAY, b.latestAt);
+    }
+
+    @Test
+    public void rollingMeanUnderRandomOutOfOrderAdds() {
+        Random random = new Random(7);
+        int window = 10;
+        TrendSeries s = new TrendSeries(window, null);
+        TreeMap<Long, Double> model = new TreeMap<>();
+        for (int i = 0; i < 500; i++) {
+            long time = random.nextInt(1_000_000) * 1_000L + i;   // distinct times
+            double value = random.nextInt(200);
+            s.add(time, value);
+            model.put(time, value);
+            double sum = 0;
+            int n = 0;
+            for (double x : model.descendingMap().values()) {
+                if (n++ == window) break;
+                sum += x;
+            }
+            assertEquals(sum / Math.min(window, model.size()), s.stats().rollingMean, 1e-6);
+        }
+        assertEquals(500, s.size());
+    }
+
+    @Test
+    public void nanIsIgnoredAndEmptyHasNoStats() {
+        TrendSeries s = new TrendSeries(3, null);
+        assertEquals(0, s.stats().count);
+        s.add(DAY, Double.NaN);
+        assertEquals(0, s.size());
+        assertEquals(0, s.version());
+        s.add(DAY, 1);
+        assertEquals(1, s.version());
+        assertEquals(0, s.stats().variance, 0);
+    }
+
+    @Test
+    public void chartShowsOnlyTheZoomWindow() {
+        TrendSeries s = new TrendSeries(30, null);
+        for (int i = 0; i < 60; i++) s.add(i * DAY, i);
+        ChartSeries week = s.chart(ChartZoom.WEEK, 1_000);
+        assertEquals(52 * DAY, week.from);
+        assertEquals(59 * DAY, week.to);
+        assertEquals(8, week.size());   // days 52..59, both ends included
+        assertEquals(52, week.min, 0);
+        assertEquals(59, week.max, 0);
+
+        ChartSeries all = s.chart(ChartZoom.ALL, 1_000);
+        assertEquals(60, all.size());
+        assertTrue(s.chart(ChartZoom.ALL, 10).size() <= 10);
+    }
+}
@@ -0,0 +1,126 @@
+package tn.esprit.myapplication.core;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.TaskCompletionSource;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class FanOutTest {
+
+    private static final Executor DIRECT = Runnable::run;
+
+    /** Chunk queries that stay pending until the test settles them. */
+    private static final class Pending implements FanOut.ChunkQuery<Integer, Integer> {
+        final List<List<Integer>> started = new ArrayList<>();
+        final List<TaskCompletionSource<Integer>> sources = new ArrayList<>();
+        int inFlight;
+        int maxInFlight;
+
+        @Override public Task<Integer> run(List<Integer> chunk) {
+            started.add(chunk);
+            TaskCompletionSource<Integer> src = new TaskCompletionSource<>();
+            sources.add(src);
+            maxInFlight = Math.max(maxInFlight, ++inFlight);
+            return src.getTask();
+        }
+
+        void succeed(int i) {
+            inFlight--;
+            sources.get(i).setResult(started.get(i).size());
+        }
+
+        void fail(int i, Exception e) {
+            inFlight--;
+            sources.get(i).setException(e);
+        }
+    }
+
+    private static List<Integer> keys(int n) {
+        List<Integer> keys = new ArrayList<>();
+        for (int i = 0; i < n; i++) keys.add(i);
+        return keys;
+    }
+
+    @Test
+    public void chunksKeysAndBoundsParallelism() {
+        Pending q = new Pending();
+        List<List<Integer>> delivered = new ArrayList<>();
+        Task<Integer> done = FanOut.run(keys(10), 3, 2, q, (chunk, r) -> delivered.add(chunk), DIRECT);
+
+        assertEquals(2, q.started.size());
+        assertEquals(Arrays.asList(0, 1, 2), q.started.get(0));
+        // Each result is delivered as it arrives, and frees a slot for the next chunk
+        q.succeed(1);
+        assertEquals(Collections.singletonList(Arrays.asList(3, 4, 5)), delivered);
+        assertEquals(3, q.started.size());
+        q.succeed(0);
+        q.succeed(2);
+        assertFalse(done.isComplete());
+        q.succeed(3);
+        assertEquals(Collections.singletonList(9), q.started.get(3));
+        assertEquals(2, q.maxInFlight);
+        assertTrue(done.isSuccessful());
+        assertEquals(Integer.valueOf(0), done.getResult());
+        assertEquals(4, delivered.size());
+    }
+
+    @Test
+    public void countsFailedChunksWithoutStoppingOthers() {
+        Pending q = new Pending();
+        List<List<Integer>> delivered = new ArrayList<>();
+        Task<Integer> done = FanOut.run(keys(4), 2, 4, q, (chunk, r) -> delivered.add(chunk), DIRECT);
+        q.fail(0, new IllegalStateException("boom"));
+        q.succeed(1);
+        assertTrue(done.isSuccessful());
+        assertEquals(Integer.valueOf(1), done.getResult());
+        assertEquals(Collections.singletonList(Arrays.asList(2, 3)), delivered);
+    }
+
+    @Test
+    public void failsOnlyWhenEveryChunkFailed() {
+        Pending q = new Pending();
+        Exception first = new IllegalStateException("first");
+        Task<Integer> done = FanOut.run(keys(4), 2, 1, q, (chunk, r) -> { }, DIRECT);
+        q.fail(0, first);
+        q.fail(1, new IllegalStateException("second"));
+        assertFalse(done.isSuccessful());
+        assertSame(first, done.getException());
+    }
+
+    @Test
+    public void queriesThatThrowCountAsFailures() {
+        List<List<Integer>> delivered = new ArrayList<>();
+        Task<Integer> done = FanOut.run(keys(3), 1, 2, chunk -> {
+            if (chunk.get(0) == 1) throw new IllegalArgumentException("bad chunk");
+            TaskCompletionSource<Integer> src = new TaskCompletionSource<>();
+            src.setResult(chunk.get(0));
+            return src.getTask();
+        }, (chunk, r) -> delivered.add(chunk), DIRECT);
+        assertTrue(done.isSuccessful());
+        assertEquals(Integer.valueOf(1), done.getResult());
+        assertEquals(2, delivered.size());
+    }
+
+    @Test
+    public void noKeysResolvesAtOnce() {
+        Task<Integer> done = FanOut.run(Collections.<Integer>emptyList(), 5, 2, new Pending(), (c, r) -> { }, DIRECT);
+        assertTrue(done.isSuccessful());
+        assertEquals(Integer.valueOf(0), done.getResult());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNonPositiveSizes() {
+        FanOut.run(keys(3), 0, 1, new Pending(), (c, r) -> { }, DIRECT);
+    }
+}
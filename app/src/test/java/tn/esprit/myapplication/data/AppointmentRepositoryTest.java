@@ -0,0 +1,58 @@
+package tn.esprit.myapplication.data;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class AppointmentRepositoryTest {
+
+    private static final long MIN = 60_000L;
+    private static final long TEN = 10 * 60 * MIN;
+
+    @Test
+    public void slotIdsCoverEveryTouchedSlot() {
+        long slot = AppointmentRepository.SLOT_MS;
+        long first = TEN / slot;
+        assertEquals(Arrays.asList("d_" + first, "d_" + (first + 1)),
+                AppointmentRepository.slotIds("d", TEN + 10 * MIN, TEN + 20 * MIN));
+        // Aligned end: the slot starting at the end isn't touched
+        assertEquals(Arrays.asList("d_" + first, "d_" + (first + 1), "d_" + (first + 2)),
+                AppointmentRepository.slotIds("d", TEN, TEN + 45 * MIN));
+    }
+
+    @Test
+    public void bookingsSharingASlotOnlyClashWhenTheyOverlap() {
+        Object bookings = AppointmentRepository.slotClaim("d", "a1", TEN + 10 * MIN, TEN + 20 * MIN).get("bookings");
+        assertFalse(AppointmentRepository.clashes(bookings, TEN + 20 * MIN, TEN + 30 * MIN));
+        assertFalse(AppointmentRepository.clashes(bookings, TEN, TEN + 10 * MIN));
+        assertTrue(AppointmentRepository.clashes(bookings, TEN + 19 * MIN, TEN + 30 * MIN));
+        assertTrue(AppointmentRepository.clashes(bookings, TEN, TEN + 45 * MIN));
+    }
+
+    @Test
+    public void slotsWithoutTimesCountAsTaken() {
+        assertTrue(AppointmentRepository.clashes(null, TEN, TEN + MIN));
+        Map<String, Object> legacy = new HashMap<>();
+        legacy.put("a1", "booked");
+        assertTrue(AppointmentRepository.clashes(legacy, TEN, TEN + MIN));
+        assertFalse(AppointmentRepository.clashes(new HashMap<>(), TEN, TEN + MIN));
+    }
+
+    @Test
+    public void slotClaimShape() {
+        Map<String, Object> claim = AppointmentRepository.slotClaim("d", "a1", 1L, 2L);
+        assertEquals("d", claim.get("doctorId"));
+        Map<?, ?> times = (Map<?, ?>) ((Map<?, ?>) claim.get("bookings")).get("a1");
+        assertEquals(1L, times.get("startAt"));
+        assertEquals(2L, times.get("endAt"));
+        List<String> none = AppointmentRepository.slotIds("d", TEN, TEN);
+        assertTrue(none.isEmpty());
+    }
+}
@@ -0,0 +1,136 @@
+package tn.esprit.myapplication.data;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class IntervalTreeTest {
+
+    @Test
+    public void backToBackIntervalsDoNotOverlap() {
+        IntervalTree<String> tree = new IntervalTree<>();
+        tree.put("a", 10, 20, "a");
+        assertFalse(tree.overlaps(20, 30));
+        assertFalse(tree.overlaps(0, 10));
+        assertTrue(tree.overlaps(19, 21));
+        assertTrue(tree.overlaps(0, 11));
+        assertTrue(tree.overlaps(12, 13));
+    }
+
+    @Test
+    public void putReplacesTheIntervalOfAnId() {
+        IntervalTree<String> tree = new IntervalTree<>();
+        tree.put("a", 10, 20, "first");
+        tree.put("a", 30, 40, "second");
+        assertEquals(1, tree.size());
+        assertFalse(tree.overlaps(10, 20));
+        assertEquals(Collections.singletonList("second"), tree.overlapping(0, 100));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsEmptyIntervals() {
+        new IntervalTree<String>().put("a", 10, 10, "a");
+    }
+
+    @Test
+    public void removeReturnsTheValueOnce() {
+        IntervalTree<String> tree = new IntervalTree<>();
+        tree.put("a", 10, 20, "a");
+        assertEquals("a", tree.remove("a"));
+        assertNull(tree.remove("a"));
+        assertEquals(0, tree.size());
+        assertFalse(tree.overlaps(0, 100));
+    }
+
+    @Test
+    public void deletingInnerNodesKeepsEveryOtherInterval() {
+        // Ascending inserts force rotations; removing from the middle takes the successor path
+        IntervalTree<Integer> tree = new IntervalTree<>();
+        for (int i = 0; i < 64; i++) tree.put("k" + i, i * 10, i * 10 + 5, i);
+        for (int i = 1; i < 64; i += 2) tree.remove("k" + i);
+        tree.remove("k32");
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < 64; i += 2) if (i != 32) expected.add(i);
+        assertEquals(expected, tree.overlapping(0, 1000));
+        assertFalse(tree.overlaps(320, 325));
+        assertTrue(tree.overlaps(340, 341));
+    }
+
+    @Test
+    public void freeSlotsAreTheGapsBetweenBookings() {
+        IntervalTree<String> tree = new IntervalTree<>();
+        tree.put("a", 10, 20, "a");
+        tree.put("b", 15, 30, "b");   // overlaps a: one busy block 10..30
+        tree.put("c", 40, 45, "c");
+        tree.put("d", 45, 50, "d");   // back to back with c: no gap between them
+        List<IntervalTree.Span> free = tree.freeSlots(0, 60, 1);
+        assertEquals(3, free.size());
+        assertSpan(0, 10, free.get(0));
+        assertSpan(30, 40, free.get(1));
+        assertSpan(50, 60, free.get(2));
+
+        // Shorter gaps are dropped
+        List<IntervalTree.Span> long10 = tree.freeSlots(0, 60, 11);
+        assertTrue(long10.isEmpty());
+    }
+
+    @Test
+    public void freeSlotsClipToTheRange() {
+        IntervalTree<String> tree = new IntervalTree<>();
+        tree.put("a", 0, 20, "a");
+        tree.put("b", 50, 100, "b");
+        List<IntervalTree.Span> free = tree.freeSlots(10, 60, 1);
+        assertEquals(1, free.size());
+        assertSpan(20, 50, free.get(0));
+        assertTrue(tree.freeSlots(60, 90, 1).isEmpty());
+    }
+
+    @Test
+    public void matchesABruteForceListUnderRandomEdits() {
+        Random random = new Random(42);
+        IntervalTree<String> tree = new IntervalTree<>();
+        Map<String, long[]> model = new HashMap<>();
+        for (int step = 0; step < 5_000; step++) {
+            String id = "k" + random.nextInt(200);
+            if (random.nextInt(3) == 0) {
+                tree.remove(id);
+                model.remove(id);
+            } else {
+                long start = random.nextInt(10_000);
+                long end = start + 1 + random.nextInt(300);
+                tree.put(id, start, end, id);
+                model.put(id, new long[]{start, end});
+            }
+            assertEquals(model.size(), tree.size());
+
+            long qs = random.nextInt(10_000);
+            long qe = qs + 1 + random.nextInt(500);
+            int expected = 0;
+            for (long[] iv : model.values()) if (iv[0] < qe && iv[1] > qs) expected++;
+            assertEquals(expected > 0, tree.overlaps(qs, qe));
+            List<String> hits = tree.overlapping(qs, qe);
+            assertEquals(expected, hits.size());
+            for (int i = 1; i < hits.size(); i++) {
+                assertTrue(model.get(hits.get(i - 1))[0] <= model.get(hits.get(i))[0]);
+            }
+            for (IntervalTree.Span gap : tree.freeSlots(qs, qe, 1)) {
+                for (long[] iv : model.values()) assertFalse(iv[0] < gap.end && iv[1] > gap.start);
+            }
+        }
+    }
+
+    private static void assertSpan(long start, long end, IntervalTree.Span span) {
+        assertEquals(start, span.start);
+        assertEquals(end, span.end);
+    }
+}
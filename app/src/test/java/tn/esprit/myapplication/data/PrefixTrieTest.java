@@ -0,0 +1,80 @@
+package tn.esprit.myapplication.data;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PrefixTrieTest {
+
+    private static final PrefixTrie.KeyOf<String> SELF = s -> s;
+
+    private static PrefixTrie<String> trie(String... keys) {
+        PrefixTrie<String> t = new PrefixTrie<>(new HashSet<>(Collections.singletonList("dr")));
+        for (String k : keys) t.put(k, k);
+        return t;
+    }
+
+    @Test
+    public void findsAnyWordByPrefix() {
+        PrefixTrie<String> t = trie("Dr. Lina Ben Salah", "Dr. Amine Trabelsi");
+        assertEquals(Collections.singletonList("Dr. Lina Ben Salah"), t.find("sal", 10, SELF));
+        assertEquals(Collections.singletonList("Dr. Amine Trabelsi"), t.find("AMI", 10, SELF));
+    }
+
+    @Test
+    public void foldsCaseAndAccents() {
+        PrefixTrie<String> t = trie("Hôpital Charles Nicolle");
+        assertEquals(Collections.singletonList("Hôpital Charles Nicolle"), t.find("hop", 10, SELF));
+        assertEquals(Collections.singletonList("Hôpital Charles Nicolle"), t.find("HÔP", 10, SELF));
+    }
+
+    @Test
+    public void everyQueryWordMustMatch() {
+        PrefixTrie<String> t = trie("Lina Ben Salah", "Lina Gharbi", "Sara Ben Ali");
+        assertEquals(Collections.singletonList("Lina Ben Salah"), t.find("lin ben", 10, SELF));
+        assertEquals(Collections.singletonList("Lina Ben Salah"), t.find("ben lin", 10, SELF));
+        assertTrue(t.find("lin xyz", 10, SELF).isEmpty());
+    }
+
+    @Test
+    public void ignoredWordsAreNotIndexed() {
+        PrefixTrie<String> t = trie("Dr. Lina");
+        assertTrue(t.find("dr", 10, SELF).isEmpty());
+    }
+
+    @Test
+    public void ignoredWordsInTheQueryAreDropped() {
+        PrefixTrie<String> t = trie("Dr. Lina Ben Salah", "Dr. Amine Trabelsi");
+        assertEquals(Collections.singletonList("Dr. Lina Ben Salah"), t.find("dr li", 10, SELF));
+        assertEquals(Collections.singletonList("Dr. Lina Ben Salah"), t.find("Dr. Sa", 10, SELF));
+        assertTrue(t.find("dr", 10, SELF).isEmpty());
+    }
+
+    @Test
+    public void eachValueOnceInWordOrderUpToTheLimit() {
+        PrefixTrie<String> t = trie("Salah Salem", "Samir", "Sabri");
+        // "Salah Salem" has two words under "sa" but is listed once
+        assertEquals(Arrays.asList("Sabri", "Salah Salem", "Samir"), t.find("sa", 10, SELF));
+        assertEquals(Arrays.asList("Sabri", "Salah Salem"), t.find("sa", 2, SELF));
+        assertTrue(t.find("sa", 0, SELF).isEmpty());
+    }
+
+    @Test
+    public void blankOrUnknownQueriesFindNothing() {
+        PrefixTrie<String> t = trie("Lina");
+        assertTrue(t.find("", 10, SELF).isEmpty());
+        assertTrue(t.find(" ,. ", 10, SELF).isEmpty());
+        assertTrue(t.find("linaa", 10, SELF).isEmpty());
+    }
+
+    @Test
+    public void wordsAndFold() {
+        assertEquals(Arrays.asList("dr", "lina", "ben", "salah"), PrefixTrie.words("Dr. Lina  Ben-Salah"));
+        assertEquals("hopital charles nicolle", PrefixTrie.fold("Hôpital  Charles, Nicolle"));
+    }
+}
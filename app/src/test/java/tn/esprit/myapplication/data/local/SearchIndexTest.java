@@ -0,0 +1,36 @@
+package tn.esprit.myapplication.data.local;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class SearchIndexTest {
+
+    @Test
+    public void wordsBecomeQuotedPrefixTerms() {
+        assertEquals("\"car*\" \"lin*\"", SearchIndex.toMatchQuery("car lin"));
+    }
+
+    @Test
+    public void punctuationSplitsWordsAndIsDropped() {
+        assertEquals("\"Dr*\" \"Lina*\" \"cardio*\"", SearchIndex.toMatchQuery("  Dr. Lina, (cardio)! "));
+        assertEquals("\"a*\" \"b*\"", SearchIndex.toMatchQuery("a\"b"));
+    }
+
+    @Test
+    public void operatorsAreQuotedLikeAnyWord() {
+        assertEquals("\"heart*\" \"OR*\" \"NEAR*\" \"lung*\"", SearchIndex.toMatchQuery("heart OR NEAR lung"));
+    }
+
+    @Test
+    public void keepsLettersAndDigitsOfAnyScript() {
+        assertEquals("\"Médecin*\" \"37*\" \"5*\"", SearchIndex.toMatchQuery("Médecin 37,5"));
+        assertEquals("\"طبيب*\"", SearchIndex.toMatchQuery("طبيب"));
+    }
+
+    @Test
+    public void blankTextGivesAnEmptyQuery() {
+        assertEquals("", SearchIndex.toMatchQuery(""));
+        assertEquals("", SearchIndex.toMatchQuery(" ,.-! "));
+    }
+}
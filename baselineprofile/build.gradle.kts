@@ -0,0 +1,40 @@
+plugins {
+    alias(libs.plugins.android.test)
+    alias(libs.plugins.androidx.baselineprofile)
+}
+
+android {
+    namespace = "tn.esprit.myapplication.baselineprofile"
+    compileSdk {
+        version = release(36)
+    }
+
+    compileOptions {
+        sourceCompatibility = JavaVersion.VERSION_11
+        targetCompatibility = JavaVersion.VERSION_11
+    }
+
+    defaultConfig {
+        minSdk = 28
+        targetSdk = 36
+
+        testInstrumentationRunner = "androidx.test.runner.AndroidJUnitRunner"
+    }
+
+    targetProjectPath = ":app"
+}
+
+// Generates on a connected device (API 28+, rooted or API 33+) that can sign in to Firebase:
+// ./gradlew :app:generateBaselineProfile \
+//     -Pandroid.testInstrumentationRunnerArguments.email=... \
+//     -Pandroid.testInstrumentationRunnerArguments.password=...
+baselineProfile {
+    useConnectedDevices = true
+}
+
+dependencies {
+    implementation(libs.ext.junit)
+    implementation(libs.espresso.core)
+    implementation(libs.uiautomator)
+    implementation(libs.benchmark.macro.junit4)
+}
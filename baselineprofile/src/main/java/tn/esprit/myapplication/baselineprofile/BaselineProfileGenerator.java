@@ -0,0 +1,141 @@
+package tn.esprit.myapplication.baselineprofile;
+
+import android.content.Intent;
+import android.os.Bundle;
+
+import androidx.benchmark.macro.MacrobenchmarkScope;
+import androidx.benchmark.macro.junit4.BaselineProfileRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+import androidx.test.uiautomator.By;
+import androidx.test.uiautomator.Direction;
+import androidx.test.uiautomator.UiDevice;
+import androidx.test.uiautomator.UiObject2;
+import androidx.test.uiautomator.Until;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import kotlin.Unit;
+
+/**
+ * Records the classes and methods of the first-launch path into the app's baseline profile:
+ * sign-in (also written to the startup profile, which orders the dex), bottom-navigation tab
+ * switching in HomeActivity, and scrolling the indicators and visits lists.
+ *
+ * The device needs a Firebase account with some indicators and visits. Pass its credentials as
+ * the {@code email} and {@code password} instrumentation arguments; without them the generator
+ * only works on a device that is already signed in, and the auth flow records the splash handoff.
+ *
+ * Run with: ./gradlew :app:generateBaselineProfile
+ */
+@RunWith(AndroidJUnit4.class)
+public class BaselineProfileGenerator {
+
+    static final String TARGET_PACKAGE = "tn.esprit.myapplication";
+    private static final String LAUNCHER_ACTIVITY = TARGET_PACKAGE + ".ui.auth.AuthHostActivity";
+    private static final String EXTRA_SKIP_SEED = TARGET_PACKAGE + ".extra.SKIP_SEED";
+    private static final String[] TABS = {"menu_suivie", "menu_medication", "menu_profile", "menu_indicators"};
+    private static final long TIMEOUT_MS = 10_000;
+
+    @Rule
+    public BaselineProfileRule rule = new BaselineProfileRule();
+
+    @Test
+    public void authFlow() {
+        rule.collect(TARGET_PACKAGE, 15, 3, null, true, scope -> {
+            launch(scope);
+            // Sign out first when a session survived, so every iteration goes through the login screen
+            if (hasCredentials() && waitForHome(scope.getDevice(), TIMEOUT_MS)) signOut(scope.getDevice());
+            signIn(scope.getDevice());
+            return Unit.INSTANCE;
+        });
+    }
+
+    @Test
+    public void tabSwitching() {
+        rule.collect(TARGET_PACKAGE, scope -> {
+            launch(scope);
+            signIn(scope.getDevice());
+            for (String tab : TABS) tab(scope.getDevice(), tab);
+            return Unit.INSTANCE;
+        });
+    }
+
+    @Test
+    public void scrolling() {
+        rule.collect(TARGET_PACKAGE, scope -> {
+            launch(scope);
+            UiDevice device = scope.getDevice();
+            signIn(device);
+            tab(device, "menu_indicators");
+            scroll(device, "recyclerIndicators");
+            tab(device, "menu_suivie");
+            scroll(device, "recyclerVisits");
+            return Unit.INSTANCE;
+        });
+    }
+
+    private static void launch(MacrobenchmarkScope scope) {
+        Intent intent = new Intent(Intent.ACTION_MAIN);
+        intent.setClassName(TARGET_PACKAGE, LAUNCHER_ACTIVITY);
+        intent.putExtra(EXTRA_SKIP_SEED, true);
+        scope.startActivityAndWait(intent);
+    }
+
+    /** Signs in through the login screen if it shows up; returns once Home is displayed. */
+    private static void signIn(UiDevice device) {
+        UiObject2 email = device.wait(Until.findObject(By.res(TARGET_PACKAGE, "inputEmail")), TIMEOUT_MS / 2);
+        if (email != null) {
+            if (!hasCredentials()) {
+                throw new IllegalStateException("Signed out and no email/password instrumentation arguments");
+            }
+            Bundle args = InstrumentationRegistry.getArguments();
+            email.setText(args.getString("email"));
+            device.findObject(By.res(TARGET_PACKAGE, "inputPassword")).setText(args.getString("password"));
+            device.findObject(By.res(TARGET_PACKAGE, "btnLogin")).click();
+        }
+        if (!waitForHome(device, TIMEOUT_MS)) throw new IllegalStateException("Home not displayed");
+    }
+
+    private static void signOut(UiDevice device) {
+        UiObject2 action = device.findObject(By.res(TARGET_PACKAGE, "action_sign_out"));
+        if (action == null) {
+            // No room in the app bar: the item is in the overflow menu, which has no resource ids
+            device.findObject(By.desc("More options")).click();
+            action = device.wait(Until.findObject(By.text("Sign out")), TIMEOUT_MS);
+            if (action == null) throw new IllegalStateException("Sign out not found");
+        }
+        action.click();
+        device.wait(Until.hasObject(By.res(TARGET_PACKAGE, "inputEmail")), TIMEOUT_MS);
+    }
+
+    private static boolean waitForHome(UiDevice device, long timeoutMs) {
+        return device.wait(Until.hasObject(By.res(TARGET_PACKAGE, "menu_indicators")), timeoutMs);
+    }
+
+    private static boolean hasCredentials() {
+        Bundle args = InstrumentationRegistry.getArguments();
+        return args.getString("email") != null && args.getString("password") != null;
+    }
+
+    private static void tab(UiDevice device, String id) {
+        UiObject2 item = device.wait(Until.findObject(By.res(TARGET_PACKAGE, id)), TIMEOUT_MS);
+        if (item == null) throw new IllegalStateException("Tab not found: " + id);
+        item.click();
+        device.waitForIdle();
+    }
+
+    /** Flings the list down and back up, binding rows and running the item animations. */
+    private static void scroll(UiDevice device, String id) {
+        UiObject2 list = device.wait(Until.findObject(By.res(TARGET_PACKAGE, id)), TIMEOUT_MS);
+        if (list == null) throw new IllegalStateException("List not found: " + id);
+        // Keep the gesture off the system navigation edges
+        list.setGestureMargin(device.getDisplayWidth() / 5);
+        list.fling(Direction.DOWN);
+        device.waitForIdle();
+        list.fling(Direction.UP);
+        device.waitForIdle();
+    }
+}
@@ -0,0 +1,95 @@
+package tn.esprit.myapplication.benchmark;
+
+import android.content.Intent;
+
+import androidx.benchmark.macro.BaselineProfileMode;
+import androidx.benchmark.macro.CompilationMode;
+import androidx.benchmark.macro.FrameTimingMetric;
+import androidx.benchmark.macro.MacrobenchmarkScope;
+import androidx.benchmark.macro.StartupMode;
+import androidx.benchmark.macro.junit4.MacrobenchmarkRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.uiautomator.By;
+import androidx.test.uiautomator.Direction;
+import androidx.test.uiautomator.UiObject2;
+import androidx.test.uiautomator.Until;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Collections;
+
+import kotlin.Unit;
+
+/**
+ * Frame timing of the first scroll through the indicators and visits lists after a cold start,
+ * without compilation and with the baseline profile only; the first scroll after install is where
+ * row binding still runs interpreted. Needs a signed-in user with data, like {@link StartupBenchmark}.
+ */
+@RunWith(AndroidJUnit4.class)
+public class ScrollBenchmark {
+
+    private static final String LAUNCHER_ACTIVITY = StartupBenchmark.TARGET_PACKAGE + ".ui.auth.AuthHostActivity";
+    private static final String EXTRA_SKIP_SEED = StartupBenchmark.TARGET_PACKAGE + ".extra.SKIP_SEED";
+    private static final int ITERATIONS = 10;
+    private static final long TIMEOUT_MS = 5_000;
+
+    @Rule
+    public MacrobenchmarkRule rule = new MacrobenchmarkRule();
+
+    @Test
+    public void indicatorsNoCompilation() {
+        scroll(null, "recyclerIndicators", new CompilationMode.None());
+    }
+
+    @Test
+    public void indicatorsBaselineProfile() {
+        scroll(null, "recyclerIndicators", new CompilationMode.Partial(BaselineProfileMode.Require));
+    }
+
+    @Test
+    public void visitsNoCompilation() {
+        scroll("menu_suivie", "recyclerVisits", new CompilationMode.None());
+    }
+
+    @Test
+    public void visitsBaselineProfile() {
+        scroll("menu_suivie", "recyclerVisits", new CompilationMode.Partial(BaselineProfileMode.Require));
+    }
+
+    /** {@code tab} is selected before measuring; null stays on the default (indicators) tab. */
+    private void scroll(String tab, String list, CompilationMode compilation) {
+        rule.measureRepeated(
+                StartupBenchmark.TARGET_PACKAGE,
+                Collections.singletonList(new FrameTimingMetric()),
+                compilation,
+                StartupMode.COLD,
+                ITERATIONS,
+                scope -> {
+                    Intent intent = new Intent(Intent.ACTION_MAIN);
+                    intent.setClassName(StartupBenchmark.TARGET_PACKAGE, LAUNCHER_ACTIVITY);
+                    intent.putExtra(EXTRA_SKIP_SEED, true);
+                    scope.startActivityAndWait(intent);
+                    if (tab != null) find(scope, tab).click();
+                    return Unit.INSTANCE;
+                },
+                scope -> {
+                    UiObject2 recycler = find(scope, list);
+                    // Keep the gesture off the system navigation edges
+                    recycler.setGestureMargin(scope.getDevice().getDisplayWidth() / 5);
+                    recycler.fling(Direction.DOWN);
+                    scope.getDevice().waitForIdle();
+                    recycler.fling(Direction.UP);
+                    scope.getDevice().waitForIdle();
+                    return Unit.INSTANCE;
+                });
+    }
+
+    private static UiObject2 find(MacrobenchmarkScope scope, String id) {
+        UiObject2 view = scope.getDevice().wait(
+                Until.findObject(By.res(StartupBenchmark.TARGET_PACKAGE, id)), TIMEOUT_MS);
+        if (view == null) throw new IllegalStateException("View not found: " + id);
+        return view;
+    }
+}
@@ -0,0 +1,87 @@
+package tn.esprit.myapplication.benchmark;
+
+import android.content.Intent;
+
+import androidx.benchmark.macro.BaselineProfileMode;
+import androidx.benchmark.macro.CompilationMode;
+import androidx.benchmark.macro.StartupMode;
+import androidx.benchmark.macro.StartupTimingMetric;
+import androidx.benchmark.macro.junit4.MacrobenchmarkRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Collections;
+
+import kotlin.Unit;
+
+/**
+ * Cold start of HomeActivity, with and without demo seeding, and warm start (process alive,
+ * activity recreated), reported as time to initial display (first frame). With a signed-in user
+ * the launch goes through the splash handoff to Home; on a fresh device it stops at the auth
+ * screen, which is the signed-out start.
+ *
+ * {@code startupNoCompilation} / {@code startupBaselineProfile} are the before / after of the app's
+ * baseline profile: fully interpreted and JIT-compiled, against AOT-compiled from the profile alone.
+ *
+ * Run with: ./gradlew :benchmark:connectedBenchmarkAndroidTest
+ * On CI, without a device: ./gradlew :benchmark:pixel6Api34BenchmarkAndroidTest
+ */
+@RunWith(AndroidJUnit4.class)
+public class StartupBenchmark {
+
+    static final String TARGET_PACKAGE = "tn.esprit.myapplication";
+    private static final String LAUNCHER_ACTIVITY = TARGET_PACKAGE + ".ui.auth.AuthHostActivity";
+    private static final String EXTRA_SKIP_SEED = TARGET_PACKAGE + ".extra.SKIP_SEED";
+    private static final int ITERATIONS = 10;
+
+    @Rule
+    public MacrobenchmarkRule rule = new MacrobenchmarkRule();
+
+    @Test
+    public void startupWithSeeding() {
+        startup(false, StartupMode.COLD, CompilationMode.DEFAULT);
+    }
+
+    @Test
+    public void startupWithoutSeeding() {
+        startup(true, StartupMode.COLD, CompilationMode.DEFAULT);
+    }
+
+    @Test
+    public void warmStartup() {
+        startup(true, StartupMode.WARM, CompilationMode.DEFAULT);
+    }
+
+    @Test
+    public void startupNoCompilation() {
+        startup(true, StartupMode.COLD, new CompilationMode.None());
+    }
+
+    @Test
+    public void startupBaselineProfile() {
+        startup(true, StartupMode.COLD, new CompilationMode.Partial(BaselineProfileMode.Require));
+    }
+
+    private void startup(boolean skipSeed, StartupMode mode, CompilationMode compilation) {
+        rule.measureRepeated(
+                TARGET_PACKAGE,
+                Collections.singletonList(new StartupTimingMetric()),
+                compilation,
+                mode,
+                ITERATIONS,
+                scope -> {
+                    scope.pressHome();
+                    return Unit.INSTANCE;
+                },
+                scope -> {
+                    Intent intent = new Intent(Intent.ACTION_MAIN);
+                    intent.setClassName(TARGET_PACKAGE, LAUNCHER_ACTIVITY);
+                    intent.putExtra(EXTRA_SKIP_SEED, skipSeed);
+                    scope.startActivityAndWait(intent);
+                    return Unit.INSTANCE;
+                });
+    }
+}
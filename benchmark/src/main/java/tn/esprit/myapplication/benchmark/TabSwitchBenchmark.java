@@ -0,0 +1,74 @@
+package tn.esprit.myapplication.benchmark;
+
+import android.content.Intent;
+
+import androidx.benchmark.macro.CompilationMode;
+import androidx.benchmark.macro.FrameTimingMetric;
+import androidx.benchmark.macro.MacrobenchmarkScope;
+import androidx.benchmark.macro.junit4.MacrobenchmarkRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.uiautomator.By;
+import androidx.test.uiautomator.UiObject2;
+import androidx.test.uiautomator.Until;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Collections;
+
+import kotlin.Unit;
+
+/**
+ * Frame timing while cycling through the four bottom-navigation tabs of HomeActivity. With
+ * show/hide tabs no frame should re-inflate a layout or wait on Firestore, so frame durations
+ * should stay within one vsync. Needs a signed-in user, like {@link StartupBenchmark}.
+ */
+@RunWith(AndroidJUnit4.class)
+public class TabSwitchBenchmark {
+
+    private static final String LAUNCHER_ACTIVITY = StartupBenchmark.TARGET_PACKAGE + ".ui.auth.AuthHostActivity";
+    private static final String EXTRA_SKIP_SEED = StartupBenchmark.TARGET_PACKAGE + ".extra.SKIP_SEED";
+    private static final String[] TABS = {"menu_suivie", "menu_medication", "menu_profile", "menu_indicators"};
+    private static final int ROUNDS = 3;
+    private static final int ITERATIONS = 10;
+    private static final long TIMEOUT_MS = 5_000;
+
+    @Rule
+    public MacrobenchmarkRule rule = new MacrobenchmarkRule();
+
+    @Test
+    public void switchTabs() {
+        rule.measureRepeated(
+                StartupBenchmark.TARGET_PACKAGE,
+                Collections.singletonList(new FrameTimingMetric()),
+                CompilationMode.DEFAULT,
+                null, // not a startup measurement; the process stays alive between iterations
+                ITERATIONS,
+                scope -> {
+                    Intent intent = new Intent(Intent.ACTION_MAIN);
+                    intent.setClassName(StartupBenchmark.TARGET_PACKAGE, LAUNCHER_ACTIVITY);
+                    intent.putExtra(EXTRA_SKIP_SEED, true);
+                    scope.startActivityAndWait(intent);
+                    // First visit of every tab happens outside the measured block
+                    cycle(scope, 1);
+                    return Unit.INSTANCE;
+                },
+                scope -> {
+                    cycle(scope, ROUNDS);
+                    return Unit.INSTANCE;
+                });
+    }
+
+    private static void cycle(MacrobenchmarkScope scope, int rounds) {
+        for (int r = 0; r < rounds; r++) {
+            for (String tab : TABS) {
+                UiObject2 item = scope.getDevice().wait(
+                        Until.findObject(By.res(StartupBenchmark.TARGET_PACKAGE, tab)), TIMEOUT_MS);
+                if (item == null) throw new IllegalStateException("Tab not found: " + tab);
+                item.click();
+                scope.getDevice().waitForIdle();
+            }
+        }
+    }
+}